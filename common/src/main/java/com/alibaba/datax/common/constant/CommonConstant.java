@@ -6,4 +6,10 @@ public final class CommonConstant {
      */
     public static String LOAD_BALANCE_RESOURCE_MARK = "loadBalanceResourceMark";
 
+    /**
+     * 用于插件对自身 split 的每个 task 给出其数据量的估计（字节数，如文件大小、主键区间的估算行数乘行长），
+     * core 据此把 task 按数据量而不是按个数均衡地分配到各 taskGroup；可选，不必精确
+     */
+    public static String SPLIT_SIZE_HINT = "splitSizeHint";
+
 }
@@ -0,0 +1,163 @@
+package com.alibaba.datax.common.element;
+
+import com.alibaba.datax.common.exception.CommonErrorCode;
+import com.alibaba.datax.common.exception.DataXException;
+
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * 变长列：所有行的字节首尾相接存放在一个byte[]中，第row行位于[offsets[row], offsets[row + 1])。
+ * <p/>
+ * 用于STRING（UTF-8）、BYTES，以及无法放入long/double的LONG、DOUBLE（十进制字符串）。
+ * 必须按行号从小到大依次写入。
+ */
+public class BytesColumnVector extends ColumnVector {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private final int[] offsets;
+
+	private byte[] buffer;
+
+	private int written = 0;
+
+	public BytesColumnVector(final Column.Type type, int capacity) {
+		super(type, capacity);
+		if (Column.Type.STRING != type && Column.Type.BYTES != type
+				&& Column.Type.LONG != type && Column.Type.DOUBLE != type) {
+			throw DataXException.asDataXException(
+					CommonErrorCode.CONVERT_NOT_SUPPORT,
+					String.format("BytesColumnVector不支持[%s]类型 .", type));
+		}
+		this.offsets = new int[capacity + 1];
+		this.buffer = new byte[Math.max(capacity * 16, 16)];
+	}
+
+	public void set(int row, final byte[] value, int start, int length) {
+		this.checkOrder(row);
+		int offset = this.offsets[row];
+		if (offset + length > this.buffer.length) {
+			this.buffer = Arrays.copyOf(this.buffer,
+					Math.max(this.buffer.length << 1, offset + length));
+		}
+		System.arraycopy(value, start, this.buffer, offset, length);
+		this.offsets[row + 1] = offset + length;
+		this.written = row + 1;
+		this.setNotNull(row);
+	}
+
+	public void set(int row, final String value) {
+		if (null == value) {
+			this.setNull(row);
+			return;
+		}
+		byte[] bytes = value.getBytes(UTF_8);
+		this.set(row, bytes, 0, bytes.length);
+	}
+
+	@Override
+	public void setNull(int row) {
+		this.checkOrder(row);
+		this.offsets[row + 1] = this.offsets[row];
+		this.written = row + 1;
+		super.setNull(row);
+	}
+
+	private void checkOrder(int row) {
+		if (row != this.written) {
+			throw DataXException.asDataXException(
+					CommonErrorCode.RUNTIME_ERROR,
+					String.format("BytesColumnVector必须按行顺序写入，期望第%s行，实际第%s行 .",
+							this.written, row));
+		}
+	}
+
+	public byte[] getBuffer() {
+		return this.buffer;
+	}
+
+	public int getStart(int row) {
+		return this.offsets[row];
+	}
+
+	public int getLength(int row) {
+		return this.offsets[row + 1] - this.offsets[row];
+	}
+
+	public byte[] getBytes(int row) {
+		if (this.isNull(row)) {
+			return null;
+		}
+		return Arrays.copyOfRange(this.buffer, this.offsets[row], this.offsets[row + 1]);
+	}
+
+	public String getString(int row) {
+		if (this.isNull(row)) {
+			return null;
+		}
+		return new String(this.buffer, this.offsets[row], this.getLength(row), UTF_8);
+	}
+
+	@Override
+	public Column getColumn(int row) {
+		boolean isNull = this.isNull(row);
+		switch (this.getType()) {
+			case BYTES:
+				return new BytesColumn(isNull ? null : this.getBytes(row));
+			case LONG:
+				return isNull ? new LongColumn() : new LongColumn(new BigInteger(this.getString(row)));
+			case DOUBLE:
+				return new DoubleColumn(this.getString(row));
+			default:
+				return new StringColumn(this.getString(row));
+		}
+	}
+
+	@Override
+	protected boolean accept(final Column column) {
+		if (null == column) {
+			return false;
+		}
+		switch (this.getType()) {
+			case BYTES:
+				return column.getClass() == BytesColumn.class;
+			case LONG:
+				return column.getClass() == LongColumn.class;
+			case DOUBLE:
+				return column.getClass() == DoubleColumn.class;
+			default:
+				return column.getClass() == StringColumn.class;
+		}
+	}
+
+	@Override
+	protected void setColumn(int row, final Column column) {
+		Object rawData = column.getRawData();
+		if (null == rawData) {
+			this.setNull(row);
+		} else if (Column.Type.BYTES == this.getType()) {
+			byte[] bytes = (byte[]) rawData;
+			this.set(row, bytes, 0, bytes.length);
+		} else {
+			this.set(row, column.asString());
+		}
+	}
+
+	@Override
+	public int getByteSize(int size) {
+		int bytes = 0;
+		for (int i = 0; i < size; i++) {
+			if (!this.isNull(i)) {
+				bytes += Column.Type.LONG == this.getType() ? 8 : this.getLength(i);
+			}
+		}
+		return bytes;
+	}
+
+	@Override
+	public int getMemorySize() {
+		return super.getMemorySize() + this.offsets.length * 4 + this.buffer.length;
+	}
+}
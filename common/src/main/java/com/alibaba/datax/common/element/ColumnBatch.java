@@ -0,0 +1,139 @@
+package com.alibaba.datax.common.element;
+
+import com.alibaba.datax.common.exception.CommonErrorCode;
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.plugin.BatchRecordSender;
+import com.alibaba.datax.common.plugin.RecordSender;
+
+/**
+ * 列式的一批数据，每列一个ColumnVector，行数为size。
+ * <p/>
+ * 能批量产出/消费数据的插件通过 BatchRecordSender.sendBatch / BatchRecordReceiver.getBatchFromReader
+ * 直接交换ColumnBatch，跳过逐个Column对象的构造；只有一端支持时由框架通过
+ * append/fillRecord 在行列之间自动转换。
+ * <p/>
+ * 插件自己构造时：按列创建vector并逐行写入，最后setSize，然后sendTo，
+ * 发送后batch归框架所有，插件不能再修改。
+ */
+public class ColumnBatch {
+
+	private final ColumnVector[] vectors;
+
+	private final int capacity;
+
+	private int size = 0;
+
+	public ColumnBatch(int capacity, final ColumnVector... vectors) {
+		for (ColumnVector vector : vectors) {
+			if (vector.getCapacity() < capacity) {
+				throw DataXException.asDataXException(
+						CommonErrorCode.RUNTIME_ERROR,
+						String.format("ColumnVector容量[%s]小于ColumnBatch容量[%s] .",
+								vector.getCapacity(), capacity));
+			}
+		}
+		this.capacity = capacity;
+		this.vectors = vectors;
+	}
+
+	/**
+	 * 以record的列类型为模板创建空batch，随后用append逐行追加同构的record
+	 */
+	public static ColumnBatch forRecord(final Record record, int capacity) {
+		ColumnVector[] vectors = new ColumnVector[record.getColumnNumber()];
+		for (int i = 0; i < vectors.length; i++) {
+			vectors[i] = ColumnVector.forColumn(record.getColumn(i), capacity);
+		}
+		return new ColumnBatch(capacity, vectors);
+	}
+
+	/**
+	 * 追加一行，batch已满或record与当前各列不能无损匹配时返回false且不做任何修改，
+	 * 调用方应当发送当前batch，再以该record新建batch。
+	 */
+	public boolean append(final Record record) {
+		if (this.size >= this.capacity
+				|| record.getColumnNumber() != this.vectors.length) {
+			return false;
+		}
+		for (int i = 0; i < this.vectors.length; i++) {
+			if (!this.vectors[i].accept(record.getColumn(i))) {
+				return false;
+			}
+		}
+		for (int i = 0; i < this.vectors.length; i++) {
+			this.vectors[i].setColumn(this.size, record.getColumn(i));
+		}
+		this.size++;
+		return true;
+	}
+
+	/**
+	 * 把第row行还原成Column追加到record中
+	 */
+	public void fillRecord(int row, final Record record) {
+		for (ColumnVector vector : this.vectors) {
+			record.addColumn(vector.getColumn(row));
+		}
+	}
+
+	/**
+	 * sender支持BatchRecordSender时整批发送，否则逐行转换成record用sendToWriter发送
+	 */
+	public void sendTo(final RecordSender sender) {
+		if (sender instanceof BatchRecordSender) {
+			((BatchRecordSender) sender).sendBatch(this);
+			return;
+		}
+		for (int row = 0; row < this.size; row++) {
+			Record record = sender.createRecord();
+			this.fillRecord(row, record);
+			sender.sendToWriter(record);
+		}
+	}
+
+	public ColumnVector getVector(int i) {
+		return this.vectors[i];
+	}
+
+	public int getColumnNumber() {
+		return this.vectors.length;
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public void setSize(int size) {
+		if (size < 0 || size > this.capacity) {
+			throw DataXException.asDataXException(
+					CommonErrorCode.RUNTIME_ERROR,
+					String.format("ColumnBatch行数[%s]超出容量[%s] .", size, this.capacity));
+		}
+		this.size = size;
+	}
+
+	public int getCapacity() {
+		return this.capacity;
+	}
+
+	public boolean isFull() {
+		return this.size >= this.capacity;
+	}
+
+	public int getByteSize() {
+		int bytes = 0;
+		for (ColumnVector vector : this.vectors) {
+			bytes += vector.getByteSize(this.size);
+		}
+		return bytes;
+	}
+
+	public int getMemorySize() {
+		int bytes = 16;
+		for (ColumnVector vector : this.vectors) {
+			bytes += vector.getMemorySize();
+		}
+		return bytes;
+	}
+}
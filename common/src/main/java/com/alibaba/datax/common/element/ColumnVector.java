@@ -0,0 +1,105 @@
+package com.alibaba.datax.common.element;
+
+/**
+ * ColumnBatch中的一列数据，按行号存取，null用位图标记。
+ * <p/>
+ * 各实现只负责能无损还原的Column：accept返回false时由ColumnBatch换成其他实现或另起一个batch，
+ * 保证 record -> batch -> record 之后asXXX的结果与原Column完全一致。
+ */
+public abstract class ColumnVector {
+
+	private final Column.Type type;
+
+	private final int capacity;
+
+	private final long[] nulls;
+
+	private boolean noNulls = true;
+
+	protected ColumnVector(final Column.Type type, int capacity) {
+		this.type = type;
+		this.capacity = capacity;
+		this.nulls = new long[(capacity + 63) >>> 6];
+	}
+
+	public Column.Type getType() {
+		return this.type;
+	}
+
+	public int getCapacity() {
+		return this.capacity;
+	}
+
+	public boolean isNull(int row) {
+		return !this.noNulls && (this.nulls[row >>> 6] & (1L << row)) != 0;
+	}
+
+	public void setNull(int row) {
+		this.nulls[row >>> 6] |= 1L << row;
+		this.noNulls = false;
+	}
+
+	protected void setNotNull(int row) {
+		if (!this.noNulls) {
+			this.nulls[row >>> 6] &= ~(1L << row);
+		}
+	}
+
+	/**
+	 * 把第row行还原成Column，插件逐行读取时使用
+	 */
+	public abstract Column getColumn(int row);
+
+	/**
+	 * column能否无损地存入本列，不修改任何内容
+	 */
+	protected abstract boolean accept(Column column);
+
+	/**
+	 * 调用前必须已经accept
+	 */
+	protected abstract void setColumn(int row, Column column);
+
+	/**
+	 * 前size行的数据字节数，口径与对应Column的byteSize一致，用于统计
+	 */
+	public abstract int getByteSize(int size);
+
+	public int getMemorySize() {
+		return 16 + this.nulls.length * 8;
+	}
+
+	/**
+	 * 按第一行的Column选择能无损保存它的最紧凑实现
+	 */
+	static ColumnVector forColumn(final Column column, int capacity) {
+		if (null == column) {
+			return new ObjectColumnVector(Column.Type.NULL, capacity);
+		}
+
+		Class<?> clazz = column.getClass();
+		ColumnVector vector;
+		if (clazz == LongColumn.class) {
+			vector = new LongColumnVector(capacity);
+			if (!vector.accept(column)) {
+				vector = new BytesColumnVector(Column.Type.LONG, capacity);
+			}
+		} else if (clazz == DoubleColumn.class) {
+			vector = new DoubleColumnVector(capacity);
+			if (!vector.accept(column)) {
+				vector = new BytesColumnVector(Column.Type.DOUBLE, capacity);
+			}
+		} else if (clazz == DateColumn.class) {
+			vector = new LongColumnVector(((DateColumn) column).getSubType(), capacity);
+		} else if (clazz == BoolColumn.class) {
+			vector = new LongColumnVector(Column.Type.BOOL, capacity);
+		} else if (clazz == StringColumn.class) {
+			vector = new BytesColumnVector(Column.Type.STRING, capacity);
+		} else if (clazz == BytesColumn.class) {
+			vector = new BytesColumnVector(Column.Type.BYTES, capacity);
+		} else {
+			vector = new ObjectColumnVector(column.getType(), capacity);
+		}
+		return vector;
+	}
+}
@@ -9,6 +9,19 @@ import java.util.Date;
 
 public class DoubleColumn extends Column {
 
+	/**
+	 * 由Double构造时直接保存原始值，字符串形式的rawData在首次被需要时才生成；
+	 * asDouble/asLong等常用转换不再经过BigDecimal，结果与原先完全一致
+	 */
+	private double doubleValue;
+
+	private boolean hasDouble = false;
+
+	/**
+	 * 2^53，绝对值小于它的double截断取整与其十进制字符串截断取整结果相同
+	 */
+	private static final double EXACT_INTEGER_BOUND = 9007199254740992d;
+
 	public DoubleColumn(final String data) {
 		this(data, null == data ? 0 : data.length());
 		this.validate(data);
@@ -27,8 +40,16 @@ public class DoubleColumn extends Column {
 	 * 
 	 * */
 	public DoubleColumn(final Double data) {
-		this(data == null ? (String) null
-				: new BigDecimal(String.valueOf(data)).toPlainString());
+		this((String) null, null == data ? 0 : 8);
+		if (null == data) {
+			return;
+		}
+		if (data.isNaN() || data.isInfinite()) {
+			// 与原先 new BigDecimal(String.valueOf(data)) 的行为保持一致
+			throw new NumberFormatException(String.valueOf(data));
+		}
+		this.doubleValue = data;
+		this.hasDouble = true;
 	}
 
 	/**
@@ -52,10 +73,32 @@ public class DoubleColumn extends Column {
 		this((String) null);
 	}
 
-	private DoubleColumn(final String data, int byteSize) {
+	/**
+	 * 不校验data，只用于RecordDecoder还原编码前已经校验过的值
+	 */
+	DoubleColumn(final String data, int byteSize) {
 		super(data, Column.Type.DOUBLE, byteSize);
 	}
 
+	/**
+	 * 值由Double构造、以原始类型保存，ColumnVector据此判断能否直接放入double[]
+	 */
+	boolean isDoubleValue() {
+		return this.hasDouble;
+	}
+
+	double doubleValue() {
+		return this.doubleValue;
+	}
+
+	@Override
+	public Object getRawData() {
+		if (this.hasDouble && null == super.getRawData()) {
+			super.setRawData(new BigDecimal(String.valueOf(this.doubleValue)).toPlainString());
+		}
+		return super.getRawData();
+	}
+
 	@Override
 	public BigDecimal asBigDecimal() {
 		if (null == this.getRawData()) {
@@ -74,6 +117,11 @@ public class DoubleColumn extends Column {
 
 	@Override
 	public Double asDouble() {
+		if (this.hasDouble) {
+			// 十进制字符串解析回来就是原值，只有-0.0会经BigDecimal变成0.0
+			return this.doubleValue == 0 ? 0d : this.doubleValue;
+		}
+
 		if (null == this.getRawData()) {
 			return null;
 		}
@@ -94,6 +142,10 @@ public class DoubleColumn extends Column {
 
 	@Override
 	public Long asLong() {
+		if (this.hasDouble && Math.abs(this.doubleValue) < EXACT_INTEGER_BOUND) {
+			return (long) this.doubleValue;
+		}
+
 		if (null == this.getRawData()) {
 			return null;
 		}
@@ -106,6 +158,10 @@ public class DoubleColumn extends Column {
 
 	@Override
 	public BigInteger asBigInteger() {
+		if (this.hasDouble && Math.abs(this.doubleValue) < EXACT_INTEGER_BOUND) {
+			return BigInteger.valueOf((long) this.doubleValue);
+		}
+
 		if (null == this.getRawData()) {
 			return null;
 		}
@@ -0,0 +1,91 @@
+package com.alibaba.datax.common.element;
+
+import java.math.BigDecimal;
+
+/**
+ * 以double[]保存的DOUBLE列。
+ * <p/>
+ * DoubleColumn内部是字符串，只有与new DoubleColumn(double)结果完全相同的值才被接受，
+ * 例如"1.10"、超出double精度的小数都会交给BytesColumnVector按原字符串保存。
+ */
+public class DoubleColumnVector extends ColumnVector {
+
+	private final double[] vector;
+
+	public DoubleColumnVector(int capacity) {
+		super(Column.Type.DOUBLE, capacity);
+		this.vector = new double[capacity];
+	}
+
+	public double get(int row) {
+		return this.vector[row];
+	}
+
+	public void set(int row, double value) {
+		this.vector[row] = value;
+		this.setNotNull(row);
+	}
+
+	public double[] getVector() {
+		return this.vector;
+	}
+
+	@Override
+	public Column getColumn(int row) {
+		return this.isNull(row) ? new DoubleColumn() : new DoubleColumn(this.vector[row]);
+	}
+
+	@Override
+	protected boolean accept(final Column column) {
+		if (null == column || column.getClass() != DoubleColumn.class) {
+			return false;
+		}
+		if (((DoubleColumn) column).isDoubleValue()) {
+			return true;
+		}
+		String data = (String) column.getRawData();
+		return null == data || null != exactValue(data);
+	}
+
+	@Override
+	protected void setColumn(int row, final Column column) {
+		if (((DoubleColumn) column).isDoubleValue()) {
+			this.set(row, column.asDouble());
+			return;
+		}
+		String data = (String) column.getRawData();
+		if (null == data) {
+			this.setNull(row);
+		} else {
+			this.set(row, exactValue(data));
+		}
+	}
+
+	private static Double exactValue(final String data) {
+		try {
+			double value = Double.parseDouble(data);
+			if (Double.isNaN(value) || Double.isInfinite(value)) {
+				return null;
+			}
+			return data.equals(new BigDecimal(String.valueOf(value)).toPlainString()) ? value : null;
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	@Override
+	public int getByteSize(int size) {
+		int bytes = 0;
+		for (int i = 0; i < size; i++) {
+			if (!this.isNull(i)) {
+				bytes += 8;
+			}
+		}
+		return bytes;
+	}
+
+	@Override
+	public int getMemorySize() {
+		return super.getMemorySize() + this.vector.length * 8;
+	}
+}
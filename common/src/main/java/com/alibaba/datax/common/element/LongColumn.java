@@ -10,6 +10,14 @@ import java.util.Date;
 
 public class LongColumn extends Column {
 
+	/**
+	 * long范围内的值直接保存为原始类型，只有超出long范围时才使用BigInteger作为rawData；
+	 * getRawData()/asBigInteger()被调用时才按需生成BigInteger，语义与原先完全一致
+	 */
+	private long longValue;
+
+	private boolean hasLong = false;
+
 	/**
 	 * 从整形字符串表示转为LongColumn，支持Java科学计数法
 	 * 
@@ -23,13 +31,19 @@ public class LongColumn extends Column {
 			return;
 		}
 
+		// 当 rawData 为[0-127]时，rawData.bitLength() < 8，导致其 byteSize = 0，简单起见，直接认为其长度为 data.length()
+		// super.setByteSize(rawData.bitLength() / 8);
+		if (isPlainLong(data)) {
+			this.setLongValue(parsePlainLong(data));
+			super.setByteSize(data.length());
+			return;
+		}
+
 		try {
 			BigInteger rawData = NumberUtils.createBigDecimal(data)
 					.toBigInteger();
-			super.setRawData(rawData);
+			this.setBigInteger(rawData);
 
-			// 当 rawData 为[0-127]时，rawData.bitLength() < 8，导致其 byteSize = 0，简单起见，直接认为其长度为 data.length()
-			// super.setByteSize(rawData.bitLength() / 8);
 			super.setByteSize(data.length());
 		} catch (Exception e) {
 			throw DataXException.asDataXException(
@@ -38,12 +52,23 @@ public class LongColumn extends Column {
 		}
 	}
 
+	public LongColumn(long data) {
+		super(null, Column.Type.LONG, 8);
+		this.setLongValue(data);
+	}
+
 	public LongColumn(Long data) {
-		this(null == data ? (BigInteger) null : BigInteger.valueOf(data));
+		super(null, Column.Type.LONG, null == data ? 0 : 8);
+		if (null != data) {
+			this.setLongValue(data);
+		}
 	}
 
 	public LongColumn(Integer data) {
-		this(null == data ? (BigInteger) null : BigInteger.valueOf(data));
+		super(null, Column.Type.LONG, null == data ? 0 : 8);
+		if (null != data) {
+			this.setLongValue(data);
+		}
 	}
 
 	public LongColumn(BigInteger data) {
@@ -51,13 +76,83 @@ public class LongColumn extends Column {
 	}
 
 	private LongColumn(BigInteger data, int byteSize) {
-		super(data, Column.Type.LONG, byteSize);
+		super(null, Column.Type.LONG, byteSize);
+		if (null != data) {
+			this.setBigInteger(data);
+		}
 	}
 
 	public LongColumn() {
 		this((BigInteger) null);
 	}
 
+	private void setLongValue(long data) {
+		this.longValue = data;
+		this.hasLong = true;
+	}
+
+	private void setBigInteger(BigInteger data) {
+		if (data.bitLength() < 64) {
+			this.setLongValue(data.longValue());
+		} else {
+			super.setRawData(data);
+		}
+	}
+
+	/**
+	 * 不超过18位的十进制整数（可带正负号）一定在long范围内，可以不经过BigDecimal直接解析
+	 */
+	private static boolean isPlainLong(final String data) {
+		int length = data.length();
+		int start = (length > 0 && (data.charAt(0) == '-' || data.charAt(0) == '+')) ? 1 : 0;
+		if (length == start || length - start > 18) {
+			return false;
+		}
+		for (int i = start; i < length; i++) {
+			char c = data.charAt(i);
+			if (c < '0' || c > '9') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static long parsePlainLong(final String data) {
+		boolean negative = data.charAt(0) == '-';
+		int i = (negative || data.charAt(0) == '+') ? 1 : 0;
+		long result = 0;
+		for (; i < data.length(); i++) {
+			result = result * 10 + (data.charAt(i) - '0');
+		}
+		return negative ? -result : result;
+	}
+
+	/**
+	 * 值为null或在long范围内，ColumnVector据此判断能否放入long[]
+	 */
+	boolean isLongValue() {
+		return this.hasLong || null == super.getRawData();
+	}
+
+	/**
+	 * 值以原始long保存，编码时可以不生成BigInteger直接读取longValue()
+	 */
+	boolean hasLongValue() {
+		return this.hasLong;
+	}
+
+	long longValue() {
+		return this.longValue;
+	}
+
+	@Override
+	public Object getRawData() {
+		if (this.hasLong && null == super.getRawData()) {
+			super.setRawData(BigInteger.valueOf(this.longValue));
+		}
+		return super.getRawData();
+	}
+
 	@Override
 	public BigInteger asBigInteger() {
 		if (null == this.getRawData()) {
@@ -69,6 +164,10 @@ public class LongColumn extends Column {
 
 	@Override
 	public Long asLong() {
+		if (this.hasLong) {
+			return this.longValue;
+		}
+
 		BigInteger rawData = (BigInteger) this.getRawData();
 		if (null == rawData) {
 			return null;
@@ -81,6 +180,11 @@ public class LongColumn extends Column {
 
 	@Override
 	public Double asDouble() {
+		if (this.hasLong) {
+			// 与 new BigDecimal(BigInteger).doubleValue() 一样是就近舍入
+			return (double) this.longValue;
+		}
+
 		if (null == this.getRawData()) {
 			return null;
 		}
@@ -93,6 +197,10 @@ public class LongColumn extends Column {
 
 	@Override
 	public Boolean asBoolean() {
+		if (this.hasLong) {
+			return this.longValue != 0;
+		}
+
 		if (null == this.getRawData()) {
 			return null;
 		}
@@ -103,6 +211,10 @@ public class LongColumn extends Column {
 
 	@Override
 	public BigDecimal asBigDecimal() {
+		if (this.hasLong) {
+			return BigDecimal.valueOf(this.longValue);
+		}
+
 		if (null == this.getRawData()) {
 			return null;
 		}
@@ -112,6 +224,10 @@ public class LongColumn extends Column {
 
 	@Override
 	public String asString() {
+		if (this.hasLong) {
+			return String.valueOf(this.longValue);
+		}
+
 		if (null == this.getRawData()) {
 			return null;
 		}
@@ -120,6 +236,10 @@ public class LongColumn extends Column {
 
 	@Override
 	public Date asDate() {
+		if (this.hasLong) {
+			return new Date(this.longValue);
+		}
+
 		if (null == this.getRawData()) {
 			return null;
 		}
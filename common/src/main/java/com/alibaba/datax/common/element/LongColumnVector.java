@@ -0,0 +1,126 @@
+package com.alibaba.datax.common.element;
+
+import com.alibaba.datax.common.exception.CommonErrorCode;
+import com.alibaba.datax.common.exception.DataXException;
+
+/**
+ * 以long[]保存的列，用于LONG、DATE（毫秒时间戳）和BOOL（0/1）。
+ * <p/>
+ * 超出long范围的LongColumn不被接受，由BytesColumnVector按十进制字符串保存。
+ */
+public class LongColumnVector extends ColumnVector {
+
+	private final long[] vector;
+
+	private final DateColumn.DateType dateType;
+
+	public LongColumnVector(int capacity) {
+		this(Column.Type.LONG, null, capacity);
+	}
+
+	public LongColumnVector(final DateColumn.DateType dateType, int capacity) {
+		this(Column.Type.DATE, dateType, capacity);
+	}
+
+	public LongColumnVector(final Column.Type type, int capacity) {
+		this(type, Column.Type.DATE == type ? DateColumn.DateType.DATETIME : null, capacity);
+	}
+
+	private LongColumnVector(final Column.Type type, final DateColumn.DateType dateType,
+			int capacity) {
+		super(type, capacity);
+		if (Column.Type.LONG != type && Column.Type.DATE != type
+				&& Column.Type.BOOL != type) {
+			throw DataXException.asDataXException(
+					CommonErrorCode.CONVERT_NOT_SUPPORT,
+					String.format("LongColumnVector不支持[%s]类型 .", type));
+		}
+		this.vector = new long[capacity];
+		this.dateType = dateType;
+	}
+
+	public long get(int row) {
+		return this.vector[row];
+	}
+
+	public void set(int row, long value) {
+		this.vector[row] = value;
+		this.setNotNull(row);
+	}
+
+	public long[] getVector() {
+		return this.vector;
+	}
+
+	public DateColumn.DateType getDateType() {
+		return this.dateType;
+	}
+
+	@Override
+	public Column getColumn(int row) {
+		boolean isNull = this.isNull(row);
+		switch (this.getType()) {
+			case DATE:
+				DateColumn date = new DateColumn(isNull ? null : this.vector[row]);
+				date.setSubType(this.dateType);
+				return date;
+			case BOOL:
+				return new BoolColumn(isNull ? null : this.vector[row] != 0);
+			default:
+				return isNull ? new LongColumn() : new LongColumn(this.vector[row]);
+		}
+	}
+
+	@Override
+	protected boolean accept(final Column column) {
+		if (null == column) {
+			return false;
+		}
+		switch (this.getType()) {
+			case DATE:
+				return column.getClass() == DateColumn.class
+						&& ((DateColumn) column).getSubType() == this.dateType;
+			case BOOL:
+				return column.getClass() == BoolColumn.class;
+			default:
+				return column.getClass() == LongColumn.class
+						&& ((LongColumn) column).isLongValue();
+		}
+	}
+
+	@Override
+	protected void setColumn(int row, final Column column) {
+		if (Column.Type.BOOL == this.getType()) {
+			Boolean value = column.asBoolean();
+			if (null == value) {
+				this.setNull(row);
+			} else {
+				this.set(row, value ? 1L : 0L);
+			}
+		} else {
+			Long value = column.asLong();
+			if (null == value) {
+				this.setNull(row);
+			} else {
+				this.set(row, value);
+			}
+		}
+	}
+
+	@Override
+	public int getByteSize(int size) {
+		int unit = Column.Type.BOOL == this.getType() ? 1 : 8;
+		int bytes = 0;
+		for (int i = 0; i < size; i++) {
+			if (!this.isNull(i) || Column.Type.BOOL == this.getType()) {
+				bytes += unit;
+			}
+		}
+		return bytes;
+	}
+
+	@Override
+	public int getMemorySize() {
+		return super.getMemorySize() + this.vector.length * 8;
+	}
+}
@@ -0,0 +1,54 @@
+package com.alibaba.datax.common.element;
+
+/**
+ * 直接持有Column对象的兜底实现，用于插件自定义的Column子类等无法拆成原始类型的列。
+ */
+public class ObjectColumnVector extends ColumnVector {
+
+	private final Column[] vector;
+
+	public ObjectColumnVector(final Column.Type type, int capacity) {
+		super(type, capacity);
+		this.vector = new Column[capacity];
+	}
+
+	public void set(int row, final Column column) {
+		this.vector[row] = column;
+		if (null == column || null == column.getRawData()) {
+			this.setNull(row);
+		} else {
+			this.setNotNull(row);
+		}
+	}
+
+	@Override
+	public Column getColumn(int row) {
+		return this.vector[row];
+	}
+
+	@Override
+	protected boolean accept(final Column column) {
+		return true;
+	}
+
+	@Override
+	protected void setColumn(int row, final Column column) {
+		this.set(row, column);
+	}
+
+	@Override
+	public int getByteSize(int size) {
+		int bytes = 0;
+		for (int i = 0; i < size; i++) {
+			if (null != this.vector[i]) {
+				bytes += this.vector[i].getByteSize();
+			}
+		}
+		return bytes;
+	}
+
+	@Override
+	public int getMemorySize() {
+		return super.getMemorySize() + this.vector.length * 4 + this.getByteSize(this.vector.length);
+	}
+}
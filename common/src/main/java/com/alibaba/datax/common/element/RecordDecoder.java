@@ -0,0 +1,265 @@
+package com.alibaba.datax.common.element;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+
+/**
+ * 读取RecordEncoder写出的二进制流，格式说明见RecordEncoder。
+ * <p/>
+ * 解码出的column追加到调用方提供的record中，record可以复用；非线程安全。
+ */
+public class RecordDecoder implements Closeable {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private static final DateColumn.DateType[] DATE_TYPES = DateColumn.DateType.values();
+
+	private final InputStream in;
+
+	private final byte[] buffer;
+
+	private int position = 0;
+
+	private int limit = 0;
+
+	private boolean headerRead = false;
+
+	/**
+	 * 跨越缓冲区边界的字符串先拷贝到这里再解码
+	 */
+	private byte[] scratch = new byte[256];
+
+	private byte[] nullBits = new byte[16];
+
+	public RecordDecoder(final InputStream in) {
+		this(in, 8192);
+	}
+
+	public RecordDecoder(final InputStream in, int bufferSize) {
+		this.in = in;
+		this.buffer = new byte[Math.max(64, bufferSize)];
+	}
+
+	/**
+	 * 读取下一条record的column追加到record中
+	 *
+	 * @return 流在record边界处结束时返回false
+	 * @throws EOFException record不完整
+	 */
+	public boolean read(final Record record) throws IOException {
+		if (!this.headerRead) {
+			if (!this.fill(1)) {
+				return false;
+			}
+			this.readHeader();
+			this.headerRead = true;
+		}
+		if (!this.fill(1)) {
+			return false;
+		}
+
+		long count = this.readVarLong();
+		if (count < 0 || count > Integer.MAX_VALUE) {
+			throw new IOException(String.format("column个数[%d]不合法.", count));
+		}
+		int bitmapSize = (int) ((count + 7) >>> 3);
+		if (this.nullBits.length < bitmapSize) {
+			this.nullBits = new byte[bitmapSize];
+		}
+		for (int i = 0; i < bitmapSize; i++) {
+			this.nullBits[i] = (byte) this.readByte();
+		}
+
+		for (int i = 0; i < count; i++) {
+			boolean isNull = (this.nullBits[i >>> 3] & (1 << (i & 7))) != 0;
+			record.addColumn(this.readColumn(isNull));
+		}
+		return true;
+	}
+
+	private void readHeader() throws IOException {
+		for (byte each : RecordEncoder.MAGIC) {
+			if (this.readByte() != (each & 0xFF)) {
+				throw new IOException("不是RecordEncoder编码的数据.");
+			}
+		}
+		int version = this.readByte();
+		if (version > RecordEncoder.VERSION) {
+			throw new IOException(String.format(
+					"编码版本[%d]高于当前支持的版本[%d].", version, RecordEncoder.VERSION));
+		}
+	}
+
+	private Column readColumn(boolean isNull) throws IOException {
+		int tag = this.readByte();
+		int type = tag & RecordEncoder.TYPE_MASK;
+		int variant = (tag >>> RecordEncoder.VARIANT_SHIFT) & RecordEncoder.VARIANT_MASK;
+		int byteSize = -1;
+		if ((tag & RecordEncoder.FLAG_BYTE_SIZE) != 0) {
+			byteSize = (int) this.readVarLong();
+		}
+
+		Column column;
+		switch (type) {
+			case RecordEncoder.TYPE_ABSENT:
+				return null;
+			case RecordEncoder.TYPE_LONG:
+				if (isNull) {
+					column = new LongColumn();
+				} else if (variant == RecordEncoder.VARIANT_BIG_INTEGER) {
+					column = new LongColumn(new BigInteger(this.readBytes()));
+				} else {
+					column = new LongColumn(unZigZag(this.readVarLong()));
+				}
+				break;
+			case RecordEncoder.TYPE_DOUBLE:
+				if (isNull) {
+					column = new DoubleColumn();
+				} else if (variant == RecordEncoder.VARIANT_DECIMAL_STRING) {
+					String data = this.readString();
+					column = new DoubleColumn(data, data.length());
+				} else {
+					column = new DoubleColumn(Double.longBitsToDouble(this.readFixedLong()));
+				}
+				break;
+			case RecordEncoder.TYPE_STRING:
+				column = new StringColumn(isNull ? null : this.readString());
+				break;
+			case RecordEncoder.TYPE_DATE:
+				if (variant >= DATE_TYPES.length) {
+					throw new IOException(String.format("Date子类型[%d]不合法.", variant));
+				}
+				DateColumn date = new DateColumn(isNull ? null : unZigZag(this.readVarLong()));
+				date.setSubType(DATE_TYPES[variant]);
+				column = date;
+				break;
+			case RecordEncoder.TYPE_BOOL:
+				column = isNull ? new BoolColumn() : new BoolColumn(variant != 0);
+				break;
+			case RecordEncoder.TYPE_BYTES:
+				column = new BytesColumn();
+				if (!isNull) {
+					// BytesColumn构造时会再拷贝一次，这里直接设置新读出的数组
+					byte[] bytes = this.readBytes();
+					column.setRawData(bytes);
+					column.setByteSize(bytes.length);
+				}
+				break;
+			default:
+				throw new IOException(String.format("无法识别的column类型[%d].", type));
+		}
+
+		if (byteSize >= 0) {
+			column.setByteSize(byteSize);
+		}
+		return column;
+	}
+
+	private static long unZigZag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private long readVarLong() throws IOException {
+		long result = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = this.readByte();
+			result |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return result;
+			}
+		}
+		throw new IOException("varint超出64位.");
+	}
+
+	private long readFixedLong() throws IOException {
+		long result = 0;
+		for (int i = 0; i < 8; i++) {
+			result = (result << 8) | this.readByte();
+		}
+		return result;
+	}
+
+	private int readLength() throws IOException {
+		long length = this.readVarLong();
+		if (length < 0 || length > Integer.MAX_VALUE) {
+			throw new IOException(String.format("长度[%d]不合法.", length));
+		}
+		return (int) length;
+	}
+
+	private String readString() throws IOException {
+		int length = this.readLength();
+		if (this.fill(length)) {
+			String data = new String(this.buffer, this.position, length, UTF_8);
+			this.position += length;
+			return data;
+		}
+		if (this.scratch.length < length) {
+			this.scratch = new byte[Math.max(length, this.scratch.length * 2)];
+		}
+		this.readFully(this.scratch, length);
+		return new String(this.scratch, 0, length, UTF_8);
+	}
+
+	private byte[] readBytes() throws IOException {
+		byte[] bytes = new byte[this.readLength()];
+		this.readFully(bytes, bytes.length);
+		return bytes;
+	}
+
+	private void readFully(final byte[] target, int length) throws IOException {
+		int copied = 0;
+		while (copied < length) {
+			if (this.position == this.limit && !this.fill(1)) {
+				throw new EOFException("record不完整.");
+			}
+			int n = Math.min(length - copied, this.limit - this.position);
+			System.arraycopy(this.buffer, this.position, target, copied, n);
+			this.position += n;
+			copied += n;
+		}
+	}
+
+	private int readByte() throws IOException {
+		if (this.position == this.limit && !this.fill(1)) {
+			throw new EOFException("record不完整.");
+		}
+		return this.buffer[this.position++] & 0xFF;
+	}
+
+	/**
+	 * 尽量让缓冲区中至少有bytes个字节
+	 *
+	 * @return 缓冲区放不下或流已结束导致不足bytes个字节时返回false
+	 */
+	private boolean fill(int bytes) throws IOException {
+		if (this.limit - this.position >= bytes) {
+			return true;
+		}
+		if (bytes > this.buffer.length) {
+			return false;
+		}
+		if (this.position > 0) {
+			System.arraycopy(this.buffer, this.position, this.buffer, 0, this.limit - this.position);
+			this.limit -= this.position;
+			this.position = 0;
+		}
+		while (this.limit < bytes) {
+			int n = this.in.read(this.buffer, this.limit, this.buffer.length - this.limit);
+			if (n < 0) {
+				return false;
+			}
+			this.limit += n;
+		}
+		return true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.in.close();
+	}
+}
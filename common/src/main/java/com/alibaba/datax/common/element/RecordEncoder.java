@@ -0,0 +1,346 @@
+package com.alibaba.datax.common.element;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+
+/**
+ * Record的紧凑二进制编码，与RecordDecoder配对使用，可用于落盘、脏数据归档和进程间传输。
+ * <p/>
+ * 流以4字节头（"DXR"+版本号）开始，之后每条record依次为：
+ * <pre>
+ * varint column个数
+ * null位图  每个column一位，值为null或column本身为null时置1
+ * 每个column 1字节tag：低3位类型，3~5位类型相关的变体，最高位表示后面跟着显式的byteSize
+ *           非null时再跟数据：LONG为zigzag varint（超出long时为长度前缀的补码），
+ *           DOUBLE为8字节原始值或长度前缀的十进制字符串，DATE为zigzag varint毫秒数，
+ *           STRING/BYTES为长度前缀的UTF-8/原始字节，BOOL的值在tag的变体位中
+ * </pre>
+ * 解码结果的类型、rawData和byteSize都与原column一致。
+ * 编码使用自带的缓冲区，除超出long的整数外不产生中间对象；非线程安全。
+ */
+public class RecordEncoder implements Closeable, Flushable {
+
+	static final byte[] MAGIC = {'D', 'X', 'R'};
+
+	static final int VERSION = 1;
+
+	static final int TYPE_ABSENT = 0;
+	static final int TYPE_LONG = 1;
+	static final int TYPE_DOUBLE = 2;
+	static final int TYPE_STRING = 3;
+	static final int TYPE_DATE = 4;
+	static final int TYPE_BOOL = 5;
+	static final int TYPE_BYTES = 6;
+
+	static final int TYPE_MASK = 0x07;
+
+	static final int VARIANT_SHIFT = 3;
+
+	static final int VARIANT_MASK = 0x07;
+
+	/**
+	 * LONG的变体：超出long范围，数据为BigInteger补码
+	 */
+	static final int VARIANT_BIG_INTEGER = 1;
+
+	/**
+	 * DOUBLE的变体：数据为十进制字符串而不是8字节原始值
+	 */
+	static final int VARIANT_DECIMAL_STRING = 1;
+
+	static final int FLAG_BYTE_SIZE = 0x80;
+
+	private final OutputStream out;
+
+	private final byte[] buffer;
+
+	private int position = 0;
+
+	private long bytesWritten = 0;
+
+	private boolean headerWritten = false;
+
+	public RecordEncoder(final OutputStream out) {
+		this(out, 8192);
+	}
+
+	public RecordEncoder(final OutputStream out, int bufferSize) {
+		this.out = out;
+		this.buffer = new byte[Math.max(64, bufferSize)];
+	}
+
+	/**
+	 * column都是common中的标准类型（或为null）的record才能编码
+	 */
+	public static boolean isSupported(final Record record) {
+		int count = record.getColumnNumber();
+		for (int i = 0; i < count; i++) {
+			Column column = record.getColumn(i);
+			if (null == column) {
+				continue;
+			}
+			Class<?> clazz = column.getClass();
+			if (clazz != LongColumn.class && clazz != DoubleColumn.class
+					&& clazz != StringColumn.class && clazz != DateColumn.class
+					&& clazz != BoolColumn.class && clazz != BytesColumn.class) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public void write(final Record record) throws IOException {
+		if (!this.headerWritten) {
+			this.writeRawBytes(MAGIC, 0, MAGIC.length);
+			this.writeByte(VERSION);
+			this.headerWritten = true;
+		}
+
+		int count = record.getColumnNumber();
+		this.writeVarLong(count);
+
+		int bits = 0;
+		for (int i = 0; i < count; i++) {
+			Column column = record.getColumn(i);
+			if (null == column || isNull(column)) {
+				bits |= 1 << (i & 7);
+			}
+			if ((i & 7) == 7) {
+				this.writeByte(bits);
+				bits = 0;
+			}
+		}
+		if ((count & 7) != 0) {
+			this.writeByte(bits);
+		}
+
+		for (int i = 0; i < count; i++) {
+			this.writeColumn(record.getColumn(i));
+		}
+	}
+
+	private static boolean isNull(final Column column) {
+		if (column instanceof LongColumn && ((LongColumn) column).hasLongValue()) {
+			return false;
+		}
+		if (column instanceof DoubleColumn && ((DoubleColumn) column).isDoubleValue()) {
+			return false;
+		}
+		return null == column.getRawData();
+	}
+
+	private void writeColumn(final Column column) throws IOException {
+		if (null == column) {
+			this.writeByte(TYPE_ABSENT);
+			return;
+		}
+
+		switch (column.getType()) {
+			case LONG: {
+				LongColumn longColumn = (LongColumn) column;
+				if (longColumn.hasLongValue()) {
+					this.writeTag(TYPE_LONG, 0, column, 8);
+					this.writeVarLong(zigZag(longColumn.longValue()));
+				} else if (null == column.getRawData()) {
+					this.writeTag(TYPE_LONG, 0, column, 0);
+				} else {
+					this.writeTag(TYPE_LONG, VARIANT_BIG_INTEGER, column, 8);
+					byte[] bytes = ((BigInteger) column.getRawData()).toByteArray();
+					this.writeVarLong(bytes.length);
+					this.writeRawBytes(bytes, 0, bytes.length);
+				}
+				break;
+			}
+			case DOUBLE: {
+				DoubleColumn doubleColumn = (DoubleColumn) column;
+				if (doubleColumn.isDoubleValue()) {
+					this.writeTag(TYPE_DOUBLE, 0, column, 8);
+					this.writeFixedLong(Double.doubleToRawLongBits(doubleColumn.doubleValue()));
+				} else if (null == column.getRawData()) {
+					this.writeTag(TYPE_DOUBLE, VARIANT_DECIMAL_STRING, column, 0);
+				} else {
+					String data = (String) column.getRawData();
+					this.writeTag(TYPE_DOUBLE, VARIANT_DECIMAL_STRING, column, data.length());
+					this.writeString(data);
+				}
+				break;
+			}
+			case STRING: {
+				String data = (String) column.getRawData();
+				this.writeTag(TYPE_STRING, 0, column, null == data ? 0 : data.length());
+				if (null != data) {
+					this.writeString(data);
+				}
+				break;
+			}
+			case DATE: {
+				Long stamp = (Long) column.getRawData();
+				this.writeTag(TYPE_DATE, ((DateColumn) column).getSubType().ordinal(),
+						column, null == stamp ? 0 : 8);
+				if (null != stamp) {
+					this.writeVarLong(zigZag(stamp));
+				}
+				break;
+			}
+			case BOOL: {
+				Boolean value = (Boolean) column.getRawData();
+				this.writeTag(TYPE_BOOL, Boolean.TRUE.equals(value) ? 1 : 0, column, 1);
+				break;
+			}
+			case BYTES: {
+				byte[] bytes = (byte[]) column.getRawData();
+				this.writeTag(TYPE_BYTES, 0, column, null == bytes ? 0 : bytes.length);
+				if (null != bytes) {
+					this.writeVarLong(bytes.length);
+					this.writeRawBytes(bytes, 0, bytes.length);
+				}
+				break;
+			}
+			default:
+				throw new IOException(String.format("不支持编码的column类型[%s].", column.getType()));
+		}
+	}
+
+	/**
+	 * byteSize与解码时构造函数得到的值不同时（例如由字符串构造的LongColumn）才显式写出
+	 */
+	private void writeTag(int type, int variant, final Column column, int decodedByteSize)
+			throws IOException {
+		int byteSize = column.getByteSize();
+		boolean explicit = byteSize != decodedByteSize;
+		this.writeByte(type | (variant << VARIANT_SHIFT) | (explicit ? FLAG_BYTE_SIZE : 0));
+		if (explicit) {
+			this.writeVarLong(byteSize & 0xFFFFFFFFL);
+		}
+	}
+
+	private static long zigZag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	private void writeVarLong(long value) throws IOException {
+		this.ensure(10);
+		while ((value & ~0x7FL) != 0) {
+			this.buffer[this.position++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		this.buffer[this.position++] = (byte) value;
+	}
+
+	private void writeFixedLong(long value) throws IOException {
+		this.ensure(8);
+		for (int shift = 56; shift >= 0; shift -= 8) {
+			this.buffer[this.position++] = (byte) (value >>> shift);
+		}
+	}
+
+	private void writeByte(int value) throws IOException {
+		this.ensure(1);
+		this.buffer[this.position++] = (byte) value;
+	}
+
+	/**
+	 * 直接把char编码进缓冲区；不成对的surrogate与String.getBytes("UTF-8")一样写为'?'
+	 */
+	private void writeString(final String data) throws IOException {
+		int length = data.length();
+		this.writeVarLong(utf8Length(data));
+		for (int i = 0; i < length; i++) {
+			this.ensure(4);
+			char c = data.charAt(i);
+			if (c < 0x80) {
+				this.buffer[this.position++] = (byte) c;
+			} else if (c < 0x800) {
+				this.buffer[this.position++] = (byte) (0xC0 | (c >> 6));
+				this.buffer[this.position++] = (byte) (0x80 | (c & 0x3F));
+			} else if (Character.isHighSurrogate(c) && i + 1 < length
+					&& Character.isLowSurrogate(data.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(c, data.charAt(++i));
+				this.buffer[this.position++] = (byte) (0xF0 | (codePoint >> 18));
+				this.buffer[this.position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+				this.buffer[this.position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+				this.buffer[this.position++] = (byte) (0x80 | (codePoint & 0x3F));
+			} else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+				this.buffer[this.position++] = (byte) '?';
+			} else {
+				this.buffer[this.position++] = (byte) (0xE0 | (c >> 12));
+				this.buffer[this.position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				this.buffer[this.position++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+	}
+
+	private static int utf8Length(final String data) {
+		int length = data.length();
+		int bytes = 0;
+		for (int i = 0; i < length; i++) {
+			char c = data.charAt(i);
+			if (c < 0x80) {
+				bytes += 1;
+			} else if (c < 0x800) {
+				bytes += 2;
+			} else if (Character.isHighSurrogate(c) && i + 1 < length
+					&& Character.isLowSurrogate(data.charAt(i + 1))) {
+				bytes += 4;
+				i++;
+			} else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+				bytes += 1;
+			} else {
+				bytes += 3;
+			}
+		}
+		return bytes;
+	}
+
+	private void writeRawBytes(final byte[] bytes, int offset, int length) throws IOException {
+		if (length > this.buffer.length - this.position) {
+			this.flushBuffer();
+			if (length > this.buffer.length) {
+				this.out.write(bytes, offset, length);
+				this.bytesWritten += length;
+				return;
+			}
+		}
+		System.arraycopy(bytes, offset, this.buffer, this.position, length);
+		this.position += length;
+	}
+
+	private void ensure(int bytes) throws IOException {
+		if (this.buffer.length - this.position < bytes) {
+			this.flushBuffer();
+		}
+	}
+
+	private void flushBuffer() throws IOException {
+		if (this.position > 0) {
+			this.out.write(this.buffer, 0, this.position);
+			this.bytesWritten += this.position;
+			this.position = 0;
+		}
+	}
+
+	/**
+	 * 已经写出的字节数，包括缓冲区中尚未flush的部分
+	 */
+	public long getBytesWritten() {
+		return this.bytesWritten + this.position;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		this.flushBuffer();
+		this.out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			this.flush();
+		} finally {
+			this.out.close();
+		}
+	}
+}
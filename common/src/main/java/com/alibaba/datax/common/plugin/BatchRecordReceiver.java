@@ -0,0 +1,32 @@
+/**
+ *  (C) 2010-2013 Alibaba Group Holding Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.datax.common.plugin;
+
+import com.alibaba.datax.common.element.ColumnBatch;
+
+/**
+ * 支持整批读取列式数据的RecordReceiver，框架提供的receiver都实现了该接口。
+ * writer插件应先用instanceof判断，不支持时改用getFromReader逐条读取。
+ */
+public interface BatchRecordReceiver extends RecordReceiver {
+
+	/**
+	 * 整批读取列式数据，读完时返回null；reader逐条发送的record由框架按列类型攒成batch，
+	 * 列类型变化时会提前结束当前batch。可以与getFromReader混用。
+	 */
+	public ColumnBatch getBatchFromReader();
+}
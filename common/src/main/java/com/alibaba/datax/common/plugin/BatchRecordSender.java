@@ -0,0 +1,32 @@
+/**
+ *  (C) 2010-2013 Alibaba Group Holding Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.datax.common.plugin;
+
+import com.alibaba.datax.common.element.ColumnBatch;
+
+/**
+ * 支持整批发送列式数据的RecordSender，框架提供的sender都实现了该接口。
+ * reader插件应先用instanceof判断，不支持时用 ColumnBatch.sendTo 逐行转换成record发送。
+ */
+public interface BatchRecordSender extends RecordSender {
+
+	/**
+	 * 整批发送列式数据，与sendToWriter发送的record保持先后顺序；
+	 * writer只支持逐条读取时由框架拆成record。发送后batch不能再被修改。
+	 */
+	public void sendBatch(ColumnBatch batch);
+}
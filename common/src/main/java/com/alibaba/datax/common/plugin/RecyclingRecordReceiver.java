@@ -0,0 +1,32 @@
+/**
+ *  (C) 2010-2013 Alibaba Group Holding Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.datax.common.plugin;
+
+import com.alibaba.datax.common.element.Record;
+
+/**
+ * 支持归还record的RecordReceiver，框架提供的receiver都实现了该接口。
+ * writer插件应先用instanceof判断，不支持时直接丢弃record即可。
+ */
+public interface RecyclingRecordReceiver extends RecordReceiver {
+
+	/**
+	 * 归还已经写完、插件不再持有引用的record，开启 core.transport.record.recycle 后框架会复用它；
+	 * 未开启时为空操作。缓存了record的插件必须在批次提交后再归还。
+	 */
+	public void recycle(Record record);
+}
@@ -48,5 +48,11 @@ public abstract class Reader extends BaseObject {
 
 	public static abstract class Task extends AbstractTaskPlugin {
 		public abstract void startRead(RecordSender recordSender);
+
+		/**
+		 * 是否允许同一切分同时由两个Task实例读取（推测执行），要求读取没有副作用，
+		 * 如不消费消息、不记录读取位点；在init之前调用
+		 */
+		public boolean supportSpeculation(){return false;}
 	}
 }
@@ -26,6 +26,12 @@ public abstract class Writer extends BaseObject {
 		 * 
 		 * */
 		public abstract List<Configuration> split(int mandatoryNumber);
+
+		/**
+		 * 是否支持作业失败后以 -resume 只重跑未完成的切分。要求prepare不清除已写入的数据，
+		 * 且同一切分重复写入不会产生重复数据（幂等写入）；在init之后调用
+		 */
+		public boolean supportResume(){return false;}
 	}
 
 	/**
@@ -36,5 +42,19 @@ public abstract class Writer extends BaseObject {
 		public abstract void startWrite(RecordReceiver lineReceiver);
 
 		public boolean supportFailOver(){return false;}
+
+		/**
+		 * job.setting.speed.writerPerChannel大于1时，是否允许同一个切分由多个Task实例共享一个channel并行写入。
+		 * 每个实例各自init、prepare、post并提交自己写入的数据，因此prepare/post中不能有只允许执行一次的操作；
+		 * 在init之前调用，只能依据getPluginJobConf()判断
+		 */
+		public boolean supportFanOut(){return false;}
+
+		/**
+		 * core.container.task.speculation.enable开启时，是否允许为进度明显落后的切分再启动一个Task实例，
+		 * 两个实例同时写入同一切分，先成功的作为结果，另一个被中断。要求写入幂等（如按主键覆盖写入），
+		 * 且prepare/post中没有清表等只允许执行一次的操作；在init之前调用，只能依据getPluginJobConf()判断
+		 */
+		public boolean supportSpeculation(){return false;}
 	}
 }
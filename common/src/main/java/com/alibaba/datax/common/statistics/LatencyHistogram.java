@@ -0,0 +1,192 @@
+package com.alibaba.datax.common.statistics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 耗时（纳秒）分布统计，按HdrHistogram的思路分桶：0~7纳秒每个值一个桶，
+ * 之后每个2的幂区间再等分为8个桶，任何取值的相对误差不超过1/8。
+ * <p/>
+ * 桶的个数固定（约2.4KB），记录一次只是几次原子累加，不加锁、不分配对象，可以放在读写数据的路径上。
+ * 超过2^40纳秒（约18分钟）的取值计入最后一个桶，max仍记录真实值。
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    private static final int MAX_EXPONENT = 39;
+
+    private static final int BUCKET_COUNT =
+            SUB_BUCKET_COUNT + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong sum = new AtomicLong();
+
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        this.buckets.incrementAndGet(bucketIndex(nanos));
+        this.count.incrementAndGet();
+        this.sum.addAndGet(nanos);
+        long currentMax = this.max.get();
+        while (nanos > currentMax && !this.max.compareAndSet(currentMax, nanos)) {
+            currentMax = this.max.get();
+        }
+    }
+
+    /**
+     * 把other的统计累加进来；other在合并期间仍被写入时，结果是某一时刻附近的近似值
+     */
+    public void merge(LatencyHistogram other) {
+        if (other == null || other.count.get() == 0) {
+            return;
+        }
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long value = other.buckets.get(i);
+            if (value != 0) {
+                this.buckets.addAndGet(i, value);
+            }
+        }
+        this.count.addAndGet(other.count.get());
+        this.sum.addAndGet(other.sum.get());
+        long otherMax = other.max.get();
+        long currentMax = this.max.get();
+        while (otherMax > currentMax && !this.max.compareAndSet(currentMax, otherMax)) {
+            currentMax = this.max.get();
+        }
+    }
+
+    public LatencyHistogram copy() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.merge(this);
+        return histogram;
+    }
+
+    public long getCount() {
+        return this.count.get();
+    }
+
+    public long getMax() {
+        return this.max.get();
+    }
+
+    public long getSum() {
+        return this.sum.get();
+    }
+
+    public long getMean() {
+        long total = this.count.get();
+        return total == 0 ? 0 : this.sum.get() / total;
+    }
+
+    /**
+     * 第percentile（0~100）百分位的耗时，取所在桶的上界且不超过max
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += this.buckets.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100d, percentile) / 100d * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += this.buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), this.max.get());
+            }
+        }
+        return this.max.get();
+    }
+
+    /**
+     * 按 count、sum、max、(桶下标、桶计数)... 的顺序输出，只包含非空的桶，用于跨进程传输
+     */
+    public List<Long> toSparseList() {
+        List<Long> values = new ArrayList<Long>();
+        values.add(this.count.get());
+        values.add(this.sum.get());
+        values.add(this.max.get());
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long value = this.buckets.get(i);
+            if (value != 0) {
+                values.add((long) i);
+                values.add(value);
+            }
+        }
+        return values;
+    }
+
+    public static LatencyHistogram fromSparseList(List<? extends Number> values) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        if (values == null || values.size() < 3) {
+            return histogram;
+        }
+        histogram.count.set(values.get(0).longValue());
+        histogram.sum.set(values.get(1).longValue());
+        histogram.max.set(values.get(2).longValue());
+        for (int i = 3; i + 1 < values.size(); i += 2) {
+            int index = values.get(i).intValue();
+            if (index >= 0 && index < BUCKET_COUNT) {
+                histogram.buckets.set(index, values.get(i + 1).longValue());
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * 形如 count=1024 p50=1.2ms p90=3.4ms p99=12ms p99.9=40ms max=52ms
+     */
+    public String toSummary() {
+        return String.format("count=%d p50=%s p90=%s p99=%s p99.9=%s max=%s", this.getCount(),
+                formatNanos(this.getValueAtPercentile(50)), formatNanos(this.getValueAtPercentile(90)),
+                formatNanos(this.getValueAtPercentile(99)), formatNanos(this.getValueAtPercentile(99.9)),
+                formatNanos(this.getMax()));
+    }
+
+    public static String formatNanos(long nanos) {
+        if (nanos < 1000L) {
+            return nanos + "ns";
+        } else if (nanos < 1000000L) {
+            return String.format("%.1fus", nanos / 1000d);
+        } else if (nanos < 1000000000L) {
+            return String.format("%.1fms", nanos / 1000000d);
+        }
+        return String.format("%.2fs", nanos / 1000000000d);
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKET_COUNT - 1);
+        return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+        int subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+        return ((long) (SUB_BUCKET_COUNT + subBucket + 1) << shift) - 1;
+    }
+}
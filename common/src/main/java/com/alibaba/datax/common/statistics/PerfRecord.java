@@ -96,7 +96,9 @@ public class PerfRecord implements Comparable<PerfRecord> {
             perfRecord.startTime = new Date(startTime);
             //在PerfTrace里注册
             PerfTrace.getInstance().tracePerfRecord(perfRecord);
-            perf.info(perfRecord.toString());
+            if (perf.isInfoEnabled()) {
+                perf.info(perfRecord.toString());
+            }
         }
     }
 
@@ -107,7 +109,9 @@ public class PerfRecord implements Comparable<PerfRecord> {
             this.action = ACTION.start;
             //在PerfTrace里注册
             PerfTrace.getInstance().tracePerfRecord(this);
-            perf.info(toString());
+            if (perf.isInfoEnabled()) {
+                perf.info(toString());
+            }
         }
     }
 
@@ -124,7 +128,9 @@ public class PerfRecord implements Comparable<PerfRecord> {
             this.elapsedTimeInNs = System.nanoTime() - startTimeInNs;
             this.action = ACTION.end;
             PerfTrace.getInstance().tracePerfRecord(this);
-            perf.info(toString());
+            if (perf.isInfoEnabled()) {
+                perf.info(toString());
+            }
         }
     }
 
@@ -133,7 +139,9 @@ public class PerfRecord implements Comparable<PerfRecord> {
             this.elapsedTimeInNs = elapsedTimeInNs;
             this.action = ACTION.end;
             PerfTrace.getInstance().tracePerfRecord(this);
-            perf.info(toString());
+            if (perf.isInfoEnabled()) {
+                perf.info(toString());
+            }
         }
     }
 
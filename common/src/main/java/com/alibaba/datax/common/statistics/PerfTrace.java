@@ -11,6 +11,9 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -20,7 +23,7 @@ import java.util.concurrent.TimeUnit;
 public class PerfTrace {
 
     private static Logger LOG = LoggerFactory.getLogger(PerfTrace.class);
-    private static PerfTrace instance;
+    private static volatile PerfTrace instance;
     private static final Object lock = new Object();
     private String perfTraceId;
     private volatile boolean enable;
@@ -43,8 +46,14 @@ public class PerfTrace {
     private SumPerf4Report sumPerf4Report = new SumPerf4Report();
     private SumPerf4Report sumPerf4Report4NotEnd;
     private Configuration jobInfo;
+    // needReportPool4NotEnd、sumPerf4Report、perfRecordMaps4print只在持有drainLock时修改
     private final Set<PerfRecord> needReportPool4NotEnd = new HashSet<PerfRecord>();
-    private final List<PerfRecord> totalEndReport = new ArrayList<PerfRecord>();
+    // task线程记录的start/end，无锁入队，由drain()在汇总时统一处理
+    private final ConcurrentLinkedQueue<PerfEvent> pendingEvents = new ConcurrentLinkedQueue<PerfEvent>();
+    private final AtomicInteger pendingEventCount = new AtomicInteger(0);
+    private final ReentrantLock drainLock = new ReentrantLock();
+    // 环节名 => job汇总的耗时分布，按放入顺序打印
+    private volatile Map<String, LatencyHistogram> stageLatencies;
 
     /**
      * 单实例
@@ -119,36 +128,25 @@ public class PerfTrace {
         }
     }
 
+    /**
+     * task线程在每次PerfRecord start/end时调用，只把事件放入无锁队列，不持有任何锁；
+     * 汇总在summarize/getReports时进行，队列积压过多时由恰好拿到drainLock的线程顺带处理
+     */
     public void tracePerfRecord(PerfRecord perfRecord) {
         try {
             if (enable) {
-                long curNanoTime = System.nanoTime();
-                //ArrayList非线程安全
-                switch (perfRecord.getAction()) {
-                    case end:
-                        synchronized (totalEndReport) {
-                            totalEndReport.add(perfRecord);
-
-                            if (totalEndReport.size() > batchSize * 10) {
-                                sumPerf4EndPrint(totalEndReport);
-                            }
-                        }
-
-                        if (perfReportEnable && needReport(perfRecord)) {
-                            synchronized (needReportPool4NotEnd) {
-                                sumPerf4Report.add(curNanoTime,perfRecord);
-                                needReportPool4NotEnd.remove(perfRecord);
-                            }
-                        }
-
-                        break;
-                    case start:
-                        if (perfReportEnable && needReport(perfRecord)) {
-                            synchronized (needReportPool4NotEnd) {
-                                needReportPool4NotEnd.add(perfRecord);
-                            }
-                        }
-                        break;
+                PerfRecord.ACTION action = perfRecord.getAction();
+                if (action == PerfRecord.ACTION.start && !(perfReportEnable && needReport(perfRecord))) {
+                    return;
+                }
+                pendingEvents.offer(new PerfEvent(action, perfRecord));
+
+                if (pendingEventCount.incrementAndGet() > batchSize * 10 && drainLock.tryLock()) {
+                    try {
+                        drain();
+                    } finally {
+                        drainLock.unlock();
+                    }
                 }
             }
         } catch (Exception e) {
@@ -156,6 +154,36 @@ public class PerfTrace {
         }
     }
 
+    /**
+     * 按入队顺序处理积压的事件，同一个task线程的start一定先于它的end被处理；调用方必须持有drainLock
+     */
+    private void drain() {
+        PerfEvent event;
+        while ((event = pendingEvents.poll()) != null) {
+            pendingEventCount.decrementAndGet();
+            PerfRecord perfRecord = event.perfRecord;
+            switch (event.action) {
+                case end:
+                    SumPerfRecord4Print sumPerfRecord = perfRecordMaps4print.get(perfRecord.getPhase());
+                    if (sumPerfRecord == null) {
+                        sumPerfRecord = new SumPerfRecord4Print();
+                        perfRecordMaps4print.put(perfRecord.getPhase(), sumPerfRecord);
+                    }
+                    sumPerfRecord.add(perfRecord);
+
+                    if (perfReportEnable && needReport(perfRecord)) {
+                        // end之后elapsedTimeInNs已确定，add不再使用传入的当前时间
+                        sumPerf4Report.add(System.nanoTime(), perfRecord);
+                        needReportPool4NotEnd.remove(perfRecord);
+                    }
+                    break;
+                case start:
+                    needReportPool4NotEnd.add(perfRecord);
+                    break;
+            }
+        }
+    }
+
     private boolean needReport(PerfRecord perfRecord) {
         switch (perfRecord.getPhase()) {
             case TASK_TOTAL:
@@ -178,14 +206,21 @@ public class PerfTrace {
     }
 
     //任务结束时，对当前的perf总汇总统计
-    private synchronized String summarize() {
+    private String summarize() {
         if (!enable) {
             return "PerfTrace not enable!";
         }
 
-        if (totalEndReport.size() > 0) {
-            sumPerf4EndPrint(totalEndReport);
+        drainLock.lock();
+        try {
+            return doSummarize();
+        } finally {
+            drainLock.unlock();
         }
+    }
+
+    private String doSummarize() {
+        drain();
 
         StringBuilder info = new StringBuilder();
         info.append("\n === total summarize info === \n");
@@ -233,6 +268,22 @@ public class PerfTrace {
                     , PHASE.READ_TASK_DATA, averageRecords, unitSize(averageBytes), maxRecord, unitSize(maxByte), jobId + "-" + maxTGID4Records + "-" + maxTaskId4Records, taskDetails.get(maxTaskId4Records)));
 
         }
+
+        Map<String, LatencyHistogram> latencies = stageLatencies;
+        if (latencies != null && !latencies.isEmpty()) {
+            info.append("\n\n 3. per stage latency percentiles of all tasks :\n\n");
+            info.append(String.format("%-20s | %14s | %12s | %12s | %12s | %12s | %12s | %12s\n", "STAGE", "COUNT", "AVERAGE", "P50", "P90", "P99", "P99.9", "MAX"));
+            for (Map.Entry<String, LatencyHistogram> entry : latencies.entrySet()) {
+                LatencyHistogram histogram = entry.getValue();
+                info.append(String.format("%-20s | %14s | %12s | %12s | %12s | %12s | %12s | %12s\n",
+                        entry.getKey(), histogram.getCount(), LatencyHistogram.formatNanos(histogram.getMean()),
+                        LatencyHistogram.formatNanos(histogram.getValueAtPercentile(50)),
+                        LatencyHistogram.formatNanos(histogram.getValueAtPercentile(90)),
+                        LatencyHistogram.formatNanos(histogram.getValueAtPercentile(99)),
+                        LatencyHistogram.formatNanos(histogram.getValueAtPercentile(99.9)),
+                        LatencyHistogram.formatNanos(histogram.getMax())));
+            }
+        }
         return info.toString();
     }
 
@@ -258,9 +309,12 @@ public class PerfTrace {
     }
 
 
-    public synchronized ConcurrentHashMap<PHASE, SumPerfRecord4Print> getPerfRecordMaps4print() {
-        if (totalEndReport.size() > 0) {
-            sumPerf4EndPrint(totalEndReport);
+    public ConcurrentHashMap<PHASE, SumPerfRecord4Print> getPerfRecordMaps4print() {
+        drainLock.lock();
+        try {
+            drain();
+        } finally {
+            drainLock.unlock();
         }
         return perfRecordMaps4print;
     }
@@ -269,12 +323,24 @@ public class PerfTrace {
         return sumPerf4Report;
     }
 
+    /**
+     * @return 尚未结束、需要上报的PerfRecord的快照
+     */
     public Set<PerfRecord> getNeedReportPool4NotEnd() {
-        return needReportPool4NotEnd;
+        drainLock.lock();
+        try {
+            drain();
+            return new HashSet<PerfRecord>(needReportPool4NotEnd);
+        } finally {
+            drainLock.unlock();
+        }
     }
 
-    public List<PerfRecord> getTotalEndReport() {
-        return totalEndReport;
+    /**
+     * job结束时由JobContainer设置各环节汇总后的耗时分布，summarize时打印百分位
+     */
+    public void setStageLatencies(Map<String, LatencyHistogram> stageLatencies) {
+        this.stageLatencies = stageLatencies;
     }
 
     public Map<Integer, String> getTaskDetails() {
@@ -362,7 +428,7 @@ public class PerfTrace {
         this.batchSize = batchSize;
     }
 
-    public synchronized JobStatisticsDto2 getReports(String mode) {
+    public JobStatisticsDto2 getReports(String mode) {
 
         try {
             if (!enable || !perfReportEnable) {
@@ -374,15 +440,25 @@ public class PerfTrace {
             }
 
             //每次将未完成的task的统计清空
-            sumPerf4Report4NotEnd = new SumPerf4Report();
-            Set<PerfRecord> needReportPool4NotEndTmp = null;
-            synchronized (needReportPool4NotEnd) {
-                needReportPool4NotEndTmp = new HashSet<PerfRecord>(needReportPool4NotEnd);
-            }
-
-            long curNanoTime = System.nanoTime();
-            for (PerfRecord perfRecord : needReportPool4NotEndTmp) {
-                sumPerf4Report4NotEnd.add(curNanoTime, perfRecord);
+            SumPerf4Report sumPerf4Report4NotEnd = new SumPerf4Report();
+            long taskTotalTimeMs;
+            long odpsBlockCloseTimeMs;
+            long sqlQueryTimeMs;
+            long resultNextTimeMs;
+            drainLock.lock();
+            try {
+                drain();
+                long curNanoTime = System.nanoTime();
+                for (PerfRecord perfRecord : needReportPool4NotEnd) {
+                    sumPerf4Report4NotEnd.add(curNanoTime, perfRecord);
+                }
+                this.sumPerf4Report4NotEnd = sumPerf4Report4NotEnd;
+                taskTotalTimeMs = sumPerf4Report4NotEnd.totalTaskRunTimeInMs + sumPerf4Report.totalTaskRunTimeInMs;
+                odpsBlockCloseTimeMs = sumPerf4Report4NotEnd.odpsCloseTimeInMs + sumPerf4Report.odpsCloseTimeInMs;
+                sqlQueryTimeMs = sumPerf4Report4NotEnd.sqlQueryTimeInMs + sumPerf4Report.sqlQueryTimeInMs;
+                resultNextTimeMs = sumPerf4Report4NotEnd.resultNextTimeInMs + sumPerf4Report.resultNextTimeInMs;
+            } finally {
+                drainLock.unlock();
             }
 
             JobStatisticsDto2 jdo = new JobStatisticsDto2();
@@ -409,10 +485,10 @@ public class PerfTrace {
             jdo.setHostAddress(HostUtils.IP);
 
             //sum
-            jdo.setTaskTotalTimeMs(sumPerf4Report4NotEnd.totalTaskRunTimeInMs + sumPerf4Report.totalTaskRunTimeInMs);
-            jdo.setOdpsBlockCloseTimeMs(sumPerf4Report4NotEnd.odpsCloseTimeInMs + sumPerf4Report.odpsCloseTimeInMs);
-            jdo.setSqlQueryTimeMs(sumPerf4Report4NotEnd.sqlQueryTimeInMs + sumPerf4Report.sqlQueryTimeInMs);
-            jdo.setResultNextTimeMs(sumPerf4Report4NotEnd.resultNextTimeInMs + sumPerf4Report.resultNextTimeInMs);
+            jdo.setTaskTotalTimeMs(taskTotalTimeMs);
+            jdo.setOdpsBlockCloseTimeMs(odpsBlockCloseTimeMs);
+            jdo.setSqlQueryTimeMs(sqlQueryTimeMs);
+            jdo.setResultNextTimeMs(resultNextTimeMs);
 
             return jdo;
         } catch (Exception e) {
@@ -422,24 +498,24 @@ public class PerfTrace {
         return null;
     }
 
-    private void sumPerf4EndPrint(List<PerfRecord> totalEndReport) {
-        if (!enable || totalEndReport == null) {
-            return;
-        }
-
-        for (PerfRecord perfRecord : totalEndReport) {
-            perfRecordMaps4print.putIfAbsent(perfRecord.getPhase(), new SumPerfRecord4Print());
-            perfRecordMaps4print.get(perfRecord.getPhase()).add(perfRecord);
-        }
-
-        totalEndReport.clear();
-    }
-
     public void setChannelNumber(int needChannelNumber) {
         this.channelNumber = needChannelNumber;
     }
 
 
+    /**
+     * 一次start或end，action在入队时取下，之后PerfRecord本身的action可能已经变化
+     */
+    private static final class PerfEvent {
+        final PerfRecord.ACTION action;
+        final PerfRecord perfRecord;
+
+        PerfEvent(PerfRecord.ACTION action, PerfRecord perfRecord) {
+            this.action = action;
+            this.perfRecord = perfRecord;
+        }
+    }
+
     public static class SumPerf4Report {
         long totalTaskRunTimeInMs = 0L;
         long odpsCloseTimeInMs = 0L;
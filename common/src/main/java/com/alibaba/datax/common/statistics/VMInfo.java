@@ -126,6 +126,39 @@ public class VMInfo {
         return (processCpuStatus.getTotalString() + processGCStatus.getTotalString());
     }
 
+    /**
+     * 以下直接读取MXBean的当前值，供metrics实时输出，不影响getDelta的统计
+     */
+    public int getTotalProcessorCount() {
+        return totalProcessorCount;
+    }
+
+    public long getUptime() {
+        return runtimeMXBean.getUptime();
+    }
+
+    /**
+     * @return 进程累计占用的cpu时间（纳秒），取不到时为-1
+     */
+    public long getProcessCpuTime() {
+        return isSunOsMBean(osMXBean) ? getLongFromOperatingSystem(osMXBean, "getProcessCpuTime") : -1;
+    }
+
+    /**
+     * @return 取不到时为-1
+     */
+    public long getOpenFileDescriptorCount() {
+        return isSunOsMBean(osMXBean) ? getLongFromOperatingSystem(osMXBean, "getOpenFileDescriptorCount") : -1;
+    }
+
+    public List<GarbageCollectorMXBean> getGarbageCollectorMXBeans() {
+        return garbageCollectorMXBeanList;
+    }
+
+    public List<MemoryPoolMXBean> getMemoryPoolMXBeans() {
+        return memoryPoolMXBeanList;
+    }
+
     public void getDelta() {
         getDelta(true);
     }
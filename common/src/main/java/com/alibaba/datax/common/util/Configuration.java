@@ -4,6 +4,8 @@ import com.alibaba.datax.common.exception.CommonErrorCode;
 import com.alibaba.datax.common.exception.DataXException;
 import com.alibaba.datax.common.spi.ErrorCode;
 import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
 import com.alibaba.fastjson.serializer.SerializerFeature;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.CharUtils;
@@ -49,6 +51,10 @@ import java.util.*;
  * ，使用"bazhen"作为value，第一种方式使用字符串表示key，难以处理这类问题。 <br>
  * 2. 返回树形结构，例如 a.b.c.d = "bazhen"，如果返回"a"下的所有元素，实际上是一个Map，需要合并处理 <br>
  * 3. 输出JSON，将上述对象转为JSON，要把上述Map的多级key转为树形结构，并输出为JSON <br>
+ * <p/>
+ * clone、getConfiguration、getListConfiguration得到的Configuration与来源共享同一棵树（写时复制），
+ * 修改时只复制从根到被修改节点的路径，切分出大量task时不必为每个task完整复制一遍配置；
+ * get返回的Map、List以及set传入的嵌套Map、List可能被调用方直接修改，共享时这些节点会复制一份 <br>
  */
 public class Configuration {
 
@@ -61,6 +67,18 @@ public class Configuration {
 
 	private Object root = null;
 
+	/**
+	 * 归当前对象所有、可以原地修改的Map和List，其余节点与其他Configuration共享，修改前先复制；
+	 * 为null时整棵树都归当前对象所有。某个节点归当前对象所有时，它的祖先节点也都归当前对象所有
+	 */
+	private Set<Object> owned = null;
+
+	/**
+	 * 调用方可能持有引用并绕过Configuration直接修改的Map和List（get返回的、set传入的嵌套对象）值为true，
+	 * 它们的祖先节点值为false。clone等共享树时复制这些节点，不交给对方共享；为null时没有这类节点
+	 */
+	private Map<Object, Boolean> exposed = null;
+
 	/**
 	 * 初始化空白的Configuration
 	 */
@@ -177,11 +195,16 @@ public class Configuration {
 	 * @return Java表示的JSON对象，如果path不存在或者对象不存在，均返回null。
 	 */
 	public Object get(final String path) {
-		this.checkPath(path);
-		try {
-			return this.findObject(path);
-		} catch (Exception e) {
-			return null;
+		Object object = this.lookup(path);
+		if (!isContainer(object)) {
+			return object;
+		}
+
+		// 返回的Map、List调用方可能直接修改，先让它归当前对象所有，之后共享树时也不再交出
+		synchronized (this) {
+			Object target = null == this.owned ? this.lookup(path) : this.findOwnedObject(path);
+			this.expose(path);
+			return target;
 		}
 	}
 
@@ -192,12 +215,12 @@ public class Configuration {
 	 * 如果path获取的路径或者对象不存在，返回null
 	 */
 	public Configuration getConfiguration(final String path) {
-		Object object = this.get(path);
+		Object object = this.lookup(path);
 		if (null == object) {
 			return null;
 		}
 
-		return Configuration.from(Configuration.toJSONString(object));
+		return this.share(object);
 	}
 
 	/**
@@ -206,10 +229,13 @@ public class Configuration {
 	 * @return String对象，如果path不存在或者String不存在，返回null
 	 */
 	public String getString(final String path) {
-		Object string = this.get(path);
+		Object string = this.lookup(path);
 		if (null == string) {
 			return null;
 		}
+		if (isContainer(string)) {
+			return Configuration.toJSONString(string);
+		}
 		return String.valueOf(string);
 	}
 
@@ -459,15 +485,16 @@ public class Configuration {
 	/**
 	 * 根据用户提供的json path，寻址包含Configuration的List，如果对象不存在，返回默认null
 	 */
+	@SuppressWarnings("unchecked")
 	public List<Configuration> getListConfiguration(final String path) {
-		List<Object> lists = getList(path);
+		List<Object> lists = (List<Object>) this.lookup(path);
 		if (lists == null) {
 			return null;
 		}
 
-		List<Configuration> result = new ArrayList<Configuration>();
+		List<Configuration> result = new ArrayList<Configuration>(lists.size());
 		for (final Object object : lists) {
-			result.add(Configuration.from(Configuration.toJSONString(object)));
+			result.add(this.share(object));
 		}
 		return result;
 	}
@@ -532,15 +559,14 @@ public class Configuration {
 	 */
 	@SuppressWarnings("unchecked")
 	public Map<String, Configuration> getMapConfiguration(final String path) {
-		Map<String, Object> map = this.get(path, Map.class);
+		Map<String, Object> map = (Map<String, Object>) this.lookup(path);
 		if (null == map) {
 			return null;
 		}
 
 		Map<String, Configuration> result = new HashMap<String, Configuration>();
 		for (final String key : map.keySet()) {
-			result.put(key, Configuration.from(Configuration.toJSONString(map
-					.get(key))));
+			result.put(key, this.share(map.get(key)));
 		}
 
 		return result;
@@ -576,8 +602,8 @@ public class Configuration {
 	 * 格式化Configuration输出
 	 */
 	public String beautify() {
-		return JSON.toJSONString(this.getInternal(),
-				SerializerFeature.PrettyFormat);
+		return JSON.toJSONString(this.root,
+				SerializerFeature.PrettyFormat, SerializerFeature.DisableCircularReferenceDetect);
 	}
 
 	/**
@@ -601,12 +627,18 @@ public class Configuration {
 	 *            需要插入的对象
 	 * @return Java表示的JSON对象
 	 */
-	public Object set(final String path, final Object object) {
-		checkPath(path);
-
-		Object result = this.get(path);
+	public synchronized Object set(final String path, final Object object) {
+		Object result = this.lookup(path);
+		// 被替换下来的Map、List可能仍与其他Configuration共享，返回副本
+		if (isContainer(result) && null != this.owned) {
+			result = this.copyDeep(result, newOwnedSet(), newOwnedSet());
+		}
 
 		setObject(path, extractConfiguration(object));
+		// 传入的Map、List只复制了第一层，嵌套的Map、List仍被调用方引用
+		if (hasNestedContainer(object)) {
+			this.expose(path);
+		}
 
 		return result;
 	}
@@ -624,7 +656,7 @@ public class Configuration {
 	 */
 	public Set<String> getKeys() {
 		Set<String> collect = new HashSet<String>();
-		this.getKeysRecursive(this.getInternal(), "", collect);
+		this.getKeysRecursive(this.root, "", collect);
 		return collect;
 	}
 
@@ -632,15 +664,14 @@ public class Configuration {
 	 * 删除path对应的值，如果path不存在，将抛出异常。
 	 */
 	public Object remove(final String path) {
-		final Object result = this.get(path);
+		final Object result = this.lookup(path);
 		if (null == result) {
 			throw DataXException.asDataXException(
 					CommonErrorCode.RUNTIME_ERROR,
 					String.format("配置文件对应Key[%s]并不存在，该情况是代码编程错误. 请联系DataX团队的同学.", path));
 		}
 
-		this.set(path, null);
-		return result;
+		return this.set(path, null);
 	}
 
 	/**
@@ -683,15 +714,18 @@ public class Configuration {
 	 * 将Configuration作为JSON输出
 	 */
 	public String toJSON() {
-		return Configuration.toJSONString(this.getInternal());
+		return Configuration.toJSONString(this.root);
 	}
 
 	/**
-	 * 拷贝当前Configuration，注意，这里使用了深拷贝，避免冲突
+	 * 拷贝当前Configuration，两者共享同一棵树，任何一方修改时才复制被修改的路径，互不影响
 	 */
-	public Configuration clone() {
-		Configuration config = Configuration
-				.from(Configuration.toJSONString(this.getInternal()));
+	public synchronized Configuration clone() {
+		Set<Object> copies = newOwnedSet();
+		Set<Object> kept = newOwnedSet();
+		Configuration config = new Configuration(this.detach(this.root, copies, kept), copies);
+		this.owned = kept;
+		this.retainExposed(kept);
         config.addSecretKeyPath(this.secretKeyPathSet);
         return config;
 	}
@@ -760,8 +794,11 @@ public class Configuration {
 		return;
 	}
 
+	/**
+	 * 返回的对象归当前Configuration所有，修改它不会影响共享同一棵树的其他Configuration
+	 */
 	public Object getInternal() {
-		return this.root;
+		return this.get("");
 	}
 
 	private void setObject(final String path, final Object object) {
@@ -769,6 +806,9 @@ public class Configuration {
 				object);
 
 		if (isSuitForRoot(newRoot)) {
+			if (newRoot != this.root) {
+				this.release(this.root);
+			}
 			this.root = newRoot;
 			return;
 		}
@@ -789,7 +829,7 @@ public class Configuration {
 			for (final Object each : (List<Object>) object) {
 				result.add(extractFromConfiguration(each));
 			}
-			return result;
+			return this.own(result);
 		}
 
 		if (object instanceof Map) {
@@ -799,7 +839,7 @@ public class Configuration {
 						extractFromConfiguration(((Map<String, Object>) object)
 								.get(key)));
 			}
-			return result;
+			return this.own(result);
 		}
 
 		return object;
@@ -807,12 +847,347 @@ public class Configuration {
 
 	private Object extractFromConfiguration(final Object object) {
 		if (object instanceof Configuration) {
-			return ((Configuration) object).getInternal();
+			return this.adopt((Configuration) object);
 		}
 
+		if (null != this.owned) {
+			collectContainers(object, this.owned);
+		}
 		return object;
 	}
 
+	/**
+	 * 插入另一个Configuration的树时不复制，两者共享，此后双方修改前都先复制
+	 */
+	private Object adopt(final Configuration another) {
+		Set<Object> ownedSet = this.ownedSet();
+		synchronized (another) {
+			Set<Object> kept = newOwnedSet();
+			Object node = another.detach(another.root, ownedSet, kept);
+			another.owned = kept;
+			another.retainExposed(kept);
+			return node;
+		}
+	}
+
+	/**
+	 * 返回与当前对象共享node的Configuration
+	 */
+	private synchronized Configuration share(final Object node) {
+		if (!isContainer(node)) {
+			return Configuration.from(Configuration.toJSONString(node));
+		}
+
+		Set<Object> copies = newOwnedSet();
+		Set<Object> kept = newOwnedSet();
+		Object shared = this.detach(node, copies, kept);
+		this.disown(node, kept);
+		return new Configuration(shared, copies);
+	}
+
+	/**
+	 * node所在的子树交给其他Configuration共享，当前对象此后修改前也要先复制；kept中的节点没有共享出去，仍归当前对象所有
+	 */
+	@SuppressWarnings("unchecked")
+	private void disown(final Object node, final Set<Object> kept) {
+		if (!kept.contains(node) && !this.ownedSet().remove(node)) {
+			return;
+		}
+
+		if (node instanceof Map) {
+			for (final Object child : ((Map<String, Object>) node).values()) {
+				this.disown(child, kept);
+			}
+		} else if (node instanceof List) {
+			for (final Object child : (List<Object>) node) {
+				this.disown(child, kept);
+			}
+		}
+	}
+
+	/**
+	 * 被替换下来的节点不再属于这棵树，不再记录其所有权
+	 */
+	private void release(final Object node) {
+		if (null != this.owned && isContainer(node)) {
+			this.disown(node, Collections.<Object>emptySet());
+		}
+	}
+
+	/**
+	 * 返回可以交给其他Configuration共享的node：调用方可能直接修改的节点整棵子树复制，其祖先节点浅拷贝，其余节点原样共享。
+	 * copies收集新建的节点，kept收集被复制、仍归当前对象所有的原节点
+	 */
+	@SuppressWarnings("unchecked")
+	private Object detach(final Object node, final Set<Object> copies, final Set<Object> kept) {
+		Boolean mark = null == this.exposed ? null : this.exposed.get(node);
+		if (null == mark) {
+			return node;
+		}
+		if (mark) {
+			return this.copyDeep(node, copies, kept);
+		}
+
+		Object copy = this.copyOf(node, copies, kept);
+		if (copy instanceof Map) {
+			for (final Map.Entry<String, Object> entry : ((Map<String, Object>) copy).entrySet()) {
+				entry.setValue(this.detach(entry.getValue(), copies, kept));
+			}
+		} else {
+			List<Object> list = (List<Object>) copy;
+			for (int i = 0; i < list.size(); i++) {
+				list.set(i, this.detach(list.get(i), copies, kept));
+			}
+		}
+		return copy;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Object copyDeep(final Object node, final Set<Object> copies, final Set<Object> kept) {
+		if (!isContainer(node)) {
+			return node;
+		}
+
+		Object copy = this.copyOf(node, copies, kept);
+		if (copy instanceof Map) {
+			for (final Map.Entry<String, Object> entry : ((Map<String, Object>) copy).entrySet()) {
+				entry.setValue(this.copyDeep(entry.getValue(), copies, kept));
+			}
+		} else {
+			List<Object> list = (List<Object>) copy;
+			for (int i = 0; i < list.size(); i++) {
+				list.set(i, this.copyDeep(list.get(i), copies, kept));
+			}
+		}
+		return copy;
+	}
+
+	private Object copyOf(final Object node, final Set<Object> copies, final Set<Object> kept) {
+		if (null == this.owned || this.owned.contains(node)) {
+			kept.add(node);
+		}
+		Object copy = copyContainer(node);
+		copies.add(copy);
+		return copy;
+	}
+
+	/**
+	 * 记录path对应的节点可能被调用方直接修改，path上的祖先节点一并记录
+	 */
+	private void expose(final String path) {
+		if (null == this.exposed) {
+			this.exposed = new IdentityHashMap<Object, Boolean>();
+		}
+
+		Object target = this.root;
+		for (final String each : split2List(path)) {
+			if (!this.exposed.containsKey(target)) {
+				this.exposed.put(target, Boolean.FALSE);
+			}
+			target = isPathMap(each) ? findObjectInMap(target, each)
+					: findObjectInList(target, each);
+		}
+		this.exposed.put(target, Boolean.TRUE);
+	}
+
+	/**
+	 * 共享整棵树后只保留仍在树上、仍归当前对象所有的节点的记录
+	 */
+	private void retainExposed(final Set<Object> kept) {
+		if (null == this.exposed) {
+			return;
+		}
+		this.exposed.keySet().retainAll(kept);
+		if (this.exposed.isEmpty()) {
+			this.exposed = null;
+		}
+	}
+
+	/**
+	 * 按path寻址并复制路径上与其他对象共享的节点，返回的节点及其下属节点都归当前对象所有
+	 */
+	private Object findOwnedObject(final String path) {
+		this.root = this.writable(this.root);
+		Object target = this.root;
+
+		for (final String each : split2List(path)) {
+			Object child = isPathMap(each) ? findObjectInMap(target, each)
+					: findObjectInList(target, each);
+			Object ownedChild = this.writable(child);
+			if (ownedChild != child) {
+				this.replaceChild(target, each, ownedChild);
+			}
+			target = ownedChild;
+		}
+
+		this.ownDescendants(target);
+		return target;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void ownDescendants(final Object node) {
+		if (node instanceof Map) {
+			for (final Map.Entry<String, Object> entry : ((Map<String, Object>) node).entrySet()) {
+				if (isContainer(entry.getValue())) {
+					entry.setValue(this.ownDeep(entry.getValue()));
+				}
+			}
+		} else if (node instanceof List) {
+			List<Object> list = (List<Object>) node;
+			for (int i = 0; i < list.size(); i++) {
+				if (isContainer(list.get(i))) {
+					list.set(i, this.ownDeep(list.get(i)));
+				}
+			}
+		}
+	}
+
+	/**
+	 * 已归当前对象所有的节点继续检查下属节点，否则整棵子树复制一份
+	 */
+	private Object ownDeep(final Object node) {
+		Object ownedNode = this.writable(node);
+		this.ownDescendants(ownedNode);
+		return ownedNode;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void replaceChild(final Object parent, final String index, final Object child) {
+		if (isPathMap(index)) {
+			((Map<String, Object>) parent).put(index, child);
+		} else {
+			((List<Object>) parent).set(getIndex(index), child);
+		}
+	}
+
+	/**
+	 * 修改node前调用：node与其他对象共享时返回归当前对象所有的浅拷贝，由调用方替换原节点
+	 */
+	private Object writable(final Object node) {
+		if (!isContainer(node) || null == this.owned || this.owned.contains(node)) {
+			return node;
+		}
+		return this.own(copyContainer(node));
+	}
+
+	private <T> T own(final T node) {
+		if (null != this.owned) {
+			this.owned.add(node);
+		}
+		return node;
+	}
+
+	/**
+	 * 改为逐个记录所有权，整棵树都归当前对象时先登记所有节点
+	 */
+	private Set<Object> ownedSet() {
+		if (null == this.owned) {
+			Set<Object> all = newOwnedSet();
+			collectContainers(this.root, all);
+			this.owned = all;
+		}
+		return this.owned;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void collectContainers(final Object node, final Set<Object> collect) {
+		if (node instanceof Map) {
+			collect.add(node);
+			for (final Object child : ((Map<String, Object>) node).values()) {
+				collectContainers(child, collect);
+			}
+		} else if (node instanceof List) {
+			collect.add(node);
+			for (final Object child : (List<Object>) node) {
+				collectContainers(child, collect);
+			}
+		}
+	}
+
+	/**
+	 * 浅拷贝，保持fastjson的JSONObject、JSONArray类型
+	 */
+	@SuppressWarnings("unchecked")
+	private static Object copyContainer(final Object node) {
+		if (node instanceof JSONObject) {
+			return new JSONObject(new LinkedHashMap<String, Object>((Map<String, Object>) node));
+		}
+		if (node instanceof Map) {
+			return new HashMap<String, Object>((Map<String, Object>) node);
+		}
+		if (node instanceof JSONArray) {
+			return new JSONArray(new ArrayList<Object>((List<Object>) node));
+		}
+		return new ArrayList<Object>((List<Object>) node);
+	}
+
+	private static boolean isContainer(final Object object) {
+		return object instanceof Map || object instanceof List;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static boolean hasNestedContainer(final Object object) {
+		Collection<Object> children;
+		if (object instanceof Map) {
+			children = ((Map<String, Object>) object).values();
+		} else if (object instanceof List) {
+			children = (List<Object>) object;
+		} else {
+			return false;
+		}
+		for (final Object child : children) {
+			if (isContainer(child)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static Set<Object> newOwnedSet() {
+		return Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+	}
+
+	/**
+	 * 按path寻址，不存在时返回null；返回的Map、List可能与其他对象共享，只能读取。
+	 * set时多数path还不存在，这里不像findObject那样用异常表示不存在
+	 */
+	@SuppressWarnings("unchecked")
+	private Object lookup(final String path) {
+		this.checkPath(path);
+		if (StringUtils.isBlank(path)) {
+			return this.root;
+		}
+
+		try {
+			Object target = this.root;
+			for (final String each : split2List(path)) {
+				if (isPathMap(each)) {
+					if (!(target instanceof Map)) {
+						return null;
+					}
+					target = ((Map<String, Object>) target).get(each);
+				} else {
+					if (!(target instanceof List)) {
+						return null;
+					}
+					List<Object> list = (List<Object>) target;
+					int index = getIndex(each);
+					if (index < 0 || index >= list.size()) {
+						return null;
+					}
+					target = list.get(index);
+				}
+
+				if (null == target) {
+					return null;
+				}
+			}
+			return target;
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
 	Object buildObject(final List<String> paths, final Object object) {
 		if (null == paths) {
 			throw DataXException.asDataXException(
@@ -829,15 +1204,15 @@ public class Configuration {
 			String path = paths.get(i);
 
 			if (isPathMap(path)) {
-				Map<String, Object> mapping = new HashMap<String, Object>();
+				Map<String, Object> mapping = this.own(new HashMap<String, Object>());
 				mapping.put(path, child);
 				child = mapping;
 				continue;
 			}
 
 			if (isPathList(path)) {
-				List<Object> lists = new ArrayList<Object>(
-						this.getIndex(path) + 1);
+				List<Object> lists = this.own(new ArrayList<Object>(
+						this.getIndex(path) + 1));
 				expand(lists, this.getIndex(path) + 1);
 				lists.set(this.getIndex(path), child);
 				child = lists;
@@ -871,7 +1246,7 @@ public class Configuration {
 			// 当前不是map，因此全部替换为map，并返回新建的map对象
 			boolean isCurrentMap = current instanceof Map;
 			if (!isCurrentMap) {
-				mapping = new HashMap<String, Object>();
+				mapping = this.own(new HashMap<String, Object>());
 				mapping.put(
 						path,
 						buildObject(paths.subList(index + 1, paths.size()),
@@ -880,7 +1255,7 @@ public class Configuration {
 			}
 
 			// 当前是map，但是没有对应的key，也就是我们需要新建对象插入该map，并返回该map
-			mapping = ((Map<String, Object>) current);
+			mapping = (Map<String, Object>) this.writable(current);
 			boolean hasSameKey = mapping.containsKey(path);
 			if (!hasSameKey) {
 				mapping.put(
@@ -892,8 +1267,11 @@ public class Configuration {
 
 			// 当前是map，而且还竟然存在这个值，好吧，继续递归遍历
 			current = mapping.get(path);
-			mapping.put(path,
-					setObjectRecursive(current, paths, index + 1, value));
+			Object child = setObjectRecursive(current, paths, index + 1, value);
+			if (child != current) {
+				this.release(current);
+			}
+			mapping.put(path, child);
 			return mapping;
 		}
 
@@ -905,7 +1283,7 @@ public class Configuration {
 			// 当前是list，直接新建并返回即可
 			boolean isCurrentList = current instanceof List;
 			if (!isCurrentList) {
-				lists = expand(new ArrayList<Object>(), listIndexer + 1);
+				lists = expand(this.own(new ArrayList<Object>()), listIndexer + 1);
 				lists.set(
 						listIndexer,
 						buildObject(paths.subList(index + 1, paths.size()),
@@ -914,7 +1292,7 @@ public class Configuration {
 			}
 
 			// 当前是list，但是对应的indexer是没有具体的值，也就是我们新建对象然后插入到该list，并返回该List
-			lists = (List<Object>) current;
+			lists = (List<Object>) this.writable(current);
 			lists = expand(lists, listIndexer + 1);
 
 			boolean hasSameIndex = lists.get(listIndexer) != null;
@@ -928,8 +1306,11 @@ public class Configuration {
 
 			// 当前是list，并且存在对应的index，没有办法继续递归寻找
 			current = lists.get(listIndexer);
-			lists.set(listIndexer,
-					setObjectRecursive(current, paths, index + 1, value));
+			Object child = setObjectRecursive(current, paths, index + 1, value);
+			if (child != current) {
+				this.release(current);
+			}
+			lists.set(listIndexer, child);
 			return lists;
 		}
 
@@ -1068,8 +1449,16 @@ public class Configuration {
 		}
 	}
 
+	private Configuration(final Object root, final Set<Object> owned) {
+		this.root = root;
+		this.owned = owned;
+	}
+
+	/**
+	 * 写时复制会让同一棵树内的多处引用同一节点，关闭循环引用检测，按值完整输出而不是$ref
+	 */
 	private static String toJSONString(final Object object) {
-		return JSON.toJSONString(object);
+		return JSON.toJSONString(object, SerializerFeature.DisableCircularReferenceDetect);
 	}
 
 	public Set<String> getSecretKeyPathSet() {
@@ -14,6 +14,8 @@ from optparse import OptionGroup
 from string import Template
 import codecs
 import platform
+import urllib
+import urllib2
 
 def isWindows():
     return platform.system() == 'Windows'
@@ -26,12 +28,15 @@ if isWindows():
     CLASS_PATH = ("%s/lib/*") % (DATAX_HOME)
 else:
     CLASS_PATH = ("%s/lib/*:.") % (DATAX_HOME)
+# CDS归档要求class path中只有jar，不能有非空目录；加引号避免shell展开通配符
+CDS_CLASS_PATH = ("\"%s/lib/*\"") % (DATAX_HOME)
+CDS_HOME = os.path.join(DATAX_HOME, "local_storage", "cds")
 LOGBACK_FILE = ("%s/conf/logback.xml") % (DATAX_HOME)
 DEFAULT_JVM = "-Xms1g -Xmx1g -XX:+HeapDumpOnOutOfMemoryError -XX:HeapDumpPath=%s/log" % (DATAX_HOME)
 DEFAULT_PROPERTY_CONF = "-Dfile.encoding=UTF-8 -Dlogback.statusListenerClass=ch.qos.logback.core.status.NopStatusListener -Djava.security.egd=file:///dev/urandom -Ddatax.home=%s -Dlogback.configurationFile=%s" % (
     DATAX_HOME, LOGBACK_FILE)
-ENGINE_COMMAND = "java -server ${jvm} %s -classpath %s  ${params} com.alibaba.datax.core.Engine -mode ${mode} -jobid ${jobid} -job ${job}" % (
-    DEFAULT_PROPERTY_CONF, CLASS_PATH)
+ENGINE_COMMAND = "java -server ${jvm} %s -classpath ${classpath}  ${params} com.alibaba.datax.core.Engine -mode ${mode} -jobid ${jobid} -job ${job}${resume}" % (
+    DEFAULT_PROPERTY_CONF)
 REMOTE_DEBUG_CONFIG = "-Xdebug -Xrunjdwp:transport=dt_socket,server=y,address=9999"
 
 RET_STATE = {
@@ -85,6 +90,14 @@ def getOptionParser():
                                   action="store", default="standalone",
                                   help="Set job runtime mode such as: standalone, local, distribute. "
                                        "Default mode is standalone.")
+    prodEnvOptionGroup.add_option("--resume", dest="resume", action="store_true", default=False,
+                                  help="Rerun a failed job, skip the tasks finished last time. "
+                                       "Only for writers that support resume.")
+    prodEnvOptionGroup.add_option("--cds", dest="cds", action="store_true", default=False,
+                                  help="Start the jvm with a class data sharing archive of DataX core and the job's plugins. "
+                                       "The archive is created by the first run and needs jdk 13 or later.")
+    prodEnvOptionGroup.add_option("--server", metavar="<host:port>", dest="server", action="store",
+                                  help="Submit the job to a running DataX daemon instead of starting a new jvm.")
     prodEnvOptionGroup.add_option("-p", "--params", metavar="<parameter used in job config>",
                                   action="store", dest="params",
                                   help='Set job parameter, eg: the source tableName you want to set it by command, '
@@ -160,12 +173,18 @@ def isUrl(path):
         return False
 
 
-def buildStartCommand(options, args):
+def buildStartCommand(options, args, cdsParameters=None):
     commandMap = {}
     tempJVMCommand = DEFAULT_JVM
     if options.jvmParameters:
         tempJVMCommand = tempJVMCommand + " " + options.jvmParameters
 
+    if cdsParameters:
+        tempJVMCommand = tempJVMCommand + " " + cdsParameters
+        commandMap["classpath"] = CDS_CLASS_PATH
+    else:
+        commandMap["classpath"] = CLASS_PATH
+
     if options.remoteDebug:
         tempJVMCommand = tempJVMCommand + " " + REMOTE_DEBUG_CONFIG
         print 'local ip: ', getLocalIp()
@@ -190,6 +209,7 @@ def buildStartCommand(options, args):
     if options.jobid:
         commandMap["jobid"] = options.jobid
 
+    commandMap["resume"] = " -resume" if options.resume else ""
     commandMap["jvm"] = tempJVMCommand
     commandMap["params"] = jobParams
     commandMap["job"] = jobResource
@@ -197,6 +217,123 @@ def buildStartCommand(options, args):
     return Template(ENGINE_COMMAND).substitute(**commandMap)
 
 
+def getJavaMajorVersion():
+    try:
+        output = subprocess.Popen("java -version", shell=True, stdout=subprocess.PIPE,
+                                  stderr=subprocess.PIPE).communicate()[1]
+        m = re.search(r'version "(\d+)(?:\.(\d+))?', output)
+        major = int(m.group(1))
+        if major == 1:
+            major = int(m.group(2))
+        return major
+    except Exception:
+        return 0
+
+
+def getJavaStamp():
+    for path in os.environ.get("PATH", "").split(os.pathsep):
+        java = os.path.join(path, "java")
+        if os.path.isfile(java):
+            java = os.path.realpath(java)
+            return "%s %d" % (java, os.path.getmtime(java))
+    return ""
+
+
+def getJobPluginNames(jobResource):
+    try:
+        with open(jobResource, 'r') as f:
+            content = json.load(f)["job"]["content"][0]
+        return [content["reader"]["name"], content["writer"]["name"]]
+    except Exception:
+        return []
+
+
+def isCdsArchiveFresh(archive, pluginNames):
+    if not os.path.isfile(archive) or not os.path.isfile(archive + ".jvm"):
+        return False
+    with open(archive + ".jvm", 'r') as f:
+        if f.read() != getJavaStamp():
+            return False
+
+    # DataX、jdk或插件升级后重新生成
+    archiveTime = os.path.getmtime(archive)
+    dirs = [os.path.join(DATAX_HOME, "lib")]
+    for pluginName in pluginNames:
+        for pluginType in ["reader", "writer"]:
+            dirs.append(os.path.join(DATAX_HOME, "plugin", pluginType, pluginName))
+    for d in dirs:
+        for root, subdirs, files in os.walk(d):
+            for name in [root] + [os.path.join(root, f) for f in files]:
+                if os.path.getmtime(name) > archiveTime:
+                    return False
+    return True
+
+
+# 每对reader/writer一个归档，包含启动到作业结束加载过的DataX core、依赖与插件类。
+# 归档可用时直接使用；否则由本次运行在退出时生成，作业成功后再改名为正式归档。
+# 返回 (jvm参数, 生成中的归档, 正式归档)
+def buildCdsParameters(options, args):
+    pluginNames = [] if isUrl(args[0]) else getJobPluginNames(args[0])
+    archive = os.path.join(CDS_HOME, "-".join(["datax"] + pluginNames) + ".jsa")
+    if isCdsArchiveFresh(archive, pluginNames):
+        return "-Xshare:auto -XX:SharedArchiveFile=%s" % archive, None, None
+
+    if getJavaMajorVersion() < 13:
+        print "CDS archive needs jdk 13 or later, --cds is ignored."
+        return None, None, None
+
+    if not os.path.isdir(CDS_HOME):
+        os.makedirs(CDS_HOME)
+    dumping = "%s.%d.tmp" % (archive, os.getpid())
+    return "-XX:ArchiveClassesAtExit=%s -Xlog:cds=off -Xlog:cds+dynamic=off" % dumping, dumping, archive
+
+
+def finishCdsArchive(dumping, archive, succeeded):
+    if succeeded and os.path.isfile(dumping):
+        if os.path.isfile(archive):
+            os.remove(archive)
+        os.rename(dumping, archive)
+        with open(archive + ".jvm", 'w') as f:
+            f.write(getJavaStamp())
+    elif os.path.isfile(dumping):
+        os.remove(dumping)
+
+
+def submitToServer(options, args):
+    jobResource = args[0]
+    if isUrl(jobResource):
+        jobContent = urllib2.urlopen(jobResource).read()
+    else:
+        with open(jobResource, 'r') as f:
+            jobContent = f.read()
+
+    query = {}
+    if options.params:
+        for param in options.params.split():
+            if param.startswith("-D") and "=" in param:
+                key, value = param[2:].split("=", 1)
+                query[key] = value
+    if options.jobid and options.jobid != "-1":
+        query["jobId"] = options.jobid
+
+    url = "http://%s/job" % options.server
+    if query:
+        url = url + "?" + urllib.urlencode(query)
+
+    try:
+        response = urllib2.urlopen(urllib2.Request(url, jobContent))
+        result = json.loads(response.read())
+    except urllib2.HTTPError, e:
+        print e.read()
+        return RET_STATE['FAIL']
+    except urllib2.URLError, e:
+        print "Cannot connect to DataX daemon[%s]: %s" % (options.server, e.reason)
+        return RET_STATE['FAIL']
+
+    print json.dumps(result, indent=4, sort_keys=True)
+    return result.get("exitCode", RET_STATE['FAIL'])
+
+
 def printCopyright():
     print '''
 DataX (%s), From Alibaba !
@@ -217,11 +354,21 @@ if __name__ == "__main__":
         parser.print_help()
         sys.exit(RET_STATE['FAIL'])
 
-    startCommand = buildStartCommand(options, args)
+    if options.server:
+        sys.exit(submitToServer(options, args))
+
+    cdsParameters, cdsDumping, cdsArchive = None, None, None
+    if options.cds:
+        cdsParameters, cdsDumping, cdsArchive = buildCdsParameters(options, args)
+
+    startCommand = buildStartCommand(options, args, cdsParameters)
     # print startCommand
 
     child_process = subprocess.Popen(startCommand, shell=True)
     register_signal()
     (stdout, stderr) = child_process.communicate()
 
+    if cdsDumping:
+        finishCdsArchive(cdsDumping, cdsArchive, child_process.returncode == 0)
+
     sys.exit(child_process.returncode)
@@ -33,8 +33,6 @@ import java.util.regex.Pattern;
 public class Engine {
     private static final Logger LOG = LoggerFactory.getLogger(Engine.class);
 
-    private static String RUNTIME_MODE;
-
     /* check job model (job/task) first */
     public void start(Configuration allConf) {
 
@@ -54,7 +52,6 @@ public class Engine {
         long instanceId;
         int taskGroupId = -1;
         if (isJob) {
-            allConf.set(CoreConstant.DATAX_CORE_CONTAINER_JOB_MODE, RUNTIME_MODE);
             container = new JobContainer(allConf);
             instanceId = allConf.getLong(
                     CoreConstant.DATAX_CORE_CONTAINER_JOB_ID, 0);
@@ -124,6 +121,7 @@ public class Engine {
         options.addOption("job", true, "Job config.");
         options.addOption("jobid", true, "Job unique id.");
         options.addOption("mode", true, "Job runtime mode.");
+        options.addOption("resume", false, "Resume failed job from checkpoint.");
 
         BasicParser parser = new BasicParser();
         CommandLine cl = parser.parse(options, args);
@@ -132,7 +130,7 @@ public class Engine {
 
         // 如果用户没有明确指定jobid, 则 datax.py 会指定 jobid 默认值为-1
         String jobIdString = cl.getOptionValue("jobid");
-        RUNTIME_MODE = cl.getOptionValue("mode");
+        String runtimeMode = cl.getOptionValue("mode");
 
         Configuration configuration = ConfigParser.parse(jobPath);
 
@@ -149,12 +147,16 @@ public class Engine {
             jobId = parseJobIdFromUrl(patternStringList, jobPath);
         }
 
-        boolean isStandAloneMode = "standalone".equalsIgnoreCase(RUNTIME_MODE);
+        boolean isStandAloneMode = "standalone".equalsIgnoreCase(runtimeMode);
         if (!isStandAloneMode && jobId == -1) {
             // 如果不是 standalone 模式，那么 jobId 一定不能为-1
             throw DataXException.asDataXException(FrameworkErrorCode.CONFIG_ERROR, "非 standalone 模式必须在 URL 中提供有效的 jobId.");
         }
         configuration.set(CoreConstant.DATAX_CORE_CONTAINER_JOB_ID, jobId);
+        configuration.set(CoreConstant.DATAX_CORE_CONTAINER_JOB_MODE, runtimeMode);
+        if (cl.hasOption("resume")) {
+            configuration.set(CoreConstant.DATAX_CORE_CONTAINER_JOB_CHECKPOINT_RESUME, true);
+        }
 
         //打印vmInfo
         VMInfo vmInfo = VMInfo.getVmInfo();
@@ -198,23 +200,30 @@ public class Engine {
         return -1;
     }
 
+    /**
+     * 作业失败时的退出码，框架错误使用其约定的退出码，其余为1
+     */
+    public static int getExitCode(Throwable e) {
+        int exitCode = 1;
+        if (e instanceof DataXException) {
+            DataXException tempException = (DataXException) e;
+            ErrorCode errorCode = tempException.getErrorCode();
+            if (errorCode instanceof FrameworkErrorCode) {
+                FrameworkErrorCode tempErrorCode = (FrameworkErrorCode) errorCode;
+                exitCode = tempErrorCode.toExitValue();
+            }
+        }
+        return exitCode;
+    }
+
     public static void main(String[] args) throws Exception {
         int exitCode = 0;
         try {
             Engine.entry(args);
         } catch (Throwable e) {
-            exitCode = 1;
             LOG.error("\n\n经DataX智能分析,该任务最可能的错误原因是:\n" + ExceptionTracker.trace(e));
 
-            if (e instanceof DataXException) {
-                DataXException tempException = (DataXException) e;
-                ErrorCode errorCode = tempException.getErrorCode();
-                if (errorCode instanceof FrameworkErrorCode) {
-                    FrameworkErrorCode tempErrorCode = (FrameworkErrorCode) errorCode;
-                    exitCode = tempErrorCode.toExitValue();
-                }
-            }
-
+            exitCode = getExitCode(e);
             System.exit(exitCode);
         }
         System.exit(exitCode);
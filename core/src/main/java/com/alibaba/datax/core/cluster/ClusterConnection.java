@@ -0,0 +1,94 @@
+package com.alibaba.datax.core.cluster;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import org.apache.commons.io.IOUtils;
+
+import java.io.*;
+import java.net.Socket;
+
+/**
+ * job与worker之间的一条socket连接，每条消息是一个json对象，
+ * 以4字节长度加UTF-8内容的帧传输。
+ * <p/>
+ * send可以被多个线程同时调用，receive只能由一个线程调用。
+ */
+public final class ClusterConnection {
+
+    /**
+     * 单条消息的上限，taskGroup的配置包含整个job的配置，留足余量
+     */
+    private static final int MAX_FRAME_BYTES = 64 * 1024 * 1024;
+
+    private final Socket socket;
+
+    private final DataInputStream input;
+
+    private final DataOutputStream output;
+
+    private final String remoteAddress;
+
+    private volatile boolean closed = false;
+
+    public ClusterConnection(Socket socket) throws IOException {
+        this.socket = socket;
+        this.socket.setTcpNoDelay(true);
+        this.input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        this.remoteAddress = String.valueOf(socket.getRemoteSocketAddress());
+    }
+
+    public synchronized void send(JSONObject message) throws IOException {
+        byte[] bytes = message.toJSONString().getBytes("UTF-8");
+        this.output.writeInt(bytes.length);
+        this.output.write(bytes);
+        this.output.flush();
+    }
+
+    /**
+     * @return 对端正常关闭连接时返回null
+     */
+    public JSONObject receive() throws IOException {
+        return this.receive(MAX_FRAME_BYTES);
+    }
+
+    /**
+     * 对端尚未认证时使用：限制消息大小和等待时间，超时抛出SocketTimeoutException
+     */
+    public JSONObject receive(int maxFrameBytes, int timeoutMillis) throws IOException {
+        this.socket.setSoTimeout(timeoutMillis);
+        try {
+            return this.receive(maxFrameBytes);
+        } finally {
+            this.socket.setSoTimeout(0);
+        }
+    }
+
+    private JSONObject receive(int maxFrameBytes) throws IOException {
+        int length;
+        try {
+            length = this.input.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (length < 0 || length > maxFrameBytes) {
+            throw new IOException(String.format("非法的消息长度[%d]，来自[%s].", length, this.remoteAddress));
+        }
+        byte[] bytes = new byte[length];
+        this.input.readFully(bytes);
+        return JSON.parseObject(new String(bytes, "UTF-8"));
+    }
+
+    public String getRemoteAddress() {
+        return this.remoteAddress;
+    }
+
+    public boolean isClosed() {
+        return this.closed;
+    }
+
+    public void close() {
+        this.closed = true;
+        IOUtils.closeQuietly(this.socket);
+    }
+}
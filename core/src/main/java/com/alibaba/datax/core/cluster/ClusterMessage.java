@@ -0,0 +1,177 @@
+package com.alibaba.datax.core.cluster;
+
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.statistics.LatencyHistogram;
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.core.statistics.communication.Communication;
+import com.alibaba.datax.core.statistics.communication.LatencyStage;
+import com.alibaba.datax.core.util.ExceptionTracker;
+import com.alibaba.datax.core.util.FrameworkErrorCode;
+import com.alibaba.datax.dataxservice.face.domain.enums.State;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * local模式下job与worker之间的消息：
+ * <ul>
+ * <li>HELLO：worker连上job后发送，携带job的token，表示可以接收taskGroup</li>
+ * <li>ASSIGN：job把一个taskGroup的完整配置交给空闲的worker</li>
+ * <li>REPORT：worker按taskGroup的汇报周期发送taskGroup的Communication</li>
+ * <li>DONE：taskGroup运行结束，worker随后可以接收下一个taskGroup</li>
+ * <li>SHUTDOWN：没有待运行的taskGroup，worker退出</li>
+ * </ul>
+ * job失败时直接关闭连接，正在运行taskGroup的worker随之退出。
+ */
+public final class ClusterMessage {
+
+    public static final String TYPE = "type";
+
+    public static final String HELLO = "hello";
+
+    public static final String ASSIGN = "assign";
+
+    public static final String REPORT = "report";
+
+    public static final String DONE = "done";
+
+    public static final String SHUTDOWN = "shutdown";
+
+    public static final String WORKER = "worker";
+
+    public static final String TOKEN = "token";
+
+    public static final String TASK_GROUP_ID = "taskGroupId";
+
+    public static final String CONFIGURATION = "configuration";
+
+    public static final String COMMUNICATION = "communication";
+
+    private static final String COUNTER = "counter";
+
+    private static final String LATENCY = "latency";
+
+    private static final String STATE = "state";
+
+    private static final String THROWABLE = "throwable";
+
+    private static final String MESSAGE = "message";
+
+    private static final String TIMESTAMP = "timestamp";
+
+    private ClusterMessage() {
+    }
+
+    public static JSONObject hello(String worker, String token) {
+        JSONObject message = of(HELLO);
+        message.put(WORKER, worker);
+        message.put(TOKEN, token);
+        return message;
+    }
+
+    public static JSONObject assign(int taskGroupId, Configuration taskGroupConfig) {
+        JSONObject message = of(ASSIGN);
+        message.put(TASK_GROUP_ID, taskGroupId);
+        message.put(CONFIGURATION, taskGroupConfig.toJSON());
+        return message;
+    }
+
+    public static JSONObject report(int taskGroupId, Communication communication) {
+        JSONObject message = of(REPORT);
+        message.put(TASK_GROUP_ID, taskGroupId);
+        message.put(COMMUNICATION, encode(communication));
+        return message;
+    }
+
+    public static JSONObject done(int taskGroupId) {
+        JSONObject message = of(DONE);
+        message.put(TASK_GROUP_ID, taskGroupId);
+        return message;
+    }
+
+    public static JSONObject shutdown() {
+        return of(SHUTDOWN);
+    }
+
+    private static JSONObject of(String type) {
+        JSONObject message = new JSONObject();
+        message.put(TYPE, type);
+        return message;
+    }
+
+    private static JSONObject encode(Communication communication) {
+        JSONObject json = new JSONObject();
+        json.put(COUNTER, communication.getCounter());
+        Map<LatencyStage, LatencyHistogram> latencies = communication.getLatencies();
+        if (!latencies.isEmpty()) {
+            JSONObject latency = new JSONObject();
+            for (Map.Entry<LatencyStage, LatencyHistogram> entry : latencies.entrySet()) {
+                latency.put(entry.getKey().getKey(), entry.getValue().toSparseList());
+            }
+            json.put(LATENCY, latency);
+        }
+        json.put(STATE, communication.getState().name());
+        json.put(TIMESTAMP, communication.getTimestamp());
+        json.put(MESSAGE, communication.getMessage());
+        if (communication.getThrowable() != null) {
+            json.put(THROWABLE, ExceptionTracker.trace(communication.getThrowable()));
+        }
+        return json;
+    }
+
+    /**
+     * worker上的异常以堆栈文本传回，job端包装成DataXException
+     */
+    public static Communication decodeCommunication(JSONObject message) {
+        JSONObject json = message.getJSONObject(COMMUNICATION);
+        Communication communication = new Communication();
+        JSONObject counter = json.getJSONObject(COUNTER);
+        if (counter != null) {
+            for (Map.Entry<String, Object> entry : counter.entrySet()) {
+                Object value = entry.getValue();
+                if (value instanceof Integer || value instanceof Long) {
+                    communication.setLongCounter(entry.getKey(), ((Number) value).longValue());
+                } else if (value instanceof Number) {
+                    communication.setDoubleCounter(entry.getKey(), ((Number) value).doubleValue());
+                }
+            }
+        }
+        JSONObject latency = json.getJSONObject(LATENCY);
+        if (latency != null) {
+            for (Map.Entry<String, Object> entry : latency.entrySet()) {
+                LatencyStage stage = LatencyStage.of(entry.getKey());
+                if (stage == null) {
+                    continue;
+                }
+                List<Long> values = new ArrayList<Long>();
+                for (Object value : (JSONArray) entry.getValue()) {
+                    values.add(((Number) value).longValue());
+                }
+                communication.mergeLatency(stage, LatencyHistogram.fromSparseList(values));
+            }
+        }
+        communication.setState(State.valueOf(json.getString(STATE)), true);
+        communication.setTimestamp(json.getLongValue(TIMESTAMP));
+        JSONObject messages = json.getJSONObject(MESSAGE);
+        if (messages != null) {
+            for (Map.Entry<String, Object> entry : messages.entrySet()) {
+                for (Object value : (JSONArray) entry.getValue()) {
+                    communication.addMessage(entry.getKey(), String.valueOf(value));
+                }
+            }
+        }
+        String throwable = json.getString(THROWABLE);
+        if (throwable != null) {
+            communication.setThrowable(DataXException.asDataXException(
+                    FrameworkErrorCode.PLUGIN_RUNTIME_ERROR, throwable));
+        }
+        return communication;
+    }
+
+    public static Configuration decodeConfiguration(JSONObject message) {
+        return Configuration.from(message.getString(CONFIGURATION));
+    }
+}
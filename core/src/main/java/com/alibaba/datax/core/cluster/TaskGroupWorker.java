@@ -0,0 +1,196 @@
+package com.alibaba.datax.core.cluster;
+
+import com.alibaba.datax.common.element.ColumnCast;
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.statistics.PerfTrace;
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.core.statistics.communication.Communication;
+import com.alibaba.datax.core.statistics.container.communicator.taskgroup.ClusterTGContainerCommunicator;
+import com.alibaba.datax.core.taskgroup.TaskGroupContainer;
+import com.alibaba.datax.core.util.FrameworkErrorCode;
+import com.alibaba.datax.core.util.container.CoreConstant;
+import com.alibaba.datax.core.util.container.LoadUtil;
+import com.alibaba.datax.dataxservice.face.domain.enums.State;
+import com.alibaba.fastjson.JSONObject;
+import org.apache.commons.cli.BasicParser;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.Options;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * local模式的worker进程入口：连接job，依次运行job分配过来的taskGroup。
+ * <p/>
+ * 本机的worker由job启动；其他机器上安装相同的DataX后手工启动即可加入：
+ * <pre>
+ * java -Ddatax.home=... -cp "${DATAX_HOME}/lib/*" com.alibaba.datax.core.cluster.TaskGroupWorker -master host:port -token ...
+ * </pre>
+ * token须与job的core.container.job.cluster.token一致，也可以通过环境变量DATAX_CLUSTER_TOKEN传入；
+ * 本机worker由job通过环境变量传入随机生成的token。
+ * 与job的连接断开时，正在运行的taskGroup直接随进程退出。
+ */
+public final class TaskGroupWorker {
+    private static final Logger LOG = LoggerFactory.getLogger(TaskGroupWorker.class);
+
+    /**
+     * 没有通过 -token 指定时从该环境变量读取token
+     */
+    public static final String TOKEN_ENV = "DATAX_CLUSTER_TOKEN";
+
+    private static final long CONNECT_TIMEOUT_MILLIS = 30000;
+
+    private static final long CONNECT_RETRY_INTERVAL_MILLIS = 1000;
+
+    private final ClusterConnection connection;
+
+    private final String token;
+
+    private final BlockingQueue<JSONObject> messages = new LinkedBlockingQueue<JSONObject>();
+
+    private volatile boolean taskGroupRunning = false;
+
+    private TaskGroupWorker(ClusterConnection connection, String token) {
+        this.connection = connection;
+        this.token = token;
+    }
+
+    private void serve() throws Exception {
+        this.connection.send(ClusterMessage.hello(ManagementFactory.getRuntimeMXBean().getName(), this.token));
+
+        Thread listener = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                listen();
+            }
+        }, "cluster-listener");
+        listener.setDaemon(true);
+        listener.start();
+
+        while (true) {
+            JSONObject message = this.messages.take();
+            if (ClusterMessage.SHUTDOWN.equals(message.getString(ClusterMessage.TYPE))) {
+                LOG.info("No more taskGroup from job[{}], worker exits.", this.connection.getRemoteAddress());
+                return;
+            }
+            this.runTaskGroup(message);
+        }
+    }
+
+    private void listen() {
+        try {
+            JSONObject message;
+            while ((message = this.connection.receive()) != null) {
+                this.messages.add(message);
+            }
+        } catch (IOException e) {
+            LOG.warn("Connection to job[{}] broken: {}", this.connection.getRemoteAddress(), e.getMessage());
+        }
+
+        if (this.taskGroupRunning) {
+            LOG.error("Connection to job[{}] closed while taskGroup running, worker aborts.",
+                    this.connection.getRemoteAddress());
+            System.exit(FrameworkErrorCode.KILLED_EXIT_VALUE.toExitValue());
+        }
+        this.messages.add(ClusterMessage.shutdown());
+    }
+
+    private void runTaskGroup(JSONObject message) throws IOException {
+        int taskGroupId = message.getIntValue(ClusterMessage.TASK_GROUP_ID);
+        Configuration taskGroupConfig = ClusterMessage.decodeConfiguration(message);
+        Thread.currentThread().setName(String.format("taskGroup-%d", taskGroupId));
+
+        this.taskGroupRunning = true;
+        boolean containerStarted = false;
+        try {
+            ColumnCast.bind(taskGroupConfig);
+            LoadUtil.bind(taskGroupConfig);
+
+            boolean traceEnable = taskGroupConfig.getBool(CoreConstant.DATAX_CORE_CONTAINER_TRACE_ENABLE, true);
+            PerfTrace perfTrace = PerfTrace.getInstance(false,
+                    taskGroupConfig.getLong(CoreConstant.DATAX_CORE_CONTAINER_JOB_ID), taskGroupId, 0, traceEnable);
+            perfTrace.setJobInfo(taskGroupConfig.getConfiguration(CoreConstant.DATAX_JOB_JOBINFO), false,
+                    taskGroupConfig.getInt(CoreConstant.DATAX_CORE_CONTAINER_TASKGROUP_CHANNEL));
+
+            TaskGroupContainer taskGroupContainer = new TaskGroupContainer(taskGroupConfig);
+            taskGroupContainer.setContainerCommunicator(
+                    new ClusterTGContainerCommunicator(taskGroupConfig, this.connection));
+            containerStarted = true;
+            taskGroupContainer.start();
+        } catch (Throwable e) {
+            // taskGroup启动后失败状态已由taskGroup汇报给job，启动前失败则由worker汇报，由job决定整个作业失败
+            LOG.error(String.format("taskGroup[%d] failed.", taskGroupId), e);
+            if (!containerStarted) {
+                Communication communication = new Communication();
+                communication.setState(State.FAILED);
+                communication.setThrowable(e);
+                communication.setTimestamp(System.currentTimeMillis());
+                this.connection.send(ClusterMessage.report(taskGroupId, communication));
+            }
+        } finally {
+            this.taskGroupRunning = false;
+        }
+        this.connection.send(ClusterMessage.done(taskGroupId));
+    }
+
+    private static ClusterConnection connect(String master) throws InterruptedException {
+        int index = master.lastIndexOf(':');
+        if (index <= 0) {
+            throw DataXException.asDataXException(FrameworkErrorCode.ARGUMENT_ERROR,
+                    String.format("job地址[%s]不合法，应为 host:port .", master));
+        }
+        String host = master.substring(0, index);
+        int port = Integer.parseInt(master.substring(index + 1));
+
+        long deadline = System.currentTimeMillis() + CONNECT_TIMEOUT_MILLIS;
+        while (true) {
+            Socket socket = new Socket();
+            try {
+                socket.connect(new InetSocketAddress(host, port), (int) CONNECT_RETRY_INTERVAL_MILLIS);
+                return new ClusterConnection(socket);
+            } catch (IOException e) {
+                try {
+                    socket.close();
+                } catch (IOException ignored) {
+                }
+                if (System.currentTimeMillis() > deadline) {
+                    throw DataXException.asDataXException(FrameworkErrorCode.CALL_REMOTE_FAILED,
+                            String.format("连接job[%s]失败.", master), e);
+                }
+                Thread.sleep(CONNECT_RETRY_INTERVAL_MILLIS);
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        int exitCode = 0;
+        try {
+            Options options = new Options();
+            options.addOption("master", true, "Job address, host:port.");
+            options.addOption("token", true, "Job cluster token.");
+            CommandLine cl = new BasicParser().parse(options, args);
+            String master = cl.getOptionValue("master");
+            if (StringUtils.isBlank(master)) {
+                throw DataXException.asDataXException(FrameworkErrorCode.ARGUMENT_ERROR, "必须通过 -master 指定job地址.");
+            }
+            String token = cl.getOptionValue("token", System.getenv(TOKEN_ENV));
+            if (StringUtils.isBlank(token)) {
+                throw DataXException.asDataXException(FrameworkErrorCode.ARGUMENT_ERROR,
+                        String.format("必须通过 -token 或环境变量%s指定job的token.", TOKEN_ENV));
+            }
+
+            new TaskGroupWorker(connect(master), token).serve();
+        } catch (Throwable e) {
+            LOG.error("Worker exits with error.", e);
+            exitCode = 1;
+        }
+        System.exit(exitCode);
+    }
+}
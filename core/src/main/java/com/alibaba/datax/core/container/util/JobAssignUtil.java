@@ -14,7 +14,8 @@ public final class JobAssignUtil {
 
     /**
      * 公平的分配 task 到对应的 taskGroup 中。
-     * 公平体现在：会考虑 task 中对资源负载作的 load 标识进行更均衡的作业分配操作。
+     * 公平体现在：会考虑 task 中对资源负载作的 load 标识进行更均衡的作业分配操作；
+     * 插件在切分中给出了数据量估计（splitSizeHint）时，按数据量均衡分配，见 doAssignBySize。
      * TODO 具体文档举例说明
      */
     public static List<Configuration> assignFairly(Configuration configuration, int channelNumber, int channelsPerTaskGroup) {
@@ -48,8 +49,14 @@ public final class JobAssignUtil {
             Collections.shuffle(contentConfig, new Random(System.currentTimeMillis()));
         }
 
-        LinkedHashMap<String, List<Integer>> resourceMarkAndTaskIdMap = parseAndGetResourceMarkAndTaskIdMap(contentConfig);
-        List<Configuration> taskGroupConfig = doAssign(resourceMarkAndTaskIdMap, configuration, taskGroupNumber);
+        List<Configuration> taskGroupConfig;
+        Map<Integer, Long> taskSizeMap = parseTaskSizeMap(contentConfig);
+        if (taskSizeMap != null) {
+            taskGroupConfig = doAssignBySize(taskSizeMap, configuration, taskGroupNumber, channelNumber);
+        } else {
+            LinkedHashMap<String, List<Integer>> resourceMarkAndTaskIdMap = parseAndGetResourceMarkAndTaskIdMap(contentConfig);
+            taskGroupConfig = doAssign(resourceMarkAndTaskIdMap, configuration, taskGroupNumber);
+        }
 
         // 调整 每个 taskGroup 对应的 Channel 个数（属于优化范畴）
         adjustChannelNumPerTaskGroup(taskGroupConfig, channelNumber);
@@ -109,6 +116,93 @@ public final class JobAssignUtil {
     }
 
 
+    /**
+     * 根据task 配置，获取到：
+     * taskId --> 数据量估计（字节）的 map 映射关系。优先使用 reader 给出的估计，其次 writer；
+     * 没有任何 task 给出时返回 null，部分 task 没有给出时按给出的 task 的平均值估计
+     */
+    private static Map<Integer, Long> parseTaskSizeMap(List<Configuration> contentConfig) {
+        Map<Integer, Long> taskSizeMap = new HashMap<Integer, Long>();
+        long totalSize = 0;
+        for (Configuration aTaskConfig : contentConfig) {
+            Long size = aTaskConfig.getLong(CoreConstant.JOB_READER_PARAMETER + "." + CommonConstant.SPLIT_SIZE_HINT);
+            if (size == null) {
+                size = aTaskConfig.getLong(CoreConstant.JOB_WRITER_PARAMETER + "." + CommonConstant.SPLIT_SIZE_HINT);
+            }
+            if (size != null && size >= 0) {
+                taskSizeMap.put(aTaskConfig.getInt(CoreConstant.TASK_ID), size);
+                totalSize += size;
+            }
+        }
+
+        if (taskSizeMap.isEmpty()) {
+            return null;
+        }
+        long averageSize = totalSize / taskSizeMap.size();
+        for (Configuration aTaskConfig : contentConfig) {
+            int taskId = aTaskConfig.getInt(CoreConstant.TASK_ID);
+            if (!taskSizeMap.containsKey(taskId)) {
+                taskSizeMap.put(taskId, averageSize);
+            }
+        }
+        return taskSizeMap;
+    }
+
+    /**
+     * 最长处理时间优先（LPT）：task 按数据量从大到小，先每个 taskGroup 分一个，之后依次分给加上它之后
+     * 每个 channel 平均数据量最小的 taskGroup（相同时给 task 少的），channel 数与 adjustChannelNumPerTaskGroup 的调整结果一致。taskGroup 内同样按数据量从大到小排列，
+     * 大的 task 先运行，不会在最后拖长整个 taskGroup。此时不再按资源标识打散。
+     * <pre>
+     * task 数据量：0:100, 1:80, 2:60, 3:40, 4:30, 5:20, 6:10，2 个 taskGroup、各 1 个 channel
+     * 则 assign 后的结果为：
+     * taskGroup-0: 0,  3,  4      (170)
+     * taskGroup-1: 1,  2,  5,  6  (170)
+     * </pre>
+     */
+    private static List<Configuration> doAssignBySize(final Map<Integer, Long> taskSizeMap, Configuration jobConfiguration,
+                                                      int taskGroupNumber, int channelNumber) {
+        List<Configuration> contentConfig = jobConfiguration.getListConfiguration(CoreConstant.DATAX_JOB_CONTENT);
+
+        List<Integer> taskIds = new ArrayList<Integer>(taskSizeMap.keySet());
+        Collections.sort(taskIds, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer left, Integer right) {
+                long diff = taskSizeMap.get(right) - taskSizeMap.get(left);
+                return diff > 0 ? 1 : (diff < 0 ? -1 : left.compareTo(right));
+            }
+        });
+
+        List<List<Configuration>> taskGroupConfigList = new ArrayList<List<Configuration>>(taskGroupNumber);
+        long[] taskGroupSizes = new long[taskGroupNumber];
+        int[] taskGroupChannels = new int[taskGroupNumber];
+        for (int i = 0; i < taskGroupNumber; i++) {
+            taskGroupConfigList.add(new LinkedList<Configuration>());
+            taskGroupChannels[i] = Math.max(1, channelNumber / taskGroupNumber
+                    + (i < channelNumber % taskGroupNumber ? 1 : 0));
+        }
+
+        for (int k = 0; k < taskIds.size(); k++) {
+            int taskId = taskIds.get(k);
+            long size = taskSizeMap.get(taskId);
+            int target = k;
+            if (k >= taskGroupNumber) {
+                double targetLoad = Double.MAX_VALUE;
+                for (int i = 0; i < taskGroupNumber; i++) {
+                    double load = (double) (taskGroupSizes[i] + size) / taskGroupChannels[i];
+                    if (load < targetLoad || (load == targetLoad
+                            && taskGroupConfigList.get(i).size() < taskGroupConfigList.get(target).size())) {
+                        target = i;
+                        targetLoad = load;
+                    }
+                }
+            }
+            taskGroupConfigList.get(target).add(contentConfig.get(taskId));
+            taskGroupSizes[target] += size;
+        }
+
+        return buildTaskGroupConfig(jobConfiguration, taskGroupConfigList);
+    }
+
     /**
      * /**
      * 需要实现的效果通过例子来说是：
@@ -129,11 +223,6 @@ public final class JobAssignUtil {
     private static List<Configuration> doAssign(LinkedHashMap<String, List<Integer>> resourceMarkAndTaskIdMap, Configuration jobConfiguration, int taskGroupNumber) {
         List<Configuration> contentConfig = jobConfiguration.getListConfiguration(CoreConstant.DATAX_JOB_CONTENT);
 
-        Configuration taskGroupTemplate = jobConfiguration.clone();
-        taskGroupTemplate.remove(CoreConstant.DATAX_JOB_CONTENT);
-
-        List<Configuration> result = new LinkedList<Configuration>();
-
         List<List<Configuration>> taskGroupConfigList = new ArrayList<List<Configuration>>(taskGroupNumber);
         for (int i = 0; i < taskGroupNumber; i++) {
             taskGroupConfigList.add(new LinkedList<Configuration>());
@@ -162,8 +251,18 @@ public final class JobAssignUtil {
             }
         }
 
+        return buildTaskGroupConfig(jobConfiguration, taskGroupConfigList);
+    }
+
+    private static List<Configuration> buildTaskGroupConfig(Configuration jobConfiguration,
+                                                            List<List<Configuration>> taskGroupConfigList) {
+        Configuration taskGroupTemplate = jobConfiguration.clone();
+        taskGroupTemplate.remove(CoreConstant.DATAX_JOB_CONTENT);
+
+        List<Configuration> result = new LinkedList<Configuration>();
+
         Configuration tempTaskGroupConfig;
-        for (int i = 0; i < taskGroupNumber; i++) {
+        for (int i = 0; i < taskGroupConfigList.size(); i++) {
             tempTaskGroupConfig = taskGroupTemplate.clone();
             tempTaskGroupConfig.set(CoreConstant.DATAX_JOB_CONTENT, taskGroupConfigList.get(i));
             tempTaskGroupConfig.set(CoreConstant.DATAX_CORE_CONTAINER_TASKGROUP_ID, i);
@@ -0,0 +1,84 @@
+package com.alibaba.datax.core.daemon;
+
+import com.alibaba.datax.dataxservice.face.domain.enums.State;
+import com.alibaba.fastjson.JSONObject;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 常驻服务中一个作业的运行状态
+ */
+public final class DaemonJob {
+
+    private final long jobId;
+
+    private final String jobContent;
+
+    private final long submitTime;
+
+    private volatile State state = State.WAITING;
+
+    private volatile long startTime;
+
+    private volatile long endTime;
+
+    private volatile int exitCode;
+
+    private volatile String message;
+
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    DaemonJob(long jobId, String jobContent) {
+        this.jobId = jobId;
+        this.jobContent = jobContent;
+        this.submitTime = System.currentTimeMillis();
+    }
+
+    public long getJobId() {
+        return this.jobId;
+    }
+
+    String getJobContent() {
+        return this.jobContent;
+    }
+
+    public State getState() {
+        return this.state;
+    }
+
+    void markRunning() {
+        this.startTime = System.currentTimeMillis();
+        this.state = State.RUNNING;
+    }
+
+    void markFinished(State state, int exitCode, String message) {
+        this.endTime = System.currentTimeMillis();
+        this.exitCode = exitCode;
+        this.message = message;
+        this.state = state;
+        this.finished.countDown();
+    }
+
+    public boolean awaitFinished(long timeoutInMillis) throws InterruptedException {
+        return this.finished.await(timeoutInMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public JSONObject toJSON() {
+        JSONObject json = new JSONObject();
+        json.put("jobId", this.jobId);
+        json.put("state", this.state.name());
+        json.put("submitTime", this.submitTime);
+        if (this.startTime > 0) {
+            json.put("startTime", this.startTime);
+        }
+        if (this.state.isFinished()) {
+            json.put("endTime", this.endTime);
+            json.put("exitCode", this.exitCode);
+            if (this.message != null) {
+                json.put("message", this.message);
+            }
+        }
+        return json;
+    }
+}
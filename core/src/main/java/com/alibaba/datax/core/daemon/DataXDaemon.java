@@ -0,0 +1,299 @@
+package com.alibaba.datax.core.daemon;
+
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.core.Engine;
+import com.alibaba.datax.core.util.ConfigParser;
+import com.alibaba.datax.core.util.ConfigurationValidate;
+import com.alibaba.datax.core.util.ExceptionTracker;
+import com.alibaba.datax.core.util.container.CoreConstant;
+import com.alibaba.datax.dataxservice.face.domain.enums.ExecuteMode;
+import com.alibaba.datax.dataxservice.face.domain.enums.State;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.cli.BasicParser;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.Options;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 常驻服务模式：一个JVM持续接收并运行作业，插件的JarLoader（LoadUtil中缓存）、插件配置、
+ * JIT编译结果与JDBC驱动在作业之间复用，省去每个作业的启动开销，适合大量短小作业。
+ * <pre>
+ * java -server -Ddatax.home=... -Dlogback.configurationFile=... -cp "${DATAX_HOME}/lib/*" com.alibaba.datax.core.daemon.DataXDaemon [-port 7070]
+ * curl --data-binary @job.json "http://127.0.0.1:7070/job?tableName=t1"
+ * </pre>
+ * POST /job 提交作业，默认等作业结束后返回状态与退出码；wait=false时立即返回jobId，之后用 GET /job/{jobId} 查询。
+ * 除wait、jobId之外的请求参数替换作业配置中的${变量}。
+ * <p/>
+ * 每个作业在独立的JobContainer中以standalone方式运行，作业之间的共享状态均按jobId隔离；
+ * PerfTrace在进程内只有一个实例，常驻服务中关闭。
+ */
+public final class DataXDaemon {
+    private static final Logger LOG = LoggerFactory.getLogger(DataXDaemon.class);
+
+    private static final String PARAM_WAIT = "wait";
+
+    private static final String PARAM_JOB_ID = "jobId";
+
+    private static final String JOB_PATH = "/job";
+
+    /**
+     * 与StrUtil.replaceVariable的变量格式一致
+     */
+    private static final Pattern VARIABLE_PATTERN = Pattern.compile("(\\$)\\{?(\\w+)\\}?");
+
+    private final Configuration allPluginConfig;
+
+    private final ExecutorService jobExecutor;
+
+    private final int jobHistory;
+
+    private final ConcurrentHashMap<Long, DaemonJob> jobs = new ConcurrentHashMap<Long, DaemonJob>();
+
+    /**
+     * 已结束的作业，超过jobHistory个时最早的不再保留
+     */
+    private final ConcurrentLinkedQueue<DaemonJob> finishedJobs = new ConcurrentLinkedQueue<DaemonJob>();
+
+    private final AtomicLong jobIdGenerator = new AtomicLong(0);
+
+    private HttpServer server;
+
+    private DataXDaemon(Configuration coreConfig) {
+        this.allPluginConfig = ConfigParser.parsePluginConfig(null);
+        this.jobHistory = coreConfig.getInt(CoreConstant.DATAX_CORE_DAEMON_JOBHISTORY, 1000);
+
+        int maxConcurrentJobs = coreConfig.getInt(CoreConstant.DATAX_CORE_DAEMON_MAXCONCURRENTJOBS, 4);
+        final AtomicInteger threadNumber = new AtomicInteger(0);
+        this.jobExecutor = Executors.newFixedThreadPool(maxConcurrentJobs, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                return new Thread(r, "daemon-job-" + threadNumber.incrementAndGet());
+            }
+        });
+    }
+
+    private void start(String host, int port) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        this.server.createContext(JOB_PATH, new JobHandler());
+        // 等待作业结束的请求会占住处理线程
+        this.server.setExecutor(Executors.newCachedThreadPool());
+        this.server.start();
+        LOG.info("DataX daemon listens on [{}:{}].", host, port);
+    }
+
+    private void stop() {
+        if (this.server != null) {
+            this.server.stop(0);
+        }
+        this.jobExecutor.shutdownNow();
+    }
+
+    private DaemonJob submit(String jobContent, String jobIdString) {
+        DaemonJob job;
+        if (StringUtils.isNotBlank(jobIdString)) {
+            long jobId = Long.parseLong(jobIdString.trim());
+            job = new DaemonJob(jobId, jobContent);
+            DaemonJob previous = this.jobs.putIfAbsent(jobId, job);
+            // 同一jobId只能有一个未结束的作业
+            if (previous != null && !(previous.getState().isFinished() && this.jobs.replace(jobId, previous, job))) {
+                return null;
+            }
+        } else {
+            do {
+                job = new DaemonJob(this.jobIdGenerator.incrementAndGet(), jobContent);
+            } while (this.jobs.putIfAbsent(job.getJobId(), job) != null);
+        }
+
+        final DaemonJob submitted = job;
+        this.jobExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                runJob(submitted);
+            }
+        });
+        LOG.info("Job [{}] submitted.", job.getJobId());
+        return job;
+    }
+
+    private void runJob(DaemonJob job) {
+        String threadName = Thread.currentThread().getName();
+        job.markRunning();
+        try {
+            Configuration configuration = ConfigParser.parseJobContent(job.getJobContent(), this.allPluginConfig);
+            configuration.set(CoreConstant.DATAX_CORE_CONTAINER_JOB_ID, job.getJobId());
+            configuration.set(CoreConstant.DATAX_CORE_CONTAINER_JOB_MODE, ExecuteMode.STANDALONE.getValue());
+            configuration.set(CoreConstant.DATAX_CORE_CONTAINER_TRACE_ENABLE, false);
+            configuration.set(CoreConstant.DATAX_CORE_REPORT_DATAX_PERFLOG, false);
+
+            LOG.info("\n" + Engine.filterJobConfiguration(configuration) + "\n");
+            ConfigurationValidate.doValidate(configuration);
+            new Engine().start(configuration);
+
+            job.markFinished(State.SUCCEEDED, 0, null);
+        } catch (Throwable e) {
+            String trace = ExceptionTracker.trace(e);
+            LOG.error(String.format("Job [%d] failed, 经DataX智能分析,该任务最可能的错误原因是:\n%s", job.getJobId(), trace));
+            job.markFinished(State.FAILED, Engine.getExitCode(e), trace);
+        } finally {
+            Thread.currentThread().setName(threadName);
+            this.finishedJobs.add(job);
+            while (this.finishedJobs.size() > this.jobHistory) {
+                DaemonJob expired = this.finishedJobs.poll();
+                if (expired != null) {
+                    this.jobs.remove(expired.getJobId(), expired);
+                }
+            }
+        }
+    }
+
+    private class JobHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                String method = exchange.getRequestMethod();
+                String subPath = StringUtils.removeStart(
+                        StringUtils.removeStart(exchange.getRequestURI().getPath(), JOB_PATH), "/");
+                Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+
+                if ("POST".equalsIgnoreCase(method) && subPath.isEmpty()) {
+                    handleSubmit(exchange, params);
+                } else if ("GET".equalsIgnoreCase(method) && subPath.isEmpty()) {
+                    JSONArray array = new JSONArray();
+                    for (DaemonJob job : jobs.values()) {
+                        array.add(job.toJSON());
+                    }
+                    JSONObject body = new JSONObject();
+                    body.put("jobs", array);
+                    respond(exchange, 200, body);
+                } else if ("GET".equalsIgnoreCase(method) && StringUtils.isNumeric(subPath)) {
+                    DaemonJob job = jobs.get(Long.parseLong(subPath));
+                    if (job == null) {
+                        respond(exchange, 404, error(String.format("作业[%s]不存在或已过期.", subPath)));
+                    } else {
+                        respond(exchange, 200, job.toJSON());
+                    }
+                } else {
+                    respond(exchange, 404, error("不支持的请求: " + method + " " + exchange.getRequestURI()));
+                }
+            } catch (Throwable e) {
+                LOG.warn("Daemon request failed.", e);
+                respond(exchange, 500, error(ExceptionTracker.trace(e)));
+            } finally {
+                exchange.close();
+            }
+        }
+
+        private void handleSubmit(HttpExchange exchange, Map<String, String> params)
+                throws IOException, InterruptedException {
+            String jobIdString = params.remove(PARAM_JOB_ID);
+            String waitString = params.remove(PARAM_WAIT);
+            String jobContent = replaceVariables(
+                    IOUtils.toString(exchange.getRequestBody(), "UTF-8"), params);
+
+            DaemonJob job = submit(jobContent, jobIdString);
+            if (job == null) {
+                respond(exchange, 409, error(String.format("作业[%s]正在运行.", jobIdString)));
+                return;
+            }
+
+            if (!"false".equalsIgnoreCase(waitString)) {
+                while (!job.awaitFinished(TimeUnit.MINUTES.toMillis(1))) {
+                    LOG.debug("Waiting job [{}] to finish.", job.getJobId());
+                }
+            }
+            respond(exchange, 200, job.toJSON());
+        }
+    }
+
+    private static JSONObject error(String message) {
+        JSONObject body = new JSONObject();
+        body.put("message", message);
+        return body;
+    }
+
+    private static void respond(HttpExchange exchange, int status, JSONObject body) throws IOException {
+        byte[] bytes = body.toJSONString().getBytes("UTF-8");
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        OutputStream output = exchange.getResponseBody();
+        output.write(bytes);
+        output.flush();
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) throws IOException {
+        Map<String, String> params = new HashMap<String, String>();
+        if (StringUtils.isBlank(rawQuery)) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int index = pair.indexOf('=');
+            if (index <= 0) {
+                continue;
+            }
+            params.put(URLDecoder.decode(pair.substring(0, index), "UTF-8"),
+                    URLDecoder.decode(pair.substring(index + 1), "UTF-8"));
+        }
+        return params;
+    }
+
+    static String replaceVariables(String jobContent, Map<String, String> variables) {
+        if (variables.isEmpty()) {
+            return jobContent;
+        }
+        Matcher matcher = VARIABLE_PATTERN.matcher(jobContent);
+        StringBuffer result = new StringBuffer(jobContent.length());
+        while (matcher.find()) {
+            String value = variables.get(matcher.group(2));
+            matcher.appendReplacement(result, Matcher.quoteReplacement(value != null ? value : matcher.group()));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    public static void main(String[] args) {
+        try {
+            Options options = new Options();
+            options.addOption("host", true, "Listen address, default 127.0.0.1.");
+            options.addOption("port", true, "Listen port, default 7070.");
+            CommandLine cl = new BasicParser().parse(options, args);
+
+            Configuration coreConfig = Configuration.from(new File(CoreConstant.DATAX_CONF_PATH));
+            String host = cl.getOptionValue("host",
+                    coreConfig.getString(CoreConstant.DATAX_CORE_DAEMON_HOST, "127.0.0.1"));
+            int port = cl.hasOption("port") ? Integer.parseInt(cl.getOptionValue("port"))
+                    : coreConfig.getInt(CoreConstant.DATAX_CORE_DAEMON_PORT, 7070);
+
+            final DataXDaemon daemon = new DataXDaemon(coreConfig);
+            daemon.start(host, port);
+            Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    daemon.stop();
+                }
+            }, "daemon-shutdown"));
+        } catch (Throwable e) {
+            LOG.error("DataX daemon failed to start.", e);
+            System.exit(Engine.getExitCode(e));
+        }
+    }
+}
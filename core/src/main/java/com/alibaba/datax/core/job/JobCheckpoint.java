@@ -0,0 +1,170 @@
+package com.alibaba.datax.core.job;
+
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.core.statistics.communication.Communication;
+import com.alibaba.datax.core.util.FrameworkErrorCode;
+import com.alibaba.datax.core.util.container.CoreConstant;
+import com.alibaba.fastjson.JSON;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * 切分粒度的断点：记录已成功的task，作业失败后以 -resume 重跑时跳过这些task。
+ * <p/>
+ * 每个task以其reader、writer、transformer配置的摘要作为key，切分结果不变时重跑得到的key也不变；
+ * 断点文件以作业content的摘要命名，每行一个已成功task的key，作业成功后删除。
+ * <p/>
+ * taskGroup在task成功后把key放入task的Communication消息中，随汇报到达job，
+ * 由job统一追加到断点文件，因此standalone与local模式的处理方式相同。
+ */
+public final class JobCheckpoint {
+    private static final Logger LOG = LoggerFactory.getLogger(JobCheckpoint.class);
+
+    /**
+     * taskGroup汇报已成功task时使用的Communication消息key
+     */
+    public static final String MESSAGE_KEY = "checkpoint";
+
+    private static final int KEY_LENGTH = 32;
+
+    private final File file;
+
+    private final Set<String> finishedKeys = new HashSet<String>();
+
+    private JobCheckpoint(File file) {
+        this.file = file;
+    }
+
+    /**
+     * @param userConf 用户提交的原始作业配置，用于确定断点文件
+     * @param resume   为true时读入上次运行留下的断点，否则丢弃旧断点重新记录
+     */
+    public static JobCheckpoint open(Configuration configuration, Configuration userConf, boolean resume) {
+        String directory = configuration.getString(
+                CoreConstant.DATAX_CORE_CONTAINER_JOB_CHECKPOINT_DIR, CoreConstant.DATAX_STORAGE_CHECKPOINT_HOME);
+        String jobKey = digest(canonical(userConf.get(CoreConstant.DATAX_JOB_CONTENT)));
+        JobCheckpoint checkpoint = new JobCheckpoint(new File(directory, jobKey + ".checkpoint"));
+
+        try {
+            FileUtils.forceMkdir(checkpoint.file.getParentFile());
+            if (checkpoint.file.exists()) {
+                if (resume) {
+                    for (String line : FileUtils.readLines(checkpoint.file, "UTF-8")) {
+                        // 进程中途退出时最后一行可能不完整
+                        if (line.length() == KEY_LENGTH) {
+                            checkpoint.finishedKeys.add(line);
+                        }
+                    }
+                } else {
+                    FileUtils.forceDelete(checkpoint.file);
+                }
+            }
+        } catch (IOException e) {
+            throw DataXException.asDataXException(FrameworkErrorCode.RUNTIME_ERROR,
+                    String.format("读取断点文件[%s]失败.", checkpoint.file.getAbsolutePath()), e);
+        }
+
+        if (resume) {
+            LOG.info("Job resumes from checkpoint[{}] with [{}] finished tasks.",
+                    checkpoint.file.getAbsolutePath(), checkpoint.finishedKeys.size());
+        } else {
+            LOG.info("Job records checkpoint to [{}].", checkpoint.file.getAbsolutePath());
+        }
+        return checkpoint;
+    }
+
+    /**
+     * 切分后的task配置（job.content下的一个元素）对应的断点key，不包含taskId
+     */
+    public static String taskKey(Configuration taskConfig) {
+        Map<String, Object> content = new TreeMap<String, Object>();
+        content.put(CoreConstant.JOB_READER, canonical(taskConfig.get(CoreConstant.JOB_READER)));
+        content.put("writer", canonical(taskConfig.get("writer")));
+        content.put(CoreConstant.JOB_TRANSFORMER, canonical(taskConfig.get(CoreConstant.JOB_TRANSFORMER)));
+        return digest(content);
+    }
+
+    public boolean isFinished(String taskKey) {
+        return this.finishedKeys.contains(taskKey);
+    }
+
+    /**
+     * 把job汇总Communication中新出现的已成功task追加到断点文件
+     */
+    public void record(Communication jobCommunication) {
+        List<String> keys = jobCommunication.getMessage(MESSAGE_KEY);
+        if (keys == null) {
+            return;
+        }
+
+        List<String> newKeys = new ArrayList<String>();
+        for (String key : keys) {
+            if (this.finishedKeys.add(key)) {
+                newKeys.add(key);
+            }
+        }
+        if (newKeys.isEmpty()) {
+            return;
+        }
+
+        try {
+            FileUtils.writeLines(this.file, "UTF-8", newKeys, true);
+        } catch (IOException e) {
+            // 断点只影响重跑的代价，写失败不中断作业
+            LOG.warn(String.format("写入断点文件[%s]失败.", this.file.getAbsolutePath()), e);
+        }
+    }
+
+    /**
+     * 作业成功后删除断点，下次以相同配置运行时从头开始
+     */
+    public void clear() {
+        FileUtils.deleteQuietly(this.file);
+    }
+
+    /**
+     * 对象的key排序后再序列化，保证相同配置得到相同的文本
+     */
+    @SuppressWarnings("unchecked")
+    private static Object canonical(Object object) {
+        if (object instanceof Map) {
+            Map<String, Object> sorted = new TreeMap<String, Object>();
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) object).entrySet()) {
+                sorted.put(entry.getKey(), canonical(entry.getValue()));
+            }
+            return sorted;
+        }
+        if (object instanceof List) {
+            List<Object> list = new ArrayList<Object>();
+            for (Object element : (List<Object>) object) {
+                list.add(canonical(element));
+            }
+            return list;
+        }
+        return object;
+    }
+
+    private static String digest(Object canonicalObject) {
+        try {
+            byte[] bytes = MessageDigest.getInstance("MD5").digest(
+                    JSON.toJSONString(canonicalObject).getBytes("UTF-8"));
+            StringBuilder hex = new StringBuilder(KEY_LENGTH);
+            for (byte b : bytes) {
+                hex.append(String.format("%02x", b & 0xff));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw DataXException.asDataXException(FrameworkErrorCode.RUNTIME_ERROR, e);
+        } catch (IOException e) {
+            throw DataXException.asDataXException(FrameworkErrorCode.RUNTIME_ERROR, e);
+        }
+    }
+}
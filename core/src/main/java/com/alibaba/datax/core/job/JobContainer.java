@@ -6,6 +6,7 @@ import com.alibaba.datax.common.plugin.AbstractJobPlugin;
 import com.alibaba.datax.common.plugin.JobPluginCollector;
 import com.alibaba.datax.common.spi.Reader;
 import com.alibaba.datax.common.spi.Writer;
+import com.alibaba.datax.common.statistics.LatencyHistogram;
 import com.alibaba.datax.common.statistics.PerfTrace;
 import com.alibaba.datax.common.statistics.VMInfo;
 import com.alibaba.datax.common.util.Configuration;
@@ -15,12 +16,23 @@ import com.alibaba.datax.core.Engine;
 import com.alibaba.datax.core.container.util.HookInvoker;
 import com.alibaba.datax.core.container.util.JobAssignUtil;
 import com.alibaba.datax.core.job.scheduler.AbstractScheduler;
+import com.alibaba.datax.core.job.scheduler.cluster.LocalClusterScheduler;
 import com.alibaba.datax.core.job.scheduler.processinner.StandAloneScheduler;
 import com.alibaba.datax.core.statistics.communication.Communication;
 import com.alibaba.datax.core.statistics.communication.CommunicationTool;
+import com.alibaba.datax.core.statistics.communication.LatencyStage;
+import com.alibaba.datax.core.statistics.communication.LocalTGCommunicationManager;
 import com.alibaba.datax.core.statistics.container.communicator.AbstractContainerCommunicator;
 import com.alibaba.datax.core.statistics.container.communicator.job.StandAloneJobContainerCommunicator;
+import com.alibaba.datax.core.statistics.metrics.MetricsServer;
 import com.alibaba.datax.core.statistics.plugin.DefaultJobPluginCollector;
+import com.alibaba.datax.core.taskgroup.ChannelAutoScaler;
+import com.alibaba.datax.core.taskgroup.JobTaskQueue;
+import com.alibaba.datax.core.taskgroup.TaskMonitor;
+import com.alibaba.datax.core.taskgroup.TaskSpeculator;
+import com.alibaba.datax.core.transport.channel.Channel;
+import com.alibaba.datax.core.transport.channel.TokenBucket;
+import com.alibaba.datax.core.transport.channel.disk.DiskSpillChannel;
 import com.alibaba.datax.core.util.ErrorRecordChecker;
 import com.alibaba.datax.core.util.FrameworkErrorCode;
 import com.alibaba.datax.core.util.container.ClassLoaderSwapper;
@@ -35,7 +47,12 @@ import org.slf4j.LoggerFactory;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 /**
  * Created by jingxing on 14-8-24.
@@ -82,6 +99,21 @@ public class JobContainer extends AbstractContainer {
 
     private ErrorRecordChecker errorLimit;
 
+    /**
+     * 开启断点时记录已成功的task，否则为null
+     */
+    private JobCheckpoint checkpoint;
+
+    /**
+     * reader和writer互不依赖的job阶段是否并行执行
+     */
+    private boolean parallelPhases;
+
+    /**
+     * 与writer的prepare并行完成的reader切分结果，split时使用
+     */
+    private List<Configuration> readerTaskConfigs;
+
     public JobContainer(Configuration configuration) {
         super(configuration);
 
@@ -105,12 +137,14 @@ public class JobContainer extends AbstractContainer {
                 LOG.info("jobContainer starts to do preCheck ...");
                 this.preCheck();
             } else {
+                MetricsServer.startIfEnabled(this.configuration);
                 userConf = configuration.clone();
                 LOG.debug("jobContainer starts to do preHandle ...");
                 this.preHandle();
 
                 LOG.debug("jobContainer starts to do init ...");
                 this.init();
+                this.initCheckpoint();
                 LOG.info("jobContainer starts to do prepare ...");
                 this.prepare();
                 LOG.info("jobContainer starts to do split ...");
@@ -119,6 +153,9 @@ public class JobContainer extends AbstractContainer {
                 this.schedule();
                 LOG.debug("jobContainer starts to do post ...");
                 this.post();
+                if (this.checkpoint != null) {
+                    this.checkpoint.clear();
+                }
 
                 LOG.debug("jobContainer starts to do postHandle ...");
                 this.postHandle();
@@ -174,9 +211,15 @@ public class JobContainer extends AbstractContainer {
                         LOG.info(vmInfo.totalString());
                     }
 
+                    if (super.getContainerCommunicator() != null) {
+                        PerfTrace.getInstance().setStageLatencies(toStageLatencies(
+                                super.getContainerCommunicator().collect()));
+                    }
                     LOG.info(PerfTrace.getInstance().summarizeNoException());
                     this.logStatistics();
                 }
+                // 统计输出之后再释放taskGroup的Communication
+                LocalTGCommunicationManager.remove(this.jobId);
             }
         }
     }
@@ -297,16 +340,137 @@ public class JobContainer extends AbstractContainer {
 
         Thread.currentThread().setName("job-" + this.jobId);
 
-        JobPluginCollector jobPluginCollector = new DefaultJobPluginCollector(
+        this.parallelPhases = this.configuration.getBool(
+                CoreConstant.DATAX_CORE_CONTAINER_JOB_PARALLELPHASES, true);
+        this.readerPluginName = this.configuration.getString(
+                CoreConstant.DATAX_JOB_CONTENT_READER_NAME);
+        this.writerPluginName = this.configuration.getString(
+                CoreConstant.DATAX_JOB_CONTENT_WRITER_NAME);
+
+        final JobPluginCollector jobPluginCollector = new DefaultJobPluginCollector(
                 this.getContainerCommunicator());
-        //必须先Reader ，后Writer
-        this.jobReader = this.initJobReader(jobPluginCollector);
-        this.jobWriter = this.initJobWriter(jobPluginCollector);
+        // 类加载没有先后要求，writer及两端Task的类在后台提前加载
+        LoadUtil.preload(PluginType.WRITER, this.writerPluginName);
+        LoadUtil.preload(PluginType.READER, this.readerPluginName);
+        if (!this.parallelPhases) {
+            this.jobReader = this.initJobReader(jobPluginCollector);
+            this.jobWriter = this.initJobWriter(jobPluginCollector);
+            return;
+        }
+
+        // reader和writer各自拿到配置的副本、使用各自的JarLoader，init互不依赖，可以同时进行（如同时建立源端和目的端的连接）
+        this.jobReader = this.runParallel("init", new Callable<Reader.Job>() {
+            @Override
+            public Reader.Job call() {
+                return initJobReader(jobPluginCollector);
+            }
+        }, new Runnable() {
+            @Override
+            public void run() {
+                jobWriter = initJobWriter(jobPluginCollector);
+            }
+        });
+    }
+
+    /**
+     * 断点依赖writer支持重跑：已成功的task被跳过，未完成的task重新写入时不能产生重复数据，
+     * 且writer的prepare不能清除已写入的数据。resume时writer不支持则直接报错
+     */
+    private void initCheckpoint() {
+        boolean resume = this.configuration.getBool(CoreConstant.DATAX_CORE_CONTAINER_JOB_CHECKPOINT_RESUME, false);
+        boolean enable = resume || this.configuration.getBool(
+                CoreConstant.DATAX_CORE_CONTAINER_JOB_CHECKPOINT_ENABLE, false);
+        if (!enable) {
+            return;
+        }
+
+        classLoaderSwapper.setCurrentThreadClassLoader(LoadUtil.getJarLoader(
+                PluginType.WRITER, this.writerPluginName));
+        boolean supportResume = this.jobWriter.supportResume();
+        classLoaderSwapper.restoreCurrentThreadClassLoader();
+
+        if (!supportResume) {
+            if (resume) {
+                throw DataXException.asDataXException(FrameworkErrorCode.CONFIG_ERROR,
+                        String.format("Writer [%s] 在当前配置下不支持断点续跑，请去掉 -resume 重新运行整个作业.",
+                                this.writerPluginName));
+            }
+            LOG.warn("Writer [{}] does not support resume, checkpoint is disabled.", this.writerPluginName);
+            return;
+        }
+
+        this.checkpoint = JobCheckpoint.open(this.configuration, this.userConf, resume);
     }
 
+    /**
+     * prepare保持先reader后writer；reader的split只依赖reader自身，与writer的prepare（如执行preSql）并行，
+     * writer的split要按reader的task数切分，仍在两者之后
+     */
     private void prepare() {
         this.prepareJobReader();
-        this.prepareJobWriter();
+        if (!this.parallelPhases) {
+            this.prepareJobWriter();
+            return;
+        }
+
+        final int splitNumber = this.adjustSplitNumber();
+        this.readerTaskConfigs = this.runParallel("prepare", new Callable<List<Configuration>>() {
+            @Override
+            public List<Configuration> call() {
+                return doReaderSplit(splitNumber);
+            }
+        }, new Runnable() {
+            @Override
+            public void run() {
+                prepareJobWriter();
+            }
+        });
+    }
+
+    /**
+     * readerPhase在单独的线程上执行，writerPhase在当前线程上执行，两者都结束后返回readerPhase的结果；
+     * 两边都失败时抛出reader的异常
+     */
+    private <T> T runParallel(String phase, Callable<T> readerPhase, Runnable writerPhase) {
+        FutureTask<T> readerFuture = new FutureTask<T>(readerPhase);
+        Thread readerThread = new Thread(readerFuture, String.format("job-%d-reader", this.jobId));
+        readerThread.setDaemon(true);
+        readerThread.start();
+
+        Throwable writerError = null;
+        try {
+            writerPhase.run();
+        } catch (Throwable e) {
+            writerError = e;
+        }
+
+        T result;
+        try {
+            result = readerFuture.get();
+        } catch (ExecutionException e) {
+            if (writerError != null) {
+                LOG.error(String.format("Writer %s failed as well.", phase), writerError);
+            }
+            throw asRuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            readerFuture.cancel(true);
+            throw DataXException.asDataXException(FrameworkErrorCode.RUNTIME_ERROR, e);
+        }
+        if (writerError != null) {
+            throw asRuntimeException(writerError);
+        }
+        return result;
+    }
+
+    private static RuntimeException asRuntimeException(Throwable e) {
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        }
+        return DataXException.asDataXException(FrameworkErrorCode.RUNTIME_ERROR, e);
     }
 
     private void preHandle() {
@@ -384,14 +548,11 @@ public class JobContainer extends AbstractContainer {
      * 然后，为避免顺序给读写端带来长尾影响，将整合的结果shuffler掉
      */
     private int split() {
-        this.adjustChannelNumber();
-
-        if (this.needChannelNumber <= 0) {
-            this.needChannelNumber = 1;
+        List<Configuration> readerTaskConfigs = this.readerTaskConfigs;
+        if (readerTaskConfigs == null) {
+            readerTaskConfigs = this.doReaderSplit(this.adjustSplitNumber());
         }
-
-        List<Configuration> readerTaskConfigs = this
-                .doReaderSplit(this.needChannelNumber);
+        this.readerTaskConfigs = null;
         int taskNumber = readerTaskConfigs.size();
         List<Configuration> writerTaskConfigs = this
                 .doWriterSplit(taskNumber);
@@ -405,6 +566,11 @@ public class JobContainer extends AbstractContainer {
         List<Configuration> contentConfig = mergeReaderAndWriterTaskConfigs(
                 readerTaskConfigs, writerTaskConfigs, transformerList);
 
+        if (this.checkpoint != null) {
+            for (Configuration taskConfig : contentConfig) {
+                taskConfig.set(CoreConstant.TASK_CHECKPOINT_KEY, JobCheckpoint.taskKey(taskConfig));
+            }
+        }
 
         LOG.debug("contentConfig configuration: "+ JSON.toJSONString(contentConfig));
 
@@ -485,17 +651,64 @@ public class JobContainer extends AbstractContainer {
                 "Job运行速度必须设置");
     }
 
+    /**
+     * 确定job的channel数，返回reader的建议切分数
+     */
+    private int adjustSplitNumber() {
+        this.adjustChannelNumber();
+
+        if (this.needChannelNumber <= 0) {
+            this.needChannelNumber = 1;
+        }
+
+        int splitNumber = this.needChannelNumber;
+        if (this.configuration.getBool(CoreConstant.DATAX_CORE_CONTAINER_JOB_AUTOSCALE_ENABLE, false)) {
+            splitNumber = this.adjustAutoScaleRange();
+        }
+        return splitNumber;
+    }
+
+    /**
+     * 开启channel自动伸缩时确定channel数的上限，并按上限切分，保证增加channel时有task可以运行
+     */
+    private int adjustAutoScaleRange() {
+        int maxChannel = Math.max(this.needChannelNumber, this.configuration.getInt(
+                CoreConstant.DATAX_CORE_CONTAINER_JOB_AUTOSCALE_MAXCHANNEL, this.needChannelNumber * 4));
+
+        // 每个channel独立限速时，channel数由job的总限速算出，再增加会超过总限速
+        boolean isSpeedLimit = this.configuration.getInt(CoreConstant.DATAX_JOB_SETTING_SPEED_BYTE, 0) > 0
+                || this.configuration.getInt(CoreConstant.DATAX_JOB_SETTING_SPEED_RECORD, 0) > 0;
+        String flowControlScope = this.configuration.getString(
+                CoreConstant.DATAX_CORE_TRANSPORT_CHANNEL_SPEED_SCOPE, Channel.SCOPE_CHANNEL);
+        if (isSpeedLimit && Channel.SCOPE_CHANNEL.equals(flowControlScope)
+                && maxChannel > this.needChannelNumber) {
+            LOG.warn("Channel speed limit is per channel, auto scaling will not exceed [{}] channels.",
+                    this.needChannelNumber);
+            maxChannel = this.needChannelNumber;
+        }
+
+        this.configuration.set(CoreConstant.DATAX_CORE_CONTAINER_JOB_AUTOSCALE_MAXCHANNEL, maxChannel);
+        LOG.info("Channel auto scaling starts at [{}] channels, at most [{}] channels.",
+                this.needChannelNumber, maxChannel);
+        return maxChannel;
+    }
+
     /**
      * schedule首先完成的工作是把上一步reader和writer split的结果整合到具体taskGroupContainer中,
      * 同时不同的执行模式调用不同的调度策略，将所有任务调度起来
      */
     private void schedule() {
+        if (this.checkpoint != null && this.skipFinishedTasks() == 0) {
+            LOG.info("All tasks have been finished before resume, skip schedule.");
+            return;
+        }
+
         /**
          * 这里的全局speed和每个channel的速度设置为B/s
          */
         int channelsPerTaskGroup = this.configuration.getInt(
                 CoreConstant.DATAX_CORE_CONTAINER_TASKGROUP_CHANNEL, 5);
-        int taskNumber = this.configuration.getList(
+        int taskNumber = this.configuration.getListConfiguration(
                 CoreConstant.DATAX_JOB_CONTENT).size();
 
         this.needChannelNumber = Math.min(this.needChannelNumber, taskNumber);
@@ -513,8 +726,13 @@ public class JobContainer extends AbstractContainer {
         ExecuteMode executeMode = null;
         AbstractScheduler scheduler;
         try {
-        	executeMode = ExecuteMode.STANDALONE;
-            scheduler = initStandaloneScheduler(this.configuration);
+            if (ExecuteMode.isLocal(this.configuration.getString(CoreConstant.DATAX_CORE_CONTAINER_JOB_MODE))) {
+                executeMode = ExecuteMode.LOCAL;
+                scheduler = initLocalClusterScheduler(this.configuration);
+            } else {
+                executeMode = ExecuteMode.STANDALONE;
+                scheduler = initStandaloneScheduler(this.configuration);
+            }
 
             //设置 executeMode
             for (Configuration taskGroupConfig : taskGroupConfigs) {
@@ -532,6 +750,7 @@ public class JobContainer extends AbstractContainer {
 
             this.startTransferTimeStamp = System.currentTimeMillis();
 
+            scheduler.setCheckpoint(this.checkpoint);
             scheduler.schedule(taskGroupConfigs);
 
             this.endTransferTimeStamp = System.currentTimeMillis();
@@ -549,6 +768,32 @@ public class JobContainer extends AbstractContainer {
     }
 
 
+    /**
+     * 从job.content中去掉断点中已成功的task。taskGroup分配时以taskId作为下标，剩余task需重新编号，
+     * 断点key不包含taskId，因此不受影响
+     *
+     * @return 剩余需要运行的task数
+     */
+    private int skipFinishedTasks() {
+        List<Configuration> contentConfig = this.configuration.getListConfiguration(CoreConstant.DATAX_JOB_CONTENT);
+        List<Configuration> remainConfig = new ArrayList<Configuration>(contentConfig.size());
+        for (Configuration taskConfig : contentConfig) {
+            if (!this.checkpoint.isFinished(taskConfig.getString(CoreConstant.TASK_CHECKPOINT_KEY))) {
+                remainConfig.add(taskConfig);
+            }
+        }
+
+        if (remainConfig.size() < contentConfig.size()) {
+            for (int i = 0; i < remainConfig.size(); i++) {
+                remainConfig.get(i).set(CoreConstant.TASK_ID, i);
+            }
+            LOG.info("Skip [{}] tasks finished before resume, [{}] tasks remain.",
+                    contentConfig.size() - remainConfig.size(), remainConfig.size());
+            this.configuration.set(CoreConstant.DATAX_JOB_CONTENT, remainConfig);
+        }
+        return remainConfig.size();
+    }
+
     private AbstractScheduler initStandaloneScheduler(Configuration configuration) {
         AbstractContainerCommunicator containerCommunicator = new StandAloneJobContainerCommunicator(configuration);
         super.setContainerCommunicator(containerCommunicator);
@@ -556,12 +801,29 @@ public class JobContainer extends AbstractContainer {
         return new StandAloneScheduler(containerCommunicator);
     }
 
+    /**
+     * taskGroup在worker进程中运行，其Communication由scheduler收到后写入LocalTGCommunicationManager，
+     * 因此job端的统计与standalone模式共用StandAloneJobContainerCommunicator
+     */
+    private AbstractScheduler initLocalClusterScheduler(Configuration configuration) {
+        AbstractContainerCommunicator containerCommunicator = new StandAloneJobContainerCommunicator(configuration);
+        super.setContainerCommunicator(containerCommunicator);
+
+        return new LocalClusterScheduler(containerCommunicator, configuration);
+    }
+
     private void post() {
         this.postJobWriter();
         this.postJobReader();
     }
 
     private void destroy() {
+        TokenBucket.removeShared(Channel.getSharedBucketPrefix(this.jobId));
+        DiskSpillChannel.deleteJobSpillDirectory(this.configuration, this.jobId);
+        JobTaskQueue.remove(this.jobId);
+        ChannelAutoScaler.remove(this.jobId);
+        TaskMonitor.remove(this.jobId);
+        TaskSpeculator.remove(this.jobId);
         if (this.jobWriter != null) {
             this.jobWriter.destroy();
             this.jobWriter = null;
@@ -572,6 +834,17 @@ public class JobContainer extends AbstractContainer {
         }
     }
 
+    /**
+     * 各环节汇总后的耗时分布，key为环节名，没有记录的环节不包含在内
+     */
+    private static Map<String, LatencyHistogram> toStageLatencies(Communication communication) {
+        Map<String, LatencyHistogram> latencies = new LinkedHashMap<String, LatencyHistogram>();
+        for (Map.Entry<LatencyStage, LatencyHistogram> entry : communication.getLatencies().entrySet()) {
+            latencies.put(entry.getKey().name(), entry.getValue());
+        }
+        return latencies;
+    }
+
     private void logStatistics() {
         long totalCosts = (this.endTimeStamp - this.startTimeStamp) / 1000;
         long transferCosts = (this.endTransferTimeStamp - this.startTransferTimeStamp) / 1000;
@@ -643,6 +916,28 @@ public class JobContainer extends AbstractContainer {
             ));
         }
 
+        long adaptiveChannels = communication.getLongCounter(CommunicationTool.ADAPTIVE_CHANNEL_NUMBER);
+        if (adaptiveChannels > 0) {
+            LOG.info(String.format(
+                    "\n" + "%-26s: %19s\n" + "%-26s: %19s\n",
+                    "自适应batch条数(平均)",
+                    communication.getLongCounter(CommunicationTool.ADAPTIVE_BUFFER_SIZE) / adaptiveChannels,
+
+                    "自适应channel容量(平均)",
+                    communication.getLongCounter(CommunicationTool.ADAPTIVE_CHANNEL_CAPACITY) / adaptiveChannels
+            ));
+        }
+
+        Map<LatencyStage, LatencyHistogram> latencies = communication.getLatencies();
+        if (!latencies.isEmpty()) {
+            StringBuilder info = new StringBuilder("\n");
+            for (Map.Entry<LatencyStage, LatencyHistogram> entry : latencies.entrySet()) {
+                info.append(String.format("%-26s: %s\n", entry.getKey().getDisplayName() + "耗时",
+                        entry.getValue().toSummary()));
+            }
+            LOG.info(info.toString());
+        }
+
 
     }
 
@@ -653,8 +948,6 @@ public class JobContainer extends AbstractContainer {
      */
     private Reader.Job initJobReader(
             JobPluginCollector jobPluginCollector) {
-        this.readerPluginName = this.configuration.getString(
-                CoreConstant.DATAX_JOB_CONTENT_READER_NAME);
         classLoaderSwapper.setCurrentThreadClassLoader(LoadUtil.getJarLoader(
                 PluginType.READER, this.readerPluginName));
 
@@ -683,8 +976,6 @@ public class JobContainer extends AbstractContainer {
      */
     private Writer.Job initJobWriter(
             JobPluginCollector jobPluginCollector) {
-        this.writerPluginName = this.configuration.getString(
-                CoreConstant.DATAX_JOB_CONTENT_WRITER_NAME);
         classLoaderSwapper.setCurrentThreadClassLoader(LoadUtil.getJarLoader(
                 PluginType.WRITER, this.writerPluginName));
 
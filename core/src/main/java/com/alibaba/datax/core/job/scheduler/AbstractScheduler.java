@@ -2,6 +2,7 @@ package com.alibaba.datax.core.job.scheduler;
 
 import com.alibaba.datax.common.exception.DataXException;
 import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.core.job.JobCheckpoint;
 import com.alibaba.datax.core.statistics.communication.Communication;
 import com.alibaba.datax.core.statistics.communication.CommunicationTool;
 import com.alibaba.datax.core.statistics.container.communicator.AbstractContainerCommunicator;
@@ -25,6 +26,8 @@ public abstract class AbstractScheduler {
 
     private Long jobId;
 
+    private JobCheckpoint checkpoint;
+
     public Long getJobId() {
         return jobId;
     }
@@ -33,6 +36,13 @@ public abstract class AbstractScheduler {
         this.containerCommunicator = containerCommunicator;
     }
 
+    /**
+     * 开启断点时由job设置，每次收集状态后记录新成功的task
+     */
+    public void setCheckpoint(JobCheckpoint checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
     public void schedule(List<Configuration> configurations) {
         Validate.notNull(configurations,
                 "scheduler配置不能为空");
@@ -75,6 +85,11 @@ public abstract class AbstractScheduler {
                 nowJobContainerCommunication.setTimestamp(System.currentTimeMillis());
                 LOG.debug(nowJobContainerCommunication.toString());
 
+                // 先于失败处理记录，作业失败时已成功的task也能留在断点中
+                if (this.checkpoint != null) {
+                    this.checkpoint.record(nowJobContainerCommunication);
+                }
+
                 //汇报周期
                 long now = System.currentTimeMillis();
                 if (now - lastReportTimeStamp > jobReportIntervalInMillSec) {
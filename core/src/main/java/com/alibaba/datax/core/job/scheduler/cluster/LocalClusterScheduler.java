@@ -0,0 +1,460 @@
+package com.alibaba.datax.core.job.scheduler.cluster;
+
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.core.cluster.ClusterConnection;
+import com.alibaba.datax.core.cluster.ClusterMessage;
+import com.alibaba.datax.core.cluster.TaskGroupWorker;
+import com.alibaba.datax.core.job.scheduler.AbstractScheduler;
+import com.alibaba.datax.core.statistics.communication.Communication;
+import com.alibaba.datax.core.statistics.communication.LocalTGCommunicationManager;
+import com.alibaba.datax.core.statistics.container.communicator.AbstractContainerCommunicator;
+import com.alibaba.datax.core.util.FrameworkErrorCode;
+import com.alibaba.datax.core.util.container.CoreConstant;
+import com.alibaba.datax.dataxservice.face.domain.enums.State;
+import com.alibaba.fastjson.JSONObject;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.*;
+
+/**
+ * local模式：每个taskGroup在单独的worker进程中运行，单个job不再受一个JVM的堆和GC限制。
+ * <p/>
+ * job在core.container.job.cluster.host:port上监听（默认127.0.0.1、随机端口），并在本机启动localWorkers个worker进程
+ * （默认每个taskGroup一个）；把host改为对外地址并配置core.container.job.cluster.token后，
+ * 其他机器上手工启动的TaskGroupWorker连上来同样参与运行。
+ * 未配置token时每个job随机生成，只有本机启动的worker知道。
+ * <p/>
+ * worker连上后的第一条消息必须是带有正确token的HELLO，否则直接断开；
+ * worker只能汇报分配给自己的taskGroup，违反时断开连接，其运行中的taskGroup按失败处理。
+ * 空闲的worker每次领取一个taskGroup，运行期间taskGroup的Communication经socket汇报，
+ * 由job写入LocalTGCommunicationManager，之后的统计、错误检查与standalone模式一致。
+ * <p/>
+ * worker在taskGroup结束前断开，该taskGroup按失败处理；job失败时关闭所有连接并结束本机启动的worker。
+ */
+public class LocalClusterScheduler extends AbstractScheduler {
+    private static final Logger LOG = LoggerFactory.getLogger(LocalClusterScheduler.class);
+
+    /**
+     * 转给本机worker的系统属性，保证插件目录和日志配置与job一致
+     */
+    private static final String[] FORWARDED_PROPERTIES = {
+            "datax.home", "logback.configurationFile", "file.encoding", "user.timezone"};
+
+    private static final int ACCEPT_TIMEOUT_MILLIS = 1000;
+
+    /**
+     * 认证前对端发来的消息只可能是HELLO，限制其大小和等待时间
+     */
+    private static final int HELLO_MAX_BYTES = 64 * 1024;
+
+    private static final int HELLO_TIMEOUT_MILLIS = 10000;
+
+    /**
+     * 成功结束时所有worker都已收到SHUTDOWN，稍等它们自行退出，避免打断worker收尾
+     */
+    private static final long WORKER_EXIT_WAIT_MILLIS = 10000;
+
+    private final Configuration configuration;
+
+    /**
+     * worker在HELLO中必须携带的token
+     */
+    private String token;
+
+    private final LinkedList<Configuration> pendingTaskGroups = new LinkedList<Configuration>();
+
+    /**
+     * 已连接的worker --> 正在运行的taskGroupId，空闲时为null
+     */
+    private final Map<ClusterConnection, Integer> workers = new LinkedHashMap<ClusterConnection, Integer>();
+
+    private final List<Process> localWorkers = new ArrayList<Process>();
+
+    private ServerSocket serverSocket;
+
+    private volatile boolean stopped = false;
+
+    /**
+     * 最近一次有worker在线的时间，用于判断是否一直没有worker可用
+     */
+    private long lastWorkerSeen;
+
+    public LocalClusterScheduler(AbstractContainerCommunicator containerCommunicator, Configuration configuration) {
+        super(containerCommunicator);
+        this.configuration = configuration;
+    }
+
+    @Override
+    public void schedule(List<Configuration> configurations) {
+        boolean succeeded = false;
+        try {
+            super.schedule(configurations);
+            succeeded = true;
+        } finally {
+            if (succeeded) {
+                this.awaitWorkersExit();
+            }
+            this.stop();
+        }
+    }
+
+    @Override
+    protected void startAllTaskGroup(List<Configuration> configurations) {
+        synchronized (this) {
+            this.pendingTaskGroups.addAll(configurations);
+            this.lastWorkerSeen = System.currentTimeMillis();
+        }
+
+        this.token = this.configuration.getString(CoreConstant.DATAX_CORE_CONTAINER_JOB_CLUSTER_TOKEN);
+        if (StringUtils.isBlank(this.token)) {
+            this.token = new BigInteger(128, new SecureRandom()).toString(32);
+        }
+
+        String host = this.configuration.getString(CoreConstant.DATAX_CORE_CONTAINER_JOB_CLUSTER_HOST, "127.0.0.1");
+        int port = this.configuration.getInt(CoreConstant.DATAX_CORE_CONTAINER_JOB_CLUSTER_PORT, 0);
+        try {
+            this.serverSocket = new ServerSocket();
+            this.serverSocket.setReuseAddress(true);
+            this.serverSocket.bind(new InetSocketAddress(host, port));
+            this.serverSocket.setSoTimeout(ACCEPT_TIMEOUT_MILLIS);
+        } catch (IOException e) {
+            throw DataXException.asDataXException(FrameworkErrorCode.START_TASKGROUP_ERROR,
+                    String.format("在[%s:%d]上监听worker连接失败.", host, port), e);
+        }
+        LOG.info("Waiting for workers on [{}:{}].", host, this.serverSocket.getLocalPort());
+
+        Thread acceptor = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                accept();
+            }
+        }, "cluster-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        int localWorkerNumber = Math.min(configurations.size(), this.configuration.getInt(
+                CoreConstant.DATAX_CORE_CONTAINER_JOB_CLUSTER_LOCALWORKERS, configurations.size()));
+        String masterHost = "0.0.0.0".equals(host) ? "127.0.0.1" : host;
+        for (int i = 0; i < localWorkerNumber; i++) {
+            this.startLocalWorker(i, masterHost + ":" + this.serverSocket.getLocalPort());
+        }
+    }
+
+    private void startLocalWorker(int index, String master) {
+        List<String> command = new ArrayList<String>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        String jvm = this.configuration.getString(CoreConstant.DATAX_CORE_CONTAINER_JOB_CLUSTER_WORKERJVM, "-Xms1g -Xmx1g");
+        for (String option : StringUtils.split(jvm)) {
+            command.add(option);
+        }
+        for (String property : FORWARDED_PROPERTIES) {
+            String value = System.getProperty(property);
+            if (value != null) {
+                command.add("-D" + property + "=" + value);
+            }
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(TaskGroupWorker.class.getName());
+        command.add("-master");
+        command.add(master);
+
+        // token经环境变量传入，不出现在其他用户可见的命令行参数中
+        ProcessBuilder processBuilder = new ProcessBuilder(command).redirectErrorStream(true);
+        processBuilder.environment().put(TaskGroupWorker.TOKEN_ENV, this.token);
+        final Process process;
+        try {
+            process = processBuilder.start();
+        } catch (IOException e) {
+            throw DataXException.asDataXException(FrameworkErrorCode.START_TASKGROUP_ERROR,
+                    String.format("启动本机worker失败，命令为%s.", command), e);
+        }
+        synchronized (this) {
+            this.localWorkers.add(process);
+        }
+
+        // worker的日志原样输出到job的标准输出
+        Thread pump = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    IOUtils.copy(process.getInputStream(), System.out);
+                } catch (IOException ignored) {
+                }
+            }
+        }, "cluster-worker-" + index + "-output");
+        pump.setDaemon(true);
+        pump.start();
+    }
+
+    private void accept() {
+        while (!this.stopped) {
+            Socket socket;
+            try {
+                socket = this.serverSocket.accept();
+            } catch (SocketTimeoutException e) {
+                this.checkWorkerAvailable();
+                continue;
+            } catch (IOException e) {
+                if (!this.stopped) {
+                    LOG.error("Accept worker connection failed.", e);
+                }
+                return;
+            }
+
+            final ClusterConnection connection;
+            try {
+                connection = new ClusterConnection(socket);
+            } catch (IOException e) {
+                LOG.warn("Worker connection from [{}] failed: {}", socket.getRemoteSocketAddress(), e.getMessage());
+                IOUtils.closeQuietly(socket);
+                continue;
+            }
+            Thread handler = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    serve(connection);
+                }
+            }, "cluster-worker-" + connection.getRemoteAddress());
+            handler.setDaemon(true);
+            handler.start();
+        }
+    }
+
+    private void serve(ClusterConnection connection) {
+        try {
+            if (!this.authenticate(connection)) {
+                return;
+            }
+            this.assignNext(connection);
+
+            JSONObject message;
+            while ((message = connection.receive()) != null) {
+                String type = message.getString(ClusterMessage.TYPE);
+                int taskGroupId = message.getIntValue(ClusterMessage.TASK_GROUP_ID);
+                if (!ClusterMessage.REPORT.equals(type) && !ClusterMessage.DONE.equals(type)) {
+                    LOG.warn("Unexpected message [{}] from worker [{}], close it.", type, connection.getRemoteAddress());
+                    return;
+                }
+                if (!this.isAssignedTo(connection, taskGroupId)) {
+                    LOG.warn("Worker [{}] sent [{}] for taskGroup[{}] which is not assigned to it, close it.",
+                            connection.getRemoteAddress(), type, taskGroupId);
+                    return;
+                }
+
+                if (ClusterMessage.REPORT.equals(type)) {
+                    LocalTGCommunicationManager.updateTaskGroupCommunication(this.getJobId(),
+                            taskGroupId, ClusterMessage.decodeCommunication(message));
+                } else {
+                    // worker结束taskGroup时应已汇报最终状态，否则job会一直等待该taskGroup
+                    Communication communication = LocalTGCommunicationManager.getTaskGroupCommunication(
+                            this.getJobId(), taskGroupId);
+                    if (communication == null || !communication.isFinished()) {
+                        this.markFailed(taskGroupId, String.format("worker[%s]结束taskGroup[%d]时没有汇报最终状态.",
+                                connection.getRemoteAddress(), taskGroupId));
+                    }
+                    synchronized (this) {
+                        this.workers.put(connection, null);
+                    }
+                    this.assignNext(connection);
+                }
+            }
+        } catch (Exception e) {
+            if (!this.stopped) {
+                LOG.warn("Worker [{}] connection broken: {}", connection.getRemoteAddress(), e.getMessage());
+            }
+        } finally {
+            connection.close();
+            this.onWorkerLost(connection);
+        }
+    }
+
+    /**
+     * 连接后的第一条消息必须是带有本job token的HELLO，通过后worker才会被分配taskGroup
+     */
+    private boolean authenticate(ClusterConnection connection) throws IOException {
+        JSONObject hello = connection.receive(HELLO_MAX_BYTES, HELLO_TIMEOUT_MILLIS);
+        if (hello == null || !ClusterMessage.HELLO.equals(hello.getString(ClusterMessage.TYPE))
+                || !isTokenMatched(hello.getString(ClusterMessage.TOKEN))) {
+            LOG.warn("Reject connection from [{}]: not a HELLO with valid token.", connection.getRemoteAddress());
+            return false;
+        }
+
+        LOG.info("Worker [{}] joined from [{}].", hello.getString(ClusterMessage.WORKER),
+                connection.getRemoteAddress());
+        synchronized (this) {
+            this.workers.put(connection, null);
+        }
+        return true;
+    }
+
+    private boolean isTokenMatched(String candidate) {
+        if (candidate == null) {
+            return false;
+        }
+        try {
+            // 按固定时间比较，避免逐字节猜测token
+            return MessageDigest.isEqual(this.token.getBytes("UTF-8"), candidate.getBytes("UTF-8"));
+        } catch (UnsupportedEncodingException e) {
+            return false;
+        }
+    }
+
+    private synchronized boolean isAssignedTo(ClusterConnection connection, int taskGroupId) {
+        Integer assigned = this.workers.get(connection);
+        return assigned != null && assigned == taskGroupId;
+    }
+
+    /**
+     * 把下一个待运行的taskGroup交给空闲的worker，没有待运行的taskGroup时让worker退出
+     */
+    private void assignNext(ClusterConnection connection) throws IOException {
+        Configuration taskGroupConfig;
+        synchronized (this) {
+            if (this.stopped) {
+                return;
+            }
+            taskGroupConfig = this.pendingTaskGroups.poll();
+            if (taskGroupConfig != null) {
+                int taskGroupId = taskGroupConfig.getInt(CoreConstant.DATAX_CORE_CONTAINER_TASKGROUP_ID);
+                this.workers.put(connection, taskGroupId);
+                LOG.info("taskGroup[{}] is assigned to worker [{}].", taskGroupId, connection.getRemoteAddress());
+            }
+        }
+
+        if (taskGroupConfig == null) {
+            connection.send(ClusterMessage.shutdown());
+        } else {
+            connection.send(ClusterMessage.assign(
+                    taskGroupConfig.getInt(CoreConstant.DATAX_CORE_CONTAINER_TASKGROUP_ID), taskGroupConfig));
+        }
+    }
+
+    private void onWorkerLost(ClusterConnection connection) {
+        Integer taskGroupId;
+        synchronized (this) {
+            if (!this.workers.containsKey(connection)) {
+                return;
+            }
+            taskGroupId = this.workers.remove(connection);
+            if (this.workers.isEmpty()) {
+                this.lastWorkerSeen = System.currentTimeMillis();
+            }
+            this.notifyAll();
+        }
+        if (taskGroupId == null || this.stopped) {
+            return;
+        }
+
+        Communication communication = LocalTGCommunicationManager.getTaskGroupCommunication(this.getJobId(), taskGroupId);
+        if (communication == null || !communication.isFinished()) {
+            this.markFailed(taskGroupId, String.format("运行taskGroup[%d]的worker[%s]异常退出.",
+                    taskGroupId, connection.getRemoteAddress()));
+        }
+    }
+
+    /**
+     * 还有taskGroup没有运行，但超过workerTimeout一直没有worker在线时，让job失败而不是一直等待
+     */
+    private void checkWorkerAvailable() {
+        long workerTimeout = this.configuration.getLong(
+                CoreConstant.DATAX_CORE_CONTAINER_JOB_CLUSTER_WORKERTIMEOUT, 60000);
+        List<Configuration> timeoutTaskGroups;
+        synchronized (this) {
+            if (!this.workers.isEmpty()) {
+                this.lastWorkerSeen = System.currentTimeMillis();
+                return;
+            }
+            if (this.pendingTaskGroups.isEmpty()
+                    || System.currentTimeMillis() - this.lastWorkerSeen < workerTimeout) {
+                return;
+            }
+            timeoutTaskGroups = new ArrayList<Configuration>(this.pendingTaskGroups);
+            this.pendingTaskGroups.clear();
+        }
+        for (Configuration taskGroupConfig : timeoutTaskGroups) {
+            this.markFailed(taskGroupConfig.getInt(CoreConstant.DATAX_CORE_CONTAINER_TASKGROUP_ID),
+                    String.format("等待%dms仍没有可用的worker.", workerTimeout));
+        }
+    }
+
+    private void markFailed(int taskGroupId, String message) {
+        LOG.error(message);
+        Communication communication = new Communication();
+        communication.setState(State.FAILED);
+        communication.setThrowable(DataXException.asDataXException(
+                FrameworkErrorCode.START_TASKGROUP_ERROR, message));
+        LocalTGCommunicationManager.updateTaskGroupCommunication(this.getJobId(), taskGroupId, communication);
+    }
+
+    private synchronized void awaitWorkersExit() {
+        long deadline = System.currentTimeMillis() + WORKER_EXIT_WAIT_MILLIS;
+        try {
+            while (!this.workers.isEmpty()) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    LOG.warn("[{}] workers did not exit in time, close them.", this.workers.size());
+                    return;
+                }
+                this.wait(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void stop() {
+        List<ClusterConnection> connections;
+        List<Process> processes;
+        synchronized (this) {
+            if (this.stopped) {
+                return;
+            }
+            this.stopped = true;
+            connections = new ArrayList<ClusterConnection>(this.workers.keySet());
+            processes = new ArrayList<Process>(this.localWorkers);
+        }
+        IOUtils.closeQuietly(this.serverSocket);
+        for (ClusterConnection connection : connections) {
+            connection.close();
+        }
+        for (Process process : processes) {
+            try {
+                process.exitValue();
+            } catch (IllegalThreadStateException e) {
+                process.destroy();
+            }
+        }
+    }
+
+    @Override
+    protected void dealFailedStat(AbstractContainerCommunicator frameworkCollector, Throwable throwable) {
+        this.stop();
+        throw DataXException.asDataXException(
+                FrameworkErrorCode.PLUGIN_RUNTIME_ERROR, throwable);
+    }
+
+    @Override
+    protected void dealKillingStat(AbstractContainerCommunicator frameworkCollector, int totalTasks) {
+        this.stop();
+        throw DataXException.asDataXException(FrameworkErrorCode.KILLED_EXIT_VALUE,
+                "job killed status");
+    }
+
+    @Override
+    protected boolean isJobKilling(Long jobId) {
+        return false;
+    }
+}
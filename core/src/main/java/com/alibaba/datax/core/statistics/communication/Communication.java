@@ -1,25 +1,46 @@
 package com.alibaba.datax.core.statistics.communication;
 
 import com.alibaba.datax.common.base.BaseObject;
+import com.alibaba.datax.common.statistics.LatencyHistogram;
 import com.alibaba.datax.dataxservice.face.domain.enums.State;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.Validate;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * DataX所有的状态及统计信息交互类，job、taskGroup、task等的消息汇报都走该类
  */
 public class Communication extends BaseObject implements Cloneable {
     /**
-     * 所有的数值key-value对 *
+     * 固定槽位之外的数值key-value对 *
      */
     private Map<String, Number> counter;
 
+    /**
+     * CommunicationCounter的固定槽位，按ordinal下标无锁更新，不装箱也不查字符串key *
+     */
+    private AtomicLongArray slots;
+
+    /**
+     * 槽位是否被写过，未写过的槽位不出现在getCounter()中，与原先map中没有该key一致 *
+     */
+    private AtomicIntegerArray slotWritten;
+
+    /**
+     * 按LatencyStage的ordinal存放各环节的耗时分布，第一次记录时才创建 *
+     */
+    private AtomicReferenceArray<LatencyHistogram> latencies;
+
     /**
      * 运行状态 *
      */
@@ -50,14 +71,27 @@ public class Communication extends BaseObject implements Cloneable {
 
     private void init() {
         this.counter = new ConcurrentHashMap<String, Number>();
+        this.slots = new AtomicLongArray(CommunicationCounter.values().length);
+        this.slotWritten = new AtomicIntegerArray(CommunicationCounter.values().length);
+        this.latencies = new AtomicReferenceArray<LatencyHistogram>(LatencyStage.values().length);
         this.state = State.RUNNING;
         this.throwable = null;
         this.message = new ConcurrentHashMap<String, List<String>>();
         this.timestamp = System.currentTimeMillis();
     }
 
+    /**
+     * 所有计数器的快照（固定槽位+其他key），只读
+     */
     public Map<String, Number> getCounter() {
-        return this.counter;
+        Map<String, Number> view = new HashMap<String, Number>(this.counter);
+        for (CommunicationCounter each : CommunicationCounter.values()) {
+            int index = each.ordinal();
+            if (this.slotWritten.get(index) != 0) {
+                view.put(each.getKey(), this.slots.get(index));
+            }
+        }
+        return view;
     }
 
     public State getState() {
@@ -123,34 +157,141 @@ public class Communication extends BaseObject implements Cloneable {
         valueList.add(value);
     }
 
-    public synchronized Long getLongCounter(final String key) {
-        Number value = this.counter.get(key);
+    public long getLongCounter(final CommunicationCounter counter) {
+        return this.slots.get(counter.ordinal());
+    }
+
+    public void setLongCounter(final CommunicationCounter counter, final long value) {
+        int index = counter.ordinal();
+        this.slots.set(index, value);
+        this.markWritten(index);
+    }
+
+    public void increaseCounter(final CommunicationCounter counter, final long deltaValue) {
+        int index = counter.ordinal();
+        this.slots.addAndGet(index, deltaValue);
+        this.markWritten(index);
+    }
+
+    private void markWritten(int index) {
+        if (this.slotWritten.get(index) == 0) {
+            this.slotWritten.set(index, 1);
+        }
+    }
+
+    /**
+     * 记录一次stage环节的耗时（纳秒），无锁
+     */
+    public void recordLatency(final LatencyStage stage, final long nanos) {
+        this.latencyOf(stage).record(nanos);
+    }
+
+    /**
+     * 把其他进程传回的耗时分布累加到该环节
+     */
+    public void mergeLatency(final LatencyStage stage, final LatencyHistogram histogram) {
+        this.latencyOf(stage).merge(histogram);
+    }
+
+    /**
+     * @return 该环节还没有记录过时返回null
+     */
+    public LatencyHistogram getLatency(final LatencyStage stage) {
+        return this.latencies.get(stage.ordinal());
+    }
+
+    /**
+     * 有记录的环节的耗时分布，按LatencyStage的顺序
+     */
+    public Map<LatencyStage, LatencyHistogram> getLatencies() {
+        Map<LatencyStage, LatencyHistogram> view = new EnumMap<LatencyStage, LatencyHistogram>(LatencyStage.class);
+        for (LatencyStage each : LatencyStage.values()) {
+            LatencyHistogram histogram = this.latencies.get(each.ordinal());
+            if (histogram != null && histogram.getCount() > 0) {
+                view.put(each, histogram);
+            }
+        }
+        return view;
+    }
+
+    private LatencyHistogram latencyOf(final LatencyStage stage) {
+        int index = stage.ordinal();
+        LatencyHistogram histogram = this.latencies.get(index);
+        if (histogram == null) {
+            this.latencies.compareAndSet(index, null, new LatencyHistogram());
+            histogram = this.latencies.get(index);
+        }
+        return histogram;
+    }
+
+    public Long getLongCounter(final String key) {
+        CommunicationCounter slot = CommunicationCounter.of(key);
+        if (slot != null) {
+            return this.getLongCounter(slot);
+        }
 
-        return value == null ? 0 : value.longValue();
+        synchronized (this) {
+            Number value = this.counter.get(key);
+
+            return value == null ? 0 : value.longValue();
+        }
     }
 
-    public synchronized void setLongCounter(final String key, final long value) {
+    public void setLongCounter(final String key, final long value) {
         Validate.isTrue(StringUtils.isNotBlank(key), "设置counter的key不能为空");
-        this.counter.put(key, value);
+        CommunicationCounter slot = CommunicationCounter.of(key);
+        if (slot != null) {
+            this.setLongCounter(slot, value);
+            return;
+        }
+
+        synchronized (this) {
+            this.counter.put(key, value);
+        }
     }
 
-    public synchronized Double getDoubleCounter(final String key) {
-        Number value = this.counter.get(key);
+    public Double getDoubleCounter(final String key) {
+        CommunicationCounter slot = CommunicationCounter.of(key);
+        if (slot != null) {
+            return (double) this.getLongCounter(slot);
+        }
+
+        synchronized (this) {
+            Number value = this.counter.get(key);
 
-        return value == null ? 0.0d : value.doubleValue();
+            return value == null ? 0.0d : value.doubleValue();
+        }
     }
 
-    public synchronized void setDoubleCounter(final String key, final double value) {
+    /**
+     * 固定槽位的计数器都是long，按double设置时截断为long
+     */
+    public void setDoubleCounter(final String key, final double value) {
         Validate.isTrue(StringUtils.isNotBlank(key), "设置counter的key不能为空");
-        this.counter.put(key, value);
+        CommunicationCounter slot = CommunicationCounter.of(key);
+        if (slot != null) {
+            this.setLongCounter(slot, (long) value);
+            return;
+        }
+
+        synchronized (this) {
+            this.counter.put(key, value);
+        }
     }
 
-    public synchronized void increaseCounter(final String key, final long deltaValue) {
+    public void increaseCounter(final String key, final long deltaValue) {
         Validate.isTrue(StringUtils.isNotBlank(key), "增加counter的key不能为空");
+        CommunicationCounter slot = CommunicationCounter.of(key);
+        if (slot != null) {
+            this.increaseCounter(slot, deltaValue);
+            return;
+        }
 
-        long value = this.getLongCounter(key);
+        synchronized (this) {
+            long value = this.getLongCounter(key);
 
-        this.counter.put(key, value + deltaValue);
+            this.counter.put(key, value + deltaValue);
+        }
     }
 
     @Override
@@ -171,6 +312,18 @@ public class Communication extends BaseObject implements Cloneable {
                 }
             }
         }
+        for (int i = 0; i < this.slots.length(); i++) {
+            if (this.slotWritten.get(i) != 0) {
+                communication.slots.set(i, this.slots.get(i));
+                communication.slotWritten.set(i, 1);
+            }
+        }
+        for (int i = 0; i < this.latencies.length(); i++) {
+            LatencyHistogram histogram = this.latencies.get(i);
+            if (histogram != null) {
+                communication.latencies.set(i, histogram.copy());
+            }
+        }
 
         communication.setState(this.state, true);
         communication.setThrowable(this.throwable, true);
@@ -201,7 +354,19 @@ public class Communication extends BaseObject implements Cloneable {
          * counter的合并，将otherComm的值累加到this中，不存在的则创建
          * 同为long
          */
-        for (Entry<String, Number> entry : otherComm.getCounter().entrySet()) {
+        for (int i = 0; i < this.slots.length(); i++) {
+            if (otherComm.slotWritten.get(i) != 0) {
+                this.slots.addAndGet(i, otherComm.slots.get(i));
+                this.markWritten(i);
+            }
+        }
+        for (LatencyStage each : LatencyStage.values()) {
+            LatencyHistogram histogram = otherComm.latencies.get(each.ordinal());
+            if (histogram != null && histogram.getCount() > 0) {
+                this.mergeLatency(each, histogram);
+            }
+        }
+        for (Entry<String, Number> entry : otherComm.counter.entrySet()) {
             String key = entry.getKey();
             Number otherValue = entry.getValue();
             if (otherValue == null) {
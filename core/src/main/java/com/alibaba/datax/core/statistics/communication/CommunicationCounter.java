@@ -0,0 +1,55 @@
+package com.alibaba.datax.core.statistics.communication;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 传输过程中每次push/pull都会更新的计数器，在Communication中占用固定槽位。
+ * <p/>
+ * key与CommunicationTool中的字符串常量一一对应，按字符串访问时会自动映射到槽位。
+ */
+public enum CommunicationCounter {
+
+    READ_SUCCEED_RECORDS(CommunicationTool.READ_SUCCEED_RECORDS),
+    READ_SUCCEED_BYTES(CommunicationTool.READ_SUCCEED_BYTES),
+    READ_FAILED_RECORDS(CommunicationTool.READ_FAILED_RECORDS),
+    READ_FAILED_BYTES(CommunicationTool.READ_FAILED_BYTES),
+    WRITE_RECEIVED_RECORDS(CommunicationTool.WRITE_RECEIVED_RECORDS),
+    WRITE_RECEIVED_BYTES(CommunicationTool.WRITE_RECEIVED_BYTES),
+    WRITE_FAILED_RECORDS(CommunicationTool.WRITE_FAILED_RECORDS),
+    WRITE_FAILED_BYTES(CommunicationTool.WRITE_FAILED_BYTES),
+    WAIT_WRITER_TIME(CommunicationTool.WAIT_WRITER_TIME),
+    WAIT_READER_TIME(CommunicationTool.WAIT_READER_TIME),
+    TRANSFORMER_USED_TIME(CommunicationTool.TRANSFORMER_USED_TIME),
+    TRANSFORMER_SUCCEED_RECORDS(CommunicationTool.TRANSFORMER_SUCCEED_RECORDS),
+    TRANSFORMER_FAILED_RECORDS(CommunicationTool.TRANSFORMER_FAILED_RECORDS),
+    TRANSFORMER_FILTER_RECORDS(CommunicationTool.TRANSFORMER_FILTER_RECORDS),
+    WRITER_BUSY_TIME(CommunicationTool.WRITER_BUSY_TIME),
+    WRITER_PULL_BATCHES(CommunicationTool.WRITER_PULL_BATCHES);
+
+    private static final Map<String, CommunicationCounter> BY_KEY =
+            new HashMap<String, CommunicationCounter>();
+
+    static {
+        for (CommunicationCounter each : values()) {
+            BY_KEY.put(each.key, each);
+        }
+    }
+
+    private final String key;
+
+    CommunicationCounter(String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return this.key;
+    }
+
+    /**
+     * @return 不是固定槽位的计数器时返回null
+     */
+    public static CommunicationCounter of(String key) {
+        return BY_KEY.get(key);
+    }
+}
@@ -49,6 +49,19 @@ public final class CommunicationTool {
     public static final String TRANSFORMER_FILTER_RECORDS = "totalTransformerFilterRecords";
     public static final String TRANSFORMER_NAME_PREFIX = "usedTimeByTransformer_";
 
+    /**
+     * writer两次从channel取数据之间花在处理、提交上的时间（纳秒）及取数据的次数，用于求每批的写入耗时
+     */
+    public static final String WRITER_BUSY_TIME = "writerBusyTime";
+    public static final String WRITER_PULL_BATCHES = "writerPullBatches";
+
+    /**
+     * 开启core.transport.adaptive时各channel当前的batch条数、capacity之和及channel个数，用于求平均值
+     */
+    public static final String ADAPTIVE_BUFFER_SIZE = "adaptiveBufferSize";
+    public static final String ADAPTIVE_CHANNEL_CAPACITY = "adaptiveChannelCapacity";
+    public static final String ADAPTIVE_CHANNEL_NUMBER = "adaptiveChannelNumber";
+
     public static Communication getReportCommunication(Communication now, Communication old, int totalStage) {
         Validate.isTrue(now != null && old != null,
                 "为汇报准备的新旧metric不能为null");
@@ -0,0 +1,67 @@
+package com.alibaba.datax.core.statistics.communication;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * task传输过程中分阶段统计耗时分布的环节，每个环节在Communication中对应一个LatencyHistogram。
+ */
+public enum LatencyStage {
+
+    /**
+     * reader产出一批数据的耗时：上一次push结束到这一次push开始，包含transformer的耗时
+     */
+    READER_FETCH("readerFetch", "Reader读取"),
+
+    /**
+     * 单条record经过全部transformer的耗时
+     */
+    TRANSFORMER("transformer", "Transformer处理"),
+
+    /**
+     * reader每次push等待channel空位的耗时
+     */
+    CHANNEL_PUSH_WAIT("channelPushWait", "Channel写入等待"),
+
+    /**
+     * writer每次pull等待channel数据的耗时
+     */
+    CHANNEL_PULL_WAIT("channelPullWait", "Channel读取等待"),
+
+    /**
+     * writer处理一批数据（写入、flush/commit）的耗时：上一次pull返回到下一次pull开始
+     */
+    WRITER_FLUSH("writerFlush", "Writer写入");
+
+    private static final Map<String, LatencyStage> BY_KEY = new HashMap<String, LatencyStage>();
+
+    static {
+        for (LatencyStage each : values()) {
+            BY_KEY.put(each.key, each);
+        }
+    }
+
+    private final String key;
+
+    private final String displayName;
+
+    LatencyStage(String key, String displayName) {
+        this.key = key;
+        this.displayName = displayName;
+    }
+
+    public String getKey() {
+        return this.key;
+    }
+
+    public String getDisplayName() {
+        return this.displayName;
+    }
+
+    /**
+     * @return 没有对应的环节时返回null
+     */
+    public static LatencyStage of(String key) {
+        return BY_KEY.get(key);
+    }
+}
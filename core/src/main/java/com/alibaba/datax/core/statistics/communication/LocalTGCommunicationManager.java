@@ -5,23 +5,46 @@ import org.apache.commons.lang3.Validate;
 
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * 同一进程内taskGroup向job汇报的Communication，按jobId隔离，
+ * 常驻服务中同时运行的多个job互不影响；job结束时调用remove释放
+ */
 public final class LocalTGCommunicationManager {
-    private static Map<Integer, Communication> taskGroupCommunicationMap =
-            new ConcurrentHashMap<Integer, Communication>();
+    private static ConcurrentHashMap<Long, Map<Integer, Communication>> jobTaskGroupCommunicationMap =
+            new ConcurrentHashMap<Long, Map<Integer, Communication>>();
+
+    /**
+     * jobId -> taskGroupId -> 同一进程内运行的taskGroup中各task实时更新的Communication，供metrics读取
+     */
+    private static ConcurrentHashMap<Long, Map<Integer, Map<Integer, Communication>>> jobTaskCommunicationMap =
+            new ConcurrentHashMap<Long, Map<Integer, Map<Integer, Communication>>>();
+
+    private static Map<Integer, Communication> getTaskGroupCommunicationMap(long jobId, boolean create) {
+        Map<Integer, Communication> taskGroupCommunicationMap = jobTaskGroupCommunicationMap.get(jobId);
+        if (taskGroupCommunicationMap == null && create) {
+            Map<Integer, Communication> created = new ConcurrentHashMap<Integer, Communication>();
+            taskGroupCommunicationMap = jobTaskGroupCommunicationMap.putIfAbsent(jobId, created);
+            if (taskGroupCommunicationMap == null) {
+                taskGroupCommunicationMap = created;
+            }
+        }
+        return taskGroupCommunicationMap;
+    }
 
     public static void registerTaskGroupCommunication(
-            int taskGroupId, Communication communication) {
-        taskGroupCommunicationMap.put(taskGroupId, communication);
+            long jobId, int taskGroupId, Communication communication) {
+        getTaskGroupCommunicationMap(jobId, true).put(taskGroupId, communication);
     }
 
-    public static Communication getJobCommunication() {
+    public static Communication getJobCommunication(long jobId) {
         Communication communication = new Communication();
         communication.setState(State.SUCCEEDED);
 
         for (Communication taskGroupCommunication :
-                taskGroupCommunicationMap.values()) {
+                getTaskGroupCommunicationMap(jobId).values()) {
             communication.mergeFrom(taskGroupCommunication);
         }
 
@@ -34,29 +57,69 @@ public final class LocalTGCommunicationManager {
      *
      * @return
      */
-    public static Set<Integer> getTaskGroupIdSet() {
-        return taskGroupCommunicationMap.keySet();
+    public static Set<Integer> getTaskGroupIdSet(long jobId) {
+        return getTaskGroupCommunicationMap(jobId).keySet();
     }
 
-    public static Communication getTaskGroupCommunication(int taskGroupId) {
+    public static Communication getTaskGroupCommunication(long jobId, int taskGroupId) {
         Validate.isTrue(taskGroupId >= 0, "taskGroupId不能小于0");
 
-        return taskGroupCommunicationMap.get(taskGroupId);
+        return getTaskGroupCommunicationMap(jobId).get(taskGroupId);
     }
 
-    public static void updateTaskGroupCommunication(final int taskGroupId,
+    public static void updateTaskGroupCommunication(final long jobId, final int taskGroupId,
                                                     final Communication communication) {
-        Validate.isTrue(taskGroupCommunicationMap.containsKey(
-                taskGroupId), String.format("taskGroupCommunicationMap中没有注册taskGroupId[%d]的Communication，" +
-                "无法更新该taskGroup的信息", taskGroupId));
+        Map<Integer, Communication> taskGroupCommunicationMap = getTaskGroupCommunicationMap(jobId, false);
+        Validate.isTrue(taskGroupCommunicationMap != null && taskGroupCommunicationMap.containsKey(
+                taskGroupId), String.format("taskGroupCommunicationMap中没有注册job[%d] taskGroupId[%d]的Communication，" +
+                "无法更新该taskGroup的信息", jobId, taskGroupId));
         taskGroupCommunicationMap.put(taskGroupId, communication);
     }
 
-    public static void clear() {
-        taskGroupCommunicationMap.clear();
+    public static void remove(long jobId) {
+        jobTaskGroupCommunicationMap.remove(jobId);
+        jobTaskCommunicationMap.remove(jobId);
+    }
+
+    public static void registerTaskCommunicationMap(
+            long jobId, int taskGroupId, Map<Integer, Communication> taskCommunicationMap) {
+        Map<Integer, Map<Integer, Communication>> taskGroups = jobTaskCommunicationMap.get(jobId);
+        if (taskGroups == null) {
+            Map<Integer, Map<Integer, Communication>> created =
+                    new ConcurrentHashMap<Integer, Map<Integer, Communication>>();
+            taskGroups = jobTaskCommunicationMap.putIfAbsent(jobId, created);
+            if (taskGroups == null) {
+                taskGroups = created;
+            }
+        }
+        taskGroups.put(taskGroupId, taskCommunicationMap);
     }
 
-    public static Map<Integer, Communication> getTaskGroupCommunicationMap() {
+    /**
+     * @return taskGroupId -> taskId -> Communication，只包含在本进程内运行的taskGroup
+     */
+    public static Map<Integer, Map<Integer, Communication>> getTaskCommunicationMaps(long jobId) {
+        Map<Integer, Map<Integer, Communication>> taskGroups = jobTaskCommunicationMap.get(jobId);
+        if (taskGroups == null) {
+            return new ConcurrentHashMap<Integer, Map<Integer, Communication>>();
+        }
+        return taskGroups;
+    }
+
+    /**
+     * 本进程内正在运行、尚未释放的job
+     */
+    public static Set<Long> getJobIds() {
+        Set<Long> jobIds = new TreeSet<Long>(jobTaskGroupCommunicationMap.keySet());
+        jobIds.addAll(jobTaskCommunicationMap.keySet());
+        return jobIds;
+    }
+
+    public static Map<Integer, Communication> getTaskGroupCommunicationMap(long jobId) {
+        Map<Integer, Communication> taskGroupCommunicationMap = getTaskGroupCommunicationMap(jobId, false);
+        if (taskGroupCommunicationMap == null) {
+            return new ConcurrentHashMap<Integer, Communication>();
+        }
         return taskGroupCommunicationMap;
     }
-}
\ No newline at end of file
+}
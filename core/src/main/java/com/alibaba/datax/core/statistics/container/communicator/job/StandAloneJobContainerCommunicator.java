@@ -22,7 +22,7 @@ public class StandAloneJobContainerCommunicator extends AbstractContainerCommuni
         super(configuration);
         super.setCollector(new ProcessInnerCollector(configuration.getLong(
                 CoreConstant.DATAX_CORE_CONTAINER_JOB_ID)));
-        super.setReporter(new ProcessInnerReporter());
+        super.setReporter(new ProcessInnerReporter(super.getJobId()));
     }
 
     @Override
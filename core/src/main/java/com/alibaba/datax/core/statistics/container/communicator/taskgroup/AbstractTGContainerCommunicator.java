@@ -2,6 +2,7 @@ package com.alibaba.datax.core.statistics.container.communicator.taskgroup;
 
 import com.alibaba.datax.common.util.Configuration;
 import com.alibaba.datax.core.statistics.communication.Communication;
+import com.alibaba.datax.core.statistics.communication.LocalTGCommunicationManager;
 import com.alibaba.datax.core.statistics.container.collector.ProcessInnerCollector;
 import com.alibaba.datax.core.statistics.container.communicator.AbstractContainerCommunicator;
 import com.alibaba.datax.core.util.container.CoreConstant;
@@ -34,6 +35,8 @@ public abstract class AbstractTGContainerCommunicator extends AbstractContainerC
         super.setCollector(new ProcessInnerCollector(this.jobId));
         this.taskGroupId = configuration.getInt(
                 CoreConstant.DATAX_CORE_CONTAINER_TASKGROUP_ID);
+        LocalTGCommunicationManager.registerTaskCommunicationMap(this.jobId, this.taskGroupId,
+                super.getCollector().getTaskCommunicationMap());
     }
 
     @Override
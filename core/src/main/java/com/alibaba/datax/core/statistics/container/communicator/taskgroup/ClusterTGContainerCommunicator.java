@@ -0,0 +1,23 @@
+package com.alibaba.datax.core.statistics.container.communicator.taskgroup;
+
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.core.cluster.ClusterConnection;
+import com.alibaba.datax.core.statistics.communication.Communication;
+import com.alibaba.datax.core.statistics.container.report.ClusterReporter;
+
+/**
+ * local模式下在worker进程中运行的taskGroup，Communication经socket汇报给job
+ */
+public class ClusterTGContainerCommunicator extends AbstractTGContainerCommunicator {
+
+    public ClusterTGContainerCommunicator(Configuration configuration, ClusterConnection connection) {
+        super(configuration);
+        super.setReporter(new ClusterReporter(connection));
+    }
+
+    @Override
+    public void report(Communication communication) {
+        super.getReporter().reportTGCommunication(super.taskGroupId, communication);
+    }
+
+}
@@ -8,7 +8,7 @@ public class StandaloneTGContainerCommunicator extends AbstractTGContainerCommun
 
     public StandaloneTGContainerCommunicator(Configuration configuration) {
         super(configuration);
-        super.setReporter(new ProcessInnerReporter());
+        super.setReporter(new ProcessInnerReporter(super.jobId));
     }
 
     @Override
@@ -0,0 +1,37 @@
+package com.alibaba.datax.core.statistics.container.report;
+
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.core.cluster.ClusterConnection;
+import com.alibaba.datax.core.cluster.ClusterMessage;
+import com.alibaba.datax.core.statistics.communication.Communication;
+import com.alibaba.datax.core.util.FrameworkErrorCode;
+
+import java.io.IOException;
+
+/**
+ * local模式下worker进程里的taskGroup通过socket把Communication汇报给job
+ */
+public class ClusterReporter extends AbstractReporter {
+
+    private final ClusterConnection connection;
+
+    public ClusterReporter(ClusterConnection connection) {
+        this.connection = connection;
+    }
+
+    @Override
+    public void reportJobCommunication(Long jobId, Communication communication) {
+        // do nothing
+    }
+
+    @Override
+    public void reportTGCommunication(Integer taskGroupId, Communication communication) {
+        try {
+            this.connection.send(ClusterMessage.report(taskGroupId, communication));
+        } catch (IOException e) {
+            throw DataXException.asDataXException(FrameworkErrorCode.CALL_REMOTE_FAILED,
+                    String.format("taskGroup[%d]向job[%s]汇报失败.", taskGroupId,
+                            this.connection.getRemoteAddress()), e);
+        }
+    }
+}
@@ -5,6 +5,12 @@ import com.alibaba.datax.core.statistics.communication.LocalTGCommunicationManag
 
 public class ProcessInnerReporter extends AbstractReporter {
 
+    private final long jobId;
+
+    public ProcessInnerReporter(long jobId) {
+        this.jobId = jobId;
+    }
+
     @Override
     public void reportJobCommunication(Long jobId, Communication communication) {
         // do nothing
@@ -12,6 +18,6 @@ public class ProcessInnerReporter extends AbstractReporter {
 
     @Override
     public void reportTGCommunication(Integer taskGroupId, Communication communication) {
-        LocalTGCommunicationManager.updateTaskGroupCommunication(taskGroupId, communication);
+        LocalTGCommunicationManager.updateTaskGroupCommunication(this.jobId, taskGroupId, communication);
     }
 }
\ No newline at end of file
@@ -0,0 +1,404 @@
+package com.alibaba.datax.core.statistics.metrics;
+
+import com.alibaba.datax.common.statistics.LatencyHistogram;
+import com.alibaba.datax.common.statistics.VMInfo;
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.core.statistics.communication.Communication;
+import com.alibaba.datax.core.statistics.communication.CommunicationCounter;
+import com.alibaba.datax.core.statistics.communication.LatencyStage;
+import com.alibaba.datax.core.statistics.communication.LocalTGCommunicationManager;
+import com.alibaba.datax.core.util.container.CoreConstant;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * core.metrics.enable开启时在本机启动HTTP服务，GET /metrics 以Prometheus文本格式输出本进程内
+ * 各job、taskGroup、task的计数器、channel积压、各环节耗时分位数以及VMInfo中的JVM状态。
+ * <p/>
+ * 每次请求时现场汇总：task的计数器直接读Communication的原子槽位，taskGroup、job由task累加得到，
+ * 不调用mergeFrom，也不在读写数据的路径上加锁。taskGroup不在本进程运行（local模式）时使用它最近一次汇报的Communication。
+ * 进程内只启动一个，常驻服务中的多个job共用。
+ */
+public final class MetricsServer {
+    private static final Logger LOG = LoggerFactory.getLogger(MetricsServer.class);
+
+    private static final String METRICS_PATH = "/metrics";
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final double NANOS_PER_SECOND = 1000000000d;
+
+    private static final double[] QUANTILES = {0.5d, 0.9d, 0.99d, 0.999d};
+
+    private static final Metric[] METRICS = {
+            new Metric(CommunicationCounter.READ_SUCCEED_RECORDS, "read_succeed_records_total",
+                    "Records read successfully by readers.", false),
+            new Metric(CommunicationCounter.READ_SUCCEED_BYTES, "read_succeed_bytes_total",
+                    "Bytes read successfully by readers.", false),
+            new Metric(CommunicationCounter.READ_FAILED_RECORDS, "read_failed_records_total",
+                    "Dirty records collected by readers.", false),
+            new Metric(CommunicationCounter.READ_FAILED_BYTES, "read_failed_bytes_total",
+                    "Bytes of dirty records collected by readers.", false),
+            new Metric(CommunicationCounter.WRITE_RECEIVED_RECORDS, "write_received_records_total",
+                    "Records pulled from channels by writers.", false),
+            new Metric(CommunicationCounter.WRITE_RECEIVED_BYTES, "write_received_bytes_total",
+                    "Bytes pulled from channels by writers.", false),
+            new Metric(CommunicationCounter.WRITE_FAILED_RECORDS, "write_failed_records_total",
+                    "Dirty records collected by writers.", false),
+            new Metric(CommunicationCounter.WRITE_FAILED_BYTES, "write_failed_bytes_total",
+                    "Bytes of dirty records collected by writers.", false),
+            new Metric(CommunicationCounter.WAIT_WRITER_TIME, "wait_writer_seconds_total",
+                    "Time readers spent waiting for free space in channels.", true),
+            new Metric(CommunicationCounter.WAIT_READER_TIME, "wait_reader_seconds_total",
+                    "Time writers spent waiting for records in channels.", true),
+            new Metric(CommunicationCounter.TRANSFORMER_USED_TIME, "transformer_seconds_total",
+                    "Time spent in transformers.", true),
+            new Metric(CommunicationCounter.TRANSFORMER_SUCCEED_RECORDS, "transformer_succeed_records_total",
+                    "Records transformed successfully.", false),
+            new Metric(CommunicationCounter.TRANSFORMER_FAILED_RECORDS, "transformer_failed_records_total",
+                    "Records failed in transformers.", false),
+            new Metric(CommunicationCounter.TRANSFORMER_FILTER_RECORDS, "transformer_filter_records_total",
+                    "Records filtered out by transformers.", false),
+            new Metric(CommunicationCounter.WRITER_BUSY_TIME, "writer_busy_seconds_total",
+                    "Time writers spent processing pulled records.", true)
+    };
+
+    private static MetricsServer instance;
+
+    private final HttpServer server;
+
+    private MetricsServer(String host, int port) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        this.server.createContext(METRICS_PATH, new MetricsHandler());
+        this.server.setExecutor(Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "metrics-server");
+                thread.setDaemon(true);
+                return thread;
+            }
+        }));
+        this.server.start();
+    }
+
+    /**
+     * 未开启或已经启动时不做任何事；端口被占用等启动失败只打印警告，不影响job运行
+     */
+    public static synchronized void startIfEnabled(Configuration configuration) {
+        if (instance != null || !configuration.getBool(CoreConstant.DATAX_CORE_METRICS_ENABLE, false)) {
+            return;
+        }
+
+        String host = configuration.getString(CoreConstant.DATAX_CORE_METRICS_HOST, "127.0.0.1");
+        int port = configuration.getInt(CoreConstant.DATAX_CORE_METRICS_PORT, 7071);
+        try {
+            instance = new MetricsServer(host, port);
+            LOG.info("DataX metrics are served on [http://{}:{}{}].", host, port, METRICS_PATH);
+        } catch (IOException e) {
+            LOG.warn(String.format("DataX metrics server failed to listen on [%s:%d], metrics are disabled: %s",
+                    host, port, e.getMessage()));
+        }
+    }
+
+    private static class MetricsHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                int status = 200;
+                String body;
+                if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+                    status = 405;
+                    body = "Only GET is supported.\n";
+                } else {
+                    try {
+                        body = render();
+                    } catch (Throwable e) {
+                        LOG.warn("Render metrics failed.", e);
+                        status = 500;
+                        body = String.valueOf(e.getMessage()) + "\n";
+                    }
+                }
+                byte[] bytes = body.getBytes("UTF-8");
+                exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+                exchange.sendResponseHeaders(status, bytes.length);
+                OutputStream output = exchange.getResponseBody();
+                output.write(bytes);
+                output.flush();
+            } finally {
+                exchange.close();
+            }
+        }
+    }
+
+    static String render() {
+        List<Sample> jobs = new ArrayList<Sample>();
+        List<Sample> taskGroups = new ArrayList<Sample>();
+        List<Sample> tasks = new ArrayList<Sample>();
+
+        for (Long jobId : LocalTGCommunicationManager.getJobIds()) {
+            Map<Integer, Communication> reported = LocalTGCommunicationManager.getTaskGroupCommunicationMap(jobId);
+            Map<Integer, Map<Integer, Communication>> running =
+                    LocalTGCommunicationManager.getTaskCommunicationMaps(jobId);
+
+            Sample job = new Sample(label("job_id", jobId));
+            TreeSet<Integer> taskGroupIds = new TreeSet<Integer>(reported.keySet());
+            taskGroupIds.addAll(running.keySet());
+            for (Integer taskGroupId : taskGroupIds) {
+                Sample taskGroup = new Sample(job.labels + "," + label("task_group_id", taskGroupId));
+                Map<Integer, Communication> taskCommunications = running.get(taskGroupId);
+                if (taskCommunications != null) {
+                    for (Map.Entry<Integer, Communication> entry
+                            : new TreeMap<Integer, Communication>(taskCommunications).entrySet()) {
+                        Communication communication = entry.getValue();
+                        Sample task = new Sample(taskGroup.labels + "," + label("task_id", entry.getKey()));
+                        task.add(communication);
+                        taskGroup.add(task);
+                        job.addLatencies(communication);
+                        // 只输出正在运行的task，结束或还未开始的task只计入taskGroup和job
+                        if (!communication.getState().isFinished() && task.isActive()) {
+                            tasks.add(task);
+                        }
+                    }
+                } else {
+                    Communication communication = reported.get(taskGroupId);
+                    if (communication != null) {
+                        taskGroup.add(communication);
+                        job.addLatencies(communication);
+                    }
+                }
+                job.add(taskGroup);
+                taskGroups.add(taskGroup);
+            }
+            jobs.add(job);
+        }
+
+        StringBuilder out = new StringBuilder(4096);
+        writeLevel(out, "datax_job_", jobs);
+        writeLevel(out, "datax_taskgroup_", taskGroups);
+        writeLevel(out, "datax_task_", tasks);
+        writeLatencies(out, jobs);
+        writeJvm(out);
+        return out.toString();
+    }
+
+    private static void writeLevel(StringBuilder out, String prefix, List<Sample> samples) {
+        if (samples.isEmpty()) {
+            return;
+        }
+        for (Metric metric : METRICS) {
+            String name = prefix + metric.name;
+            header(out, name, metric.help, "counter");
+            for (Sample sample : samples) {
+                long value = sample.counters[metric.counter.ordinal()];
+                if (metric.nanos) {
+                    line(out, name, sample.labels, value / NANOS_PER_SECOND);
+                } else {
+                    line(out, name, sample.labels, value);
+                }
+            }
+        }
+
+        // channel中的积压 = reader已push - writer已pull，只用计数器计算，不去读channel的队列
+        String records = prefix + "channel_queued_records";
+        header(out, records, "Records pushed into channels but not pulled by writers yet.", "gauge");
+        for (Sample sample : samples) {
+            line(out, records, sample.labels, sample.queued(CommunicationCounter.READ_SUCCEED_RECORDS,
+                    CommunicationCounter.WRITE_RECEIVED_RECORDS));
+        }
+        String bytes = prefix + "channel_queued_bytes";
+        header(out, bytes, "Bytes pushed into channels but not pulled by writers yet.", "gauge");
+        for (Sample sample : samples) {
+            line(out, bytes, sample.labels, sample.queued(CommunicationCounter.READ_SUCCEED_BYTES,
+                    CommunicationCounter.WRITE_RECEIVED_BYTES));
+        }
+    }
+
+    private static void writeLatencies(StringBuilder out, List<Sample> jobs) {
+        String name = "datax_job_stage_latency_seconds";
+        boolean headerWritten = false;
+        for (Sample job : jobs) {
+            for (LatencyStage stage : LatencyStage.values()) {
+                LatencyHistogram histogram = job.latencies[stage.ordinal()];
+                if (histogram == null || histogram.getCount() == 0) {
+                    continue;
+                }
+                if (!headerWritten) {
+                    header(out, name, "Per stage latency of all tasks, see LatencyStage.", "summary");
+                    headerWritten = true;
+                }
+                String labels = job.labels + "," + label("stage", stage.getKey());
+                for (double quantile : QUANTILES) {
+                    line(out, name, labels + "," + label("quantile", quantile),
+                            histogram.getValueAtPercentile(quantile * 100) / NANOS_PER_SECOND);
+                }
+                line(out, name + "_sum", labels, histogram.getSum() / NANOS_PER_SECOND);
+                line(out, name + "_count", labels, histogram.getCount());
+            }
+        }
+    }
+
+    private static void writeJvm(StringBuilder out) {
+        VMInfo vmInfo = VMInfo.getVmInfo();
+        if (vmInfo == null) {
+            return;
+        }
+
+        gauge(out, "datax_jvm_available_processors", "Processors available to the JVM.",
+                vmInfo.getTotalProcessorCount());
+        gauge(out, "datax_jvm_uptime_seconds", "Uptime of the JVM.", vmInfo.getUptime() / 1000d);
+        long cpuTime = vmInfo.getProcessCpuTime();
+        if (cpuTime >= 0) {
+            header(out, "datax_jvm_cpu_seconds_total", "CPU time used by the process.", "counter");
+            line(out, "datax_jvm_cpu_seconds_total", "", cpuTime / NANOS_PER_SECOND);
+        }
+        long openFds = vmInfo.getOpenFileDescriptorCount();
+        if (openFds >= 0) {
+            gauge(out, "datax_jvm_open_fds", "Open file descriptors of the process.", openFds);
+        }
+
+        List<GarbageCollectorMXBean> collectors = vmInfo.getGarbageCollectorMXBeans();
+        if (collectors != null && !collectors.isEmpty()) {
+            header(out, "datax_jvm_gc_collections_total", "Collections of each garbage collector.", "counter");
+            for (GarbageCollectorMXBean collector : collectors) {
+                line(out, "datax_jvm_gc_collections_total", label("gc", collector.getName()),
+                        collector.getCollectionCount());
+            }
+            header(out, "datax_jvm_gc_seconds_total", "Time spent in each garbage collector.", "counter");
+            for (GarbageCollectorMXBean collector : collectors) {
+                line(out, "datax_jvm_gc_seconds_total", label("gc", collector.getName()),
+                        collector.getCollectionTime() / 1000d);
+            }
+        }
+
+        List<MemoryPoolMXBean> pools = vmInfo.getMemoryPoolMXBeans();
+        if (pools != null && !pools.isEmpty()) {
+            List<MemoryUsage> usages = new ArrayList<MemoryUsage>(pools.size());
+            for (MemoryPoolMXBean pool : pools) {
+                usages.add(pool.getUsage());
+            }
+            header(out, "datax_jvm_memory_pool_used_bytes", "Used bytes of each memory pool.", "gauge");
+            for (int i = 0; i < pools.size(); i++) {
+                line(out, "datax_jvm_memory_pool_used_bytes", label("pool", pools.get(i).getName()),
+                        usages.get(i).getUsed());
+            }
+            header(out, "datax_jvm_memory_pool_committed_bytes", "Committed bytes of each memory pool.", "gauge");
+            for (int i = 0; i < pools.size(); i++) {
+                line(out, "datax_jvm_memory_pool_committed_bytes", label("pool", pools.get(i).getName()),
+                        usages.get(i).getCommitted());
+            }
+            header(out, "datax_jvm_memory_pool_max_bytes", "Max bytes of each memory pool, -1 if undefined.", "gauge");
+            for (int i = 0; i < pools.size(); i++) {
+                line(out, "datax_jvm_memory_pool_max_bytes", label("pool", pools.get(i).getName()),
+                        usages.get(i).getMax());
+            }
+        }
+    }
+
+    private static void gauge(StringBuilder out, String name, String help, Number value) {
+        header(out, name, help, "gauge");
+        line(out, name, "", value);
+    }
+
+    private static void header(StringBuilder out, String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void line(StringBuilder out, String name, String labels, Number value) {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(value).append('\n');
+    }
+
+    private static String label(String name, Object value) {
+        String escaped = String.valueOf(value).replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+        return name + "=\"" + escaped + "\"";
+    }
+
+    private static final class Metric {
+        final CommunicationCounter counter;
+        final String name;
+        final String help;
+        /**
+         * 计数器以纳秒累计，输出时换算为秒
+         */
+        final boolean nanos;
+
+        Metric(CommunicationCounter counter, String name, String help, boolean nanos) {
+            this.counter = counter;
+            this.name = name;
+            this.help = help;
+            this.nanos = nanos;
+        }
+    }
+
+    /**
+     * 一个job、taskGroup或task的计数器快照，耗时分布只在job上汇总
+     */
+    private static final class Sample {
+        final String labels;
+        final long[] counters = new long[CommunicationCounter.values().length];
+        final LatencyHistogram[] latencies = new LatencyHistogram[LatencyStage.values().length];
+
+        Sample(String labels) {
+            this.labels = labels;
+        }
+
+        void add(Communication communication) {
+            for (CommunicationCounter each : CommunicationCounter.values()) {
+                this.counters[each.ordinal()] += communication.getLongCounter(each);
+            }
+        }
+
+        void add(Sample other) {
+            for (int i = 0; i < this.counters.length; i++) {
+                this.counters[i] += other.counters[i];
+            }
+        }
+
+        void addLatencies(Communication communication) {
+            for (LatencyStage each : LatencyStage.values()) {
+                LatencyHistogram histogram = communication.getLatency(each);
+                if (histogram == null || histogram.getCount() == 0) {
+                    continue;
+                }
+                if (this.latencies[each.ordinal()] == null) {
+                    this.latencies[each.ordinal()] = new LatencyHistogram();
+                }
+                this.latencies[each.ordinal()].merge(histogram);
+            }
+        }
+
+        boolean isActive() {
+            for (long each : this.counters) {
+                if (each != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        long queued(CommunicationCounter pushed, CommunicationCounter pulled) {
+            return Math.max(0, this.counters[pushed.ordinal()] - this.counters[pulled.ordinal()]);
+        }
+    }
+}
@@ -1,7 +1,7 @@
 package com.alibaba.datax.core.statistics.plugin.task;
 
 import com.alibaba.datax.core.statistics.communication.Communication;
-import com.alibaba.datax.core.statistics.communication.CommunicationTool;
+import com.alibaba.datax.core.statistics.communication.CommunicationCounter;
 import com.alibaba.datax.common.constant.PluginType;
 import com.alibaba.datax.common.element.Record;
 import com.alibaba.datax.common.exception.DataXException;
@@ -60,14 +60,14 @@ public abstract class AbstractTaskPluginCollector extends TaskPluginCollector {
 
         if (this.pluginType.equals(PluginType.READER)) {
             this.communication.increaseCounter(
-                    CommunicationTool.READ_FAILED_RECORDS, 1);
+                    CommunicationCounter.READ_FAILED_RECORDS, 1);
             this.communication.increaseCounter(
-                    CommunicationTool.READ_FAILED_BYTES, dirtyRecord.getByteSize());
+                    CommunicationCounter.READ_FAILED_BYTES, dirtyRecord.getByteSize());
         } else if (this.pluginType.equals(PluginType.WRITER)) {
             this.communication.increaseCounter(
-                    CommunicationTool.WRITE_FAILED_RECORDS, 1);
+                    CommunicationCounter.WRITE_FAILED_RECORDS, 1);
             this.communication.increaseCounter(
-                    CommunicationTool.WRITE_FAILED_BYTES, dirtyRecord.getByteSize());
+                    CommunicationCounter.WRITE_FAILED_BYTES, dirtyRecord.getByteSize());
         } else {
             throw DataXException.asDataXException(
                     FrameworkErrorCode.RUNTIME_ERROR,
@@ -0,0 +1,308 @@
+package com.alibaba.datax.core.taskgroup;
+
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.core.statistics.communication.Communication;
+import com.alibaba.datax.core.statistics.communication.CommunicationCounter;
+import com.alibaba.datax.core.statistics.container.communicator.AbstractContainerCommunicator;
+import com.alibaba.datax.core.util.container.CoreConstant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * core.container.job.autoScale.enable开启时，在运行中调整整个job同时运行的task（channel）数。
+ * <p/>
+ * job.setting.speed算出的channel数作为初始值，每个统计窗口（默认3s）结束时：
+ * <ul>
+ * <li>配置了targetWriterLatency且writer每批数据的平均处理耗时超过它，减少channel</li>
+ * <li>上个窗口增加了channel：吞吐提升超过minGain则继续增加，否则认为吞吐已到平台期，
+ * 撤销这次增加并保持holdWindows个窗口后再试探</li>
+ * <li>还有待运行的task，且channel两端等待的时间占比至少有一个超过minWaitRatio时增加channel；
+ * 两端都很少等待说明瓶颈在本进程的CPU或限速上，增加channel没有意义</li>
+ * </ul>
+ * 每次调整约为当前值的1/4，限制在minChannel和maxChannel之间。
+ * job的channel数按各taskGroup待运行和正在运行的task数分给各taskGroup，
+ * 减少channel时不中断正在运行的task，只是在它们结束前不再启动新task。
+ */
+public final class ChannelAutoScaler {
+    private static final Logger LOG = LoggerFactory.getLogger(ChannelAutoScaler.class);
+
+    private static final ConcurrentMap<Long, ChannelAutoScaler> SCALERS =
+            new ConcurrentHashMap<Long, ChannelAutoScaler>();
+
+    private enum Action {
+        NONE, UP, DOWN
+    }
+
+    private final int minChannel;
+
+    private final int maxChannel;
+
+    private final long intervalNanos;
+
+    private final double minGain;
+
+    private final double minWaitRatio;
+
+    private final int holdWindows;
+
+    /**
+     * 纳秒，0表示不按writer耗时调整
+     */
+    private final long targetWriterLatencyNanos;
+
+    private final Map<Integer, TaskGroupState> taskGroups = new LinkedHashMap<Integer, TaskGroupState>();
+
+    /**
+     * 整个job当前允许同时运行的channel数，第一个taskGroup注册前为0
+     */
+    private int channelNumber = 0;
+
+    private long windowStart = System.nanoTime();
+
+    private long lastBytes = 0;
+
+    private long lastRecords = 0;
+
+    private long lastWaitReaderTime = 0;
+
+    private long lastWaitWriterTime = 0;
+
+    private long lastWriterBusyTime = 0;
+
+    private long lastWriterPullBatches = 0;
+
+    /**
+     * 第一个窗口包含task启动的开销，只作为基准不做调整
+     */
+    private int holdCount = 1;
+
+    private Action lastAction = Action.NONE;
+
+    private int lastStep = 0;
+
+    private double throughputBeforeUp = 0;
+
+    private ChannelAutoScaler(Configuration configuration) {
+        this.minChannel = Math.max(1, configuration.getInt(
+                CoreConstant.DATAX_CORE_CONTAINER_JOB_AUTOSCALE_MINCHANNEL, 1));
+        this.maxChannel = Math.max(this.minChannel, configuration.getInt(
+                CoreConstant.DATAX_CORE_CONTAINER_JOB_AUTOSCALE_MAXCHANNEL, Integer.MAX_VALUE));
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, configuration.getLong(
+                CoreConstant.DATAX_CORE_CONTAINER_JOB_AUTOSCALE_INTERVAL, 3000)));
+        this.minGain = configuration.getDouble(
+                CoreConstant.DATAX_CORE_CONTAINER_JOB_AUTOSCALE_MINGAIN, 0.05d);
+        this.minWaitRatio = configuration.getDouble(
+                CoreConstant.DATAX_CORE_CONTAINER_JOB_AUTOSCALE_MINWAITRATIO, 0.1d);
+        this.holdWindows = Math.max(0, configuration.getInt(
+                CoreConstant.DATAX_CORE_CONTAINER_JOB_AUTOSCALE_HOLDWINDOWS, 5));
+        this.targetWriterLatencyNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, configuration.getLong(
+                CoreConstant.DATAX_CORE_CONTAINER_JOB_AUTOSCALE_TARGETWRITERLATENCY, 0)));
+    }
+
+    public static ChannelAutoScaler getInstance(long jobId, Configuration configuration) {
+        ChannelAutoScaler scaler = SCALERS.get(jobId);
+        if (scaler == null) {
+            ChannelAutoScaler created = new ChannelAutoScaler(configuration);
+            scaler = SCALERS.putIfAbsent(jobId, created);
+            if (scaler == null) {
+                scaler = created;
+            }
+        }
+        return scaler;
+    }
+
+    /**
+     * job结束时释放
+     */
+    public static void remove(long jobId) {
+        SCALERS.remove(jobId);
+    }
+
+    /**
+     * @param channelNumber 该taskGroup按job.setting.speed分到的channel数，计入job的初始channel数
+     */
+    public synchronized void register(int taskGroupId, AbstractContainerCommunicator communicator,
+                                      int channelNumber) {
+        TaskGroupState state = new TaskGroupState(communicator);
+        state.limit = channelNumber;
+        this.taskGroups.put(taskGroupId, state);
+        this.channelNumber = Math.min(this.maxChannel, this.channelNumber + channelNumber);
+    }
+
+    /**
+     * taskGroup结束时调用，它占用的channel分给其他taskGroup
+     */
+    public synchronized void unregister(int taskGroupId) {
+        if (this.taskGroups.remove(taskGroupId) != null) {
+            this.allocate();
+        }
+    }
+
+    /**
+     * taskGroup调度循环每轮调用，汇报自己的task数并取得当前允许同时运行的task数
+     *
+     * @param pendingTasks 该taskGroup还可以启动的task数
+     */
+    public synchronized int getChannelNumber(int taskGroupId, int runningTasks, int pendingTasks) {
+        TaskGroupState state = this.taskGroups.get(taskGroupId);
+        if (state == null) {
+            return runningTasks;
+        }
+        state.running = runningTasks;
+        state.demand = runningTasks + pendingTasks;
+
+        long now = System.nanoTime();
+        if (now - this.windowStart >= this.intervalNanos) {
+            this.evaluate(now);
+            this.allocate();
+        }
+        return state.limit;
+    }
+
+    private void evaluate(long now) {
+        long bytes = 0;
+        long records = 0;
+        long waitReaderTime = 0;
+        long waitWriterTime = 0;
+        long writerBusyTime = 0;
+        long writerPullBatches = 0;
+        int running = 0;
+        long demand = 0;
+        for (TaskGroupState state : this.taskGroups.values()) {
+            for (Communication communication : state.communicator.getCommunicationMap().values()) {
+                bytes += communication.getLongCounter(CommunicationCounter.READ_SUCCEED_BYTES);
+                records += communication.getLongCounter(CommunicationCounter.READ_SUCCEED_RECORDS);
+                waitReaderTime += communication.getLongCounter(CommunicationCounter.WAIT_READER_TIME);
+                waitWriterTime += communication.getLongCounter(CommunicationCounter.WAIT_WRITER_TIME);
+                writerBusyTime += communication.getLongCounter(CommunicationCounter.WRITER_BUSY_TIME);
+                writerPullBatches += communication.getLongCounter(CommunicationCounter.WRITER_PULL_BATCHES);
+            }
+            running += state.running;
+            demand += state.demand;
+        }
+
+        long elapsed = now - this.windowStart;
+        // failover重置task统计、task在taskGroup间转移时差值可能为负，按0处理
+        long deltaBytes = Math.max(0, bytes - this.lastBytes);
+        long deltaRecords = Math.max(0, records - this.lastRecords);
+        double throughput = (deltaBytes > 0 ? deltaBytes : deltaRecords) * 1e9d / elapsed;
+        double channelTime = (double) elapsed * Math.max(1, running);
+        double writerStarved = Math.max(0, waitReaderTime - this.lastWaitReaderTime) / channelTime;
+        double readerBlocked = Math.max(0, waitWriterTime - this.lastWaitWriterTime) / channelTime;
+        long deltaBatches = writerPullBatches - this.lastWriterPullBatches;
+        long writerLatency = deltaBatches > 0
+                ? Math.max(0, writerBusyTime - this.lastWriterBusyTime) / deltaBatches : 0;
+
+        this.windowStart = now;
+        this.lastBytes = bytes;
+        this.lastRecords = records;
+        this.lastWaitReaderTime = waitReaderTime;
+        this.lastWaitWriterTime = waitWriterTime;
+        this.lastWriterBusyTime = writerBusyTime;
+        this.lastWriterPullBatches = writerPullBatches;
+
+        if (running == 0) {
+            this.lastAction = Action.NONE;
+            return;
+        }
+
+        boolean latencyExceeded = this.targetWriterLatencyNanos > 0
+                && writerLatency > this.targetWriterLatencyNanos;
+        int step = Math.max(1, this.channelNumber / 4);
+        String reason = null;
+        Action action = Action.NONE;
+
+        if (latencyExceeded) {
+            if (this.channelNumber > this.minChannel) {
+                action = Action.DOWN;
+                reason = "writer latency above target";
+            }
+            this.holdCount = this.holdWindows;
+        } else if (this.lastAction == Action.UP) {
+            if (throughput >= this.throughputBeforeUp * (1 + this.minGain)) {
+                if (this.channelNumber < this.maxChannel && demand > this.channelNumber) {
+                    action = Action.UP;
+                    reason = "throughput still growing";
+                }
+            } else {
+                action = Action.DOWN;
+                step = this.lastStep;
+                reason = "throughput plateaued";
+                this.holdCount = this.holdWindows;
+            }
+        } else if (this.holdCount > 0) {
+            this.holdCount--;
+        } else if (this.channelNumber < this.maxChannel && demand > this.channelNumber
+                && Math.max(writerStarved, readerBlocked) >= this.minWaitRatio) {
+            action = Action.UP;
+            reason = "channels waiting on reader or writer";
+        }
+
+        int oldChannelNumber = this.channelNumber;
+        if (action == Action.UP) {
+            this.throughputBeforeUp = throughput;
+            this.channelNumber = Math.min(this.maxChannel, this.channelNumber + step);
+        } else if (action == Action.DOWN) {
+            this.channelNumber = Math.max(this.minChannel, this.channelNumber - step);
+        }
+        this.lastStep = Math.abs(this.channelNumber - oldChannelNumber);
+        this.lastAction = this.lastStep == 0 ? Action.NONE : action;
+
+        if (this.lastStep > 0) {
+            LOG.info(String.format("adjust job channel number %d -> %d: %s " +
+                            "(throughput %.0f/s, writer starved %.2f, reader blocked %.2f, writer latency %dms).",
+                    oldChannelNumber, this.channelNumber, reason, throughput, writerStarved, readerBlocked,
+                    TimeUnit.NANOSECONDS.toMillis(writerLatency)));
+        }
+    }
+
+    /**
+     * 按各taskGroup的task数平均分配job的channel数，用不完的部分分给其他taskGroup
+     */
+    private void allocate() {
+        List<TaskGroupState> unsatisfied = new ArrayList<TaskGroupState>();
+        for (TaskGroupState state : this.taskGroups.values()) {
+            state.limit = 0;
+            if (state.demand > 0) {
+                unsatisfied.add(state);
+            }
+        }
+
+        int remaining = this.channelNumber;
+        while (remaining > 0 && !unsatisfied.isEmpty()) {
+            int share = Math.max(1, remaining / unsatisfied.size());
+            Iterator<TaskGroupState> iterator = unsatisfied.iterator();
+            while (iterator.hasNext() && remaining > 0) {
+                TaskGroupState state = iterator.next();
+                int granted = Math.min(share, Math.min(remaining, state.demand - state.limit));
+                state.limit += granted;
+                remaining -= granted;
+                if (state.limit >= state.demand) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private static final class TaskGroupState {
+        private final AbstractContainerCommunicator communicator;
+
+        private int running = 0;
+
+        /**
+         * 正在运行和还可以启动的task数之和，注册后第一次汇报前视为不限
+         */
+        private int demand = Integer.MAX_VALUE;
+
+        private int limit;
+
+        private TaskGroupState(AbstractContainerCommunicator communicator) {
+            this.communicator = communicator;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.alibaba.datax.core.taskgroup;
+
+import com.alibaba.datax.common.constant.CommonConstant;
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.core.statistics.container.communicator.AbstractContainerCommunicator;
+import com.alibaba.datax.core.util.container.CoreConstant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * core.container.job.workStealing开启时，同一个job下所有taskGroup共享的待运行task队列。
+ * <p/>
+ * JobAssignUtil.assignFairly的结果仍作为初始分配，每个taskGroup启动时把自己的task登记进来；
+ * 有channel空闲时先取自己的task，自己的取完后从剩余task最多的taskGroup中窃取，
+ * task对应的Communication随之从原taskGroup转移到新taskGroup，保证统计不重不漏。
+ * <p/>
+ * 候选task中优先选择reader、writer资源标识上正在运行task最少的一个，
+ * 保持loadBalanceResourceMark打散的效果。
+ */
+public final class JobTaskQueue {
+    private static final Logger LOG = LoggerFactory.getLogger(JobTaskQueue.class);
+
+    private static final ConcurrentMap<Long, JobTaskQueue> QUEUES =
+            new ConcurrentHashMap<Long, JobTaskQueue>();
+
+    /**
+     * taskGroupId --> 该taskGroup尚未开始的task，按资源标识分组，组内保持原有顺序
+     */
+    private final Map<Integer, PendingTasks> pendingTasks = new LinkedHashMap<Integer, PendingTasks>();
+
+    private final Map<Integer, AbstractContainerCommunicator> communicators =
+            new HashMap<Integer, AbstractContainerCommunicator>();
+
+    /**
+     * 资源标识 --> 正在运行的task数
+     */
+    private final Map<String, Integer> runningTasksByMark = new HashMap<String, Integer>();
+
+    private JobTaskQueue() {
+    }
+
+    public static JobTaskQueue getInstance(long jobId) {
+        JobTaskQueue queue = QUEUES.get(jobId);
+        if (queue == null) {
+            JobTaskQueue created = new JobTaskQueue();
+            queue = QUEUES.putIfAbsent(jobId, created);
+            if (queue == null) {
+                queue = created;
+            }
+        }
+        return queue;
+    }
+
+    /**
+     * job结束时释放
+     */
+    public static void remove(long jobId) {
+        QUEUES.remove(jobId);
+    }
+
+    /**
+     * taskGroup注册完task的Communication之后调用，此后这些task才可能被其他taskGroup窃取
+     */
+    public synchronized void register(int taskGroupId, AbstractContainerCommunicator communicator,
+                                      List<Configuration> taskConfigs) {
+        PendingTasks tasks = new PendingTasks();
+        for (Configuration taskConfig : taskConfigs) {
+            tasks.add(taskConfig);
+        }
+        this.pendingTasks.put(taskGroupId, tasks);
+        this.communicators.put(taskGroupId, communicator);
+    }
+
+    /**
+     * taskGroup异常退出时调用，其未开始的task不再被其他taskGroup取走
+     */
+    public synchronized void unregister(int taskGroupId) {
+        this.pendingTasks.remove(taskGroupId);
+        this.communicators.remove(taskGroupId);
+    }
+
+    /**
+     * 为taskGroup取下一个要运行的task，取出的task记为运行中
+     *
+     * @return 整个job已没有待运行的task时返回null
+     */
+    public synchronized Configuration poll(int taskGroupId, AbstractContainerCommunicator communicator) {
+        PendingTasks ownTasks = this.pendingTasks.get(taskGroupId);
+        boolean steal = ownTasks == null || ownTasks.size == 0;
+
+        int victimTaskGroupId = -1;
+        LinkedList<Configuration> chosen = null;
+        int chosenScore = Integer.MAX_VALUE;
+        int chosenSourceSize = -1;
+        for (Map.Entry<Integer, PendingTasks> entry : this.pendingTasks.entrySet()) {
+            boolean isOwn = entry.getKey() == taskGroupId;
+            if (steal == isOwn) {
+                continue;
+            }
+            PendingTasks tasks = entry.getValue();
+            for (Map.Entry<List<String>, LinkedList<Configuration>> group : tasks.groups.entrySet()) {
+                if (group.getValue().isEmpty()) {
+                    continue;
+                }
+                int score = this.runningTaskCount(group.getKey());
+                if (score < chosenScore || (score == chosenScore && tasks.size > chosenSourceSize)) {
+                    chosen = group.getValue();
+                    chosenScore = score;
+                    chosenSourceSize = tasks.size;
+                    victimTaskGroupId = entry.getKey();
+                }
+            }
+        }
+
+        if (chosen == null) {
+            return null;
+        }
+        Configuration taskConfig = chosen.removeFirst();
+        this.pendingTasks.get(victimTaskGroupId).size--;
+
+        if (steal) {
+            Integer taskId = taskConfig.getInt(CoreConstant.TASK_ID);
+            AbstractContainerCommunicator victim = this.communicators.get(victimTaskGroupId);
+            if (victim != null) {
+                victim.getCommunicationMap().remove(taskId);
+            }
+            communicator.registerCommunication(Collections.singletonList(taskConfig));
+            LOG.info("taskGroup[{}] takes taskId[{}] from taskGroup[{}].",
+                    taskGroupId, taskId, victimTaskGroupId);
+        }
+
+        this.taskStarted(taskConfig);
+        return taskConfig;
+    }
+
+    /**
+     * 是否还有task没有被任何taskGroup取走
+     */
+    public synchronized boolean hasPendingTask() {
+        for (PendingTasks tasks : this.pendingTasks.values()) {
+            if (tasks.size > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 还没有被任何taskGroup取走的task数
+     */
+    public synchronized int pendingTaskCount() {
+        int count = 0;
+        for (PendingTasks tasks : this.pendingTasks.values()) {
+            count += tasks.size;
+        }
+        return count;
+    }
+
+    /**
+     * failover重试的task重新启动时调用
+     */
+    public synchronized void taskStarted(Configuration taskConfig) {
+        for (String mark : getResourceMarks(taskConfig)) {
+            Integer running = this.runningTasksByMark.get(mark);
+            this.runningTasksByMark.put(mark, running == null ? 1 : running + 1);
+        }
+    }
+
+    public synchronized void taskFinished(Configuration taskConfig) {
+        for (String mark : getResourceMarks(taskConfig)) {
+            Integer running = this.runningTasksByMark.get(mark);
+            if (running == null || running <= 1) {
+                this.runningTasksByMark.remove(mark);
+            } else {
+                this.runningTasksByMark.put(mark, running - 1);
+            }
+        }
+    }
+
+    private int runningTaskCount(List<String> marks) {
+        int count = 0;
+        for (String mark : marks) {
+            Integer running = this.runningTasksByMark.get(mark);
+            if (running != null) {
+                count += running;
+            }
+        }
+        return count;
+    }
+
+    private static List<String> getResourceMarks(Configuration taskConfig) {
+        List<String> marks = new ArrayList<String>(2);
+        String readerResourceMark = taskConfig.getString(CoreConstant.JOB_READER_PARAMETER + "." +
+                CommonConstant.LOAD_BALANCE_RESOURCE_MARK);
+        String writerResourceMark = taskConfig.getString(CoreConstant.JOB_WRITER_PARAMETER + "." +
+                CommonConstant.LOAD_BALANCE_RESOURCE_MARK);
+        if (readerResourceMark != null) {
+            marks.add("reader:" + readerResourceMark);
+        }
+        if (writerResourceMark != null) {
+            marks.add("writer:" + writerResourceMark);
+        }
+        return marks;
+    }
+
+    /**
+     * 一个taskGroup的待运行task；同一组资源标识的task得分相同，选择时只需比较各组的第一个
+     */
+    private static final class PendingTasks {
+        private final Map<List<String>, LinkedList<Configuration>> groups =
+                new LinkedHashMap<List<String>, LinkedList<Configuration>>();
+
+        private int size = 0;
+
+        private void add(Configuration taskConfig) {
+            List<String> marks = getResourceMarks(taskConfig);
+            LinkedList<Configuration> group = this.groups.get(marks);
+            if (group == null) {
+                group = new LinkedList<Configuration>();
+                this.groups.put(marks, group);
+            }
+            group.add(taskConfig);
+            this.size++;
+        }
+    }
+}
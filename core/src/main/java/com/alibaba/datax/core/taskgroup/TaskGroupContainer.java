@@ -1,15 +1,19 @@
 package com.alibaba.datax.core.taskgroup;
 
+import com.alibaba.datax.common.constant.CommonConstant;
 import com.alibaba.datax.common.constant.PluginType;
 import com.alibaba.datax.common.exception.CommonErrorCode;
 import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.plugin.AbstractTaskPlugin;
 import com.alibaba.datax.common.plugin.RecordSender;
 import com.alibaba.datax.common.plugin.TaskPluginCollector;
+import com.alibaba.datax.common.spi.Writer;
 import com.alibaba.datax.common.statistics.PerfRecord;
 import com.alibaba.datax.common.statistics.PerfTrace;
 import com.alibaba.datax.common.statistics.VMInfo;
 import com.alibaba.datax.common.util.Configuration;
 import com.alibaba.datax.core.AbstractContainer;
+import com.alibaba.datax.core.job.JobCheckpoint;
 import com.alibaba.datax.core.statistics.communication.Communication;
 import com.alibaba.datax.core.statistics.communication.CommunicationTool;
 import com.alibaba.datax.core.statistics.container.communicator.taskgroup.StandaloneTGContainerCommunicator;
@@ -33,6 +37,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class TaskGroupContainer extends AbstractContainer {
     private static final Logger LOG = LoggerFactory
@@ -58,7 +66,41 @@ public class TaskGroupContainer extends AbstractContainer {
      */
     private String taskCollectorClass;
 
-    private TaskMonitor taskMonitor = TaskMonitor.getInstance();
+    private TaskMonitor taskMonitor;
+
+    /**
+     * 开启work stealing时job内所有taskGroup共享的task队列，否则为null
+     */
+    private JobTaskQueue jobTaskQueue;
+
+    /**
+     * 开启channel自动伸缩时job内所有taskGroup共享，否则为null
+     */
+    private ChannelAutoScaler autoScaler;
+
+    /**
+     * 开启推测执行时job内所有taskGroup共享，否则为null
+     */
+    private TaskSpeculator speculator;
+
+    /**
+     * reader/writer runner结束时放入taskId，调度循环据此立即启动下一个task
+     */
+    private final BlockingQueue<Integer> finishedTaskQueue = new LinkedBlockingQueue<Integer>();
+
+    /**
+     * 每个task（channel）上的writer线程数，大于1时一个reader同时供给多个writer
+     */
+    private int writerPerChannel;
+
+    /**
+     * writer插件是否支持多个实例共享一个channel，第一次需要时检查，之后同一taskGroup内复用
+     */
+    private Boolean writerSupportFanOut;
+
+    private boolean fanOutUnsupportedWarned = false;
+
+    private boolean speculationUnsupportedWarned = false;
 
     public TaskGroupContainer(Configuration configuration) {
         super(configuration);
@@ -69,11 +111,25 @@ public class TaskGroupContainer extends AbstractContainer {
                 CoreConstant.DATAX_CORE_CONTAINER_JOB_ID);
         this.taskGroupId = this.configuration.getInt(
                 CoreConstant.DATAX_CORE_CONTAINER_TASKGROUP_ID);
+        this.taskMonitor = TaskMonitor.getInstance(this.jobId);
 
         this.channelClazz = this.configuration.getString(
                 CoreConstant.DATAX_CORE_TRANSPORT_CHANNEL_CLASS);
         this.taskCollectorClass = this.configuration.getString(
                 CoreConstant.DATAX_CORE_STATISTICS_COLLECTOR_PLUGIN_TASKCLASS);
+
+        this.writerPerChannel = Math.max(1, this.configuration.getInt(
+                CoreConstant.DATAX_JOB_SETTING_SPEED_WRITERPERCHANNEL, 1));
+
+        if (this.configuration.getBool(CoreConstant.DATAX_CORE_CONTAINER_JOB_WORKSTEALING, false)) {
+            this.jobTaskQueue = JobTaskQueue.getInstance(this.jobId);
+        }
+        if (this.configuration.getBool(CoreConstant.DATAX_CORE_CONTAINER_JOB_AUTOSCALE_ENABLE, false)) {
+            this.autoScaler = ChannelAutoScaler.getInstance(this.jobId, this.configuration);
+        }
+        if (this.configuration.getBool(CoreConstant.DATAX_CORE_CONTAINER_TASK_SPECULATION_ENABLE, false)) {
+            this.speculator = TaskSpeculator.getInstance(this.jobId, this.configuration);
+        }
     }
 
     private void initCommunicator(Configuration configuration) {
@@ -135,29 +191,66 @@ public class TaskGroupContainer extends AbstractContainer {
             this.containerCommunicator.registerCommunication(taskConfigs);
 
             Map<Integer, Configuration> taskConfigMap = buildTaskConfigMap(taskConfigs); //taskId与task配置
-            List<Configuration> taskQueue = buildRemainTasks(taskConfigs); //待运行task列表
+            LinkedList<Configuration> taskQueue; //待运行task列表
+            if (this.jobTaskQueue != null) {
+                // 新task从共享队列中按需领取
+                this.jobTaskQueue.register(this.taskGroupId, this.containerCommunicator, taskConfigs);
+                taskQueue = new LinkedList<Configuration>();
+            } else {
+                taskQueue = buildRemainTasks(taskConfigs);
+            }
+            if (this.autoScaler != null) {
+                this.autoScaler.register(this.taskGroupId, this.containerCommunicator, channelNumber);
+            }
+            List<Configuration> retryQueue = new LinkedList<Configuration>(); //等待failover重试的task列表
             Map<Integer, TaskExecutor> taskFailedExecutorMap = new HashMap<Integer, TaskExecutor>(); //taskId与上次失败实例
-            List<TaskExecutor> runTasks = new ArrayList<TaskExecutor>(channelNumber); //正在运行task
+            Map<Integer, TaskExecutor> runTasks = new HashMap<Integer, TaskExecutor>(channelNumber); //taskId与正在运行task
             Map<Integer, Long> taskStartTimeMap = new HashMap<Integer, Long>(); //任务开始时间
+            Map<Integer, TaskExecutor> speculativeTasks = new HashMap<Integer, TaskExecutor>(); //taskId与推测执行的另一个实例
+            Set<Integer> speculatedTaskIds = new HashSet<Integer>(); //推测执行过的task，每个task最多一次
+            Map<TaskExecutor, Long> drainingExecutors = new HashMap<TaskExecutor, Long>(); //推测执行中落败、等待线程退出的实例与关闭时间
 
             long lastReportTimeStamp = 0;
             Communication lastTaskGroupContainerCommunication = new Communication();
+            Integer finishedTaskId = null;
 
             while (true) {
-            	//1.判断task状态
+            	//1.判断task状态：有结束通知时只检查通知的task，等待超时则兜底检查所有正在运行的task
+            	Collection<Integer> checkTaskIds;
+            	if (finishedTaskId == null) {
+            	    checkTaskIds = new ArrayList<Integer>(runTasks.keySet());
+            	} else {
+            	    List<Integer> notifiedTaskIds = new ArrayList<Integer>();
+            	    notifiedTaskIds.add(finishedTaskId);
+            	    this.finishedTaskQueue.drainTo(notifiedTaskIds);
+            	    checkTaskIds = notifiedTaskIds;
+            	}
+
             	boolean failedOrKilled = false;
-            	Map<Integer, Communication> communicationMap = containerCommunicator.getCommunicationMap();
-            	for(Map.Entry<Integer, Communication> entry : communicationMap.entrySet()){
-            		Integer taskId = entry.getKey();
-            		Communication taskCommunication = entry.getValue();
+            	for(Integer taskId : checkTaskIds){
+            	    TaskExecutor taskExecutor = runTasks.get(taskId);
+            	    if(taskExecutor == null){
+            	        continue;
+            	    }
+            	    TaskExecutor speculativeExecutor = speculativeTasks.get(taskId);
+            	    if(speculativeExecutor != null){
+            	        resolveSpeculation(taskId, taskExecutor, speculativeExecutor, runTasks, speculativeTasks,
+            	                drainingExecutors);
+            	        taskExecutor = runTasks.get(taskId);
+            	    }
+            		Communication taskCommunication = containerCommunicator.getCommunication(taskId);
                     if(!taskCommunication.isFinished()){
                         continue;
                     }
-                    TaskExecutor taskExecutor = removeTask(runTasks, taskId);
+                    runTasks.remove(taskId);
 
                     //上面从runTasks里移除了，因此对应在monitor里移除
                     taskMonitor.removeTask(taskId);
 
+                    if (this.jobTaskQueue != null) {
+                        this.jobTaskQueue.taskFinished(taskConfigMap.get(taskId));
+                    }
+
                     //失败，看task是否支持failover，重试次数未超过最大限制
             		if(taskCommunication.getState() == State.FAILED){
                         taskFailedExecutorMap.put(taskId, taskExecutor);
@@ -165,7 +258,7 @@ public class TaskGroupContainer extends AbstractContainer {
                             taskExecutor.shutdown(); //关闭老的executor
                             containerCommunicator.resetCommunication(taskId); //将task的状态重置
             				Configuration taskConfig = taskConfigMap.get(taskId);
-            				taskQueue.add(taskConfig); //重新加入任务列表
+            				retryQueue.add(taskConfig); //重新加入任务列表
             			}else{
             				failedOrKilled = true;
                 			break;
@@ -174,6 +267,11 @@ public class TaskGroupContainer extends AbstractContainer {
             			failedOrKilled = true;
             			break;
             		}else if(taskCommunication.getState() == State.SUCCEEDED){
+                        //开启断点时，随汇报告知job该task已成功
+                        String checkpointKey = taskConfigMap.get(taskId).getString(CoreConstant.TASK_CHECKPOINT_KEY);
+                        if (checkpointKey != null) {
+                            taskCommunication.addMessage(JobCheckpoint.MESSAGE_KEY, checkpointKey);
+                        }
                         Long taskStartTime = taskStartTimeMap.get(taskId);
                         if(taskStartTime != null){
                             Long usedTime = System.currentTimeMillis() - taskStartTime;
@@ -181,6 +279,9 @@ public class TaskGroupContainer extends AbstractContainer {
                                     this.taskGroupId, taskId, usedTime);
                             //usedTime*1000*1000 转换成PerfRecord记录的ns，这里主要是简单登记，进行最长任务的打印。因此增加特定静态方法
                             PerfRecord.addPerfRecord(taskGroupId, taskId, PerfRecord.PHASE.TASK_TOTAL,taskStartTime, usedTime * 1000L * 1000L);
+                            if (this.speculator != null) {
+                                this.speculator.taskSucceeded(CommunicationTool.getTotalReadRecords(taskCommunication), usedTime);
+                            }
                             taskStartTimeMap.remove(taskId);
                             taskConfigMap.remove(taskId);
                         }
@@ -189,6 +290,9 @@ public class TaskGroupContainer extends AbstractContainer {
             	
                 // 2.发现该taskGroup下taskExecutor的总状态失败则汇报错误
                 if (failedOrKilled) {
+                    for (TaskExecutor speculativeExecutor : speculativeTasks.values()) {
+                        speculativeExecutor.shutdown();
+                    }
                     lastTaskGroupContainerCommunication = reportTaskGroupCommunication(
                             lastTaskGroupContainerCommunication, taskCountInThisTaskGroup);
 
@@ -196,52 +300,125 @@ public class TaskGroupContainer extends AbstractContainer {
                             FrameworkErrorCode.PLUGIN_RUNTIME_ERROR, lastTaskGroupContainerCommunication.getThrowable());
                 }
                 
-                //3.有任务未执行，且正在运行的任务数小于最大通道限制
-                Iterator<Configuration> iterator = taskQueue.iterator();
-                while(iterator.hasNext() && runTasks.size() < channelNumber){
+                //3.有任务未执行，且正在运行的任务数小于最大通道限制，先启动到了重试时间的failover task
+                if (this.autoScaler != null) {
+                    int pendingTaskCount = retryQueue.size() + (this.jobTaskQueue != null
+                            ? this.jobTaskQueue.pendingTaskCount() : taskQueue.size());
+                    channelNumber = this.autoScaler.getChannelNumber(this.taskGroupId,
+                            runTasks.size() + speculativeTasks.size(), pendingTaskCount);
+                }
+                Iterator<Configuration> iterator = retryQueue.iterator();
+                while(iterator.hasNext() && runTasks.size() + speculativeTasks.size() < channelNumber){
                     Configuration taskConfig = iterator.next();
                     Integer taskId = taskConfig.getInt(CoreConstant.TASK_ID);
-                    int attemptCount = 1;
                     TaskExecutor lastExecutor = taskFailedExecutorMap.get(taskId);
-                    if(lastExecutor!=null){
-                        attemptCount = lastExecutor.getAttemptCount() + 1;
-                        long now = System.currentTimeMillis();
-                        long failedTime = lastExecutor.getTimeStamp();
-                        if(now - failedTime < taskRetryIntervalInMsec){  //未到等待时间，继续留在队列
-                            continue;
-                        }
-                        if(!lastExecutor.isShutdown()){ //上次失败的task仍未结束
-                            if(now - failedTime > taskMaxWaitInMsec){
-                                markCommunicationFailed(taskId);
-                                reportTaskGroupCommunication(lastTaskGroupContainerCommunication, taskCountInThisTaskGroup);
-                                throw DataXException.asDataXException(CommonErrorCode.WAIT_TIME_EXCEED, "task failover等待超时");
-                            }else{
-                                lastExecutor.shutdown(); //再次尝试关闭
-                                continue;
-                            }
+                    long now = System.currentTimeMillis();
+                    long failedTime = lastExecutor.getTimeStamp();
+                    if(now - failedTime < taskRetryIntervalInMsec){  //未到等待时间，继续留在队列
+                        continue;
+                    }
+                    if(!lastExecutor.isShutdown()){ //上次失败的task仍未结束
+                        if(now - failedTime > taskMaxWaitInMsec){
+                            markCommunicationFailed(taskId);
+                            reportTaskGroupCommunication(lastTaskGroupContainerCommunication, taskCountInThisTaskGroup);
+                            throw DataXException.asDataXException(CommonErrorCode.WAIT_TIME_EXCEED, "task failover等待超时");
                         }else{
-                            LOG.info("taskGroup[{}] taskId[{}] attemptCount[{}] has already shutdown",
-                                    this.taskGroupId, taskId, lastExecutor.getAttemptCount());
+                            lastExecutor.shutdown(); //再次尝试关闭
+                            continue;
                         }
+                    }else{
+                        LOG.info("taskGroup[{}] taskId[{}] attemptCount[{}] has already shutdown",
+                                this.taskGroupId, taskId, lastExecutor.getAttemptCount());
+                    }
+                    if (this.jobTaskQueue != null) {
+                        this.jobTaskQueue.taskStarted(taskConfig);
                     }
-                    Configuration taskConfigForRun = taskMaxRetryTimes > 1 ? taskConfig.clone() : taskConfig;
-                	TaskExecutor taskExecutor = new TaskExecutor(taskConfigForRun, attemptCount);
-                    taskStartTimeMap.put(taskId, System.currentTimeMillis());
-                	taskExecutor.doStart();
 
+                    TaskExecutor taskExecutor = startTaskExecutor(taskConfig, lastExecutor.getAttemptCount() + 1, taskMaxRetryTimes);
+                    taskStartTimeMap.put(taskId, System.currentTimeMillis());
                     iterator.remove();
-                    runTasks.add(taskExecutor);
+                    runTasks.put(taskId, taskExecutor);
+                    taskFailedExecutorMap.remove(taskId);
+                }
 
-                    //上面，增加task到runTasks列表，因此在monitor里注册。
-                    taskMonitor.registerTask(taskId, this.containerCommunicator.getCommunication(taskId));
+                while (runTasks.size() + speculativeTasks.size() < channelNumber) {
+                    Configuration taskConfig;
+                    if (this.jobTaskQueue != null) {
+                        taskConfig = this.jobTaskQueue.poll(this.taskGroupId, this.containerCommunicator);
+                        if (taskConfig != null) {
+                            taskConfigMap.put(taskConfig.getInt(CoreConstant.TASK_ID), taskConfig);
+                        }
+                    } else {
+                        taskConfig = taskQueue.poll();
+                    }
+                    if (taskConfig == null) {
+                        break;
+                    }
+                    Integer taskId = taskConfig.getInt(CoreConstant.TASK_ID);
+                    taskStartTimeMap.put(taskId, System.currentTimeMillis());
+                    runTasks.put(taskId, startTaskExecutor(taskConfig, 1, taskMaxRetryTimes));
+                }
 
-                    taskFailedExecutorMap.remove(taskId);
-                    LOG.info("taskGroup[{}] taskId[{}] attemptCount[{}] is started",
-                            this.taskGroupId, taskId, attemptCount);
+                //推测执行：没有待运行的task时，用空闲的channel为进度明显落后的task再启动一个实例
+                if (this.speculator != null && retryQueue.isEmpty() && taskQueue.isEmpty()
+                        && (this.jobTaskQueue == null || !this.jobTaskQueue.hasPendingTask())) {
+                    long now = System.currentTimeMillis();
+                    for (TaskExecutor taskExecutor : runTasks.values()) {
+                        if (runTasks.size() + speculativeTasks.size() >= channelNumber) {
+                            break;
+                        }
+                        Integer taskId = taskExecutor.getTaskId();
+                        Long taskStartTime = taskStartTimeMap.get(taskId);
+                        if (taskStartTime == null || speculatedTaskIds.contains(taskId)) {
+                            continue;
+                        }
+                        long records = CommunicationTool.getTotalReadRecords(
+                                this.containerCommunicator.getCommunication(taskId));
+                        if (!this.speculator.isStraggler(records, now - taskStartTime)) {
+                            continue;
+                        }
+                        speculatedTaskIds.add(taskId);
+                        if (!taskExecutor.supportSpeculation()) {
+                            if (!this.speculationUnsupportedWarned) {
+                                this.speculationUnsupportedWarned = true;
+                                LOG.warn("reader[{}] or writer[{}] does not support speculation, [{}] is ignored.",
+                                        taskConfigMap.get(taskId).getString(CoreConstant.JOB_READER_NAME),
+                                        taskConfigMap.get(taskId).getString(CoreConstant.JOB_WRITER_NAME),
+                                        CoreConstant.DATAX_CORE_CONTAINER_TASK_SPECULATION_ENABLE);
+                            }
+                            continue;
+                        }
+                        LOG.info("taskGroup[{}] taskId[{}] read [{}] records in [{}]ms, far behind finished tasks, " +
+                                "start a speculative attempt", this.taskGroupId, taskId, records, now - taskStartTime);
+                        TaskExecutor speculativeExecutor = new TaskExecutor(taskConfigMap.get(taskId).clone(),
+                                taskExecutor.getAttemptCount(), true);
+                        speculativeExecutor.doStart();
+                        speculativeTasks.put(taskId, speculativeExecutor);
+                    }
+                }
+
+                //落败的实例可能仍在写入(如writer仍在提交)，与failover一样等其线程退出，超时则失败
+                Iterator<Map.Entry<TaskExecutor, Long>> drainingIterator = drainingExecutors.entrySet().iterator();
+                while (drainingIterator.hasNext()) {
+                    Map.Entry<TaskExecutor, Long> draining = drainingIterator.next();
+                    TaskExecutor drainingExecutor = draining.getKey();
+                    if (drainingExecutor.isShutdown()) {
+                        drainingIterator.remove();
+                        LOG.info("taskGroup[{}] taskId[{}] losing attempt of speculation has already shutdown",
+                                this.taskGroupId, drainingExecutor.getTaskId());
+                    } else if (System.currentTimeMillis() - draining.getValue() > taskMaxWaitInMsec) {
+                        markCommunicationFailed(drainingExecutor.getTaskId());
+                        reportTaskGroupCommunication(lastTaskGroupContainerCommunication, taskCountInThisTaskGroup);
+                        throw DataXException.asDataXException(CommonErrorCode.WAIT_TIME_EXCEED, "task推测执行落败实例等待关闭超时");
+                    } else {
+                        drainingExecutor.shutdown(); //再次尝试关闭
+                    }
                 }
 
                 //4.任务列表为空，executor已结束, 搜集状态为success--->成功
-                if (taskQueue.isEmpty() && isAllTaskDone(runTasks) && containerCommunicator.collectState() == State.SUCCEEDED) {
+                if (taskQueue.isEmpty() && retryQueue.isEmpty() && runTasks.isEmpty() && drainingExecutors.isEmpty()
+                        && (this.jobTaskQueue == null || !this.jobTaskQueue.hasPendingTask())
+                        && containerCommunicator.collectState() == State.SUCCEEDED) {
                 	// 成功的情况下，也需要汇报一次。否则在任务结束非常快的情况下，采集的信息将会不准确
                     lastTaskGroupContainerCommunication = reportTaskGroupCommunication(
                             lastTaskGroupContainerCommunication, taskCountInThisTaskGroup);
@@ -259,13 +436,14 @@ public class TaskGroupContainer extends AbstractContainer {
                     lastReportTimeStamp = now;
 
                     //taskMonitor对于正在运行的task，每reportIntervalInMillSec进行检查
-                    for(TaskExecutor taskExecutor:runTasks){
+                    for(TaskExecutor taskExecutor:runTasks.values()){
                         taskMonitor.report(taskExecutor.getTaskId(),this.containerCommunicator.getCommunication(taskExecutor.getTaskId()));
                     }
 
                 }
 
-                Thread.sleep(sleepIntervalInMillSec);
+                // 有task结束时立即被唤醒，最多等待sleepInterval，用于failover重试计时等兜底检查
+                finishedTaskId = this.finishedTaskQueue.poll(sleepIntervalInMillSec, TimeUnit.MILLISECONDS);
             }
 
             //6.最后还要汇报一次
@@ -273,6 +451,9 @@ public class TaskGroupContainer extends AbstractContainer {
 
 
         } catch (Throwable e) {
+            if (this.jobTaskQueue != null) {
+                this.jobTaskQueue.unregister(this.taskGroupId);
+            }
             Communication nowTaskGroupContainerCommunication = this.containerCommunicator.collect();
 
             if (nowTaskGroupContainerCommunication.getThrowable() == null) {
@@ -284,6 +465,9 @@ public class TaskGroupContainer extends AbstractContainer {
             throw DataXException.asDataXException(
                     FrameworkErrorCode.RUNTIME_ERROR, e);
         }finally {
+            if (this.autoScaler != null) {
+                this.autoScaler.unregister(this.taskGroupId);
+            }
             if(!PerfTrace.getInstance().isJob()){
                 //最后打印cpu的平均消耗，GC的统计
                 VMInfo vmInfo = VMInfo.getVmInfo();
@@ -297,6 +481,19 @@ public class TaskGroupContainer extends AbstractContainer {
         }
     }
     
+    /**
+     * 只实例化writer的Task插件做检查，不创建runner、collector和exchanger
+     */
+    private boolean isWriterSupportFanOut(Configuration taskConfig) {
+        if (this.writerSupportFanOut == null) {
+            AbstractTaskPlugin writerPlugin = LoadUtil.loadTaskPlugin(PluginType.WRITER,
+                    taskConfig.getString(CoreConstant.JOB_WRITER_NAME));
+            writerPlugin.setPluginJobConf(taskConfig.getConfiguration(CoreConstant.JOB_WRITER_PARAMETER));
+            this.writerSupportFanOut = ((Writer.Task) writerPlugin).supportFanOut();
+        }
+        return this.writerSupportFanOut;
+    }
+
     private Map<Integer, Configuration> buildTaskConfigMap(List<Configuration> configurations){
     	Map<Integer, Configuration> map = new HashMap<Integer, Configuration>();
     	for(Configuration taskConfig : configurations){
@@ -306,33 +503,65 @@ public class TaskGroupContainer extends AbstractContainer {
     	return map;
     }
 
-    private List<Configuration> buildRemainTasks(List<Configuration> configurations){
-    	List<Configuration> remainTasks = new LinkedList<Configuration>();
+    private LinkedList<Configuration> buildRemainTasks(List<Configuration> configurations){
+    	LinkedList<Configuration> remainTasks = new LinkedList<Configuration>();
     	for(Configuration taskConfig : configurations){
     		remainTasks.add(taskConfig);
     	}
     	return remainTasks;
     }
-    
-    private TaskExecutor removeTask(List<TaskExecutor> taskList, int taskId){
-    	Iterator<TaskExecutor> iterator = taskList.iterator();
-    	while(iterator.hasNext()){
-    		TaskExecutor taskExecutor = iterator.next();
-    		if(taskExecutor.getTaskId() == taskId){
-    			iterator.remove();
-    			return taskExecutor;
-    		}
-    	}
-    	return null;
+
+    private TaskExecutor startTaskExecutor(Configuration taskConfig, int attemptCount, int taskMaxRetryTimes){
+        //failover重试、推测执行时需要原始配置，运行时使用副本
+        Configuration taskConfigForRun = taskMaxRetryTimes > 1 || this.speculator != null
+                ? taskConfig.clone() : taskConfig;
+        TaskExecutor taskExecutor = new TaskExecutor(taskConfigForRun, attemptCount);
+        taskExecutor.doStart();
+
+        //增加task到runTasks列表，因此在monitor里注册。
+        taskMonitor.registerTask(taskExecutor.getTaskId(), this.containerCommunicator.getCommunication(taskExecutor.getTaskId()));
+
+        LOG.info("taskGroup[{}] taskId[{}] attemptCount[{}] is started",
+                this.taskGroupId, taskExecutor.getTaskId(), attemptCount);
+        return taskExecutor;
     }
-    
-    private boolean isAllTaskDone(List<TaskExecutor> taskList){
-    	for(TaskExecutor taskExecutor : taskList){
-    		if(!taskExecutor.isTaskFinished()){
-    			return false;
-    		}
-    	}
-    	return true;
+
+    /**
+     * task的两个实例中有一个结束时决定由谁作为task的结果：先成功的实例胜出，另一个关闭；
+     * 一个失败而另一个仍在运行时，由仍在运行的实例继续。胜出的实例记在runTasks中，
+     * 其Communication替换task注册的Communication，之后按普通task处理；被关闭的实例放入drainingExecutors，
+     * 线程全部退出前taskGroup不算完成
+     */
+    private void resolveSpeculation(Integer taskId, TaskExecutor taskExecutor, TaskExecutor speculativeExecutor,
+                                    Map<Integer, TaskExecutor> runTasks, Map<Integer, TaskExecutor> speculativeTasks,
+                                    Map<TaskExecutor, Long> drainingExecutors) {
+        Communication taskCommunication = this.containerCommunicator.getCommunication(taskId);
+        Communication speculativeCommunication = speculativeExecutor.getCommunication();
+
+        if (taskCommunication.getState() == State.SUCCEEDED || taskCommunication.getState() == State.KILLED) {
+            speculativeTasks.remove(taskId);
+            speculativeExecutor.shutdown();
+            drainingExecutors.put(speculativeExecutor, System.currentTimeMillis());
+            LOG.info("taskGroup[{}] taskId[{}] original attempt finished with [{}], shutdown the speculative attempt",
+                    this.taskGroupId, taskId, taskCommunication.getState());
+        } else if (speculativeCommunication.getState() == State.SUCCEEDED
+                || (taskCommunication.getState() == State.FAILED && !speculativeCommunication.isFinished())) {
+            speculativeTasks.remove(taskId);
+            taskExecutor.shutdown();
+            drainingExecutors.put(taskExecutor, System.currentTimeMillis());
+            this.containerCommunicator.getCommunicationMap().put(taskId, speculativeCommunication);
+            runTasks.put(taskId, speculativeExecutor);
+            taskMonitor.removeTask(taskId);
+            taskMonitor.registerTask(taskId, speculativeCommunication);
+            LOG.info("taskGroup[{}] taskId[{}] speculative attempt takes over, original attempt state [{}]",
+                    this.taskGroupId, taskId, taskCommunication.getState());
+        } else if (speculativeCommunication.isFinished()) {
+            speculativeTasks.remove(taskId);
+            speculativeExecutor.shutdown();
+            drainingExecutors.put(speculativeExecutor, System.currentTimeMillis());
+            LOG.warn("taskGroup[{}] taskId[{}] speculative attempt finished with [{}], keep the original attempt",
+                    this.taskGroupId, taskId, speculativeCommunication.getState());
+        }
     }
 
     private Communication reportTaskGroupCommunication(Communication lastTaskGroupContainerCommunication, int taskCount){
@@ -360,15 +589,20 @@ public class TaskGroupContainer extends AbstractContainer {
 
         private int attemptCount;
 
+        /**
+         * 推测执行启动的实例，使用自己的Communication，胜出后才替换task注册的Communication
+         */
+        private boolean speculative;
+
         private Channel channel;
 
         private Thread readerThread;
 
-        private Thread writerThread;
+        private List<Thread> writerThreads = new ArrayList<Thread>(1);
         
         private ReaderRunner readerRunner;
         
-        private WriterRunner writerRunner;
+        private List<WriterRunner> writerRunners = new ArrayList<WriterRunner>(1);
 
         /**
          * 该处的taskCommunication在多处用到：
@@ -379,6 +613,10 @@ public class TaskGroupContainer extends AbstractContainer {
         private Communication taskCommunication;
 
         public TaskExecutor(Configuration taskConf, int attemptCount) {
+            this(taskConf, attemptCount, false);
+        }
+
+        public TaskExecutor(Configuration taskConf, int attemptCount, boolean speculative) {
             // 获取该taskExecutor的配置
             this.taskConfig = taskConf;
             Validate.isTrue(null != this.taskConfig.getConfiguration(CoreConstant.JOB_READER)
@@ -388,18 +626,21 @@ public class TaskGroupContainer extends AbstractContainer {
             // 得到taskId
             this.taskId = this.taskConfig.getInt(CoreConstant.TASK_ID);
             this.attemptCount = attemptCount;
+            this.speculative = speculative;
 
             /**
              * 由taskId得到该taskExecutor的Communication
              * 要传给readerRunner和writerRunner，同时要传给channel作统计用
              */
-            this.taskCommunication = containerCommunicator
+            this.taskCommunication = speculative ? new Communication() : containerCommunicator
                     .getCommunication(taskId);
             Validate.notNull(this.taskCommunication,
                     String.format("taskId[%d]的Communication没有注册过", taskId));
             this.channel = ClassUtil.instantiate(channelClazz,
                     Channel.class, configuration);
             this.channel.setCommunication(this.taskCommunication);
+            this.channel.setResourceMark(this.taskConfig.getString(
+                    CoreConstant.JOB_READER_PARAMETER + "." + CommonConstant.LOAD_BALANCE_RESOURCE_MARK));
 
             /**
              * 获取transformer的参数
@@ -408,16 +649,42 @@ public class TaskGroupContainer extends AbstractContainer {
             List<TransformerExecution> transformerInfoExecs = TransformerUtil.buildTransformerInfo(taskConfig);
 
             /**
-             * 生成writerThread
+             * 生成writerThread，writer插件和channel都支持时，多个writer共享channel并行写入
              */
-            writerRunner = (WriterRunner) generateRunner(PluginType.WRITER);
-            this.writerThread = new Thread(writerRunner,
-                    String.format("%d-%d-%d-writer",
-                            jobId, taskGroupId, this.taskId));
-            //通过设置thread的contextClassLoader，即可实现同步和主程序不通的加载器
-            this.writerThread.setContextClassLoader(LoadUtil.getJarLoader(
-                    PluginType.WRITER, this.taskConfig.getString(
-                            CoreConstant.JOB_WRITER_NAME)));
+            int writerNumber = 1;
+            if (writerPerChannel > 1) {
+                if (this.channel.supportConcurrentPull() && isWriterSupportFanOut(this.taskConfig)) {
+                    writerNumber = writerPerChannel;
+                } else if (!fanOutUnsupportedWarned) {
+                    fanOutUnsupportedWarned = true;
+                    LOG.warn("writer[{}] or channel[{}] does not support multiple writers per channel, " +
+                                    "[{}] is ignored.", this.taskConfig.getString(CoreConstant.JOB_WRITER_NAME),
+                            channelClazz, CoreConstant.DATAX_JOB_SETTING_SPEED_WRITERPERCHANNEL);
+                }
+            }
+
+            if (writerNumber == 1) {
+                this.writerRunners.add((WriterRunner) generateRunner(PluginType.WRITER));
+            } else {
+                AtomicInteger runningWriters = new AtomicInteger(writerNumber);
+                for (int i = 0; i < writerNumber; i++) {
+                    WriterRunner writerRunner = (WriterRunner) generateRunner(PluginType.WRITER, null, true);
+                    writerRunner.setRunningWriters(runningWriters);
+                    this.writerRunners.add(writerRunner);
+                }
+            }
+
+            for (int i = 0; i < this.writerRunners.size(); i++) {
+                Thread writerThread = new Thread(this.writerRunners.get(i), (writerNumber == 1
+                        ? String.format("%d-%d-%d-writer", jobId, taskGroupId, this.taskId)
+                        : String.format("%d-%d-%d-writer-%d", jobId, taskGroupId, this.taskId, i))
+                        + (speculative ? "-speculative" : ""));
+                //通过设置thread的contextClassLoader，即可实现同步和主程序不通的加载器
+                writerThread.setContextClassLoader(LoadUtil.getJarLoader(
+                        PluginType.WRITER, this.taskConfig.getString(
+                                CoreConstant.JOB_WRITER_NAME)));
+                this.writerThreads.add(writerThread);
+            }
 
             /**
              * 生成readerThread
@@ -425,7 +692,7 @@ public class TaskGroupContainer extends AbstractContainer {
             readerRunner = (ReaderRunner) generateRunner(PluginType.READER,transformerInfoExecs);
             this.readerThread = new Thread(readerRunner,
                     String.format("%d-%d-%d-reader",
-                            jobId, taskGroupId, this.taskId));
+                            jobId, taskGroupId, this.taskId) + (speculative ? "-speculative" : ""));
             /**
              * 通过设置thread的contextClassLoader，即可实现同步和主程序不通的加载器
              */
@@ -435,13 +702,15 @@ public class TaskGroupContainer extends AbstractContainer {
         }
 
         public void doStart() {
-            this.writerThread.start();
+            for (Thread writerThread : this.writerThreads) {
+                writerThread.start();
 
-            // reader没有起来，writer不可能结束
-            if (!this.writerThread.isAlive() || this.taskCommunication.getState() == State.FAILED) {
-                throw DataXException.asDataXException(
-                        FrameworkErrorCode.RUNTIME_ERROR,
-                        this.taskCommunication.getThrowable());
+                // reader没有起来，writer不可能结束
+                if (!writerThread.isAlive() || this.taskCommunication.getState() == State.FAILED) {
+                    throw DataXException.asDataXException(
+                            FrameworkErrorCode.RUNTIME_ERROR,
+                            this.taskCommunication.getThrowable());
+                }
             }
 
             this.readerThread.start();
@@ -462,6 +731,14 @@ public class TaskGroupContainer extends AbstractContainer {
         }
 
         private AbstractRunner generateRunner(PluginType pluginType, List<TransformerExecution> transformerInfoExecs) {
+            return generateRunner(pluginType, transformerInfoExecs, false);
+        }
+
+        /**
+         * @param sharedChannel 多个writer共享channel
+         */
+        private AbstractRunner generateRunner(PluginType pluginType, List<TransformerExecution> transformerInfoExecs,
+                                              boolean sharedChannel) {
             AbstractRunner newRunner = null;
             TaskPluginCollector pluginCollector;
 
@@ -502,7 +779,7 @@ public class TaskGroupContainer extends AbstractContainer {
                             configuration, this.taskCommunication,
                             PluginType.WRITER);
                     ((WriterRunner) newRunner).setRecordReceiver(new BufferedRecordExchanger(
-                            this.channel, pluginCollector));
+                            this.channel, pluginCollector, sharedChannel));
                     /**
                      * 设置taskPlugin的collector，用来处理脏数据和job/task通信
                      */
@@ -515,6 +792,7 @@ public class TaskGroupContainer extends AbstractContainer {
             newRunner.setTaskGroupId(taskGroupId);
             newRunner.setTaskId(this.taskId);
             newRunner.setRunnerCommunication(this.taskCommunication);
+            newRunner.setFinishedTaskQueue(finishedTaskQueue);
 
             return newRunner;
         }
@@ -522,7 +800,7 @@ public class TaskGroupContainer extends AbstractContainer {
         // 检查任务是否结束
         private boolean isTaskFinished() {
             // 如果reader 或 writer没有完成工作，那么直接返回工作没有完成
-            if (readerThread.isAlive() || writerThread.isAlive()) {
+            if (readerThread.isAlive() || isAnyWriterAlive()) {
                 return false;
             }
 
@@ -541,19 +819,44 @@ public class TaskGroupContainer extends AbstractContainer {
             return taskCommunication.getTimestamp();
         }
 
+        private Communication getCommunication(){
+            return taskCommunication;
+        }
+
         private int getAttemptCount(){
             return attemptCount;
         }
         
         private boolean supportFailOver(){
-        	return writerRunner.supportFailOver();
+            for (WriterRunner writerRunner : writerRunners) {
+                if (!writerRunner.supportFailOver()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean supportSpeculation(){
+            if (!readerRunner.supportSpeculation()) {
+                return false;
+            }
+            for (WriterRunner writerRunner : writerRunners) {
+                if (!writerRunner.supportSpeculation()) {
+                    return false;
+                }
+            }
+            return true;
         }
 
         private void shutdown(){
-            writerRunner.shutdown();
+            for (WriterRunner writerRunner : writerRunners) {
+                writerRunner.shutdown();
+            }
             readerRunner.shutdown();
-            if(writerThread.isAlive()){
-                writerThread.interrupt();
+            for (Thread writerThread : writerThreads) {
+                if(writerThread.isAlive()){
+                    writerThread.interrupt();
+                }
             }
             if(readerThread.isAlive()){
                 readerThread.interrupt();
@@ -561,7 +864,16 @@ public class TaskGroupContainer extends AbstractContainer {
         }
 
         private boolean isShutdown(){
-            return !readerThread.isAlive() && !writerThread.isAlive();
+            return !readerThread.isAlive() && !isAnyWriterAlive();
+        }
+
+        private boolean isAnyWriterAlive(){
+            for (Thread writerThread : writerThreads) {
+                if (writerThread.isAlive()) {
+                    return true;
+                }
+            }
+            return false;
         }
     }
 }
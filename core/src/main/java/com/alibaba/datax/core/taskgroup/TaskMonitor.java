@@ -16,7 +16,7 @@ import java.util.concurrent.ConcurrentHashMap;
 public class TaskMonitor {
 
     private static final Logger LOG = LoggerFactory.getLogger(TaskMonitor.class);
-    private static final TaskMonitor instance = new TaskMonitor();
+    private static final ConcurrentHashMap<Long, TaskMonitor> MONITORS = new ConcurrentHashMap<Long, TaskMonitor>();
     private static long EXPIRED_TIME = 172800 * 1000;
 
     private ConcurrentHashMap<Integer, TaskCommunication> tasks = new ConcurrentHashMap<Integer, TaskCommunication>();
@@ -24,8 +24,26 @@ public class TaskMonitor {
     private TaskMonitor() {
     }
 
-    public static TaskMonitor getInstance() {
-        return instance;
+    /**
+     * 按job区分，同一进程内多个job的taskId互不冲突
+     */
+    public static TaskMonitor getInstance(long jobId) {
+        TaskMonitor monitor = MONITORS.get(jobId);
+        if (monitor == null) {
+            TaskMonitor created = new TaskMonitor();
+            monitor = MONITORS.putIfAbsent(jobId, created);
+            if (monitor == null) {
+                monitor = created;
+            }
+        }
+        return monitor;
+    }
+
+    /**
+     * job结束时释放
+     */
+    public static void remove(long jobId) {
+        MONITORS.remove(jobId);
     }
 
     public void registerTask(Integer taskid, Communication communication) {
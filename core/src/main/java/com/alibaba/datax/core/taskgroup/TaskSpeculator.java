@@ -0,0 +1,83 @@
+package com.alibaba.datax.core.taskgroup;
+
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.core.util.container.CoreConstant;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * core.container.task.speculation.enable开启时，找出进度明显落后的task（straggler），
+ * 由taskGroup为它再启动一个实例，先成功的实例作为该task的结果。
+ * <p/>
+ * task的进度速率按读取的记录数除以运行时间计算，与job内已成功task速率的中位数比较：
+ * 已成功的task不少于minFinishedTasks，且运行超过minRuntimeInMsec的task速率低于中位数的slowRatio倍时认为落后。
+ * 同一进程内的taskGroup共享，local模式下每个taskGroup进程只能看到自己的task。
+ */
+public final class TaskSpeculator {
+
+    private static final ConcurrentMap<Long, TaskSpeculator> SPECULATORS =
+            new ConcurrentHashMap<Long, TaskSpeculator>();
+
+    private final double slowRatio;
+
+    private final long minRuntimeInMsec;
+
+    private final int minFinishedTasks;
+
+    /**
+     * 已成功task的速率（记录数/毫秒），有序
+     */
+    private final List<Double> finishedRates = new ArrayList<Double>();
+
+    private TaskSpeculator(Configuration configuration) {
+        this.slowRatio = configuration.getDouble(
+                CoreConstant.DATAX_CORE_CONTAINER_TASK_SPECULATION_SLOWRATIO, 0.3d);
+        this.minRuntimeInMsec = configuration.getLong(
+                CoreConstant.DATAX_CORE_CONTAINER_TASK_SPECULATION_MINRUNTIMEINMSEC, 60000);
+        this.minFinishedTasks = Math.max(1, configuration.getInt(
+                CoreConstant.DATAX_CORE_CONTAINER_TASK_SPECULATION_MINFINISHEDTASKS, 3));
+    }
+
+    public static TaskSpeculator getInstance(long jobId, Configuration configuration) {
+        TaskSpeculator speculator = SPECULATORS.get(jobId);
+        if (speculator == null) {
+            TaskSpeculator created = new TaskSpeculator(configuration);
+            speculator = SPECULATORS.putIfAbsent(jobId, created);
+            if (speculator == null) {
+                speculator = created;
+            }
+        }
+        return speculator;
+    }
+
+    /**
+     * job结束时释放
+     */
+    public static void remove(long jobId) {
+        SPECULATORS.remove(jobId);
+    }
+
+    /**
+     * task成功时登记它的速率
+     */
+    public synchronized void taskSucceeded(long records, long usedTimeInMsec) {
+        double rate = (double) records / Math.max(1, usedTimeInMsec);
+        int index = Collections.binarySearch(this.finishedRates, rate);
+        this.finishedRates.add(index < 0 ? -index - 1 : index, rate);
+    }
+
+    /**
+     * 正在运行的task是否明显落后，值得再启动一个实例
+     */
+    public synchronized boolean isStraggler(long records, long runtimeInMsec) {
+        if (runtimeInMsec < this.minRuntimeInMsec || this.finishedRates.size() < this.minFinishedTasks) {
+            return false;
+        }
+        double median = this.finishedRates.get(this.finishedRates.size() / 2);
+        return (double) records / runtimeInMsec < median * this.slowRatio;
+    }
+}
@@ -8,6 +8,8 @@ import com.alibaba.datax.core.statistics.communication.CommunicationTool;
 import com.alibaba.datax.dataxservice.face.domain.enums.State;
 import org.apache.commons.lang.Validate;
 
+import java.util.concurrent.BlockingQueue;
+
 public abstract class AbstractRunner {
     private AbstractTaskPlugin plugin;
 
@@ -19,6 +21,11 @@ public abstract class AbstractRunner {
 
     private int taskId;
 
+    /**
+     * runner结束时放入taskId，通知所属的TaskGroupContainer
+     */
+    private BlockingQueue<Integer> finishedTaskQueue;
+
     public AbstractRunner(AbstractTaskPlugin taskPlugin) {
         this.plugin = taskPlugin;
     }
@@ -111,5 +118,18 @@ public abstract class AbstractRunner {
         return runnerCommunication;
     }
 
+    public void setFinishedTaskQueue(BlockingQueue<Integer> finishedTaskQueue) {
+        this.finishedTaskQueue = finishedTaskQueue;
+    }
+
+    /**
+     * 在run()的最后调用，task是否真正结束由TaskGroupContainer根据Communication的状态判断
+     */
+    protected void notifyFinished() {
+        if (this.finishedTaskQueue != null) {
+            this.finishedTaskQueue.offer(this.taskId);
+        }
+    }
+
     public abstract void shutdown();
 }
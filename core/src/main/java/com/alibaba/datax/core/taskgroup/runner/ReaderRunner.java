@@ -86,9 +86,15 @@ public class ReaderRunner extends AbstractRunner implements Runnable {
                 transformerRecord.start();
                 transformerRecord.end(transformerUsedTime);
             }
+            super.notifyFinished();
         }
     }
 
+    public boolean supportSpeculation(){
+        Reader.Task taskReader = (Reader.Task) this.getPlugin();
+        return taskReader.supportSpeculation();
+    }
+
     public void shutdown(){
         recordSender.shutdown();
     }
@@ -9,6 +9,8 @@ import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Created by jingxing on 14-9-1.
  * <p/>
@@ -21,6 +23,15 @@ public class WriterRunner extends AbstractRunner implements Runnable {
 
     private RecordReceiver recordReceiver;
 
+    /**
+     * 多个writer共享一个channel时，尚未成功结束的writer数；为null表示只有这一个writer
+     */
+    private AtomicInteger runningWriters;
+
+    public void setRunningWriters(AtomicInteger runningWriters) {
+        this.runningWriters = runningWriters;
+    }
+
     public void setRecordReceiver(RecordReceiver receiver) {
         this.recordReceiver = receiver;
     }
@@ -65,7 +76,10 @@ public class WriterRunner extends AbstractRunner implements Runnable {
             taskWriter.post();
             postPerfRecord.end();
 
-            super.markSuccess();
+            // 共享channel的writer全部成功后task才算成功
+            if (this.runningWriters == null || this.runningWriters.decrementAndGet() == 0) {
+                super.markSuccess();
+            }
         } catch (Throwable e) {
             LOG.error("Writer Runner Received Exceptions:", e);
             super.markFail(e);
@@ -76,6 +90,7 @@ public class WriterRunner extends AbstractRunner implements Runnable {
             super.destroy();
             desPerfRecord.end();
             channelWaitRead.end(super.getRunnerCommunication().getLongCounter(CommunicationTool.WAIT_READER_TIME));
+            super.notifyFinished();
         }
     }
     
@@ -84,6 +99,11 @@ public class WriterRunner extends AbstractRunner implements Runnable {
     	return taskWriter.supportFailOver();
     }
 
+    public boolean supportSpeculation(){
+        Writer.Task taskWriter = (Writer.Task) this.getPlugin();
+        return taskWriter.supportSpeculation();
+    }
+
     public void shutdown(){
         recordReceiver.shutdown();
     }
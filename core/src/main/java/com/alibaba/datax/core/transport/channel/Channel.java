@@ -1,16 +1,26 @@
 package com.alibaba.datax.core.transport.channel;
 
 import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.exception.DataXException;
 import com.alibaba.datax.common.util.Configuration;
 import com.alibaba.datax.core.statistics.communication.Communication;
+import com.alibaba.datax.core.statistics.communication.CommunicationCounter;
 import com.alibaba.datax.core.statistics.communication.CommunicationTool;
+import com.alibaba.datax.core.statistics.communication.LatencyStage;
+import com.alibaba.datax.core.transport.record.ColumnBatchRecord;
+import com.alibaba.datax.core.transport.record.RecordBatch;
+import com.alibaba.datax.core.transport.record.RecordPool;
 import com.alibaba.datax.core.transport.record.TerminateRecord;
+import com.alibaba.datax.core.util.FrameworkErrorCode;
 import com.alibaba.datax.core.util.container.CoreConstant;
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 /**
  * Created by jingxing on 14-8-25.
@@ -21,9 +31,27 @@ public abstract class Channel {
 
     private static final Logger LOG = LoggerFactory.getLogger(Channel.class);
 
+    /**
+     * 限速范围：每个channel独立按core.transport.channel.speed限速（默认）
+     */
+    public static final String SCOPE_CHANNEL = "channel";
+
+    /**
+     * 限速范围：整个job的channel共享job.setting.speed
+     */
+    public static final String SCOPE_JOB = "job";
+
+    /**
+     * 限速范围：reader的loadBalanceResourceMark相同的channel共享job.setting.speed
+     */
+    public static final String SCOPE_RESOURCE_MARK = "resourceMark";
+
     protected int taskGroupId;
 
-    protected int capacity;
+    /**
+     * 开启core.transport.adaptive时会在运行中被调整，实现类每次判断容量时都应重新读取
+     */
+    protected volatile int capacity;
 
     protected int byteCapacity;
 
@@ -43,9 +71,30 @@ public abstract class Channel {
 
     private static Boolean isFirstPrint = true;
 
+    private RecordPool recordPool = null;
+
     private Communication currentCommunication;
 
-    private Communication lastCommunication = new Communication();
+    /**
+     * 上一次push结束的时间，用于统计reader产出每批数据的耗时，只在reader线程读写
+     */
+    private long lastPushEndNanos = 0;
+
+    /**
+     * 限速用的令牌桶，scope为job/resourceMark时与其他channel共享，为null表示不限速
+     */
+    private TokenBucket byteBucket = null;
+
+    private TokenBucket recordBucket = null;
+
+    private String flowControlScope;
+
+    private int bufferSize;
+
+    /**
+     * 未开启core.transport.adaptive时为null
+     */
+    private TransportTuner tuner = null;
 
     public Channel(final Configuration configuration) {
         //channel的queue里默认record为1万条。原来为512条
@@ -61,12 +110,25 @@ public abstract class Channel {
                     "通道容量[%d]必须大于0.", capacity));
         }
 
+        String flowControlScope = configuration.getString(
+                CoreConstant.DATAX_CORE_TRANSPORT_CHANNEL_SPEED_SCOPE, SCOPE_CHANNEL);
+        if (!SCOPE_CHANNEL.equals(flowControlScope) && !SCOPE_JOB.equals(flowControlScope)
+                && !SCOPE_RESOURCE_MARK.equals(flowControlScope)) {
+            throw DataXException.asDataXException(FrameworkErrorCode.CONFIG_ERROR,
+                    String.format("限速范围[%s]不合法，只能是 %s/%s/%s.", flowControlScope,
+                            SCOPE_CHANNEL, SCOPE_JOB, SCOPE_RESOURCE_MARK));
+        }
+
         synchronized (isFirstPrint) {
             if (isFirstPrint) {
-                Channel.LOG.info("Channel set byte_speed_limit to " + byteSpeed
-                        + (byteSpeed <= 0 ? ", No bps activated." : "."));
-                Channel.LOG.info("Channel set record_speed_limit to " + recordSpeed
-                        + (recordSpeed <= 0 ? ", No tps activated." : "."));
+                if (SCOPE_CHANNEL.equals(flowControlScope)) {
+                    Channel.LOG.info("Channel set byte_speed_limit to " + byteSpeed
+                            + (byteSpeed <= 0 ? ", No bps activated." : "."));
+                    Channel.LOG.info("Channel set record_speed_limit to " + recordSpeed
+                            + (recordSpeed <= 0 ? ", No tps activated." : "."));
+                } else {
+                    Channel.LOG.info("Channel share speed limit of job.setting.speed by " + flowControlScope + ".");
+                }
                 isFirstPrint = false;
             }
         }
@@ -82,6 +144,20 @@ public abstract class Channel {
         this.byteCapacity = configuration.getInt(
                 CoreConstant.DATAX_CORE_TRANSPORT_CHANNEL_CAPACITY_BYTE, 8 * 1024 * 1024);
         this.configuration = configuration;
+        this.flowControlScope = flowControlScope;
+        this.initTokenBuckets(null);
+
+        this.bufferSize = configuration.getInt(
+                CoreConstant.DATAX_CORE_TRANSPORT_EXCHANGER_BUFFERSIZE, 32);
+        if (configuration.getBool(CoreConstant.DATAX_CORE_TRANSPORT_ADAPTIVE_ENABLE, false)) {
+            this.tuner = new TransportTuner(configuration, capacity, this.bufferSize);
+        }
+
+        // 开启record复用时，池子大小足够覆盖channel队列加上读写两端exchanger的缓冲
+        if (configuration.getBool(CoreConstant.DATAX_CORE_TRANSPORT_RECORD_RECYCLE, false)) {
+            int maxBufferSize = this.tuner == null ? this.bufferSize : this.tuner.getMaxBufferSize();
+            this.recordPool = new RecordPool(this.getMaxCapacity() + 2 * maxBufferSize);
+        }
     }
 
     public void close() {
@@ -96,6 +172,13 @@ public abstract class Channel {
         return isClosed;
     }
 
+    /**
+     * 是否允许多个writer线程同时从该channel取数据，即一个reader对应多个writer
+     */
+    public boolean supportConcurrentPull() {
+        return false;
+    }
+
     public int getTaskGroupId() {
         return this.taskGroupId;
     }
@@ -104,6 +187,20 @@ public abstract class Channel {
         return capacity;
     }
 
+    /**
+     * 运行中capacity可能达到的最大值，队列大小固定的实现按它分配空间
+     */
+    public int getMaxCapacity() {
+        return this.tuner == null ? this.capacity : this.tuner.getMaxCapacity();
+    }
+
+    /**
+     * exchanger每个batch的record条数，开启core.transport.adaptive时会在运行中调整
+     */
+    public int getBufferSize() {
+        return this.tuner == null ? this.bufferSize : this.tuner.getBufferSize();
+    }
+
     public long getByteSpeed() {
         return byteSpeed;
     }
@@ -112,15 +209,71 @@ public abstract class Channel {
         return this.configuration;
     }
 
+    /**
+     * @return 未开启 core.transport.record.recycle 时为null
+     */
+    public RecordPool getRecordPool() {
+        return this.recordPool;
+    }
+
     public void setCommunication(final Communication communication) {
         this.currentCommunication = communication;
-        this.lastCommunication.reset();
+        if (this.tuner != null) {
+            this.reportTuning();
+        }
+    }
+
+    private void reportTuning() {
+        currentCommunication.setLongCounter(CommunicationTool.ADAPTIVE_CHANNEL_NUMBER, 1);
+        currentCommunication.setLongCounter(CommunicationTool.ADAPTIVE_BUFFER_SIZE, this.tuner.getBufferSize());
+        currentCommunication.setLongCounter(CommunicationTool.ADAPTIVE_CHANNEL_CAPACITY, this.tuner.getCapacity());
+    }
+
+    /**
+     * scope为resourceMark时，同一个reader loadBalanceResourceMark的channel共享限速；
+     * 没有mark的task按整个job共享
+     */
+    public void setResourceMark(String resourceMark) {
+        if (SCOPE_RESOURCE_MARK.equals(this.flowControlScope)
+                && StringUtils.isNotBlank(resourceMark)) {
+            this.initTokenBuckets(resourceMark);
+        }
+    }
+
+    /**
+     * 同一个job下共享令牌桶的key前缀，job结束时据此释放
+     */
+    public static String getSharedBucketPrefix(long jobId) {
+        return "job-" + jobId + "/";
+    }
+
+    private void initTokenBuckets(String resourceMark) {
+        if (SCOPE_CHANNEL.equals(this.flowControlScope)) {
+            this.byteBucket = this.byteSpeed > 0
+                    ? new TokenBucket(this.byteSpeed, this.flowControlInterval) : null;
+            this.recordBucket = this.recordSpeed > 0
+                    ? new TokenBucket(this.recordSpeed, this.flowControlInterval) : null;
+            return;
+        }
+
+        long jobByteSpeed = this.configuration.getLong(
+                CoreConstant.DATAX_JOB_SETTING_SPEED_BYTE, 0);
+        long jobRecordSpeed = this.configuration.getLong(
+                CoreConstant.DATAX_JOB_SETTING_SPEED_RECORD, 0);
+        String key = getSharedBucketPrefix(this.configuration.getLong(
+                CoreConstant.DATAX_CORE_CONTAINER_JOB_ID, -1))
+                + (resourceMark == null ? SCOPE_JOB : SCOPE_RESOURCE_MARK + "/" + resourceMark);
+        this.byteBucket = jobByteSpeed > 0
+                ? TokenBucket.shared(key + "/byte", jobByteSpeed, this.flowControlInterval) : null;
+        this.recordBucket = jobRecordSpeed > 0
+                ? TokenBucket.shared(key + "/record", jobRecordSpeed, this.flowControlInterval) : null;
     }
 
     public void push(final Record r) {
         Validate.notNull(r, "record不能为空.");
+        this.statReaderFetch();
         this.doPush(r);
-        this.statPush(1L, r.getByteSize());
+        this.statPush(ColumnBatchRecord.rowCount(r), r.getByteSize());
     }
 
     public void pushTerminate(final TerminateRecord r) {
@@ -132,16 +285,37 @@ public abstract class Channel {
 //                currentCommunication.getLongCounter(CommunicationTool.STAGE) + 1);
     }
 
+    /**
+     * 多个writer共享channel时，取到结束标志的writer把它放回去交给下一个writer；
+     * 放回的结束标志被再次取走时不计入writer接收的条数
+     */
+    public void passOnTerminate() {
+        this.doPush(TerminateRecord.get());
+        currentCommunication.increaseCounter(
+                CommunicationCounter.WRITE_RECEIVED_RECORDS, -1);
+    }
+
     public void pushAll(final Collection<Record> rs) {
         Validate.notNull(rs);
         Validate.noNullElements(rs);
+        this.statReaderFetch();
         this.doPushAll(rs);
         this.statPush(rs.size(), this.getByteSize(rs));
     }
 
+    /**
+     * 整批推送，条数和字节数直接取自batch，不再逐条累加
+     */
+    public void pushBatch(final RecordBatch batch) {
+        Validate.notNull(batch);
+        this.statReaderFetch();
+        this.doPushBatch(batch);
+        this.statPush(batch.getRowCount(), batch.getByteSize());
+    }
+
     public Record pull() {
         Record record = this.doPull();
-        this.statPull(1L, record.getByteSize());
+        this.statPull(ColumnBatchRecord.rowCount(record), record.getByteSize());
         return record;
     }
 
@@ -151,6 +325,12 @@ public abstract class Channel {
         this.statPull(rs.size(), this.getByteSize(rs));
     }
 
+    public RecordBatch pullBatch() {
+        RecordBatch batch = this.doPullBatch();
+        this.statPull(batch.getRowCount(), batch.getByteSize());
+        return batch;
+    }
+
     protected abstract void doPush(Record r);
 
     protected abstract void doPushAll(Collection<Record> rs);
@@ -159,6 +339,19 @@ public abstract class Channel {
 
     protected abstract void doPullAll(Collection<Record> rs);
 
+    /**
+     * 默认退化为逐条的doPushAll，支持整批传输的channel覆盖该方法
+     */
+    protected void doPushBatch(RecordBatch batch) {
+        this.doPushAll(batch.asList());
+    }
+
+    protected RecordBatch doPullBatch() {
+        List<Record> rs = new ArrayList<Record>();
+        this.doPullAll(rs);
+        return RecordBatch.of(rs);
+    }
+
     public abstract int size();
 
     public abstract boolean isEmpty();
@@ -173,76 +366,75 @@ public abstract class Channel {
         return size;
     }
 
+    /**
+     * 实现类每次push等待空位后调用
+     */
+    protected void addWaitWriterTime(long nanos) {
+        this.waitWriterTime += nanos;
+        if (this.currentCommunication != null) {
+            this.currentCommunication.recordLatency(LatencyStage.CHANNEL_PUSH_WAIT, nanos);
+        }
+    }
+
+    /**
+     * 实现类每次pull等待数据后调用
+     */
+    protected void addWaitReaderTime(long nanos) {
+        this.waitReaderTime += nanos;
+        if (this.currentCommunication != null) {
+            this.currentCommunication.recordLatency(LatencyStage.CHANNEL_PULL_WAIT, nanos);
+        }
+    }
+
+    private void statReaderFetch() {
+        if (this.lastPushEndNanos > 0) {
+            currentCommunication.recordLatency(LatencyStage.READER_FETCH,
+                    System.nanoTime() - this.lastPushEndNanos);
+        }
+    }
+
     private void statPush(long recordSize, long byteSize) {
-        currentCommunication.increaseCounter(CommunicationTool.READ_SUCCEED_RECORDS,
+        currentCommunication.increaseCounter(CommunicationCounter.READ_SUCCEED_RECORDS,
                 recordSize);
-        currentCommunication.increaseCounter(CommunicationTool.READ_SUCCEED_BYTES,
+        currentCommunication.increaseCounter(CommunicationCounter.READ_SUCCEED_BYTES,
                 byteSize);
         //在读的时候进行统计waitCounter即可，因为写（pull）的时候可能正在阻塞，但读的时候已经能读到这个阻塞的counter数
 
-        currentCommunication.setLongCounter(CommunicationTool.WAIT_READER_TIME, waitReaderTime);
-        currentCommunication.setLongCounter(CommunicationTool.WAIT_WRITER_TIME, waitWriterTime);
+        currentCommunication.setLongCounter(CommunicationCounter.WAIT_READER_TIME, waitReaderTime);
+        currentCommunication.setLongCounter(CommunicationCounter.WAIT_WRITER_TIME, waitWriterTime);
 
-        boolean isChannelByteSpeedLimit = (this.byteSpeed > 0);
-        boolean isChannelRecordSpeedLimit = (this.recordSpeed > 0);
-        if (!isChannelByteSpeedLimit && !isChannelRecordSpeedLimit) {
-            return;
+        if (this.tuner != null
+                && this.tuner.onPush(recordSize, byteSize, waitWriterTime, waitReaderTime)) {
+            this.capacity = this.tuner.getCapacity();
+            this.reportTuning();
         }
 
-        long lastTimestamp = lastCommunication.getTimestamp();
-        long nowTimestamp = System.currentTimeMillis();
-        long interval = nowTimestamp - lastTimestamp;
-        if (interval - this.flowControlInterval >= 0) {
-            long byteLimitSleepTime = 0;
-            long recordLimitSleepTime = 0;
-            if (isChannelByteSpeedLimit) {
-                long currentByteSpeed = (CommunicationTool.getTotalReadBytes(currentCommunication) -
-                        CommunicationTool.getTotalReadBytes(lastCommunication)) * 1000 / interval;
-                if (currentByteSpeed > this.byteSpeed) {
-                    // 计算根据byteLimit得到的休眠时间
-                    byteLimitSleepTime = currentByteSpeed * interval / this.byteSpeed
-                            - interval;
-                }
-            }
-
-            if (isChannelRecordSpeedLimit) {
-                long currentRecordSpeed = (CommunicationTool.getTotalReadRecords(currentCommunication) -
-                        CommunicationTool.getTotalReadRecords(lastCommunication)) * 1000 / interval;
-                if (currentRecordSpeed > this.recordSpeed) {
-                    // 计算根据recordLimit得到的休眠时间
-                    recordLimitSleepTime = currentRecordSpeed * interval / this.recordSpeed
-                            - interval;
-                }
-            }
-
-            // 休眠时间取较大值
-            long sleepTime = byteLimitSleepTime < recordLimitSleepTime ?
-                    recordLimitSleepTime : byteLimitSleepTime;
-            if (sleepTime > 0) {
-                try {
-                    Thread.sleep(sleepTime);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
-            }
-
-            lastCommunication.setLongCounter(CommunicationTool.READ_SUCCEED_BYTES,
-                    currentCommunication.getLongCounter(CommunicationTool.READ_SUCCEED_BYTES));
-            lastCommunication.setLongCounter(CommunicationTool.READ_FAILED_BYTES,
-                    currentCommunication.getLongCounter(CommunicationTool.READ_FAILED_BYTES));
-            lastCommunication.setLongCounter(CommunicationTool.READ_SUCCEED_RECORDS,
-                    currentCommunication.getLongCounter(CommunicationTool.READ_SUCCEED_RECORDS));
-            lastCommunication.setLongCounter(CommunicationTool.READ_FAILED_RECORDS,
-                    currentCommunication.getLongCounter(CommunicationTool.READ_FAILED_RECORDS));
-            lastCommunication.setTimestamp(nowTimestamp);
+        // 按本次push的量从令牌桶取令牌，不足时只等待欠缺的那部分时间
+        if (this.byteBucket != null) {
+            this.byteBucket.acquire(byteSize);
+        }
+        if (this.recordBucket != null) {
+            this.recordBucket.acquire(recordSize);
         }
+        this.lastPushEndNanos = System.nanoTime();
+    }
+
+    /**
+     * writer端exchanger每次取数据前调用，记录writer上一批数据的处理耗时
+     */
+    public void statWriterBusy(long busyNanos) {
+        currentCommunication.increaseCounter(
+                CommunicationCounter.WRITER_BUSY_TIME, busyNanos);
+        currentCommunication.increaseCounter(
+                CommunicationCounter.WRITER_PULL_BATCHES, 1);
+        currentCommunication.recordLatency(LatencyStage.WRITER_FLUSH, busyNanos);
     }
 
     private void statPull(long recordSize, long byteSize) {
         currentCommunication.increaseCounter(
-                CommunicationTool.WRITE_RECEIVED_RECORDS, recordSize);
+                CommunicationCounter.WRITE_RECEIVED_RECORDS, recordSize);
         currentCommunication.increaseCounter(
-                CommunicationTool.WRITE_RECEIVED_BYTES, byteSize);
+                CommunicationCounter.WRITE_RECEIVED_BYTES, byteSize);
     }
 
 }
@@ -0,0 +1,120 @@
+package com.alibaba.datax.core.transport.channel;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 令牌桶限速，可以被多个channel共享。
+ * <p/>
+ * 只用一个AtomicLong记录"令牌发放到的时间点"，获取令牌是一次CAS预约：
+ * 预约时间点超过当前时间+突发窗口的部分就是调用方需要等待的时间。
+ * 空闲的channel不消耗令牌，共享同一个桶的繁忙channel就能用掉这部分额度；
+ * 等待粒度为每次push，不再按flowControlInterval集中sleep。
+ */
+public class TokenBucket {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private static final ConcurrentMap<String, TokenBucket> SHARED_BUCKETS =
+            new ConcurrentHashMap<String, TokenBucket>();
+
+    private final long rate;
+
+    private final long burstNanos;
+
+    private final AtomicLong nextFreeNanos;
+
+    /**
+     * @param rate        每秒发放的令牌数，必须大于0
+     * @param burstMillis 允许一次性突发的时间窗口，窗口内的令牌可以不等待直接取走
+     */
+    public TokenBucket(long rate, long burstMillis) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "令牌桶速率[%d]必须大于0.", rate));
+        }
+        this.rate = rate;
+        this.burstNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, burstMillis));
+        this.nextFreeNanos = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * 获取同一个key下共享的桶，不存在时按给定参数创建
+     */
+    public static TokenBucket shared(String key, long rate, long burstMillis) {
+        TokenBucket bucket = SHARED_BUCKETS.get(key);
+        if (bucket == null) {
+            TokenBucket created = new TokenBucket(rate, burstMillis);
+            bucket = SHARED_BUCKETS.putIfAbsent(key, created);
+            if (bucket == null) {
+                bucket = created;
+            }
+        }
+        return bucket;
+    }
+
+    /**
+     * job结束时释放该job下共享的桶
+     */
+    public static void removeShared(String keyPrefix) {
+        Iterator<String> iterator = SHARED_BUCKETS.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().startsWith(keyPrefix)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public long getRate() {
+        return this.rate;
+    }
+
+    /**
+     * 预约permits个令牌，返回调用方需要等待的纳秒数，0表示不需要等待；不阻塞
+     */
+    public long reserve(long permits) {
+        if (permits <= 0) {
+            return 0;
+        }
+        long cost = this.costNanos(permits);
+        while (true) {
+            long now = System.nanoTime();
+            long next = this.nextFreeNanos.get();
+            long start = next - now > 0 ? next : now;
+            long reserved = start + cost;
+            if (this.nextFreeNanos.compareAndSet(next, reserved)) {
+                long wait = reserved - this.burstNanos - now;
+                return wait > 0 ? wait : 0;
+            }
+        }
+    }
+
+    /**
+     * 预约permits个令牌并等待到可用；被中断时保留中断标记并立即返回
+     */
+    public void acquire(long permits) {
+        long wait = this.reserve(permits);
+        if (wait <= 0) {
+            return;
+        }
+        long deadline = System.nanoTime() + wait;
+        while (wait > 0) {
+            LockSupport.parkNanos(this, wait);
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            wait = deadline - System.nanoTime();
+        }
+    }
+
+    private long costNanos(long permits) {
+        if (permits > Long.MAX_VALUE / NANOS_PER_SECOND) {
+            return (long) ((double) permits * NANOS_PER_SECOND / this.rate);
+        }
+        return permits * NANOS_PER_SECOND / this.rate;
+    }
+}
@@ -0,0 +1,145 @@
+package com.alibaba.datax.core.transport.channel;
+
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.core.util.container.CoreConstant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * core.transport.adaptive.enable开启时，按channel实测的等待时间和record大小调整
+ * exchanger的batch条数与channel的capacity。
+ * <p/>
+ * 每个统计窗口（默认1s）结束时：
+ * <ul>
+ * <li>batch条数翻倍以摊薄每次push/pull的加锁和唤醒开销（两端的等待时间都包含锁竞争），
+ * 但batch的字节数不超过targetBatchBytes，大字段的record因此会得到小batch；
+ * reader很慢、一个窗口内攒不满几个batch而writer一直在等数据时，batch条数减半，让数据尽快交给writer</li>
+ * <li>reader等待channel有空位的时间超过阈值，capacity翻倍以吸收writer的抖动；
+ * channel从不满而writer长时间取不到数据时capacity减半，释放内存</li>
+ * </ul>
+ * 两者都限制在配置的上下限之内，capacity尽量保持在batch条数的两倍以上，保证两个batch可以同时在途；
+ * 内存仍由byteCapacity兜底。
+ */
+final class TransportTuner {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TransportTuner.class);
+
+    private static final double BUSY_RATIO = 0.2d;
+
+    private static final int MIN_BATCHES_PER_WINDOW = 4;
+
+    private final int minBufferSize;
+
+    private final int maxBufferSize;
+
+    private final int minCapacity;
+
+    private final int maxCapacity;
+
+    private final long targetBatchBytes;
+
+    private final long intervalNanos;
+
+    private volatile int bufferSize;
+
+    private volatile int capacity;
+
+    private long windowStart = System.nanoTime();
+
+    private long windowWaitWriterTime = 0;
+
+    private long windowWaitReaderTime = 0;
+
+    private long windowRecords = 0;
+
+    private long windowBytes = 0;
+
+    TransportTuner(final Configuration configuration, int capacity, int bufferSize) {
+        this.maxCapacity = Math.max(capacity, configuration.getInt(
+                CoreConstant.DATAX_CORE_TRANSPORT_ADAPTIVE_MAXCAPACITY, capacity * 8));
+        this.minCapacity = Math.min(capacity, Math.max(1, configuration.getInt(
+                CoreConstant.DATAX_CORE_TRANSPORT_ADAPTIVE_MINCAPACITY, capacity / 4)));
+        this.maxBufferSize = Math.min(this.maxCapacity, Math.max(bufferSize, configuration.getInt(
+                CoreConstant.DATAX_CORE_TRANSPORT_ADAPTIVE_MAXBUFFERSIZE, 4096)));
+        this.minBufferSize = Math.min(bufferSize, Math.max(1, configuration.getInt(
+                CoreConstant.DATAX_CORE_TRANSPORT_ADAPTIVE_MINBUFFERSIZE, 1)));
+        this.targetBatchBytes = Math.max(1, configuration.getLong(
+                CoreConstant.DATAX_CORE_TRANSPORT_ADAPTIVE_TARGETBATCHBYTES, 256 * 1024));
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, configuration.getLong(
+                CoreConstant.DATAX_CORE_TRANSPORT_ADAPTIVE_INTERVAL, 1000)));
+        this.bufferSize = Math.min(bufferSize, capacity);
+        this.capacity = capacity;
+    }
+
+    int getBufferSize() {
+        return this.bufferSize;
+    }
+
+    int getCapacity() {
+        return this.capacity;
+    }
+
+    int getMaxCapacity() {
+        return this.maxCapacity;
+    }
+
+    int getMaxBufferSize() {
+        return this.maxBufferSize;
+    }
+
+    /**
+     * 每次push后调用；窗口结束时返回true表示可能做了调整
+     *
+     * @param waitWriterTime channel累计的reader等待空位时间
+     * @param waitReaderTime channel累计的writer等待数据时间
+     */
+    synchronized boolean onPush(long records, long bytes, long waitWriterTime, long waitReaderTime) {
+        this.windowRecords += records;
+        this.windowBytes += bytes;
+
+        long now = System.nanoTime();
+        long elapsed = now - this.windowStart;
+        if (elapsed < this.intervalNanos) {
+            return false;
+        }
+
+        double producerBlocked = (double) (waitWriterTime - this.windowWaitWriterTime) / elapsed;
+        double consumerStarved = (double) (waitReaderTime - this.windowWaitReaderTime) / elapsed;
+        long averageBytes = this.windowRecords > 0 ? Math.max(1, this.windowBytes / this.windowRecords) : 1;
+
+        long bySize = this.targetBatchBytes / averageBytes;
+        int sizeLimit = (int) Math.max(this.minBufferSize, Math.min(this.maxBufferSize, bySize));
+
+        boolean slowReader = consumerStarved > BUSY_RATIO
+                && this.windowRecords < (long) MIN_BATCHES_PER_WINDOW * this.bufferSize;
+        int newBufferSize = slowReader ? this.bufferSize / 2 : this.bufferSize * 2;
+        newBufferSize = Math.max(this.minBufferSize, Math.min(sizeLimit, newBufferSize));
+
+        int newCapacity = this.capacity;
+        if (producerBlocked > BUSY_RATIO) {
+            newCapacity = Math.min(this.maxCapacity, this.capacity * 2);
+        } else if (producerBlocked < BUSY_RATIO / 10 && consumerStarved > BUSY_RATIO) {
+            newCapacity = Math.max(this.minCapacity, this.capacity / 2);
+        }
+        newCapacity = Math.min(this.maxCapacity, Math.max(newCapacity, 2 * newBufferSize));
+        newBufferSize = Math.max(1, Math.min(newBufferSize, newCapacity / 2));
+
+        if (newBufferSize != this.bufferSize || newCapacity != this.capacity) {
+            LOG.debug(String.format("adjust bufferSize %d -> %d, capacity %d -> %d " +
+                            "(reader blocked %.2f, writer starved %.2f, avg record %d bytes).",
+                    this.bufferSize, newBufferSize, this.capacity, newCapacity,
+                    producerBlocked, consumerStarved, averageBytes));
+            this.bufferSize = newBufferSize;
+            this.capacity = newCapacity;
+        }
+
+        this.windowStart = now;
+        this.windowWaitWriterTime = waitWriterTime;
+        this.windowWaitReaderTime = waitReaderTime;
+        this.windowRecords = 0;
+        this.windowBytes = 0;
+        return true;
+    }
+}
@@ -0,0 +1,465 @@
+package com.alibaba.datax.core.transport.channel.disk;
+
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.element.RecordEncoder;
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.core.transport.channel.Channel;
+import com.alibaba.datax.core.transport.record.DefaultRecord;
+import com.alibaba.datax.core.transport.record.RecordBatch;
+import com.alibaba.datax.core.transport.record.RecordPool;
+import com.alibaba.datax.core.transport.record.TerminateRecord;
+import com.alibaba.datax.core.util.FrameworkErrorCode;
+import com.alibaba.datax.core.util.container.CoreConstant;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 内存放不下时溢出到本地磁盘的Channel，writer慢时reader不再被阻塞。
+ * <p/>
+ * 队列元素是整批的record：capacity/byteCapacity范围内的batch留在内存，
+ * 超出的batch用RecordEncoder顺序追加到segment文件，队列里只保留位置；先进先出的顺序不变。
+ * 磁盘占用受 core.transport.channel.spill.diskQuota 限制（同一进程内所有channel共享，
+ * 最多超出一个batch），配额用完后退化为与BatchMemoryChannel相同的反压。读完的segment立即删除，
+ * clear()和job结束时删除剩余文件；进程异常退出时不会清理，残留文件留在 spill.dir/job-&lt;jobId&gt; 下，
+ * 直到该目录被删除。
+ * <p/>
+ * 只有DefaultRecord且column都是common中的标准类型时才会落盘，其他record总在内存中排队。
+ * 通过 core.transport.channel.class 配置为本类即可启用。
+ */
+public class DiskSpillChannel extends Channel {
+
+	private static final Logger LOG = LoggerFactory.getLogger(DiskSpillChannel.class);
+
+	/**
+	 * 本进程所有DiskSpillChannel未删除的溢出文件字节数
+	 */
+	private static final AtomicLong DISK_USED = new AtomicLong(0);
+
+	private static final AtomicInteger SEQUENCE = new AtomicInteger(0);
+
+	private final long diskQuota;
+
+	private final long segmentSize;
+
+	private final File spillDirectory;
+
+	private final int channelSequence = SEQUENCE.incrementAndGet();
+
+	private int segmentSequence = 0;
+
+	private final ArrayDeque<Entry> queue = new ArrayDeque<Entry>();
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final Condition notInsufficient = lock.newCondition();
+
+	private final Condition notEmpty = lock.newCondition();
+
+	/**
+	 * 生产者编码、追加segment并入队的整个过程在写锁内，保证文件内顺序与队列顺序一致
+	 */
+	private final ReentrantLock writeLock = new ReentrantLock();
+
+	private SpillSegment writingSegment = null;
+
+	/**
+	 * 尚未删除的segment，clear()时据此清理
+	 */
+	private final List<SpillSegment> segments = new ArrayList<SpillSegment>();
+
+	private int queuedRecords = 0;
+
+	private int memoryRecords = 0;
+
+	private int memoryBytes = 0;
+
+	private long spilledRecords = 0;
+
+	/**
+	 * 消费者逐条pull时正在消费的batch及下标，只由消费者线程访问
+	 */
+	private RecordBatch current = null;
+
+	private int currentIndex = 0;
+
+	public DiskSpillChannel(final Configuration configuration) {
+		super(configuration);
+		this.diskQuota = configuration.getLong(
+				CoreConstant.DATAX_CORE_TRANSPORT_CHANNEL_SPILL_DISKQUOTA, 4L * 1024 * 1024 * 1024);
+		this.segmentSize = Math.max(1024 * 1024, configuration.getLong(
+				CoreConstant.DATAX_CORE_TRANSPORT_CHANNEL_SPILL_SEGMENTSIZE, 64L * 1024 * 1024));
+		this.spillDirectory = getJobSpillDirectory(configuration,
+				configuration.getLong(CoreConstant.DATAX_CORE_CONTAINER_JOB_ID, -1));
+	}
+
+	/**
+	 * job的溢出文件目录，job结束时整体删除，进程异常退出后需手工删除
+	 */
+	public static File getJobSpillDirectory(final Configuration configuration, long jobId) {
+		String directory = configuration.getString(
+				CoreConstant.DATAX_CORE_TRANSPORT_CHANNEL_SPILL_DIR,
+				System.getProperty("java.io.tmpdir") + File.separator + "datax-spill");
+		return new File(directory, "job-" + jobId);
+	}
+
+	public static void deleteJobSpillDirectory(final Configuration configuration, long jobId) {
+		File directory = getJobSpillDirectory(configuration, jobId);
+		if (directory.exists()) {
+			FileUtils.deleteQuietly(directory);
+		}
+	}
+
+	@Override
+	public void close() {
+		super.close();
+		// reader已经写完，封存最后一个segment，读完即可删除
+		writeLock.lock();
+		try {
+			lock.lock();
+			try {
+				SpillSegment segment = this.writingSegment;
+				if (segment != null && !segment.isSealed()) {
+					segment.seal();
+					if (segment.isDrained() && this.segments.remove(segment)) {
+						this.deleteSegment(segment);
+					}
+				}
+			} finally {
+				lock.unlock();
+			}
+		} finally {
+			writeLock.unlock();
+		}
+		// 结束标记不受容量限制，reader不必等writer消费就能结束
+		this.enqueue(new Entry(RecordBatch.of(TerminateRecord.get())));
+	}
+
+	@Override
+	public void clear() {
+		lock.lock();
+		try {
+			this.queue.clear();
+			this.queuedRecords = 0;
+			this.memoryRecords = 0;
+			this.memoryBytes = 0;
+			for (SpillSegment segment : this.segments) {
+				this.deleteSegment(segment);
+			}
+			this.segments.clear();
+			notInsufficient.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	protected void doPush(Record r) {
+		this.doPushBatch(RecordBatch.of(r));
+	}
+
+	@Override
+	protected void doPushAll(Collection<Record> rs) {
+		this.doPushBatch(RecordBatch.of(rs));
+	}
+
+	@Override
+	protected void doPushBatch(RecordBatch batch) {
+		if (batch.isEmpty()) {
+			return;
+		}
+		boolean spillable = true;
+		for (int i = 0; i < batch.size() && spillable; i++) {
+			spillable = isSpillable(batch.get(i));
+		}
+
+		long startTime = System.nanoTime();
+		try {
+			writeLock.lockInterruptibly();
+			try {
+				while (true) {
+					lock.lockInterruptibly();
+					try {
+						if (this.fitsMemory(batch) || (!spillable && this.memoryRecords == 0)) {
+							this.enqueue(new Entry(batch));
+							break;
+						}
+					} finally {
+						lock.unlock();
+					}
+
+					if (spillable && DISK_USED.get() < this.diskQuota) {
+						this.spill(batch);
+						break;
+					}
+
+					lock.lockInterruptibly();
+					try {
+						notInsufficient.await(200L, TimeUnit.MILLISECONDS);
+					} finally {
+						lock.unlock();
+					}
+				}
+			} finally {
+				writeLock.unlock();
+			}
+			addWaitWriterTime(System.nanoTime() - startTime);
+		} catch (InterruptedException e) {
+			throw DataXException.asDataXException(
+					FrameworkErrorCode.RUNTIME_ERROR, e);
+		}
+	}
+
+	private boolean fitsMemory(final RecordBatch batch) {
+		return this.memoryBytes + batch.getMemorySize() <= this.byteCapacity
+				&& this.memoryRecords + batch.size() <= this.capacity;
+	}
+
+	/**
+	 * 只有DefaultRecord才落盘，读回时按DefaultRecord重建
+	 */
+	private static boolean isSpillable(final Record record) {
+		return null != record && record.getClass() == DefaultRecord.class
+				&& RecordEncoder.isSupported(record);
+	}
+
+	/**
+	 * 在写锁内调用
+	 */
+	private void spill(final RecordBatch batch) {
+		SpillSegment segment;
+		try {
+			segment = this.segmentForAppend();
+			DISK_USED.addAndGet(segment.append(batch));
+		} catch (IOException e) {
+			throw DataXException.asDataXException(FrameworkErrorCode.RUNTIME_ERROR,
+					String.format("写入溢出文件失败，目录[%s].", this.spillDirectory), e);
+		}
+
+		lock.lock();
+		try {
+			segment.batchAppended();
+			this.enqueue(new Entry(segment, batch.size(), batch.getByteSize()));
+		} finally {
+			lock.unlock();
+		}
+
+		if (this.spilledRecords == 0) {
+			LOG.info("Channel of taskGroup[{}] is full, start spilling records to {}.",
+					this.taskGroupId, this.spillDirectory);
+		}
+		this.spilledRecords += batch.size();
+
+		// 已经落盘的record不会再被读取，开启回收时直接还给池子
+		RecordPool recordPool = this.getRecordPool();
+		if (recordPool != null) {
+			for (int i = 0; i < batch.size(); i++) {
+				recordPool.release(batch.get(i));
+			}
+		}
+	}
+
+	private SpillSegment segmentForAppend() throws IOException {
+		SpillSegment segment = this.writingSegment;
+		if (segment != null && !segment.isSealed() && segment.getWrittenBytes() < this.segmentSize) {
+			return segment;
+		}
+
+		lock.lock();
+		try {
+			if (segment != null && !segment.isSealed()) {
+				segment.seal();
+				if (segment.isDrained() && this.segments.remove(segment)) {
+					this.deleteSegment(segment);
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+
+		if (!this.spillDirectory.exists() && !this.spillDirectory.mkdirs()
+				&& !this.spillDirectory.isDirectory()) {
+			throw new IOException(String.format("无法创建溢出目录[%s].", this.spillDirectory));
+		}
+		File file = new File(this.spillDirectory, String.format("tg%d-channel%d-%d.spill",
+				this.taskGroupId, this.channelSequence, this.segmentSequence++));
+		segment = new SpillSegment(file);
+
+		lock.lock();
+		try {
+			this.segments.add(segment);
+		} finally {
+			lock.unlock();
+		}
+		this.writingSegment = segment;
+		return segment;
+	}
+
+	/**
+	 * 在lock内调用
+	 */
+	private void deleteSegment(final SpillSegment segment) {
+		segment.delete();
+		DISK_USED.addAndGet(-segment.getWrittenBytes());
+	}
+
+	private void enqueue(final Entry entry) {
+		lock.lock();
+		try {
+			this.queue.addLast(entry);
+			this.queuedRecords += entry.records;
+			if (entry.batch != null) {
+				this.memoryRecords += entry.batch.size();
+				this.memoryBytes += entry.batch.getMemorySize();
+			}
+			notEmpty.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	protected Record doPull() {
+		if (this.current == null || this.currentIndex >= this.current.size()) {
+			this.current = this.takeBatch();
+			this.currentIndex = 0;
+		}
+		return this.current.get(this.currentIndex++);
+	}
+
+	@Override
+	protected void doPullAll(Collection<Record> rs) {
+		assert rs != null;
+		rs.clear();
+		rs.addAll(this.doPullBatch().asList());
+	}
+
+	@Override
+	protected RecordBatch doPullBatch() {
+		if (this.current != null && this.currentIndex < this.current.size()) {
+			RecordBatch rest = this.current.tail(this.currentIndex);
+			this.current = null;
+			return rest;
+		}
+		this.current = null;
+		return this.takeBatch();
+	}
+
+	private RecordBatch takeBatch() {
+		Entry entry;
+		try {
+			long startTime = System.nanoTime();
+			lock.lockInterruptibly();
+			try {
+				while (this.queue.isEmpty()) {
+					notEmpty.await();
+				}
+				entry = this.queue.pollFirst();
+				this.queuedRecords -= entry.records;
+				if (entry.batch != null) {
+					this.memoryRecords -= entry.batch.size();
+					this.memoryBytes -= entry.batch.getMemorySize();
+					notInsufficient.signal();
+				}
+				addWaitReaderTime(System.nanoTime() - startTime);
+			} finally {
+				lock.unlock();
+			}
+		} catch (InterruptedException e) {
+			throw DataXException.asDataXException(
+					FrameworkErrorCode.RUNTIME_ERROR, e);
+		}
+
+		return entry.batch != null ? entry.batch : this.readSpilled(entry);
+	}
+
+	private RecordBatch readSpilled(final Entry entry) {
+		List<Record> records = new ArrayList<Record>(entry.records);
+		int memorySize = 0;
+		try {
+			RecordPool recordPool = this.getRecordPool();
+			for (int i = 0; i < entry.records; i++) {
+				Record record = recordPool == null ? null : recordPool.acquire();
+				if (record == null) {
+					record = new DefaultRecord();
+				}
+				entry.segment.read(record);
+				records.add(record);
+				memorySize += record.getMemorySize();
+			}
+		} catch (IOException e) {
+			throw DataXException.asDataXException(FrameworkErrorCode.RUNTIME_ERROR,
+					String.format("读取溢出文件失败，目录[%s].", this.spillDirectory), e);
+		}
+
+		lock.lock();
+		try {
+			entry.segment.batchConsumed();
+			if (entry.segment.isDrained() && this.segments.remove(entry.segment)) {
+				this.deleteSegment(entry.segment);
+				// 释放了磁盘配额，可能有其他channel在等待
+				notInsufficient.signalAll();
+			}
+		} finally {
+			lock.unlock();
+		}
+
+		return new RecordBatch(records, entry.byteSize, memorySize);
+	}
+
+	@Override
+	public int size() {
+		lock.lock();
+		try {
+			return this.queuedRecords;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.size() == 0;
+	}
+
+	/**
+	 * 队列元素：batch不为null时在内存中，否则在segment中按顺序存放
+	 */
+	private static final class Entry {
+
+		private final RecordBatch batch;
+
+		private final SpillSegment segment;
+
+		private final int records;
+
+		private final int byteSize;
+
+		Entry(final RecordBatch batch) {
+			this.batch = batch;
+			this.segment = null;
+			this.records = batch.size();
+			this.byteSize = batch.getByteSize();
+		}
+
+		Entry(final SpillSegment segment, int records, int byteSize) {
+			this.batch = null;
+			this.segment = segment;
+			this.records = records;
+			this.byteSize = byteSize;
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package com.alibaba.datax.core.transport.channel.disk;
+
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.element.RecordDecoder;
+import com.alibaba.datax.common.element.RecordEncoder;
+import com.alibaba.datax.core.transport.record.RecordBatch;
+import org.apache.commons.io.IOUtils;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * 一个只追加的溢出文件，生产者顺序写入、消费者顺序读出，内容为RecordEncoder编码的record流。
+ * <p/>
+ * 每次append写入一个完整的batch并flush，写完即对消费者可见；
+ * 写满后封存，封存且所有batch都被读完时由DiskSpillChannel删除。
+ */
+final class SpillSegment {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final File file;
+
+	private final FileOutputStream output;
+
+	private final RecordEncoder encoder;
+
+	private FileInputStream input;
+
+	private RecordDecoder decoder;
+
+	private long writtenBytes = 0;
+
+	private int appendedBatches = 0;
+
+	private int consumedBatches = 0;
+
+	private boolean sealed = false;
+
+	SpillSegment(final File file) throws IOException {
+		this.file = file;
+		this.output = new FileOutputStream(file);
+		this.encoder = new RecordEncoder(this.output, BUFFER_SIZE);
+	}
+
+	/**
+	 * 只由持有写锁的生产者调用
+	 *
+	 * @return 本次写入的字节数
+	 */
+	long append(final RecordBatch batch) throws IOException {
+		long before = this.encoder.getBytesWritten();
+		for (int i = 0; i < batch.size(); i++) {
+			this.encoder.write(batch.get(i));
+		}
+		this.encoder.flush();
+		long bytes = this.encoder.getBytesWritten() - before;
+		this.writtenBytes += bytes;
+		return bytes;
+	}
+
+	/**
+	 * 只由消费者调用，按append的顺序读出
+	 */
+	void read(final Record record) throws IOException {
+		if (null == this.decoder) {
+			this.input = new FileInputStream(this.file);
+			this.decoder = new RecordDecoder(this.input, BUFFER_SIZE);
+		}
+		if (!this.decoder.read(record)) {
+			throw new EOFException(String.format("溢出文件[%s]不完整.", this.file));
+		}
+	}
+
+	void seal() {
+		this.sealed = true;
+		IOUtils.closeQuietly(this.output);
+	}
+
+	boolean isSealed() {
+		return this.sealed;
+	}
+
+	long getWrittenBytes() {
+		return this.writtenBytes;
+	}
+
+	void batchAppended() {
+		this.appendedBatches++;
+	}
+
+	void batchConsumed() {
+		this.consumedBatches++;
+	}
+
+	boolean isDrained() {
+		return this.sealed && this.consumedBatches >= this.appendedBatches;
+	}
+
+	void delete() {
+		this.sealed = true;
+		IOUtils.closeQuietly(this.output);
+		IOUtils.closeQuietly(this.input);
+		this.file.delete();
+	}
+}
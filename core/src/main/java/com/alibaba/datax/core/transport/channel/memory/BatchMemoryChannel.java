@@ -0,0 +1,173 @@
+package com.alibaba.datax.core.transport.channel.memory;
+
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.core.transport.channel.Channel;
+import com.alibaba.datax.core.transport.record.RecordBatch;
+import com.alibaba.datax.core.transport.record.TerminateRecord;
+import com.alibaba.datax.core.util.FrameworkErrorCode;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 以RecordBatch为队列元素的内存Channel。
+ * <p/>
+ * exchanger flush出来的一批record整体入队、整体出队，不再拆成单条塞进ArrayBlockingQueue
+ * 再用drainTo拼回来；条数和内存大小直接取自batch。
+ * capacity（条数）和byteCapacity（内存字节）的反压语义与MemoryChannel一致，
+ * 队列为空时允许单个超限的batch进入，避免永久阻塞。
+ * <p/>
+ * 通过 core.transport.channel.class 配置为本类即可启用。
+ */
+public class BatchMemoryChannel extends Channel {
+
+	private final ArrayDeque<RecordBatch> queue = new ArrayDeque<RecordBatch>();
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final Condition notInsufficient = lock.newCondition();
+
+	private final Condition notEmpty = lock.newCondition();
+
+	private int queuedRecords = 0;
+
+	private int queuedBytes = 0;
+
+	/**
+	 * 消费者逐条pull时正在消费的batch及下标，只由消费者线程访问
+	 */
+	private RecordBatch current = null;
+
+	private int currentIndex = 0;
+
+	public BatchMemoryChannel(final Configuration configuration) {
+		super(configuration);
+	}
+
+	@Override
+	public void close() {
+		super.close();
+		this.doPushBatch(RecordBatch.of(TerminateRecord.get()));
+	}
+
+	@Override
+	public void clear() {
+		lock.lock();
+		try {
+			this.queue.clear();
+			this.queuedRecords = 0;
+			this.queuedBytes = 0;
+			notInsufficient.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	protected void doPush(Record r) {
+		this.doPushBatch(RecordBatch.of(r));
+	}
+
+	@Override
+	protected void doPushAll(Collection<Record> rs) {
+		this.doPushBatch(RecordBatch.of(rs));
+	}
+
+	@Override
+	protected void doPushBatch(RecordBatch batch) {
+		if (batch.isEmpty()) {
+			return;
+		}
+		try {
+			long startTime = System.nanoTime();
+			lock.lockInterruptibly();
+			try {
+				while (!this.queue.isEmpty()
+						&& (queuedBytes + batch.getMemorySize() > this.byteCapacity
+						|| queuedRecords + batch.size() > this.capacity)) {
+					notInsufficient.await();
+				}
+				this.queue.addLast(batch);
+				queuedRecords += batch.size();
+				queuedBytes += batch.getMemorySize();
+				addWaitWriterTime(System.nanoTime() - startTime);
+				notEmpty.signal();
+			} finally {
+				lock.unlock();
+			}
+		} catch (InterruptedException e) {
+			throw DataXException.asDataXException(
+					FrameworkErrorCode.RUNTIME_ERROR, e);
+		}
+	}
+
+	@Override
+	protected Record doPull() {
+		if (this.current == null || this.currentIndex >= this.current.size()) {
+			this.current = this.takeBatch();
+			this.currentIndex = 0;
+		}
+		return this.current.get(this.currentIndex++);
+	}
+
+	@Override
+	protected void doPullAll(Collection<Record> rs) {
+		assert rs != null;
+		rs.clear();
+		rs.addAll(this.doPullBatch().asList());
+	}
+
+	@Override
+	protected RecordBatch doPullBatch() {
+		if (this.current != null && this.currentIndex < this.current.size()) {
+			RecordBatch rest = this.current.tail(this.currentIndex);
+			this.current = null;
+			return rest;
+		}
+		this.current = null;
+		return this.takeBatch();
+	}
+
+	private RecordBatch takeBatch() {
+		try {
+			long startTime = System.nanoTime();
+			lock.lockInterruptibly();
+			try {
+				while (this.queue.isEmpty()) {
+					notEmpty.await();
+				}
+				RecordBatch batch = this.queue.pollFirst();
+				queuedRecords -= batch.size();
+				queuedBytes -= batch.getMemorySize();
+				addWaitReaderTime(System.nanoTime() - startTime);
+				notInsufficient.signal();
+				return batch;
+			} finally {
+				lock.unlock();
+			}
+		} catch (InterruptedException e) {
+			throw DataXException.asDataXException(
+					FrameworkErrorCode.RUNTIME_ERROR, e);
+		}
+	}
+
+	@Override
+	public int size() {
+		lock.lock();
+		try {
+			return this.queuedRecords;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.size() == 0;
+	}
+
+}
@@ -4,9 +4,9 @@ import com.alibaba.datax.common.element.Record;
 import com.alibaba.datax.common.exception.DataXException;
 import com.alibaba.datax.common.util.Configuration;
 import com.alibaba.datax.core.transport.channel.Channel;
+import com.alibaba.datax.core.transport.record.RecordBatch;
 import com.alibaba.datax.core.transport.record.TerminateRecord;
 import com.alibaba.datax.core.util.FrameworkErrorCode;
-import com.alibaba.datax.core.util.container.CoreConstant;
 
 import java.util.Collection;
 import java.util.concurrent.ArrayBlockingQueue;
@@ -21,8 +21,6 @@ import java.util.concurrent.locks.ReentrantLock;
  */
 public class MemoryChannel extends Channel {
 
-	private int bufferSize = 0;
-
 	private AtomicInteger memoryBytes = new AtomicInteger(0);
 
 	private ArrayBlockingQueue<Record> queue = null;
@@ -33,8 +31,7 @@ public class MemoryChannel extends Channel {
 
 	public MemoryChannel(final Configuration configuration) {
 		super(configuration);
-		this.queue = new ArrayBlockingQueue<Record>(this.getCapacity());
-		this.bufferSize = configuration.getInt(CoreConstant.DATAX_CORE_TRANSPORT_EXCHANGER_BUFFERSIZE);
+		this.queue = new ArrayBlockingQueue<Record>(this.getMaxCapacity());
 
 		lock = new ReentrantLock();
 		notInsufficient = lock.newCondition();
@@ -46,11 +43,20 @@ public class MemoryChannel extends Channel {
 		super.close();
 		try {
 			this.queue.put(TerminateRecord.get());
+			this.signal(notEmpty);
 		} catch (InterruptedException ex) {
 			Thread.currentThread().interrupt();
 		}
 	}
 
+	/**
+	 * 取数据都在锁内或通过ArrayBlockingQueue完成，可以有多个writer同时取
+	 */
+	@Override
+	public boolean supportConcurrentPull() {
+		return true;
+	}
+
 	@Override
 	public void clear(){
 		this.queue.clear();
@@ -61,8 +67,10 @@ public class MemoryChannel extends Channel {
 		try {
 			long startTime = System.nanoTime();
 			this.queue.put(r);
-			waitWriterTime += System.nanoTime() - startTime;
+			addWaitWriterTime(System.nanoTime() - startTime);
             memoryBytes.addAndGet(r.getMemorySize());
+			// 单条push（如terminate）也要唤醒在doPullAll中等待的writer，否则writer要等满200ms才能取到
+			this.signal(notEmpty);
 		} catch (InterruptedException ex) {
 			Thread.currentThread().interrupt();
 		}
@@ -70,15 +78,24 @@ public class MemoryChannel extends Channel {
 
 	@Override
 	protected void doPushAll(Collection<Record> rs) {
+		doPushAll(rs, getRecordBytes(rs));
+	}
+
+	@Override
+	protected void doPushBatch(RecordBatch batch) {
+		doPushAll(batch.asList(), batch.getMemorySize());
+	}
+
+	private void doPushAll(Collection<Record> rs, int bytes) {
 		try {
 			long startTime = System.nanoTime();
 			lock.lockInterruptibly();
-			int bytes = getRecordBytes(rs);
-			while (memoryBytes.get() + bytes > this.byteCapacity || rs.size() > this.queue.remainingCapacity()) {
+			while (memoryBytes.get() + bytes > this.byteCapacity || rs.size() > this.queue.remainingCapacity()
+					|| (!this.queue.isEmpty() && this.queue.size() + rs.size() > this.capacity)) {
 				notInsufficient.await(200L, TimeUnit.MILLISECONDS);
             }
 			this.queue.addAll(rs);
-			waitWriterTime += System.nanoTime() - startTime;
+			addWaitWriterTime(System.nanoTime() - startTime);
 			memoryBytes.addAndGet(bytes);
 			notEmpty.signalAll();
 		} catch (InterruptedException e) {
@@ -94,8 +111,9 @@ public class MemoryChannel extends Channel {
 		try {
 			long startTime = System.nanoTime();
 			Record r = this.queue.take();
-			waitReaderTime += System.nanoTime() - startTime;
+			addWaitReaderTime(System.nanoTime() - startTime);
 			memoryBytes.addAndGet(-r.getMemorySize());
+			this.signal(notInsufficient);
 			return r;
 		} catch (InterruptedException e) {
 			Thread.currentThread().interrupt();
@@ -110,10 +128,10 @@ public class MemoryChannel extends Channel {
 		try {
 			long startTime = System.nanoTime();
 			lock.lockInterruptibly();
-			while (this.queue.drainTo(rs, bufferSize) <= 0) {
+			while (this.queue.drainTo(rs, this.getBufferSize()) <= 0) {
 				notEmpty.await(200L, TimeUnit.MILLISECONDS);
 			}
-			waitReaderTime += System.nanoTime() - startTime;
+			addWaitReaderTime(System.nanoTime() - startTime);
 			int bytes = getRecordBytes(rs);
 			memoryBytes.addAndGet(-bytes);
 			notInsufficient.signalAll();
@@ -125,6 +143,15 @@ public class MemoryChannel extends Channel {
 		}
 	}
 
+	private void signal(Condition condition) {
+		lock.lock();
+		try {
+			condition.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
 	private int getRecordBytes(Collection<Record> rs){
 		int bytes = 0;
 		for(Record r : rs){
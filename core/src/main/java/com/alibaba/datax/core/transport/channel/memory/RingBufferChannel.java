@@ -0,0 +1,245 @@
+package com.alibaba.datax.core.transport.channel.memory;
+
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.core.transport.channel.Channel;
+import com.alibaba.datax.core.transport.record.RecordBatch;
+import com.alibaba.datax.core.transport.record.TerminateRecord;
+import com.alibaba.datax.core.util.FrameworkErrorCode;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 单生产者/单消费者的环形缓冲Channel实现。
+ * <p/>
+ * 每个channel只有一个ReaderRunner写入、一个WriterRunner读取，因此不需要锁，
+ * 读写两端各自维护一个做了缓存行填充的序号，等待时先自旋、再让出CPU、最后park，
+ * 对端发布数据后会主动unpark，避免MemoryChannel中最长200ms的await。
+ * <p/>
+ * 通过 core.transport.channel.class 配置为本类即可启用。
+ */
+public class RingBufferChannel extends Channel {
+
+	private static final int SPIN_TRIES = 100;
+
+	private static final int YIELD_TRIES = 100;
+
+	private static final long PARK_NANOS = 1000L * 1000L;
+
+	private final int mask;
+
+	private final Record[] ring;
+
+	/**
+	 * 下一个待写入的序号，只由生产者修改
+	 */
+	private final PaddedAtomicLong writeSequence = new PaddedAtomicLong();
+
+	/**
+	 * 下一个待读取的序号，只由消费者修改
+	 */
+	private final PaddedAtomicLong readSequence = new PaddedAtomicLong();
+
+	private final AtomicInteger memoryBytes = new AtomicInteger(0);
+
+	private volatile Thread waitingProducer;
+
+	private volatile Thread waitingConsumer;
+
+	public RingBufferChannel(final Configuration configuration) {
+		super(configuration);
+		int ringSize = 1;
+		while (ringSize < this.getMaxCapacity()) {
+			ringSize <<= 1;
+		}
+		this.ring = new Record[ringSize];
+		this.mask = ringSize - 1;
+	}
+
+	@Override
+	public void close() {
+		super.close();
+		this.doPush(TerminateRecord.get());
+	}
+
+	/**
+	 * 仅在task shutdown时调用，此时读写两端都已停止或即将停止，这里直接丢弃全部未消费数据。
+	 */
+	@Override
+	public synchronized void clear() {
+		long read = this.readSequence.get();
+		long write = this.writeSequence.get();
+		for (long seq = read; seq < write; seq++) {
+			this.ring[(int) seq & this.mask] = null;
+		}
+		this.readSequence.set(write);
+		this.memoryBytes.set(0);
+		signal(this.waitingProducer);
+	}
+
+	@Override
+	protected void doPush(Record r) {
+		long startTime = System.nanoTime();
+		long write = this.writeSequence.get();
+		int idle = 0;
+		while (write - this.readSequence.get() >= this.capacity) {
+			idle = idle(idle, true);
+		}
+		addWaitWriterTime(System.nanoTime() - startTime);
+
+		this.ring[(int) write & this.mask] = r;
+		memoryBytes.addAndGet(r.getMemorySize());
+		this.writeSequence.lazySet(write + 1);
+		signal(this.waitingConsumer);
+	}
+
+	@Override
+	protected void doPushAll(Collection<Record> rs) {
+		doPushAll(rs, getRecordBytes(rs));
+	}
+
+	@Override
+	protected void doPushBatch(RecordBatch batch) {
+		doPushAll(batch.asList(), batch.getMemorySize());
+	}
+
+	private void doPushAll(Collection<Record> rs, int bytes) {
+		long startTime = System.nanoTime();
+		int size = rs.size();
+		long write = this.writeSequence.get();
+		int idle = 0;
+		while (memoryBytes.get() + bytes > this.byteCapacity
+				|| write - this.readSequence.get() + size > this.capacity) {
+			idle = idle(idle, true);
+		}
+		addWaitWriterTime(System.nanoTime() - startTime);
+
+		for (Record r : rs) {
+			this.ring[(int) write++ & this.mask] = r;
+		}
+		memoryBytes.addAndGet(bytes);
+		this.writeSequence.lazySet(write);
+		signal(this.waitingConsumer);
+	}
+
+	@Override
+	protected Record doPull() {
+		long startTime = System.nanoTime();
+		long read = this.readSequence.get();
+		int idle = 0;
+		while (read >= this.writeSequence.get()) {
+			idle = idle(idle, false);
+		}
+		addWaitReaderTime(System.nanoTime() - startTime);
+
+		int index = (int) read & this.mask;
+		Record r = this.ring[index];
+		this.ring[index] = null;
+		memoryBytes.addAndGet(-r.getMemorySize());
+		this.readSequence.lazySet(read + 1);
+		signal(this.waitingProducer);
+		return r;
+	}
+
+	@Override
+	protected void doPullAll(Collection<Record> rs) {
+		assert rs != null;
+		rs.clear();
+		long startTime = System.nanoTime();
+		long read = this.readSequence.get();
+		long write;
+		int idle = 0;
+		while (read >= (write = this.writeSequence.get())) {
+			idle = idle(idle, false);
+		}
+		addWaitReaderTime(System.nanoTime() - startTime);
+
+		long end = Math.min(write, read + this.getBufferSize());
+		int bytes = 0;
+		for (; read < end; read++) {
+			int index = (int) read & this.mask;
+			Record r = this.ring[index];
+			this.ring[index] = null;
+			bytes += r.getMemorySize();
+			rs.add(r);
+		}
+		memoryBytes.addAndGet(-bytes);
+		this.readSequence.lazySet(read);
+		signal(this.waitingProducer);
+	}
+
+	/**
+	 * 等待策略：先自旋，再yield，最后带超时park（超时兜底对端漏发的unpark）
+	 */
+	private int idle(int idleCount, boolean isProducer) {
+		if (Thread.interrupted()) {
+			Thread.currentThread().interrupt();
+			throw DataXException.asDataXException(
+					FrameworkErrorCode.RUNTIME_ERROR, new InterruptedException());
+		}
+
+		if (idleCount < SPIN_TRIES) {
+			return idleCount + 1;
+		}
+
+		if (idleCount < SPIN_TRIES + YIELD_TRIES) {
+			Thread.yield();
+			return idleCount + 1;
+		}
+
+		Thread current = Thread.currentThread();
+		if (isProducer) {
+			this.waitingProducer = current;
+			LockSupport.parkNanos(this, PARK_NANOS);
+			this.waitingProducer = null;
+		} else {
+			this.waitingConsumer = current;
+			LockSupport.parkNanos(this, PARK_NANOS);
+			this.waitingConsumer = null;
+		}
+		return idleCount;
+	}
+
+	private void signal(Thread waiter) {
+		if (waiter != null) {
+			LockSupport.unpark(waiter);
+		}
+	}
+
+	private int getRecordBytes(Collection<Record> rs) {
+		int bytes = 0;
+		for (Record r : rs) {
+			bytes += r.getMemorySize();
+		}
+		return bytes;
+	}
+
+	@Override
+	public int size() {
+		return (int) (this.writeSequence.get() - this.readSequence.get());
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.size() <= 0;
+	}
+
+	/**
+	 * 只在value之后填充（字段无法排在父类AtomicLong的value之前）：读写序号是先后分配的两个对象，
+	 * 前一个的后置填充足以把两者隔开，避免落在同一缓存行上产生伪共享
+	 */
+	@SuppressWarnings("unused")
+	static final class PaddedAtomicLong extends AtomicLong {
+		private static final long serialVersionUID = 1L;
+
+		public volatile long p1, p2, p3, p4, p5, p6 = 7L;
+
+		public long sumPaddingToPreventOptimisation() {
+			return p1 + p2 + p3 + p4 + p5 + p6;
+		}
+	}
+}
@@ -1,13 +1,19 @@
 package com.alibaba.datax.core.transport.exchanger;
 
+import com.alibaba.datax.common.element.ColumnBatch;
 import com.alibaba.datax.common.element.Record;
 import com.alibaba.datax.common.exception.CommonErrorCode;
 import com.alibaba.datax.common.exception.DataXException;
-import com.alibaba.datax.common.plugin.RecordReceiver;
-import com.alibaba.datax.common.plugin.RecordSender;
+import com.alibaba.datax.common.plugin.BatchRecordReceiver;
+import com.alibaba.datax.common.plugin.BatchRecordSender;
+import com.alibaba.datax.common.plugin.RecyclingRecordReceiver;
 import com.alibaba.datax.common.plugin.TaskPluginCollector;
 import com.alibaba.datax.common.util.Configuration;
 import com.alibaba.datax.core.transport.channel.Channel;
+import com.alibaba.datax.core.transport.record.ColumnBatchRecord;
+import com.alibaba.datax.core.transport.record.DefaultRecord;
+import com.alibaba.datax.core.transport.record.RecordBatch;
+import com.alibaba.datax.core.transport.record.RecordPool;
 import com.alibaba.datax.core.transport.record.TerminateRecord;
 import com.alibaba.datax.core.util.FrameworkErrorCode;
 import com.alibaba.datax.core.util.container.CoreConstant;
@@ -17,7 +23,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
-public class BufferedRecordExchanger implements RecordSender, RecordReceiver {
+public class BufferedRecordExchanger implements BatchRecordSender, RecyclingRecordReceiver, BatchRecordReceiver {
 
 	private final Channel channel;
 
@@ -31,21 +37,45 @@ public class BufferedRecordExchanger implements RecordSender, RecordReceiver {
 
 	private final AtomicInteger memoryBytes = new AtomicInteger(0);
 
+	private int bufferBytes = 0;
+
+	private RecordBatch received = RecordBatch.empty();
+
 	private int bufferIndex = 0;
 
 	private static Class<? extends Record> RECORD_CLASS;
 
 	private volatile boolean shutdown = false;
 
+	private final RecordPool recordPool;
+
+	private final ColumnBatchReceiver columnBatchReceiver;
+
 	private final TaskPluginCollector pluginCollector;
 
-	@SuppressWarnings("unchecked")
+	/**
+	 * 多个writer共享同一个channel时为true，取到结束标志后要交给其他writer
+	 */
+	private final boolean sharedChannel;
+
+	/**
+	 * 上次从channel取到数据的时间，0表示还没有取过
+	 */
+	private long lastReceiveNanos = 0;
+
 	public BufferedRecordExchanger(final Channel channel, final TaskPluginCollector pluginCollector) {
+		this(channel, pluginCollector, false);
+	}
+
+	@SuppressWarnings("unchecked")
+	public BufferedRecordExchanger(final Channel channel, final TaskPluginCollector pluginCollector,
+			boolean sharedChannel) {
 		assert null != channel;
 		assert null != channel.getConfiguration();
 
 		this.channel = channel;
 		this.pluginCollector = pluginCollector;
+		this.sharedChannel = sharedChannel;
 		this.configuration = channel.getConfiguration();
 
 		this.bufferSize = configuration
@@ -65,10 +95,50 @@ public class BufferedRecordExchanger implements RecordSender, RecordReceiver {
 			throw DataXException.asDataXException(
 					FrameworkErrorCode.CONFIG_ERROR, e);
 		}
+
+		// 只有默认的DefaultRecord才参与复用
+		this.recordPool = (BufferedRecordExchanger.RECORD_CLASS == DefaultRecord.class) ? channel.getRecordPool() : null;
+
+		this.columnBatchReceiver = new ColumnBatchReceiver(this.configuration) {
+			@Override
+			protected Record peek() {
+				if (bufferIndex >= received.size()) {
+					receive();
+				}
+				return received.get(bufferIndex);
+			}
+
+			@Override
+			protected void advance() {
+				bufferIndex++;
+			}
+
+			@Override
+			protected boolean hasBuffered() {
+				return bufferIndex < received.size();
+			}
+
+			@Override
+			protected Record createRecord() {
+				return BufferedRecordExchanger.this.createRecord();
+			}
+
+			@Override
+			protected void recycle(Record record) {
+				BufferedRecordExchanger.this.recycle(record);
+			}
+		};
 	}
 
 	@Override
 	public Record createRecord() {
+		if (this.recordPool != null) {
+			Record record = this.recordPool.acquire();
+			if (record != null) {
+				return record;
+			}
+		}
+
 		try {
 			return BufferedRecordExchanger.RECORD_CLASS.newInstance();
 		} catch (Exception e) {
@@ -98,6 +168,36 @@ public class BufferedRecordExchanger implements RecordSender, RecordReceiver {
 		this.buffer.add(record);
 		this.bufferIndex++;
 		memoryBytes.addAndGet(record.getMemorySize());
+		this.bufferBytes += record.getByteSize();
+	}
+
+	@Override
+	public void sendBatch(ColumnBatch batch) {
+		if(shutdown){
+			throw DataXException.asDataXException(CommonErrorCode.SHUT_DOWN_TASK, "");
+		}
+
+		Validate.notNull(batch, "batch不能为空.");
+		if (batch.size() == 0) {
+			return;
+		}
+
+		ColumnBatchRecord record = new ColumnBatchRecord(batch);
+		if (record.getMemorySize() > this.byteCapacity) {
+			// 整批超过channel内存上限时拆成逐条record发送，单条超限的按脏数据处理
+			for (int row = 0; row < batch.size(); row++) {
+				Record each = createRecord();
+				batch.fillRecord(row, each);
+				sendToWriter(each);
+			}
+			return;
+		}
+
+		// 先把已缓存的record送出，保证与逐条发送的数据顺序一致
+		if (!this.buffer.isEmpty()) {
+			flush();
+		}
+		this.channel.pushBatch(RecordBatch.of(record));
 	}
 
 	@Override
@@ -105,10 +205,13 @@ public class BufferedRecordExchanger implements RecordSender, RecordReceiver {
 		if(shutdown){
 			throw DataXException.asDataXException(CommonErrorCode.SHUT_DOWN_TASK, "");
 		}
-		this.channel.pushAll(this.buffer);
+		this.channel.pushBatch(new RecordBatch(this.buffer, this.bufferBytes, this.memoryBytes.get()));
 		this.buffer.clear();
 		this.bufferIndex = 0;
 		this.memoryBytes.set(0);
+		this.bufferBytes = 0;
+		// 开启core.transport.adaptive时batch条数由channel按运行情况调整
+		this.bufferSize = this.channel.getBufferSize();
 	}
 
 	@Override
@@ -125,16 +228,22 @@ public class BufferedRecordExchanger implements RecordSender, RecordReceiver {
 		if(shutdown){
 			throw DataXException.asDataXException(CommonErrorCode.SHUT_DOWN_TASK, "");
 		}
-		boolean isEmpty = (this.bufferIndex >= this.buffer.size());
-		if (isEmpty) {
-			receive();
+		return this.columnBatchReceiver.getFromReader();
+	}
+
+	@Override
+	public ColumnBatch getBatchFromReader() {
+		if(shutdown){
+			throw DataXException.asDataXException(CommonErrorCode.SHUT_DOWN_TASK, "");
 		}
+		return this.columnBatchReceiver.getBatchFromReader();
+	}
 
-		Record record = this.buffer.get(this.bufferIndex++);
-		if (record instanceof TerminateRecord) {
-			record = null;
+	@Override
+	public void recycle(Record record) {
+		if (this.recordPool != null) {
+			this.recordPool.release(record);
 		}
-		return record;
 	}
 
 	@Override
@@ -142,6 +251,8 @@ public class BufferedRecordExchanger implements RecordSender, RecordReceiver {
 		shutdown = true;
 		try{
 			buffer.clear();
+			received = RecordBatch.empty();
+			columnBatchReceiver.clear();
 			channel.clear();
 		}catch(Throwable t){
 			t.printStackTrace();
@@ -149,8 +260,15 @@ public class BufferedRecordExchanger implements RecordSender, RecordReceiver {
 	}
 
 	private void receive() {
-		this.channel.pullAll(this.buffer);
+		if (this.lastReceiveNanos > 0) {
+			this.channel.statWriterBusy(System.nanoTime() - this.lastReceiveNanos);
+		}
+		this.received = this.channel.pullBatch();
+		this.lastReceiveNanos = System.nanoTime();
 		this.bufferIndex = 0;
-		this.bufferSize = this.buffer.size();
+		if (this.sharedChannel && !this.received.isEmpty()
+				&& this.received.get(this.received.size() - 1) instanceof TerminateRecord) {
+			this.channel.passOnTerminate();
+		}
 	}
 }
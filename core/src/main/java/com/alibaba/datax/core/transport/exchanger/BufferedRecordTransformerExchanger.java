@@ -1,14 +1,20 @@
 package com.alibaba.datax.core.transport.exchanger;
 
+import com.alibaba.datax.common.element.ColumnBatch;
 import com.alibaba.datax.common.element.Record;
 import com.alibaba.datax.common.exception.CommonErrorCode;
 import com.alibaba.datax.common.exception.DataXException;
-import com.alibaba.datax.common.plugin.RecordReceiver;
-import com.alibaba.datax.common.plugin.RecordSender;
+import com.alibaba.datax.common.plugin.BatchRecordReceiver;
+import com.alibaba.datax.common.plugin.BatchRecordSender;
+import com.alibaba.datax.common.plugin.RecyclingRecordReceiver;
 import com.alibaba.datax.common.plugin.TaskPluginCollector;
 import com.alibaba.datax.common.util.Configuration;
 import com.alibaba.datax.core.statistics.communication.Communication;
 import com.alibaba.datax.core.transport.channel.Channel;
+import com.alibaba.datax.core.transport.record.ColumnBatchRecord;
+import com.alibaba.datax.core.transport.record.DefaultRecord;
+import com.alibaba.datax.core.transport.record.RecordBatch;
+import com.alibaba.datax.core.transport.record.RecordPool;
 import com.alibaba.datax.core.transport.record.TerminateRecord;
 import com.alibaba.datax.core.transport.transformer.TransformerExecution;
 import com.alibaba.datax.core.util.FrameworkErrorCode;
@@ -19,7 +25,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
-public class BufferedRecordTransformerExchanger extends TransformerExchanger implements RecordSender, RecordReceiver {
+public class BufferedRecordTransformerExchanger extends TransformerExchanger implements BatchRecordSender, RecyclingRecordReceiver, BatchRecordReceiver {
 
     private final Channel channel;
 
@@ -33,12 +39,20 @@ public class BufferedRecordTransformerExchanger extends TransformerExchanger imp
 
     private final AtomicInteger memoryBytes = new AtomicInteger(0);
 
+    private int bufferBytes = 0;
+
+    private RecordBatch received = RecordBatch.empty();
+
     private int bufferIndex = 0;
 
     private static Class<? extends Record> RECORD_CLASS;
 
     private volatile boolean shutdown = false;
 
+    private final RecordPool recordPool;
+
+    private final ColumnBatchReceiver columnBatchReceiver;
+
 
     @SuppressWarnings("unchecked")
     public BufferedRecordTransformerExchanger(final int taskGroupId, final int taskId,
@@ -69,10 +83,50 @@ public class BufferedRecordTransformerExchanger extends TransformerExchanger imp
             throw DataXException.asDataXException(
                     FrameworkErrorCode.CONFIG_ERROR, e);
         }
+
+        // 只有默认的DefaultRecord才参与复用
+        this.recordPool = (BufferedRecordTransformerExchanger.RECORD_CLASS == DefaultRecord.class) ? channel.getRecordPool() : null;
+
+        this.columnBatchReceiver = new ColumnBatchReceiver(this.configuration) {
+            @Override
+            protected Record peek() {
+                if (bufferIndex >= received.size()) {
+                    receive();
+                }
+                return received.get(bufferIndex);
+            }
+
+            @Override
+            protected void advance() {
+                bufferIndex++;
+            }
+
+            @Override
+            protected boolean hasBuffered() {
+                return bufferIndex < received.size();
+            }
+
+            @Override
+            protected Record createRecord() {
+                return BufferedRecordTransformerExchanger.this.createRecord();
+            }
+
+            @Override
+            protected void recycle(Record record) {
+                BufferedRecordTransformerExchanger.this.recycle(record);
+            }
+        };
     }
 
     @Override
     public Record createRecord() {
+        if (this.recordPool != null) {
+            Record record = this.recordPool.acquire();
+            if (record != null) {
+                return record;
+            }
+        }
+
         try {
             return BufferedRecordTransformerExchanger.RECORD_CLASS.newInstance();
         } catch (Exception e) {
@@ -108,6 +162,38 @@ public class BufferedRecordTransformerExchanger extends TransformerExchanger imp
         this.buffer.add(record);
         this.bufferIndex++;
         memoryBytes.addAndGet(record.getMemorySize());
+        this.bufferBytes += record.getByteSize();
+    }
+
+    @Override
+    public void sendBatch(ColumnBatch batch) {
+        if (shutdown) {
+            throw DataXException.asDataXException(CommonErrorCode.SHUT_DOWN_TASK, "");
+        }
+
+        Validate.notNull(batch, "batch不能为空.");
+        if (batch.size() == 0) {
+            return;
+        }
+
+        ColumnBatchRecord record = new ColumnBatchRecord(batch);
+        // transformer按record处理，配置了transformer或整批超过channel内存上限时拆成逐条record发送
+        if (hasTransformer() || record.getMemorySize() > this.byteCapacity) {
+            for (int row = 0; row < batch.size(); row++) {
+                Record each = createRecord();
+                batch.fillRecord(row, each);
+                sendToWriter(each);
+            }
+            return;
+        }
+
+        // 先把已缓存的record送出，保证与逐条发送的数据顺序一致
+        if (!this.buffer.isEmpty()) {
+            flush();
+        }
+        this.channel.pushBatch(RecordBatch.of(record));
+        //和channel的统计保持同步
+        doStat();
     }
 
     @Override
@@ -115,12 +201,15 @@ public class BufferedRecordTransformerExchanger extends TransformerExchanger imp
         if (shutdown) {
             throw DataXException.asDataXException(CommonErrorCode.SHUT_DOWN_TASK, "");
         }
-        this.channel.pushAll(this.buffer);
+        this.channel.pushBatch(new RecordBatch(this.buffer, this.bufferBytes, this.memoryBytes.get()));
         //和channel的统计保持同步
         doStat();
         this.buffer.clear();
         this.bufferIndex = 0;
         this.memoryBytes.set(0);
+        this.bufferBytes = 0;
+        // 开启core.transport.adaptive时batch条数由channel按运行情况调整
+        this.bufferSize = this.channel.getBufferSize();
     }
 
     @Override
@@ -137,16 +226,22 @@ public class BufferedRecordTransformerExchanger extends TransformerExchanger imp
         if (shutdown) {
             throw DataXException.asDataXException(CommonErrorCode.SHUT_DOWN_TASK, "");
         }
-        boolean isEmpty = (this.bufferIndex >= this.buffer.size());
-        if (isEmpty) {
-            receive();
+        return this.columnBatchReceiver.getFromReader();
+    }
+
+    @Override
+    public ColumnBatch getBatchFromReader() {
+        if (shutdown) {
+            throw DataXException.asDataXException(CommonErrorCode.SHUT_DOWN_TASK, "");
         }
+        return this.columnBatchReceiver.getBatchFromReader();
+    }
 
-        Record record = this.buffer.get(this.bufferIndex++);
-        if (record instanceof TerminateRecord) {
-            record = null;
+    @Override
+    public void recycle(Record record) {
+        if (this.recordPool != null) {
+            this.recordPool.release(record);
         }
-        return record;
     }
 
     @Override
@@ -154,6 +249,8 @@ public class BufferedRecordTransformerExchanger extends TransformerExchanger imp
         shutdown = true;
         try {
             buffer.clear();
+            received = RecordBatch.empty();
+            columnBatchReceiver.clear();
             channel.clear();
         } catch (Throwable t) {
             t.printStackTrace();
@@ -161,8 +258,7 @@ public class BufferedRecordTransformerExchanger extends TransformerExchanger imp
     }
 
     private void receive() {
-        this.channel.pullAll(this.buffer);
+        this.received = this.channel.pullBatch();
         this.bufferIndex = 0;
-        this.bufferSize = this.buffer.size();
     }
 }
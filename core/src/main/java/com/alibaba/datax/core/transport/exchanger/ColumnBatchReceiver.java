@@ -0,0 +1,136 @@
+package com.alibaba.datax.core.transport.exchanger;
+
+import com.alibaba.datax.common.element.ColumnBatch;
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.core.transport.record.ColumnBatchRecord;
+import com.alibaba.datax.core.transport.record.TerminateRecord;
+import com.alibaba.datax.core.util.container.CoreConstant;
+
+/**
+ * 接收端在逐条record与ColumnBatch之间的自动转换，各exchanger共用。
+ * <p/>
+ * channel中的元素可能是普通record、ColumnBatchRecord或TerminateRecord：
+ * writer逐条读取时把ColumnBatch逐行还原成record；writer整批读取时，
+ * reader发来的ColumnBatch原样交出，逐条record则按列类型攒成batch。
+ * 子类只需要提供对channel数据的peek/advance。
+ */
+abstract class ColumnBatchReceiver {
+
+    private final int batchSize;
+
+    /**
+     * 正在被逐行读取的ColumnBatch及下一行行号
+     */
+    private ColumnBatch columns = null;
+
+    private int columnRow = 0;
+
+    ColumnBatchReceiver(final Configuration configuration) {
+        this.batchSize = Math.max(1, configuration.getInt(
+                CoreConstant.DATAX_CORE_TRANSPORT_EXCHANGER_COLUMNBATCHSIZE, 1024));
+    }
+
+    /**
+     * 返回下一个未消费的元素但不消费，没有数据时阻塞
+     */
+    protected abstract Record peek();
+
+    /**
+     * 消费peek返回的元素
+     */
+    protected abstract void advance();
+
+    /**
+     * 是否还有不需要阻塞就能取到的数据
+     */
+    protected abstract boolean hasBuffered();
+
+    protected abstract Record createRecord();
+
+    protected abstract void recycle(Record record);
+
+    Record getFromReader() {
+        while (true) {
+            if (this.columns != null) {
+                if (this.columnRow < this.columns.size()) {
+                    Record record = this.createRecord();
+                    this.columns.fillRecord(this.columnRow++, record);
+                    return record;
+                }
+                this.columns = null;
+            }
+
+            Record record = this.peek();
+            if (record instanceof TerminateRecord) {
+                return null;
+            }
+            this.advance();
+            if (record instanceof ColumnBatchRecord) {
+                this.columns = ((ColumnBatchRecord) record).getBatch();
+                this.columnRow = 0;
+                continue;
+            }
+            return record;
+        }
+    }
+
+    ColumnBatch getBatchFromReader() {
+        ColumnBatch batch = null;
+        while (true) {
+            Record record;
+            boolean fromColumns = (this.columns != null && this.columnRow < this.columns.size());
+            if (fromColumns) {
+                if (this.columnRow == 0 && batch == null) {
+                    ColumnBatch whole = this.columns;
+                    this.columns = null;
+                    return whole;
+                }
+                // 已经被getFromReader读走一部分，剩余的行重新组batch
+                record = this.createRecord();
+                this.columns.fillRecord(this.columnRow, record);
+            } else {
+                this.columns = null;
+                // 已经攒到数据时不为凑满batch而阻塞等待
+                if (batch != null && !this.hasBuffered()) {
+                    return batch;
+                }
+                record = this.peek();
+                if (record instanceof TerminateRecord) {
+                    return batch;
+                }
+                if (record instanceof ColumnBatchRecord) {
+                    if (batch != null) {
+                        return batch;
+                    }
+                    this.advance();
+                    this.columns = ((ColumnBatchRecord) record).getBatch();
+                    this.columnRow = 0;
+                    continue;
+                }
+            }
+
+            if (batch == null) {
+                batch = ColumnBatch.forRecord(record, this.batchSize);
+            }
+            if (!batch.append(record)) {
+                if (fromColumns) {
+                    this.recycle(record);
+                }
+                return batch;
+            }
+            if (fromColumns) {
+                this.columnRow++;
+            } else {
+                this.advance();
+            }
+            // 数据已经复制进batch，record不会再被使用
+            this.recycle(record);
+        }
+    }
+
+    void clear() {
+        this.columns = null;
+        this.columnRow = 0;
+    }
+}
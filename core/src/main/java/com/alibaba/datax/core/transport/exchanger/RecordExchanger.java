@@ -16,15 +16,20 @@
 
 package com.alibaba.datax.core.transport.exchanger;
 
+import com.alibaba.datax.common.element.ColumnBatch;
 import com.alibaba.datax.common.element.Record;
 import com.alibaba.datax.common.exception.CommonErrorCode;
 import com.alibaba.datax.common.exception.DataXException;
-import com.alibaba.datax.common.plugin.RecordReceiver;
-import com.alibaba.datax.common.plugin.RecordSender;
+import com.alibaba.datax.common.plugin.BatchRecordReceiver;
+import com.alibaba.datax.common.plugin.BatchRecordSender;
+import com.alibaba.datax.common.plugin.RecyclingRecordReceiver;
 import com.alibaba.datax.common.plugin.TaskPluginCollector;
 import com.alibaba.datax.common.util.Configuration;
 import com.alibaba.datax.core.statistics.communication.Communication;
 import com.alibaba.datax.core.transport.channel.Channel;
+import com.alibaba.datax.core.transport.record.ColumnBatchRecord;
+import com.alibaba.datax.core.transport.record.DefaultRecord;
+import com.alibaba.datax.core.transport.record.RecordPool;
 import com.alibaba.datax.core.transport.record.TerminateRecord;
 import com.alibaba.datax.core.transport.transformer.TransformerExecution;
 import com.alibaba.datax.core.util.FrameworkErrorCode;
@@ -32,7 +37,7 @@ import com.alibaba.datax.core.util.container.CoreConstant;
 
 import java.util.List;
 
-public class RecordExchanger extends TransformerExchanger implements RecordSender, RecordReceiver {
+public class RecordExchanger extends TransformerExchanger implements BatchRecordSender, RecyclingRecordReceiver, BatchRecordReceiver {
 
 	private Channel channel;
 
@@ -42,6 +47,17 @@ public class RecordExchanger extends TransformerExchanger implements RecordSende
 
 	private volatile boolean shutdown = false;
 
+	private final RecordPool recordPool;
+
+	private final int byteCapacity;
+
+	private final ColumnBatchReceiver columnBatchReceiver;
+
+	/**
+	 * 已从channel取出、尚未被消费的元素
+	 */
+	private Record pulled = null;
+
 	@SuppressWarnings("unchecked")
 	public RecordExchanger(final int taskGroupId, final int taskId,final Channel channel, final Communication communication,List<TransformerExecution> transformerExecs, final TaskPluginCollector pluginCollector) {
 		super(taskGroupId,taskId,communication,transformerExecs, pluginCollector);
@@ -57,6 +73,42 @@ public class RecordExchanger extends TransformerExchanger implements RecordSende
 			throw DataXException.asDataXException(
 					FrameworkErrorCode.CONFIG_ERROR, e);
 		}
+
+		// 只有默认的DefaultRecord才参与复用
+		this.recordPool = (RecordExchanger.RECORD_CLASS == DefaultRecord.class) ? channel.getRecordPool() : null;
+
+		this.byteCapacity = configuration.getInt(
+				CoreConstant.DATAX_CORE_TRANSPORT_CHANNEL_CAPACITY_BYTE, 8 * 1024 * 1024);
+
+		this.columnBatchReceiver = new ColumnBatchReceiver(this.configuration) {
+			@Override
+			protected Record peek() {
+				if (pulled == null) {
+					pulled = RecordExchanger.this.channel.pull();
+				}
+				return pulled;
+			}
+
+			@Override
+			protected void advance() {
+				pulled = null;
+			}
+
+			@Override
+			protected boolean hasBuffered() {
+				return pulled != null || !RecordExchanger.this.channel.isEmpty();
+			}
+
+			@Override
+			protected Record createRecord() {
+				return RecordExchanger.this.createRecord();
+			}
+
+			@Override
+			protected void recycle(Record record) {
+				RecordExchanger.this.recycle(record);
+			}
+		};
 	}
 
 	@Override
@@ -64,12 +116,26 @@ public class RecordExchanger extends TransformerExchanger implements RecordSende
 		if(shutdown){
 			throw DataXException.asDataXException(CommonErrorCode.SHUT_DOWN_TASK, "");
 		}
-		Record record = this.channel.pull();
-		return (record instanceof TerminateRecord ? null : record);
+		return this.columnBatchReceiver.getFromReader();
+	}
+
+	@Override
+	public ColumnBatch getBatchFromReader() {
+		if(shutdown){
+			throw DataXException.asDataXException(CommonErrorCode.SHUT_DOWN_TASK, "");
+		}
+		return this.columnBatchReceiver.getBatchFromReader();
 	}
 
 	@Override
 	public Record createRecord() {
+		if (this.recordPool != null) {
+			Record record = this.recordPool.acquire();
+			if (record != null) {
+				return record;
+			}
+		}
+
 		try {
 			return RECORD_CLASS.newInstance();
 		} catch (Exception e) {
@@ -92,6 +158,30 @@ public class RecordExchanger extends TransformerExchanger implements RecordSende
 		doStat();
 	}
 
+	@Override
+	public void sendBatch(ColumnBatch batch) {
+		if(shutdown){
+			throw DataXException.asDataXException(CommonErrorCode.SHUT_DOWN_TASK, "");
+		}
+		if (batch == null || batch.size() == 0) {
+			return;
+		}
+
+		ColumnBatchRecord record = new ColumnBatchRecord(batch);
+		// transformer按record处理，配置了transformer或整批超过channel内存上限时拆成逐条record发送
+		if (hasTransformer() || record.getMemorySize() > this.byteCapacity) {
+			for (int row = 0; row < batch.size(); row++) {
+				Record each = createRecord();
+				batch.fillRecord(row, each);
+				sendToWriter(each);
+			}
+			return;
+		}
+		this.channel.push(record);
+		//和channel的统计保持同步
+		doStat();
+	}
+
 	@Override
 	public void flush() {
 	}
@@ -106,6 +196,13 @@ public class RecordExchanger extends TransformerExchanger implements RecordSende
 		doStat();
 	}
 
+	@Override
+	public void recycle(Record record) {
+		if (this.recordPool != null) {
+			this.recordPool.release(record);
+		}
+	}
+
 	@Override
 	public void shutdown(){
 		shutdown = true;
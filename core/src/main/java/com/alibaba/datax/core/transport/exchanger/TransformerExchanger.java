@@ -4,7 +4,9 @@ import com.alibaba.datax.common.element.Record;
 import com.alibaba.datax.common.exception.DataXException;
 import com.alibaba.datax.common.plugin.TaskPluginCollector;
 import com.alibaba.datax.core.statistics.communication.Communication;
+import com.alibaba.datax.core.statistics.communication.CommunicationCounter;
 import com.alibaba.datax.core.statistics.communication.CommunicationTool;
+import com.alibaba.datax.core.statistics.communication.LatencyStage;
 import com.alibaba.datax.core.transport.transformer.TransformerErrorCode;
 import com.alibaba.datax.core.transport.transformer.TransformerExecution;
 import com.alibaba.datax.core.util.container.ClassLoaderSwapper;
@@ -50,6 +52,10 @@ public abstract class TransformerExchanger {
     }
 
 
+    protected boolean hasTransformer() {
+        return transformerExecs != null && transformerExecs.size() > 0;
+    }
+
     public Record doTransformer(Record record) {
         if (transformerExecs == null || transformerExecs.size() == 0) {
             return record;
@@ -115,6 +121,7 @@ public abstract class TransformerExchanger {
         }
 
         totalExaustedTime += diffExaustedTime;
+        currentCommunication.recordLatency(LatencyStage.TRANSFORMER, diffExaustedTime);
 
         if (failed) {
             totalFailedRecords++;
@@ -137,10 +144,10 @@ public abstract class TransformerExchanger {
 //                currentCommunication.setLongCounter(CommunicationTool.TRANSFORMER_NAME_PREFIX + transformerInfoExec.getTransformerName(), transformerInfoExec.getExaustedTime());
 //            }
 //        }
-        currentCommunication.setLongCounter(CommunicationTool.TRANSFORMER_SUCCEED_RECORDS, totalSuccessRecords);
-        currentCommunication.setLongCounter(CommunicationTool.TRANSFORMER_FAILED_RECORDS, totalFailedRecords);
-        currentCommunication.setLongCounter(CommunicationTool.TRANSFORMER_FILTER_RECORDS, totalFilterRecords);
-        currentCommunication.setLongCounter(CommunicationTool.TRANSFORMER_USED_TIME, totalExaustedTime);
+        currentCommunication.setLongCounter(CommunicationCounter.TRANSFORMER_SUCCEED_RECORDS, totalSuccessRecords);
+        currentCommunication.setLongCounter(CommunicationCounter.TRANSFORMER_FAILED_RECORDS, totalFailedRecords);
+        currentCommunication.setLongCounter(CommunicationCounter.TRANSFORMER_FILTER_RECORDS, totalFilterRecords);
+        currentCommunication.setLongCounter(CommunicationCounter.TRANSFORMER_USED_TIME, totalExaustedTime);
     }
 
 
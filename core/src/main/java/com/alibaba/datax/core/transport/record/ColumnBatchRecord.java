@@ -0,0 +1,65 @@
+package com.alibaba.datax.core.transport.record;
+
+import com.alibaba.datax.common.element.Column;
+import com.alibaba.datax.common.element.ColumnBatch;
+import com.alibaba.datax.common.element.Record;
+
+/**
+ * 把整个ColumnBatch包装成channel中的一个元素传递，本身不承载列数据。
+ * <p/>
+ * byteSize、memorySize取自整个batch，channel统计条数时按batch的行数计算。
+ */
+public class ColumnBatchRecord implements Record {
+
+	private final ColumnBatch batch;
+
+	private final int byteSize;
+
+	private final int memorySize;
+
+	public ColumnBatchRecord(final ColumnBatch batch) {
+		this.batch = batch;
+		this.byteSize = batch.getByteSize();
+		this.memorySize = batch.getMemorySize();
+	}
+
+	public ColumnBatch getBatch() {
+		return this.batch;
+	}
+
+	/**
+	 * channel中一个元素代表的数据行数
+	 */
+	public static int rowCount(final Record record) {
+		return record instanceof ColumnBatchRecord ? ((ColumnBatchRecord) record).batch.size() : 1;
+	}
+
+	@Override
+	public void addColumn(Column column) {
+	}
+
+	@Override
+	public Column getColumn(int i) {
+		return null;
+	}
+
+	@Override
+	public int getColumnNumber() {
+		return this.batch.getColumnNumber();
+	}
+
+	@Override
+	public int getByteSize() {
+		return this.byteSize;
+	}
+
+	@Override
+	public int getMemorySize() {
+		return this.memorySize;
+	}
+
+	@Override
+	public void setColumn(int i, Column column) {
+		return;
+	}
+}
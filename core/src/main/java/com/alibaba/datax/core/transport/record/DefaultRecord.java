@@ -27,6 +27,9 @@ public class DefaultRecord implements Record {
 	// 首先是Record本身需要的内存
 	private int memorySize = ClassSize.DefaultRecordHead;
 
+	// 是否已归还到RecordPool，防止同一个record被重复归还
+	private boolean pooled = false;
+
 	public DefaultRecord() {
 		this.columns = new ArrayList<Column>(RECORD_AVERGAE_COLUMN_NUMBER);
 	}
@@ -83,6 +86,23 @@ public class DefaultRecord implements Record {
 		return memorySize;
 	}
 
+	/**
+	 * 清空column，保留内部ArrayList的容量，供RecordPool复用
+	 */
+	void reset() {
+		this.columns.clear();
+		this.byteSize = 0;
+		this.memorySize = ClassSize.DefaultRecordHead;
+	}
+
+	boolean isPooled() {
+		return pooled;
+	}
+
+	void setPooled(boolean pooled) {
+		this.pooled = pooled;
+	}
+
 	private void decrByteSize(final Column column) {
 		if (null == column) {
 			return;
@@ -0,0 +1,110 @@
+package com.alibaba.datax.core.transport.record;
+
+import com.alibaba.datax.common.element.Record;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 在channel中整体传递的一批record，创建后不可修改。
+ * <p/>
+ * record条数、byteSize、memorySize都在创建时一次性算好，
+ * channel的容量控制和统计直接使用，不再逐条重复累加。
+ */
+public final class RecordBatch {
+
+    private static final Record[] EMPTY = new Record[0];
+
+    private final Record[] records;
+
+    private final int rowCount;
+
+    private final int byteSize;
+
+    private final int memorySize;
+
+    /**
+     * 调用方已经累计好了byteSize和memorySize时使用，避免再遍历一遍；records中只能是逐条的record
+     */
+    public RecordBatch(final Collection<Record> records, int byteSize, int memorySize) {
+        this(records.toArray(new Record[records.size()]), records.size(), byteSize, memorySize);
+    }
+
+    private RecordBatch(final Record[] records, int rowCount, int byteSize, int memorySize) {
+        this.records = records;
+        this.rowCount = rowCount;
+        this.byteSize = byteSize;
+        this.memorySize = memorySize;
+    }
+
+    public static RecordBatch of(final Collection<Record> records) {
+        Record[] array = records.toArray(new Record[records.size()]);
+        return of(array, 0, array.length);
+    }
+
+    public static RecordBatch of(final Record record) {
+        return new RecordBatch(new Record[]{record}, ColumnBatchRecord.rowCount(record),
+                record.getByteSize(), record.getMemorySize());
+    }
+
+    private static RecordBatch of(final Record[] records, int from, int to) {
+        Record[] array = (from == 0 && to == records.length) ? records
+                : Arrays.copyOfRange(records, from, to);
+        int rowCount = 0;
+        int byteSize = 0;
+        int memorySize = 0;
+        for (Record each : array) {
+            rowCount += ColumnBatchRecord.rowCount(each);
+            byteSize += each.getByteSize();
+            memorySize += each.getMemorySize();
+        }
+        return new RecordBatch(array, rowCount, byteSize, memorySize);
+    }
+
+    public static RecordBatch empty() {
+        return new RecordBatch(EMPTY, 0, 0, 0);
+    }
+
+    /**
+     * 返回从from开始的剩余部分，供消费者在已逐条取走部分record后整体取走剩余数据
+     */
+    public RecordBatch tail(int from) {
+        if (from <= 0) {
+            return this;
+        }
+        return of(this.records, Math.min(from, this.records.length), this.records.length);
+    }
+
+    public Record get(int i) {
+        return this.records[i];
+    }
+
+    public int size() {
+        return this.records.length;
+    }
+
+    /**
+     * 数据行数，ColumnBatchRecord按其batch的行数计算，用于channel统计
+     */
+    public int getRowCount() {
+        return this.rowCount;
+    }
+
+    public boolean isEmpty() {
+        return this.records.length == 0;
+    }
+
+    public int getByteSize() {
+        return this.byteSize;
+    }
+
+    public int getMemorySize() {
+        return this.memorySize;
+    }
+
+    public List<Record> asList() {
+        return Collections.unmodifiableList(Arrays.asList(this.records));
+    }
+}
@@ -0,0 +1,64 @@
+package com.alibaba.datax.core.transport.record;
+
+import com.alibaba.datax.common.element.Record;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 每个channel一个的DefaultRecord回收池。
+ * <p/>
+ * writer通过RecordReceiver.recycle归还已写完的record，reader端的createRecord优先从这里取，
+ * 只复用record本身及其内部的column列表，column对象仍由插件新建。
+ * 池子有上限，超出的record直接交给GC；未被归还的record（例如插件自己缓存着的）不受任何影响。
+ */
+public class RecordPool {
+
+    private final ConcurrentLinkedQueue<DefaultRecord> pool = new ConcurrentLinkedQueue<DefaultRecord>();
+
+    private final AtomicInteger size = new AtomicInteger(0);
+
+    private final int maxSize;
+
+    public RecordPool(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * reader端调用，可能有多个线程共用同一个RecordSender，因此需要线程安全
+     *
+     * @return 可复用的record，池为空时返回null
+     */
+    public DefaultRecord acquire() {
+        DefaultRecord record = this.pool.poll();
+        if (record != null) {
+            this.size.decrementAndGet();
+            record.setPooled(false);
+        }
+        return record;
+    }
+
+    public void release(Record record) {
+        if (!(record instanceof DefaultRecord)) {
+            return;
+        }
+
+        DefaultRecord defaultRecord = (DefaultRecord) record;
+        if (defaultRecord.isPooled()) {
+            return;
+        }
+
+        if (this.size.incrementAndGet() > this.maxSize) {
+            this.size.decrementAndGet();
+            return;
+        }
+
+        defaultRecord.reset();
+        defaultRecord.setPooled(true);
+        this.pool.offer(defaultRecord);
+    }
+
+    public int size() {
+        return this.size.get();
+    }
+}
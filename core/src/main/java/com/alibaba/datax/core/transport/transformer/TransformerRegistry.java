@@ -12,9 +12,9 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * no comments.
@@ -23,7 +23,7 @@ import java.util.Map;
 public class TransformerRegistry {
 
     private static final Logger LOG = LoggerFactory.getLogger(TransformerRegistry.class);
-    private static Map<String, TransformerInfo> registedTransformer = new HashMap<String, TransformerInfo>();
+    private static Map<String, TransformerInfo> registedTransformer = new ConcurrentHashMap<String, TransformerInfo>();
 
     static {
         /**
@@ -3,6 +3,7 @@ package com.alibaba.datax.core.util;
 import com.alibaba.datax.common.exception.DataXException;
 import com.alibaba.datax.common.util.Configuration;
 import com.alibaba.datax.core.util.container.CoreConstant;
+import com.alibaba.datax.core.util.container.PluginIndex;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.http.client.methods.HttpGet;
@@ -66,6 +67,21 @@ public final class ConfigParser {
         return configuration;
     }
 
+    /**
+     * 常驻服务使用：作业内容由请求直接给出，插件配置使用服务启动时解析好的全部插件配置，
+     * 这样并发作业各自bind到LoadUtil的配置都包含所有插件
+     */
+    public static Configuration parseJobContent(final String jobContent, final Configuration allPluginConfig) {
+        Configuration configuration = SecretUtil.decryptSecretKey(Configuration.from(jobContent));
+
+        configuration.merge(
+                ConfigParser.parseCoreConfig(CoreConstant.DATAX_CONF_PATH),
+                false);
+        configuration.merge(allPluginConfig.clone(), false);
+
+        return configuration;
+    }
+
     private static Configuration parseCoreConfig(final String path) {
         return Configuration.from(new File(path));
     }
@@ -115,34 +131,11 @@ public final class ConfigParser {
         return jobContent;
     }
 
+    /**
+     * 插件配置取自插件索引，索引过期时才重新遍历插件目录
+     */
     public static Configuration parsePluginConfig(List<String> wantPluginNames) {
-        Configuration configuration = Configuration.newDefault();
-
-        Set<String> replicaCheckPluginSet = new HashSet<String>();
-        int complete = 0;
-        for (final String each : ConfigParser
-                .getDirAsList(CoreConstant.DATAX_PLUGIN_READER_HOME)) {
-            Configuration eachReaderConfig = ConfigParser.parseOnePluginConfig(each, "reader", replicaCheckPluginSet, wantPluginNames);
-            if(eachReaderConfig!=null) {
-                configuration.merge(eachReaderConfig, true);
-                complete += 1;
-            }
-        }
-
-        for (final String each : ConfigParser
-                .getDirAsList(CoreConstant.DATAX_PLUGIN_WRITER_HOME)) {
-            Configuration eachWriterConfig = ConfigParser.parseOnePluginConfig(each, "writer", replicaCheckPluginSet, wantPluginNames);
-            if(eachWriterConfig!=null) {
-                configuration.merge(eachWriterConfig, true);
-                complete += 1;
-            }
-        }
-
-        if (wantPluginNames != null && wantPluginNames.size() > 0 && wantPluginNames.size() != complete) {
-            throw DataXException.asDataXException(FrameworkErrorCode.PLUGIN_INIT_ERROR, "插件加载失败，未完成指定插件加载:" + wantPluginNames);
-        }
-
-        return configuration;
+        return PluginIndex.get().getPluginConfig(wantPluginNames);
     }
 
 
@@ -179,19 +172,4 @@ public final class ConfigParser {
         return result;
     }
 
-    private static List<String> getDirAsList(String path) {
-        List<String> result = new ArrayList<String>();
-
-        String[] paths = new File(path).list();
-        if (null == paths) {
-            return result;
-        }
-
-        for (final String each : paths) {
-            result.add(path + File.separator + each);
-        }
-
-        return result;
-    }
-
 }
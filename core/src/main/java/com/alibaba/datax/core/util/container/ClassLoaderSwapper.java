@@ -5,9 +5,11 @@ package com.alibaba.datax.core.util.container;
  *
  * 为避免jar冲突，比如hbase可能有多个版本的读写依赖jar包，JobContainer和TaskGroupContainer
  * 就需要脱离当前classLoader去加载这些jar包，执行完成后，又退回到原来classLoader上继续执行接下来的代码
+ *
+ * 保存的classLoader按线程区分，reader和writer的job阶段可以在不同线程上共用同一个swapper
  */
 public final class ClassLoaderSwapper {
-    private ClassLoader storeClassLoader = null;
+    private final ThreadLocal<ClassLoader> storeClassLoader = new ThreadLocal<ClassLoader>();
 
     private ClassLoaderSwapper() {
     }
@@ -23,9 +25,10 @@ public final class ClassLoaderSwapper {
      * @return
      */
     public ClassLoader setCurrentThreadClassLoader(ClassLoader classLoader) {
-        this.storeClassLoader = Thread.currentThread().getContextClassLoader();
+        ClassLoader storeClassLoader = Thread.currentThread().getContextClassLoader();
+        this.storeClassLoader.set(storeClassLoader);
         Thread.currentThread().setContextClassLoader(classLoader);
-        return this.storeClassLoader;
+        return storeClassLoader;
     }
 
     /**
@@ -35,7 +38,7 @@ public final class ClassLoaderSwapper {
     public ClassLoader restoreCurrentThreadClassLoader() {
         ClassLoader classLoader = Thread.currentThread()
                 .getContextClassLoader();
-        Thread.currentThread().setContextClassLoader(this.storeClassLoader);
+        Thread.currentThread().setContextClassLoader(this.storeClassLoader.get());
         return classLoader;
     }
 }
@@ -25,6 +25,58 @@ public class CoreConstant {
 
 	public static final String DATAX_CORE_CONTAINER_JOB_SLEEPINTERVAL = "core.container.job.sleepInterval";
 
+	public static final String DATAX_CORE_CONTAINER_JOB_WORKSTEALING = "core.container.job.workStealing";
+
+	public static final String DATAX_CORE_CONTAINER_JOB_AUTOSCALE_ENABLE = "core.container.job.autoScale.enable";
+
+	public static final String DATAX_CORE_CONTAINER_JOB_AUTOSCALE_MINCHANNEL = "core.container.job.autoScale.minChannel";
+
+	public static final String DATAX_CORE_CONTAINER_JOB_AUTOSCALE_MAXCHANNEL = "core.container.job.autoScale.maxChannel";
+
+	public static final String DATAX_CORE_CONTAINER_JOB_AUTOSCALE_INTERVAL = "core.container.job.autoScale.interval";
+
+	public static final String DATAX_CORE_CONTAINER_JOB_AUTOSCALE_MINGAIN = "core.container.job.autoScale.minGain";
+
+	public static final String DATAX_CORE_CONTAINER_JOB_AUTOSCALE_MINWAITRATIO = "core.container.job.autoScale.minWaitRatio";
+
+	public static final String DATAX_CORE_CONTAINER_JOB_AUTOSCALE_HOLDWINDOWS = "core.container.job.autoScale.holdWindows";
+
+	public static final String DATAX_CORE_CONTAINER_JOB_AUTOSCALE_TARGETWRITERLATENCY = "core.container.job.autoScale.targetWriterLatency";
+
+	public static final String DATAX_CORE_CONTAINER_JOB_CLUSTER_HOST = "core.container.job.cluster.host";
+
+	public static final String DATAX_CORE_CONTAINER_JOB_CLUSTER_PORT = "core.container.job.cluster.port";
+
+	public static final String DATAX_CORE_CONTAINER_JOB_CLUSTER_LOCALWORKERS = "core.container.job.cluster.localWorkers";
+
+	public static final String DATAX_CORE_CONTAINER_JOB_CLUSTER_WORKERJVM = "core.container.job.cluster.workerJvm";
+
+	public static final String DATAX_CORE_CONTAINER_JOB_CLUSTER_WORKERTIMEOUT = "core.container.job.cluster.workerTimeout";
+
+	public static final String DATAX_CORE_CONTAINER_JOB_CLUSTER_TOKEN = "core.container.job.cluster.token";
+
+	public static final String DATAX_CORE_CONTAINER_JOB_CHECKPOINT_ENABLE = "core.container.job.checkpoint.enable";
+
+	public static final String DATAX_CORE_CONTAINER_JOB_CHECKPOINT_DIR = "core.container.job.checkpoint.dir";
+
+	public static final String DATAX_CORE_CONTAINER_JOB_CHECKPOINT_RESUME = "core.container.job.checkpoint.resume";
+
+	public static final String DATAX_CORE_CONTAINER_JOB_PARALLELPHASES = "core.container.job.parallelPhases";
+
+	public static final String DATAX_CORE_DAEMON_HOST = "core.daemon.host";
+
+	public static final String DATAX_CORE_DAEMON_PORT = "core.daemon.port";
+
+	public static final String DATAX_CORE_DAEMON_MAXCONCURRENTJOBS = "core.daemon.maxConcurrentJobs";
+
+	public static final String DATAX_CORE_DAEMON_JOBHISTORY = "core.daemon.jobHistory";
+
+	public static final String DATAX_CORE_METRICS_ENABLE = "core.metrics.enable";
+
+	public static final String DATAX_CORE_METRICS_HOST = "core.metrics.host";
+
+	public static final String DATAX_CORE_METRICS_PORT = "core.metrics.port";
+
     public static final String DATAX_CORE_CONTAINER_TASKGROUP_ID = "core.container.taskGroup.id";
 
 	public static final String DATAX_CORE_CONTAINER_TASKGROUP_SLEEPINTERVAL = "core.container.taskGroup.sleepInterval";
@@ -37,6 +89,14 @@ public class CoreConstant {
 
 	public static final String DATAX_CORE_CONTAINER_TASK_FAILOVER_MAXWAITINMSEC = "core.container.task.failOver.maxWaitInMsec";
 
+	public static final String DATAX_CORE_CONTAINER_TASK_SPECULATION_ENABLE = "core.container.task.speculation.enable";
+
+	public static final String DATAX_CORE_CONTAINER_TASK_SPECULATION_SLOWRATIO = "core.container.task.speculation.slowRatio";
+
+	public static final String DATAX_CORE_CONTAINER_TASK_SPECULATION_MINRUNTIMEINMSEC = "core.container.task.speculation.minRuntimeInMsec";
+
+	public static final String DATAX_CORE_CONTAINER_TASK_SPECULATION_MINFINISHEDTASKS = "core.container.task.speculation.minFinishedTasks";
+
     public static final String DATAX_CORE_DATAXSERVER_ADDRESS = "core.dataXServer.address";
 
 	public static final String DATAX_CORE_DSC_ADDRESS = "core.dsc.address";
@@ -57,12 +117,39 @@ public class CoreConstant {
 
     public static final String DATAX_CORE_TRANSPORT_CHANNEL_SPEED_RECORD = "core.transport.channel.speed.record";
 
+    public static final String DATAX_CORE_TRANSPORT_CHANNEL_SPEED_SCOPE = "core.transport.channel.speed.scope";
+
 	public static final String DATAX_CORE_TRANSPORT_CHANNEL_FLOWCONTROLINTERVAL = "core.transport.channel.flowControlInterval";
 
+	// 溢出文件放在其下的job-<jobId>目录，job结束时删除；进程异常退出后残留文件留到该目录被删除为止
+	public static final String DATAX_CORE_TRANSPORT_CHANNEL_SPILL_DIR = "core.transport.channel.spill.dir";
+
+	public static final String DATAX_CORE_TRANSPORT_CHANNEL_SPILL_DISKQUOTA = "core.transport.channel.spill.diskQuota";
+
+	public static final String DATAX_CORE_TRANSPORT_CHANNEL_SPILL_SEGMENTSIZE = "core.transport.channel.spill.segmentSize";
+
 	public static final String DATAX_CORE_TRANSPORT_EXCHANGER_BUFFERSIZE = "core.transport.exchanger.bufferSize";
 
+	public static final String DATAX_CORE_TRANSPORT_EXCHANGER_COLUMNBATCHSIZE = "core.transport.exchanger.columnBatchSize";
+
     public static final String DATAX_CORE_TRANSPORT_RECORD_CLASS = "core.transport.record.class";
 
+    public static final String DATAX_CORE_TRANSPORT_RECORD_RECYCLE = "core.transport.record.recycle";
+
+    public static final String DATAX_CORE_TRANSPORT_ADAPTIVE_ENABLE = "core.transport.adaptive.enable";
+
+    public static final String DATAX_CORE_TRANSPORT_ADAPTIVE_MINBUFFERSIZE = "core.transport.adaptive.minBufferSize";
+
+    public static final String DATAX_CORE_TRANSPORT_ADAPTIVE_MAXBUFFERSIZE = "core.transport.adaptive.maxBufferSize";
+
+    public static final String DATAX_CORE_TRANSPORT_ADAPTIVE_MINCAPACITY = "core.transport.adaptive.minCapacity";
+
+    public static final String DATAX_CORE_TRANSPORT_ADAPTIVE_MAXCAPACITY = "core.transport.adaptive.maxCapacity";
+
+    public static final String DATAX_CORE_TRANSPORT_ADAPTIVE_TARGETBATCHBYTES = "core.transport.adaptive.targetBatchBytes";
+
+    public static final String DATAX_CORE_TRANSPORT_ADAPTIVE_INTERVAL = "core.transport.adaptive.interval";
+
 	public static final String DATAX_CORE_STATISTICS_COLLECTOR_PLUGIN_TASKCLASS = "core.statistics.collector.plugin.taskClass";
 
 	public static final String DATAX_CORE_STATISTICS_COLLECTOR_PLUGIN_MAXDIRTYNUM = "core.statistics.collector.plugin.maxDirtyNumber";
@@ -89,6 +176,8 @@ public class CoreConstant {
 
 	public static final String DATAX_JOB_SETTING_SPEED_CHANNEL = "job.setting.speed.channel";
 
+	public static final String DATAX_JOB_SETTING_SPEED_WRITERPERCHANNEL = "job.setting.speed.writerPerChannel";
+
 	public static final String DATAX_JOB_SETTING_ERRORLIMIT = "job.setting.errorLimit";
 
     public static final String DATAX_JOB_SETTING_ERRORLIMIT_RECORD = "job.setting.errorLimit.record";
@@ -127,6 +216,8 @@ public class CoreConstant {
 
     public static final String TASK_ID = "taskId";
 
+    public static final String TASK_CHECKPOINT_KEY = "checkpointKey";
+
     // ----------------------------- 安全模块变量 ------------------
 
     public static final String LAST_KEYVERSION = "last.keyVersion";
@@ -186,4 +277,13 @@ public class CoreConstant {
 	public static String DATAX_STORAGE_PLUGIN_WRITER_HOME = StringUtils.join(
 			new String[] { DATAX_HOME, "local_storage", "plugin","writer" }, File.separator);
 
+	public static String DATAX_STORAGE_CHECKPOINT_HOME = StringUtils.join(
+			new String[] { DATAX_HOME, "local_storage", "checkpoint" }, File.separator);
+
+	public static String DATAX_STORAGE_PLUGIN_INDEX_PATH = StringUtils.join(
+			new String[] { DATAX_HOME, "local_storage", "plugin.index" }, File.separator);
+
+	public static String DATAX_STORAGE_PLUGIN_JARS_HOME = StringUtils.join(
+			new String[] { DATAX_HOME, "local_storage", "plugin_jars" }, File.separator);
+
 }
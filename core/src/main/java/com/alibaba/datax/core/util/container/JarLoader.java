@@ -11,6 +11,7 @@ import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 提供Jar隔离的加载机制，会把传入的路径、及其子路径、以及路径中的jar文件加入到class path。
@@ -28,20 +29,49 @@ public class JarLoader extends URLClassLoader {
         Validate.isTrue(null != paths && 0 != paths.length,
                 "jar包路径不能为空.");
 
-        List<String> dirs = new ArrayList<String>();
+        List<URL> urls = new ArrayList<URL>();
         for (String path : paths) {
-            dirs.add(path);
-            JarLoader.collectDirs(path, dirs);
-        }
+            // 插件目录优先使用插件索引中的jar列表，不再遍历目录
+            List<String> jars = PluginIndex.getJars(path);
+            if (null == jars) {
+                jars = JarLoader.collectJars(path, null);
+            }
 
-        List<URL> urls = new ArrayList<URL>();
-        for (String path : dirs) {
-            urls.addAll(doGetURLs(path));
+            for (String jar : jars) {
+                try {
+                    urls.add(new File(jar).toURI().toURL());
+                } catch (Exception e) {
+                    throw DataXException.asDataXException(
+                            FrameworkErrorCode.PLUGIN_INIT_ERROR,
+                            "系统加载jar包出错", e);
+                }
+            }
         }
 
         return urls.toArray(new URL[0]);
     }
 
+    /**
+     * 收集路径及其子路径下的全部jar文件
+     *
+     * @param dirStamps 不为null时记录遍历过的每个目录的修改时间，供插件索引判断是否过期
+     */
+    static List<String> collectJars(String path, Map<String, Long> dirStamps) {
+        List<String> dirs = new ArrayList<String>();
+        dirs.add(path);
+        JarLoader.collectDirs(path, dirs);
+
+        List<String> jars = new ArrayList<String>();
+        for (String dir : dirs) {
+            jars.addAll(doGetJars(dir));
+            if (null != dirStamps) {
+                dirStamps.put(dir, new File(dir).lastModified());
+            }
+        }
+
+        return jars;
+    }
+
     private static void collectDirs(String path, List<String> collector) {
         if (null == path || StringUtils.isBlank(path)) {
             return;
@@ -62,7 +92,7 @@ public class JarLoader extends URLClassLoader {
         }
     }
 
-    private static List<URL> doGetURLs(final String path) {
+    private static List<String> doGetJars(final String path) {
         Validate.isTrue(!StringUtils.isBlank(path), "jar包路径不能为空.");
 
         File jarPath = new File(path);
@@ -80,18 +110,12 @@ public class JarLoader extends URLClassLoader {
 
 		/* iterate all jar */
         File[] allJars = new File(path).listFiles(jarFilter);
-        List<URL> jarURLs = new ArrayList<URL>(allJars.length);
+        List<String> jars = new ArrayList<String>(allJars.length);
 
         for (int i = 0; i < allJars.length; i++) {
-            try {
-                jarURLs.add(allJars[i].toURI().toURL());
-            } catch (Exception e) {
-                throw DataXException.asDataXException(
-                        FrameworkErrorCode.PLUGIN_INIT_ERROR,
-                        "系统加载jar包出错", e);
-            }
+            jars.add(allJars[i].getAbsolutePath());
         }
 
-        return jarURLs;
+        return jars;
     }
 }
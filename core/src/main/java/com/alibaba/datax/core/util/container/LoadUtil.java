@@ -11,9 +11,10 @@ import com.alibaba.datax.core.taskgroup.runner.ReaderRunner;
 import com.alibaba.datax.core.taskgroup.runner.WriterRunner;
 import com.alibaba.datax.core.util.FrameworkErrorCode;
 import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Created by jingxing on 14-8-24.
@@ -22,6 +23,8 @@ import java.util.Map;
  * reader和writer在执行时又可能出现Job和Task两种运行时（加载的类不同）
  */
 public class LoadUtil {
+    private static final Logger LOG = LoggerFactory.getLogger(LoadUtil.class);
+
     private static final String pluginTypeNameFormat = "plugin.%s.%s";
 
     private LoadUtil() {
@@ -49,7 +52,7 @@ public class LoadUtil {
     /**
      * jarLoader的缓冲
      */
-    private static Map<String, JarLoader> jarLoaderCenter = new HashMap<String, JarLoader>();
+    private static ConcurrentHashMap<String, JarLoader> jarLoaderCenter = new ConcurrentHashMap<String, JarLoader>();
 
     /**
      * 设置pluginConfigs，方便后面插件来获取
@@ -154,6 +157,29 @@ public class LoadUtil {
         }
     }
 
+    /**
+     * 在后台线程中提前加载插件的JarLoader及Job、Task类，与另一端插件的加载、初始化并行。
+     * 只做类加载，不实例化插件；加载失败时忽略，之后正式加载时照常报错
+     *
+     * @param pluginType
+     * @param pluginName
+     */
+    public static void preload(final PluginType pluginType, final String pluginName) {
+        Thread preloadThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    LoadUtil.loadPluginClass(pluginType, pluginName, ContainerType.Job);
+                    LoadUtil.loadPluginClass(pluginType, pluginName, ContainerType.Task);
+                } catch (Throwable e) {
+                    LOG.debug(String.format("Preload %s plugin [%s] failed.", pluginType, pluginName), e);
+                }
+            }
+        }, String.format("preload-%s-%s", pluginType, pluginName));
+        preloadThread.setDaemon(true);
+        preloadThread.start();
+    }
+
     /**
      * 反射出具体plugin实例
      *
@@ -163,7 +189,7 @@ public class LoadUtil {
      * @return
      */
     @SuppressWarnings("unchecked")
-    private static synchronized Class<? extends AbstractPlugin> loadPluginClass(
+    private static Class<? extends AbstractPlugin> loadPluginClass(
             PluginType pluginType, String pluginName,
             ContainerType pluginRunType) {
         Configuration pluginConf = getPluginConf(pluginType, pluginName);
@@ -177,12 +203,12 @@ public class LoadUtil {
         }
     }
 
-    public static synchronized JarLoader getJarLoader(PluginType pluginType,
-                                                      String pluginName) {
+    public static JarLoader getJarLoader(PluginType pluginType,
+                                         String pluginName) {
         Configuration pluginConf = getPluginConf(pluginType, pluginName);
 
-        JarLoader jarLoader = jarLoaderCenter.get(generatePluginKey(pluginType,
-                pluginName));
+        String pluginKey = generatePluginKey(pluginType, pluginName);
+        JarLoader jarLoader = jarLoaderCenter.get(pluginKey);
         if (null == jarLoader) {
             String pluginPath = pluginConf.getString("path");
             if (StringUtils.isBlank(pluginPath)) {
@@ -192,9 +218,13 @@ public class LoadUtil {
                                 "%s插件[%s]路径非法!",
                                 pluginType, pluginName));
             }
-            jarLoader = new JarLoader(new String[]{pluginPath});
-            jarLoaderCenter.put(generatePluginKey(pluginType, pluginName),
-                    jarLoader);
+            // 不同插件的JarLoader可以并行创建；同一插件并发创建时只保留先放入的一个，
+            // 后创建的尚未加载任何类，直接丢弃
+            JarLoader created = new JarLoader(new String[]{pluginPath});
+            jarLoader = jarLoaderCenter.putIfAbsent(pluginKey, created);
+            if (null == jarLoader) {
+                jarLoader = created;
+            }
         }
 
         return jarLoader;
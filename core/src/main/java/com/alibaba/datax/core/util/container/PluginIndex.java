@@ -0,0 +1,312 @@
+package com.alibaba.datax.core.util.container;
+
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.core.util.ConfigParser;
+import com.alibaba.datax.core.util.FrameworkErrorCode;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 插件索引：启动时读索引文件得到插件配置和JarLoader的class path，不必遍历插件目录、逐个解析plugin.json。
+ * <p/>
+ * 索引分两级，作业只读取与自己有关的部分：
+ * <ul>
+ * <li>plugin.index 记录全部插件的plugin.json内容（已补全path），只有作业用到的插件才解析JSON；</li>
+ * <li>plugin_jars/ 下每个插件路径一个文件，记录路径及子路径下的jar，创建该插件的JarLoader时才读取。</li>
+ * </ul>
+ * 两者都记录生成时看过的目录与文件的修改时间，使用前逐个比对，插件增删、jar增删或plugin.json修改后自动重新生成。
+ * 索引文件每行一条记录、字段以tab分隔；写不进去时只在内存中使用。
+ */
+public final class PluginIndex {
+    private static final Logger LOG = LoggerFactory.getLogger(PluginIndex.class);
+
+    private static final String[] PLUGIN_TYPES = {"reader", "writer"};
+
+    /**
+     * S  修改时间  路径
+     */
+    private static final String STAMP = "S";
+
+    /**
+     * P  插件类型  插件名  插件路径  plugin.json内容
+     */
+    private static final String PLUGIN = "P";
+
+    /**
+     * J  jar文件
+     */
+    private static final String JAR = "J";
+
+    private static final String SEPARATOR = "\t";
+
+    /**
+     * 部分文件系统上修改时间只精确到秒，刚生成的插件目录同一秒内再变化无法分辨，这时不落盘
+     */
+    private static final long STAMP_SETTLE_MILLIS = 2000;
+
+    private static PluginIndex current;
+
+    /**
+     * 插件路径 -> jar文件，进程内复用
+     */
+    private static final Map<String, List<String>> pluginJars = new ConcurrentHashMap<String, List<String>>();
+
+    /**
+     * 插件类型 -> 插件名 -> {插件路径, plugin.json内容（已补全path）}
+     */
+    private final Map<String, Map<String, String[]>> plugins = new HashMap<String, Map<String, String[]>>();
+
+    /**
+     * 索引中全部插件的路径，只有这些路径使用jar索引
+     */
+    private final Set<String> pluginPaths = new HashSet<String>();
+
+    private PluginIndex() {
+        for (String type : PLUGIN_TYPES) {
+            this.plugins.put(type, new TreeMap<String, String[]>());
+        }
+    }
+
+    /**
+     * 当前进程使用的插件索引，第一次调用时读取或生成，之后复用
+     */
+    public static synchronized PluginIndex get() {
+        if (null == current) {
+            File file = new File(CoreConstant.DATAX_STORAGE_PLUGIN_INDEX_PATH);
+            PluginIndex index = load(file);
+            if (null == index) {
+                Map<String, Long> stamps = new LinkedHashMap<String, Long>();
+                index = build(stamps);
+                index.save(file, stamps);
+            }
+            current = index;
+        }
+        return current;
+    }
+
+    /**
+     * 与逐个解析plugin.json的结果相同：plugin.{type}.{name} -> plugin.json内容
+     *
+     * @param wantPluginNames 为空时返回全部插件
+     */
+    public Configuration getPluginConfig(List<String> wantPluginNames) {
+        boolean all = null == wantPluginNames || wantPluginNames.isEmpty();
+
+        Configuration configuration = Configuration.newDefault();
+        int complete = 0;
+        for (String type : PLUGIN_TYPES) {
+            for (Map.Entry<String, String[]> plugin : this.plugins.get(type).entrySet()) {
+                if (!all && !wantPluginNames.contains(plugin.getKey())) {
+                    continue;
+                }
+                configuration.set(String.format("plugin.%s.%s", type, plugin.getKey()),
+                        Configuration.from(plugin.getValue()[1]).getInternal());
+                complete += 1;
+            }
+        }
+
+        if (!all && wantPluginNames.size() != complete) {
+            throw DataXException.asDataXException(FrameworkErrorCode.PLUGIN_INIT_ERROR, "插件加载失败，未完成指定插件加载:" + wantPluginNames);
+        }
+
+        return configuration;
+    }
+
+    /**
+     * 插件路径下的jar列表；不是索引中的插件路径（如transformer、hook）返回null，由调用方自行遍历
+     */
+    static List<String> getJars(String pluginPath) {
+        synchronized (PluginIndex.class) {
+            if (null == current || !current.pluginPaths.contains(pluginPath)) {
+                return null;
+            }
+        }
+
+        List<String> jars = pluginJars.get(pluginPath);
+        if (null == jars) {
+            File file = new File(CoreConstant.DATAX_STORAGE_PLUGIN_JARS_HOME,
+                    new File(pluginPath).getName() + "-" + Integer.toHexString(pluginPath.hashCode()));
+            jars = loadJars(file, pluginPath);
+            if (null == jars) {
+                Map<String, Long> stamps = new LinkedHashMap<String, Long>();
+                jars = JarLoader.collectJars(pluginPath, stamps);
+                saveJars(file, pluginPath, stamps, jars);
+            }
+            pluginJars.put(pluginPath, jars);
+        }
+        return jars;
+    }
+
+    private static PluginIndex build(Map<String, Long> stamps) {
+        PluginIndex index = new PluginIndex();
+
+        Set<String> replicaCheckPluginSet = new HashSet<String>();
+        for (String type : PLUGIN_TYPES) {
+            String home = "reader".equals(type) ? CoreConstant.DATAX_PLUGIN_READER_HOME
+                    : CoreConstant.DATAX_PLUGIN_WRITER_HOME;
+            stamps.put(home, new File(home).lastModified());
+
+            String[] pluginDirs = new File(home).list();
+            if (null == pluginDirs) {
+                continue;
+            }
+            for (String each : pluginDirs) {
+                String pluginDir = home + File.separator + each;
+                String pluginJson = pluginDir + File.separator + "plugin.json";
+                stamps.put(pluginJson, new File(pluginJson).lastModified());
+
+                Configuration pluginConfig = ConfigParser.parseOnePluginConfig(
+                        pluginDir, type, replicaCheckPluginSet, null);
+                String pluginName = pluginConfig.getMap("plugin." + type).keySet().iterator().next();
+                Configuration conf = pluginConfig.getConfiguration(String.format("plugin.%s.%s", type, pluginName));
+                index.addPlugin(type, pluginName, conf.getString("path"), conf.toJSON());
+            }
+        }
+
+        return index;
+    }
+
+    private void addPlugin(String type, String pluginName, String pluginPath, String pluginJson) {
+        this.plugins.get(type).put(pluginName, new String[]{pluginPath, pluginJson});
+        this.pluginPaths.add(pluginPath);
+    }
+
+    private static PluginIndex load(File file) {
+        List<String[]> lines = readLines(file);
+        if (null == lines) {
+            return null;
+        }
+
+        PluginIndex index = new PluginIndex();
+        for (String[] fields : lines) {
+            if (PLUGIN.equals(fields[0]) && fields.length == 5 && index.plugins.containsKey(fields[1])) {
+                index.addPlugin(fields[1], fields[2], fields[3], fields[4]);
+            }
+        }
+        return index;
+    }
+
+    private void save(File file, Map<String, Long> stamps) {
+        List<String> lines = stampLines(stamps);
+        for (String type : PLUGIN_TYPES) {
+            for (Map.Entry<String, String[]> plugin : this.plugins.get(type).entrySet()) {
+                lines.add(line(PLUGIN, type, plugin.getKey(), plugin.getValue()[0], plugin.getValue()[1]));
+            }
+        }
+        writeLines(file, lines, stamps);
+    }
+
+    private static List<String> loadJars(File file, String pluginPath) {
+        List<String[]> lines = readLines(file);
+        if (null == lines) {
+            return null;
+        }
+
+        List<String> jars = new ArrayList<String>();
+        for (String[] fields : lines) {
+            if (JAR.equals(fields[0]) && fields.length == 2) {
+                jars.add(fields[1]);
+            }
+        }
+        // 不同插件路径的hash可能相同，文件中第一个目录必须是插件路径本身
+        if (!lines.isEmpty() && lines.get(0).length == 3 && STAMP.equals(lines.get(0)[0])
+                && pluginPath.equals(lines.get(0)[2])) {
+            return jars;
+        }
+        return null;
+    }
+
+    private static void saveJars(File file, String pluginPath, Map<String, Long> stamps, List<String> jars) {
+        List<String> lines = stampLines(stamps);
+        for (String jar : jars) {
+            lines.add(line(JAR, jar));
+        }
+        writeLines(file, lines, stamps);
+    }
+
+    private static List<String> stampLines(Map<String, Long> stamps) {
+        List<String> lines = new ArrayList<String>();
+        for (Map.Entry<String, Long> stamp : stamps.entrySet()) {
+            lines.add(line(STAMP, String.valueOf(stamp.getValue()), stamp.getKey()));
+        }
+        return lines;
+    }
+
+    /**
+     * 读取索引文件并校验其中记录的修改时间，文件不存在、损坏或过期时返回null
+     */
+    private static List<String[]> readLines(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+
+        try {
+            List<String[]> lines = new ArrayList<String[]>();
+            for (String line : FileUtils.readLines(file, "UTF-8")) {
+                String[] fields = line.split(SEPARATOR, -1);
+                if (STAMP.equals(fields[0])) {
+                    File stamped = new File(fields[2]);
+                    if (!stamped.exists() || stamped.lastModified() != Long.parseLong(fields[1])) {
+                        LOG.info("Plugin index [{}] is stale because of [{}], rebuild it.",
+                                file.getName(), fields[2]);
+                        return null;
+                    }
+                }
+                lines.add(fields);
+            }
+            return lines;
+        } catch (Exception e) {
+            LOG.warn("Plugin index [{}] is broken, rebuild it: {}", file.getAbsolutePath(), e.getMessage());
+            return null;
+        }
+    }
+
+    private static void writeLines(File file, List<String> lines, Map<String, Long> stamps) {
+        long settled = System.currentTimeMillis() - STAMP_SETTLE_MILLIS;
+        for (Long stamp : stamps.values()) {
+            if (stamp > settled) {
+                return;
+            }
+        }
+        if (lines.contains(null)) {
+            return;
+        }
+
+        // 先写临时文件再改名，并发启动的进程读不到写了一半的索引
+        File tmp = null;
+        try {
+            FileUtils.forceMkdir(file.getParentFile());
+            tmp = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+            FileUtils.writeLines(tmp, "UTF-8", lines);
+            if (!tmp.renameTo(file)) {
+                FileUtils.deleteQuietly(file);
+                if (!tmp.renameTo(file)) {
+                    throw new IOException("rename " + tmp.getAbsolutePath() + " failed");
+                }
+            }
+        } catch (IOException e) {
+            LOG.warn("Plugin index [{}] is not saved: {}", file.getAbsolutePath(), e.getMessage());
+            FileUtils.deleteQuietly(tmp);
+        }
+    }
+
+    /**
+     * 字段中含有tab、换行时无法按行保存，返回null，索引只在内存中使用
+     */
+    private static String line(String... fields) {
+        for (String field : fields) {
+            if (StringUtils.containsAny(field, "\t\r\n")) {
+                return null;
+            }
+        }
+        return StringUtils.join(fields, SEPARATOR);
+    }
+}
@@ -93,5 +93,10 @@ public class DrdsWriter extends Writer {
             this.commonRdbmsWriterTask.destroy(this.writerSliceConfig);
         }
 
+        @Override
+        public boolean supportFanOut() {
+            return CommonRdbmsWriter.Task.supportFanOut(super.getPluginJobConf());
+        }
+
     }
 }
@@ -92,6 +92,11 @@ public class MysqlReader extends Reader {
             this.commonRdbmsReaderTask.destroy(this.readerSliceConfig);
         }
 
+        @Override
+        public boolean supportSpeculation() {
+            return true;
+        }
+
     }
 
 }
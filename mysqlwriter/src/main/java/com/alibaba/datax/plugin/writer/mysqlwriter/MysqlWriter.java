@@ -44,6 +44,11 @@ public class MysqlWriter extends Writer {
             return this.commonRdbmsWriterJob.split(this.originalConfig, mandatoryNumber);
         }
 
+        @Override
+        public boolean supportResume() {
+            return this.commonRdbmsWriterJob.supportResume(this.originalConfig);
+        }
+
         // 一般来说，是需要推迟到 task 中进行post 的执行（单表情况例外）
         @Override
         public void post() {
@@ -95,6 +100,16 @@ public class MysqlWriter extends Writer {
             return "replace".equalsIgnoreCase(writeMode);
         }
 
+        @Override
+        public boolean supportFanOut() {
+            return CommonRdbmsWriter.Task.supportFanOut(super.getPluginJobConf());
+        }
+
+        @Override
+        public boolean supportSpeculation() {
+            return CommonRdbmsWriter.Task.supportSpeculation(super.getPluginJobConf());
+        }
+
     }
 
 
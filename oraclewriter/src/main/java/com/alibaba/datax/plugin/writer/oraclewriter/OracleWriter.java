@@ -99,6 +99,11 @@ public class OracleWriter extends Writer {
 			this.commonRdbmsWriterTask.destroy(this.writerSliceConfig);
 		}
 
+		@Override
+		public boolean supportFanOut() {
+			return CommonRdbmsWriter.Task.supportFanOut(super.getPluginJobConf());
+		}
+
 	}
 
 }
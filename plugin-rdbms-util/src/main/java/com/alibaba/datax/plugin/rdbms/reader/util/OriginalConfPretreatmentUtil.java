@@ -8,6 +8,7 @@ import com.alibaba.datax.plugin.rdbms.reader.Key;
 import com.alibaba.datax.plugin.rdbms.util.DBUtil;
 import com.alibaba.datax.plugin.rdbms.util.DBUtilErrorCode;
 import com.alibaba.datax.plugin.rdbms.util.DataBaseType;
+import com.alibaba.datax.plugin.rdbms.util.ParallelUtil;
 import com.alibaba.datax.plugin.rdbms.util.TableExpandUtil;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -15,6 +16,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 public final class OriginalConfPretreatmentUtil {
     private static final Logger LOG = LoggerFactory
@@ -62,18 +64,18 @@ public final class OriginalConfPretreatmentUtil {
     }
 
     private static void dealJdbcAndTable(Configuration originalConfig) {
-        String username = originalConfig.getString(Key.USERNAME);
-        String password = originalConfig.getString(Key.PASSWORD);
-        boolean checkSlave = originalConfig.getBool(Key.CHECK_SLAVE, false);
+        final String username = originalConfig.getString(Key.USERNAME);
+        final String password = originalConfig.getString(Key.PASSWORD);
+        final boolean checkSlave = originalConfig.getBool(Key.CHECK_SLAVE, false);
         boolean isTableMode = originalConfig.getBool(Constant.IS_TABLE_MODE);
-        boolean isPreCheck = originalConfig.getBool(Key.DRYRUN,false);
+        final boolean isPreCheck = originalConfig.getBool(Key.DRYRUN,false);
 
         List<Object> conns = originalConfig.getList(Constant.CONN_MARK,
                 Object.class);
-        List<String> preSql = originalConfig.getList(Key.PRE_SQL, String.class);
-
-        int tableNum = 0;
+        final List<String> preSql = originalConfig.getList(Key.PRE_SQL, String.class);
 
+        // 每个connection需要逐个尝试连接以选出可用的jdbcUrl，分库较多时并发进行
+        List<Callable<String>> chooseJdbcUrlTasks = new ArrayList<Callable<String>>();
         for (int i = 0, len = conns.size(); i < len; i++) {
             Configuration connConf = Configuration
                     .from(conns.get(i).toString());
@@ -81,19 +83,30 @@ public final class OriginalConfPretreatmentUtil {
             connConf.getNecessaryValue(Key.JDBC_URL,
                     DBUtilErrorCode.REQUIRED_VALUE);
 
-            List<String> jdbcUrls = connConf
+            final List<String> jdbcUrls = connConf
                     .getList(Key.JDBC_URL, String.class);
+            chooseJdbcUrlTasks.add(new Callable<String>() {
+                @Override
+                public String call() {
+                    if (isPreCheck) {
+                        return DBUtil.chooseJdbcUrlWithoutRetry(DATABASE_TYPE, jdbcUrls,
+                                username, password, preSql, checkSlave);
+                    } else {
+                        return DBUtil.chooseJdbcUrl(DATABASE_TYPE, jdbcUrls,
+                                username, password, preSql, checkSlave);
+                    }
+                }
+            });
+        }
+        List<String> chosenJdbcUrls = ParallelUtil.invokeAll(chooseJdbcUrlTasks);
 
-            String jdbcUrl;
-            if (isPreCheck) {
-                jdbcUrl = DBUtil.chooseJdbcUrlWithoutRetry(DATABASE_TYPE, jdbcUrls,
-                        username, password, preSql, checkSlave);
-            } else {
-                jdbcUrl = DBUtil.chooseJdbcUrl(DATABASE_TYPE, jdbcUrls,
-                        username, password, preSql, checkSlave);
-            }
+        int tableNum = 0;
+
+        for (int i = 0, len = conns.size(); i < len; i++) {
+            Configuration connConf = Configuration
+                    .from(conns.get(i).toString());
 
-            jdbcUrl = DATABASE_TYPE.appendJDBCSuffixForReader(jdbcUrl);
+            String jdbcUrl = DATABASE_TYPE.appendJDBCSuffixForReader(chosenJdbcUrls.get(i));
 
             // 回写到connection[i].jdbcUrl
             originalConfig.set(String.format("%s[%d].%s", Constant.CONN_MARK,
@@ -5,6 +5,7 @@ import com.alibaba.datax.common.util.Configuration;
 import com.alibaba.datax.plugin.rdbms.reader.Constant;
 import com.alibaba.datax.plugin.rdbms.reader.Key;
 import com.alibaba.datax.plugin.rdbms.util.DataBaseType;
+import com.alibaba.datax.plugin.rdbms.util.ParallelUtil;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
@@ -12,6 +13,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 public final class ReaderSplitUtil {
     private static final Logger LOG = LoggerFactory
@@ -34,6 +36,9 @@ public final class ReaderSplitUtil {
         List<Object> conns = originalSliceConfig.getList(Constant.CONN_MARK, Object.class);
 
         List<Configuration> splittedConfigs = new ArrayList<Configuration>();
+        // 按主键切分需要查询每个表的主键范围，表较多时并发查询，结果仍按配置中表的顺序排列
+        List<Callable<List<Configuration>>> splitTableTasks = new ArrayList<Callable<List<Configuration>>>();
+        boolean hasSplitQuery = false;
 
         for (int i = 0, len = conns.size(); i < len; i++) {
             Configuration sliceConfig = originalSliceConfig.clone();
@@ -71,14 +76,18 @@ public final class ReaderSplitUtil {
                         eachTableShouldSplittedNumber = eachTableShouldSplittedNumber * 5;
                     }
                     // 尝试对每个表，切分为eachTableShouldSplittedNumber 份
+                    final int splitNumber = eachTableShouldSplittedNumber;
+                    hasSplitQuery = true;
                     for (String table : tables) {
-                        tempSlice = sliceConfig.clone();
-                        tempSlice.set(Key.TABLE, table);
-
-                        List<Configuration> splittedSlices = SingleTableSplitUtil
-                                .splitSingleTable(tempSlice, eachTableShouldSplittedNumber);
-
-                        splittedConfigs.addAll(splittedSlices);
+                        final Configuration tableSlice = sliceConfig.clone();
+                        tableSlice.set(Key.TABLE, table);
+
+                        splitTableTasks.add(new Callable<List<Configuration>>() {
+                            @Override
+                            public List<Configuration> call() {
+                                return SingleTableSplitUtil.splitSingleTable(tableSlice, splitNumber);
+                            }
+                        });
                     }
                 } else {
                     for (String table : tables) {
@@ -86,7 +95,7 @@ public final class ReaderSplitUtil {
                         tempSlice.set(Key.TABLE, table);
                         String queryColumn = HintUtil.buildQueryColumn(jdbcUrl, table, column);
                         tempSlice.set(Key.QUERY_SQL, SingleTableSplitUtil.buildQuerySql(queryColumn, table, where));
-                        splittedConfigs.add(tempSlice);
+                        splitTableTasks.add(completed(tempSlice));
                     }
                 }
             } else {
@@ -97,15 +106,30 @@ public final class ReaderSplitUtil {
                 for (String querySql : sqls) {
                     tempSlice = sliceConfig.clone();
                     tempSlice.set(Key.QUERY_SQL, querySql);
-                    splittedConfigs.add(tempSlice);
+                    splitTableTasks.add(completed(tempSlice));
                 }
             }
 
         }
 
+        for (List<Configuration> splittedSlices : ParallelUtil.invokeAll(splitTableTasks,
+                hasSplitQuery ? ParallelUtil.MAX_CONCURRENCY : 1)) {
+            splittedConfigs.addAll(splittedSlices);
+        }
         return splittedConfigs;
     }
 
+    private static Callable<List<Configuration>> completed(Configuration slice) {
+        final List<Configuration> slices = new ArrayList<Configuration>(1);
+        slices.add(slice);
+        return new Callable<List<Configuration>>() {
+            @Override
+            public List<Configuration> call() {
+                return slices;
+            }
+        };
+    }
+
     public static Configuration doPreCheckSplit(Configuration originalSliceConfig) {
         Configuration queryConfig = originalSliceConfig.clone();
         boolean isTableMode = originalSliceConfig.getBool(Constant.IS_TABLE_MODE).booleanValue();
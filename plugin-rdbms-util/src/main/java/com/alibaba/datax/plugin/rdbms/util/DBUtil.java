@@ -780,6 +780,14 @@ public final class DBUtil {
         }
     }
     
+    /**
+     * 关闭当前线程 asyncResultSetNext 使用的线程，供临时线程结束前调用
+     */
+    public static void releaseAsyncExecutor() {
+        rsExecutors.get().shutdownNow();
+        rsExecutors.remove();
+    }
+
     public static void loadDriverClass(String pluginType, String pluginName) {
         try {
             String pluginJsonPath = StringUtils.join(
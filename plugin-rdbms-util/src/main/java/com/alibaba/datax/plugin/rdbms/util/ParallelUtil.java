@@ -0,0 +1,96 @@
+package com.alibaba.datax.plugin.rdbms.util;
+
+import com.alibaba.datax.common.exception.DataXException;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Job 阶段按连接、按表逐个访问数据库的操作（选择可用 jdbcUrl、检查权限、查询切分主键范围等）并发执行，
+ * 库、表很多时缩短 init/split 的耗时
+ */
+public final class ParallelUtil {
+
+    /**
+     * 同时访问数据库的最大并发数，与 preCheck 一致
+     */
+    public static final int MAX_CONCURRENCY = 10;
+
+    private ParallelUtil() {
+    }
+
+    public static <T> List<T> invokeAll(List<? extends Callable<T>> tasks) {
+        return invokeAll(tasks, MAX_CONCURRENCY);
+    }
+
+    /**
+     * 并发执行 tasks，按 tasks 的顺序返回结果；只有一个 task 或 maxConcurrency 为 1 时在当前线程执行。
+     * 有 task 失败时抛出排在最前面的失败 task 的异常
+     */
+    public static <T> List<T> invokeAll(List<? extends Callable<T>> tasks, int maxConcurrency) {
+        List<T> results = new ArrayList<T>(tasks.size());
+        if (tasks.size() <= 1 || maxConcurrency <= 1) {
+            for (Callable<T> task : tasks) {
+                results.add(call(task));
+            }
+            return results;
+        }
+
+        // 线程继承当前线程的 contextClassLoader，即插件的 JarLoader
+        ExecutorService exec = Executors.newFixedThreadPool(Math.min(tasks.size(), maxConcurrency),
+                new ThreadFactoryBuilder().setNameFormat("rdbms-parallel-%d").setDaemon(true).build());
+        try {
+            List<Callable<T>> releasingTasks = new ArrayList<Callable<T>>(tasks.size());
+            for (final Callable<T> task : tasks) {
+                releasingTasks.add(new Callable<T>() {
+                    @Override
+                    public T call() throws Exception {
+                        try {
+                            return task.call();
+                        } finally {
+                            DBUtil.releaseAsyncExecutor();
+                        }
+                    }
+                });
+            }
+            List<Future<T>> futures = exec.invokeAll(releasingTasks);
+            for (Future<T> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    throw asRuntimeException(e.getCause());
+                }
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw DataXException.asDataXException(DBUtilErrorCode.SQL_EXECUTE_FAIL, e);
+        } finally {
+            exec.shutdownNow();
+        }
+    }
+
+    private static <T> T call(Callable<T> task) {
+        try {
+            return task.call();
+        } catch (Exception e) {
+            throw asRuntimeException(e);
+        }
+    }
+
+    private static RuntimeException asRuntimeException(Throwable e) {
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return DataXException.asDataXException(DBUtilErrorCode.SQL_EXECUTE_FAIL, e);
+    }
+}
@@ -4,11 +4,13 @@ import com.alibaba.datax.common.element.Column;
 import com.alibaba.datax.common.element.Record;
 import com.alibaba.datax.common.exception.DataXException;
 import com.alibaba.datax.common.plugin.RecordReceiver;
+import com.alibaba.datax.common.plugin.RecyclingRecordReceiver;
 import com.alibaba.datax.common.plugin.TaskPluginCollector;
 import com.alibaba.datax.common.util.Configuration;
 import com.alibaba.datax.plugin.rdbms.util.DBUtil;
 import com.alibaba.datax.plugin.rdbms.util.DBUtilErrorCode;
 import com.alibaba.datax.plugin.rdbms.util.DataBaseType;
+import com.alibaba.datax.plugin.rdbms.util.ParallelUtil;
 import com.alibaba.datax.plugin.rdbms.util.RdbmsException;
 import com.alibaba.datax.plugin.rdbms.writer.util.OriginalConfPretreatmentUtil;
 import com.alibaba.datax.plugin.rdbms.writer.util.WriterUtil;
@@ -23,6 +25,7 @@ import java.sql.SQLException;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 public class CommonRdbmsWriter {
 
@@ -58,30 +61,49 @@ public class CommonRdbmsWriter {
             WriterUtil.preCheckPostSQL(originalConfig, dataBaseType);
         }
 
-        public void privilegeValid(Configuration originalConfig, DataBaseType dataBaseType) {
-            /*检查insert 跟delete权限*/
-            String username = originalConfig.getString(Key.USERNAME);
-            String password = originalConfig.getString(Key.PASSWORD);
+        public void privilegeValid(Configuration originalConfig, final DataBaseType dataBaseType) {
+            /*检查insert 跟delete权限，多个连接并发检查*/
+            final String username = originalConfig.getString(Key.USERNAME);
+            final String password = originalConfig.getString(Key.PASSWORD);
+            final boolean needCheckDeletePrivilege = DBUtil.needCheckDeletePrivilege(originalConfig);
             List<Object> connections = originalConfig.getList(Constant.CONN_MARK,
                     Object.class);
 
+            List<Callable<Void>> checkTasks = new ArrayList<Callable<Void>>();
             for (int i = 0, len = connections.size(); i < len; i++) {
                 Configuration connConf = Configuration.from(connections.get(i).toString());
-                String jdbcUrl = connConf.getString(Key.JDBC_URL);
-                List<String> expandedTables = connConf.getList(Key.TABLE, String.class);
-                boolean hasInsertPri = DBUtil.checkInsertPrivilege(dataBaseType, jdbcUrl, username, password, expandedTables);
-
-                if (!hasInsertPri) {
-                    throw RdbmsException.asInsertPriException(dataBaseType, originalConfig.getString(Key.USERNAME), jdbcUrl);
-                }
+                final String jdbcUrl = connConf.getString(Key.JDBC_URL);
+                final List<String> expandedTables = connConf.getList(Key.TABLE, String.class);
+                checkTasks.add(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        boolean hasInsertPri = DBUtil.checkInsertPrivilege(dataBaseType, jdbcUrl, username, password, expandedTables);
+
+                        if (!hasInsertPri) {
+                            throw RdbmsException.asInsertPriException(dataBaseType, username, jdbcUrl);
+                        }
 
-                if (DBUtil.needCheckDeletePrivilege(originalConfig)) {
-                    boolean hasDeletePri = DBUtil.checkDeletePrivilege(dataBaseType, jdbcUrl, username, password, expandedTables);
-                    if (!hasDeletePri) {
-                        throw RdbmsException.asDeletePriException(dataBaseType, originalConfig.getString(Key.USERNAME), jdbcUrl);
+                        if (needCheckDeletePrivilege) {
+                            boolean hasDeletePri = DBUtil.checkDeletePrivilege(dataBaseType, jdbcUrl, username, password, expandedTables);
+                            if (!hasDeletePri) {
+                                throw RdbmsException.asDeletePriException(dataBaseType, username, jdbcUrl);
+                            }
+                        }
+                        return null;
                     }
-                }
+                });
             }
+            ParallelUtil.invokeAll(checkTasks);
+        }
+
+        /**
+         * 没有preSql，且以replace/update方式按主键覆盖写入时，重跑切分不会产生重复数据
+         */
+        public boolean supportResume(Configuration originalConfig) {
+            List<String> preSqls = originalConfig.getList(Key.PRE_SQL, String.class);
+            String writeMode = originalConfig.getString(Key.WRITE_MODE, "INSERT").trim().toLowerCase();
+            return (preSqls == null || preSqls.isEmpty())
+                    && (writeMode.startsWith("replace") || writeMode.startsWith("update"));
         }
 
         // 一般来说，是需要推迟到 task 中进行pre 的执行（单表情况例外）
@@ -289,12 +311,14 @@ public class CommonRdbmsWriter {
 
                     if (writeBuffer.size() >= batchSize || bufferBytes >= batchByteSize) {
                         doBatchInsert(connection, writeBuffer);
+                        recycle(recordReceiver, writeBuffer);
                         writeBuffer.clear();
                         bufferBytes = 0;
                     }
                 }
                 if (!writeBuffer.isEmpty()) {
                     doBatchInsert(connection, writeBuffer);
+                    recycle(recordReceiver, writeBuffer);
                     writeBuffer.clear();
                     bufferBytes = 0;
                 }
@@ -308,6 +332,17 @@ public class CommonRdbmsWriter {
             }
         }
 
+        // 批次写入完成后不再持有这些record，归还给框架复用
+        private void recycle(RecordReceiver recordReceiver, List<Record> buffer) {
+            if (!(recordReceiver instanceof RecyclingRecordReceiver)) {
+                return;
+            }
+            RecyclingRecordReceiver recyclingReceiver = (RecyclingRecordReceiver) recordReceiver;
+            for (Record record : buffer) {
+                recyclingReceiver.recycle(record);
+            }
+        }
+
         // TODO 改用连接池，确保每次获取的连接都是可用的（注意：连接可能需要每次都初始化其 session）
         public void startWrite(RecordReceiver recordReceiver,
                                Configuration writerSliceConfig,
@@ -341,6 +376,30 @@ public class CommonRdbmsWriter {
         public void destroy(Configuration writerSliceConfig) {
         }
 
+        /**
+         * 单表时preSql/postSql由Job执行，Task只做插入并按batch各自提交，可以多个Task共享一个channel并行写入；
+         * replace/update的结果依赖写入顺序，不支持
+         */
+        public static boolean supportFanOut(Configuration writerSliceConfig) {
+            int tableNumber = writerSliceConfig.getInt(Constant.TABLE_NUMBER_MARK, 1);
+            String writeMode = writerSliceConfig.getString(Key.WRITE_MODE, "INSERT");
+            return tableNumber == 1 && writeMode.trim().toLowerCase().startsWith("insert");
+        }
+
+        /**
+         * 以replace/update方式按主键覆盖写入，且Task不执行preSql/postSql（单表时由Job执行）时，
+         * 同一切分可以由两个Task同时写入
+         */
+        public static boolean supportSpeculation(Configuration writerSliceConfig) {
+            int tableNumber = writerSliceConfig.getInt(Constant.TABLE_NUMBER_MARK, 1);
+            List<String> preSqls = writerSliceConfig.getList(Key.PRE_SQL, String.class);
+            List<String> postSqls = writerSliceConfig.getList(Key.POST_SQL, String.class);
+            String writeMode = writerSliceConfig.getString(Key.WRITE_MODE, "INSERT").trim().toLowerCase();
+            return (tableNumber == 1 || ((preSqls == null || preSqls.isEmpty())
+                    && (postSqls == null || postSqls.isEmpty())))
+                    && (writeMode.startsWith("replace") || writeMode.startsWith("update"));
+        }
+
         protected void doBatchInsert(Connection connection, List<Record> buffer)
                 throws SQLException {
             PreparedStatement preparedStatement = null;
@@ -95,6 +95,11 @@ public class PostgresqlWriter extends Writer {
 			this.commonRdbmsWriterSlave.destroy(this.writerSliceConfig);
 		}
 
+		@Override
+		public boolean supportFanOut() {
+			return CommonRdbmsWriter.Task.supportFanOut(super.getPluginJobConf());
+		}
+
 	}
 
 }
@@ -93,6 +93,11 @@ public class RdbmsWriter extends Writer {
             this.commonRdbmsWriterSlave.destroy(this.writerSliceConfig);
         }
 
+        @Override
+        public boolean supportFanOut() {
+            return CommonRdbmsWriter.Task.supportFanOut(super.getPluginJobConf());
+        }
+
     }
 
 }
\ No newline at end of file
@@ -92,6 +92,11 @@ public class SqlServerWriter extends Writer {
             this.commonRdbmsWriterTask.destroy(this.writerSliceConfig);
         }
 
+        @Override
+        public boolean supportFanOut() {
+            return CommonRdbmsWriter.Task.supportFanOut(super.getPluginJobConf());
+        }
+
     }
 
 }
@@ -237,6 +237,11 @@ public class StreamReader extends Reader {
 		@Override
 		public void destroy() {
 		}
+
+		@Override
+		public boolean supportSpeculation() {
+			return true;
+		}
 		
 		private Column buildOneColumn(Configuration eachColumnConfig) throws Exception {
 		    String columnValue = eachColumnConfig
@@ -5,6 +5,7 @@ import com.alibaba.datax.common.element.Column;
 import com.alibaba.datax.common.element.Record;
 import com.alibaba.datax.common.exception.DataXException;
 import com.alibaba.datax.common.plugin.RecordReceiver;
+import com.alibaba.datax.common.plugin.RecyclingRecordReceiver;
 import com.alibaba.datax.common.spi.Writer;
 import com.alibaba.datax.common.util.Configuration;
 import org.apache.commons.io.FileUtils;
@@ -144,6 +145,14 @@ public class StreamWriter extends Writer {
         public void prepare() {
         }
 
+        /**
+         * 写文件时每个切分对应一个文件，不能多个Task同时写；输出到控制台时可以
+         */
+        @Override
+        public boolean supportFanOut() {
+            return StringUtils.isBlank(getPluginJobConf().getString(Key.PATH, null));
+        }
+
         @Override
         public void startWrite(RecordReceiver recordReceiver) {
 
@@ -162,6 +171,7 @@ public class StreamWriter extends Writer {
                             } else {
                         /* do nothing */
                             }
+                            recycle(recordReceiver, record);
                         }
                         writer.flush();
 
@@ -171,6 +181,13 @@ public class StreamWriter extends Writer {
                 }
         }
 
+        // 输出后不再持有record，框架支持时归还复用
+        private void recycle(RecordReceiver recordReceiver, Record record) {
+            if (recordReceiver instanceof RecyclingRecordReceiver) {
+                ((RecyclingRecordReceiver) recordReceiver).recycle(record);
+            }
+        }
+
         private void writeToFile(RecordReceiver recordReceiver, String path, String fileName,
                                  long recordNumBeforSleep, long sleepTime) {
 
@@ -196,6 +213,7 @@ public class StreamWriter extends Writer {
                         }
                     }
                    writer.write(recordToString(record));
+                   recycle(recordReceiver, record);
                    count++;
                 }
                 writer.flush();
@@ -1,5 +1,6 @@
 package com.alibaba.datax.plugin.reader.txtfilereader;
 
+import com.alibaba.datax.common.constant.CommonConstant;
 import com.alibaba.datax.common.exception.DataXException;
 import com.alibaba.datax.common.plugin.RecordSender;
 import com.alibaba.datax.common.spi.Reader;
@@ -229,6 +230,12 @@ public class TxtFileReader extends Reader {
 			for (List<String> files : splitedSourceFiles) {
 				Configuration splitedConfig = this.originConfig.clone();
 				splitedConfig.set(Constant.SOURCE_FILES, files);
+				// 以文件大小作为数据量估计，供core按数据量均衡分配task
+				long splitSize = 0;
+				for (String file : files) {
+					splitSize += new File(file).length();
+				}
+				splitedConfig.set(CommonConstant.SPLIT_SIZE_HINT, splitSize);
 				readerSplitConfigs.add(splitedConfig);
 			}
 			LOG.debug("split() ok and end...");